@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.SnowflakeSQLException;
+import net.snowflake.client.jdbc.SnowflakeUtil;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Driver wide poller of the queries submitted asynchronously.
+ * <p>
+ * All the pending queries are tracked in one place. A single scheduler
+ * thread sweeps them every {@link #SWEEP_INTERVAL_MILLIS} ms and collects
+ * the queries due for a status check. The due queries of a session are
+ * checked together by one worker, against the query monitoring service,
+ * which answers right away instead of holding the request until the query
+ * completes. A query is checked often while it is young and less and less
+ * as it ages, so long running queries cost few requests. The result of a
+ * query is only fetched once its status says it is done, in a task of its
+ * own, so a large result doesn't hold up the status checks of the other
+ * queries.
+ * <p>
+ * If the status of a query can't be obtained, is unknown to the driver or
+ * stays NO_DATA for {@link #MAX_NO_DATA_CHECKS} checks, the query falls back
+ * to get-result calls.
+ * <p>
+ * The worker pool size can be set by JVM property
+ * net.snowflake.jdbc.asyncQueryPollerPoolSize. Idle threads time out and
+ * the sweep stops when no query is pending.
+ */
+class AsyncQueryPoller
+{
+  private static final SFLogger logger =
+      SFLoggerFactory.getLogger(AsyncQueryPoller.class);
+
+  static final String ASYNC_QUERY_POLLER_POOL_SIZE_JVM =
+      "net.snowflake.jdbc.asyncQueryPollerPoolSize";
+
+  private static final int DEFAULT_POOL_SIZE = 4;
+
+  // idle time after which a worker thread exits
+  private static final long WORKER_KEEP_ALIVE_SECS = 60;
+
+  static final long SWEEP_INTERVAL_MILLIS = 50;
+
+  // bounds of the interval between two status checks of a query
+  static final long MIN_POLL_INTERVAL_MILLIS = 100;
+
+  static final long MAX_POLL_INTERVAL_MILLIS = 5000;
+
+  // NO_DATA answers after which the status of a query is deemed unavailable
+  static final int MAX_NO_DATA_CHECKS = 10;
+
+  // a query is checked again after this fraction of its age
+  private static final int POLL_INTERVAL_AGE_DIVISOR = 10;
+
+  /**
+   * Calls to the server made by the poller
+   */
+  interface QueryClient
+  {
+    QueryStatus getQueryStatus(String queryId, StmtUtil.StmtInput stmtInput)
+    throws SFException, SnowflakeSQLException;
+
+    JsonNode getQueryResultIfDone(String getResultPath,
+                                  StmtUtil.StmtInput stmtInput)
+    throws SFException, SnowflakeSQLException;
+
+    void cancel(StmtUtil.StmtInput stmtInput)
+    throws SFException, SnowflakeSQLException;
+  }
+
+  private static final QueryClient STMT_UTIL_CLIENT = new QueryClient()
+  {
+    @Override
+    public QueryStatus getQueryStatus(String queryId,
+                                      StmtUtil.StmtInput stmtInput)
+    throws SFException, SnowflakeSQLException
+    {
+      return StmtUtil.getQueryStatus(queryId, stmtInput);
+    }
+
+    @Override
+    public JsonNode getQueryResultIfDone(String getResultPath,
+                                         StmtUtil.StmtInput stmtInput)
+    throws SFException, SnowflakeSQLException
+    {
+      return StmtUtil.getQueryResultIfDone(getResultPath, stmtInput);
+    }
+
+    @Override
+    public void cancel(StmtUtil.StmtInput stmtInput)
+    throws SFException, SnowflakeSQLException
+    {
+      StmtUtil.cancel(stmtInput);
+    }
+  };
+
+  private static final AsyncQueryPoller INSTANCE =
+      new AsyncQueryPoller(
+          SnowflakeUtil.getPositiveIntProperty(
+              ASYNC_QUERY_POLLER_POOL_SIZE_JVM, DEFAULT_POOL_SIZE),
+          STMT_UTIL_CLIENT);
+
+  private final QueryClient client;
+
+  private final ThreadPoolExecutor executor;
+
+  private final ScheduledExecutorService scheduler;
+
+  private final Set<PendingQuery> pendingQueries =
+      ConcurrentHashMap.newKeySet();
+
+  private final AtomicBoolean sweepScheduled = new AtomicBoolean(false);
+
+  AsyncQueryPoller(int poolSize, QueryClient client)
+  {
+    this.client = client;
+    executor = new ThreadPoolExecutor(
+        poolSize, poolSize,
+        WORKER_KEEP_ALIVE_SECS, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        SnowflakeUtil.createDaemonThreadFactory("async-query-poller-"));
+    executor.allowCoreThreadTimeOut(true);
+
+    ScheduledThreadPoolExecutor sweeper = new ScheduledThreadPoolExecutor(
+        1, SnowflakeUtil.createDaemonThreadFactory("async-query-sweeper-"));
+    sweeper.setKeepAliveTime(WORKER_KEEP_ALIVE_SECS, TimeUnit.SECONDS);
+    sweeper.allowCoreThreadTimeOut(true);
+    scheduler = sweeper;
+  }
+
+  static AsyncQueryPoller getInstance()
+  {
+    return INSTANCE;
+  }
+
+  /**
+   * Interval until the next status check of a query
+   *
+   * @param ageNanos time since the query was submitted
+   * @return interval in nanoseconds
+   */
+  static long pollIntervalNanos(long ageNanos)
+  {
+    return Math.min(TimeUnit.MILLISECONDS.toNanos(MAX_POLL_INTERVAL_MILLIS),
+                    Math.max(TimeUnit.MILLISECONDS.toNanos(
+                        MIN_POLL_INTERVAL_MILLIS),
+                             ageNanos / POLL_INTERVAL_AGE_DIVISOR));
+  }
+
+  /**
+   * @return number of queries waiting for a status check or their result
+   */
+  int getPendingQueryCount()
+  {
+    return pendingQueries.size();
+  }
+
+  /**
+   * Poll a submitted query until it completes
+   *
+   * @param statement      statement that submitted the query
+   * @param queryId        query ID
+   * @param requestId      request ID of the submission, used to cancel it
+   * @param sql            sql text, used to cancel the query
+   * @param getResultPath  path of the result of the query
+   * @param timeoutSeconds query timeout, 0 if none
+   * @return future result set of the query. Canceling the future cancels
+   * the query.
+   */
+  CompletableFuture<SFBaseResultSet> poll(SFStatement statement,
+                                          String queryId,
+                                          String requestId,
+                                          String sql,
+                                          String getResultPath,
+                                          int timeoutSeconds)
+  {
+    PendingQuery query = new PendingQuery(statement, queryId, requestId, sql,
+                                          getResultPath);
+    QueryTimeoutTimer.Timeout timeout = timeoutSeconds > 0 ?
+        QueryTimeoutTimer.getInstance().schedule(query::timeout,
+                                                 timeoutSeconds,
+                                                 TimeUnit.SECONDS) : null;
+    query.future.whenComplete((resultSet, ex) ->
+                              {
+                                pendingQueries.remove(query);
+                                if (timeout != null)
+                                {
+                                  timeout.cancel();
+                                }
+                                if (query.future.isCancelled())
+                                {
+                                  executor.execute(query::cancelQuery);
+                                }
+                              });
+    pendingQueries.add(query);
+    scheduleSweep();
+    return query.future;
+  }
+
+  private void scheduleSweep()
+  {
+    if (sweepScheduled.compareAndSet(false, true))
+    {
+      scheduler.schedule(this::sweep, SWEEP_INTERVAL_MILLIS,
+                         TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Collect the queries due for a status check and hand them, grouped by
+   * session, over to the workers
+   */
+  private void sweep()
+  {
+    long now = System.nanoTime();
+    Map<SFSession, List<PendingQuery>> dueQueries = new HashMap<>();
+
+    for (PendingQuery query : pendingQueries)
+    {
+      if (query.inFlight || now - query.nextCheck < 0)
+      {
+        continue;
+      }
+      query.inFlight = true;
+      dueQueries.computeIfAbsent(query.session, s -> new ArrayList<>())
+          .add(query);
+    }
+
+    for (List<PendingQuery> queries : dueQueries.values())
+    {
+      executor.execute(() -> checkStatus(queries));
+    }
+
+    sweepScheduled.set(false);
+    if (!pendingQueries.isEmpty())
+    {
+      scheduleSweep();
+    }
+  }
+
+  /**
+   * Check the status of the due queries of a session
+   *
+   * @param queries queries of the same session
+   */
+  private void checkStatus(List<PendingQuery> queries)
+  {
+    for (PendingQuery query : queries)
+    {
+      if (query.future.isDone())
+      {
+        continue;
+      }
+      try
+      {
+        if (query.statusUnavailable)
+        {
+          // fallback, the get-result call returns the result when done
+          JsonNode result = client.getQueryResultIfDone(query.getResultPath,
+                                                        query.stmtInput);
+          if (result == null)
+          {
+            query.checkLater();
+          }
+          else
+          {
+            executor.execute(() -> query.complete(result));
+          }
+          continue;
+        }
+
+        QueryStatus status = client.getQueryStatus(query.queryId,
+                                                   query.stmtInput);
+        if (status == null)
+        {
+          query.fallBackToGetResult("unknown status");
+        }
+        else if (status == QueryStatus.NO_DATA &&
+                 ++query.noDataCount >= MAX_NO_DATA_CHECKS)
+        {
+          query.fallBackToGetResult("no status data after " +
+                                    query.noDataCount + " checks");
+        }
+        else if (status.isStillRunning())
+        {
+          query.checkLater();
+        }
+        else
+        {
+          logger.debug("query {} done with status {}", query.queryId, status);
+          executor.execute(query::fetchResult);
+        }
+      }
+      catch (SnowflakeSQLException ex)
+      {
+        if (ex.getErrorCode() == Constants.SESSION_EXPIRED_GS_CODE &&
+            query.renewSession())
+        {
+          query.checkLater();
+        }
+        else if (!query.statusUnavailable)
+        {
+          query.fallBackToGetResult(ex.getMessage());
+        }
+        else
+        {
+          query.future.completeExceptionally(ex);
+        }
+      }
+      catch (SFException ex)
+      {
+        if (!query.statusUnavailable)
+        {
+          query.fallBackToGetResult(ex.getMessage());
+        }
+        else
+        {
+          query.future.completeExceptionally(ex);
+        }
+      }
+      catch (Throwable ex)
+      {
+        query.future.completeExceptionally(ex);
+      }
+    }
+  }
+
+  /**
+   * A query waiting for its result
+   */
+  private class PendingQuery
+  {
+    private final CompletableFuture<SFBaseResultSet> future =
+        new CompletableFuture<>();
+
+    private final SFStatement statement;
+
+    private final SFSession session;
+
+    private final String queryId;
+
+    private final String getResultPath;
+
+    private final StmtUtil.StmtInput stmtInput;
+
+    private final long submitted = System.nanoTime();
+
+    // time of the next status check in nanoTime
+    private volatile long nextCheck;
+
+    // true while a worker checks the query or fetches its result
+    private volatile boolean inFlight = false;
+
+    private volatile boolean statusUnavailable = false;
+
+    // NO_DATA answers so far, only updated by the worker checking the query
+    private int noDataCount = 0;
+
+    private final AtomicBoolean canceled = new AtomicBoolean(false);
+
+    PendingQuery(SFStatement statement,
+                 String queryId,
+                 String requestId,
+                 String sql,
+                 String getResultPath)
+    {
+      this.statement = statement;
+      this.session = statement.getSession();
+      this.queryId = queryId;
+      this.getResultPath = getResultPath;
+      this.stmtInput = new StmtUtil.StmtInput()
+          .setServerUrl(session.getServerUrl())
+          .setSql(sql)
+          .setRequestId(requestId)
+          .setSessionToken(session.getSessionToken())
+          .setNetworkTimeoutInMillis(session.getNetworkTimeoutInMilli())
+          .setMediaType(StmtUtil.SF_MEDIA_TYPE)
+          .setServiceName(session.getServiceName())
+          .setCanceling(new AtomicBoolean(false));
+      this.nextCheck = submitted + pollIntervalNanos(0);
+    }
+
+    /**
+     * Schedule the next status check according to the age of the query
+     */
+    void checkLater()
+    {
+      long now = System.nanoTime();
+      nextCheck = now + pollIntervalNanos(now - submitted);
+      inFlight = false;
+    }
+
+    void fallBackToGetResult(String reason)
+    {
+      logger.debug("status of query {} not available, polling its result: {}",
+                   queryId, reason);
+      statusUnavailable = true;
+      checkLater();
+    }
+
+    void timeout()
+    {
+      logger.debug("query {} timed out", queryId);
+      cancelQuery();
+      future.completeExceptionally(new SFException(ErrorCode.QUERY_CANCELED));
+    }
+
+    /**
+     * Get the result of a query whose status says it is done
+     */
+    void fetchResult()
+    {
+      try
+      {
+        JsonNode result = client.getQueryResultIfDone(getResultPath,
+                                                      stmtInput);
+        if (result == null)
+        {
+          checkLater();
+          return;
+        }
+        complete(result);
+      }
+      catch (SnowflakeSQLException ex)
+      {
+        if (ex.getErrorCode() == Constants.SESSION_EXPIRED_GS_CODE &&
+            renewSession())
+        {
+          checkLater();
+          return;
+        }
+        future.completeExceptionally(ex);
+      }
+      catch (Throwable ex)
+      {
+        future.completeExceptionally(ex);
+      }
+    }
+
+    /**
+     * Create the result set and complete the future with it
+     *
+     * @param result result of the query in JSON
+     */
+    void complete(JsonNode result)
+    {
+      logger.debug("query {} completed", queryId);
+      try
+      {
+        SFBaseResultSet resultSet = statement.createAsyncResultSet(result);
+        if (!future.complete(resultSet))
+        {
+          // canceled meanwhile
+          resultSet.close();
+        }
+      }
+      catch (Throwable ex)
+      {
+        future.completeExceptionally(ex);
+      }
+    }
+
+    boolean renewSession()
+    {
+      try
+      {
+        session.renewSession(stmtInput.sessionToken);
+        stmtInput.setSessionToken(session.getSessionToken());
+        logger.debug("Session got renewed, will retry");
+        return true;
+      }
+      catch (SFException | SnowflakeSQLException ex)
+      {
+        logger.debug("failed to renew the session: {}", ex.getMessage());
+        return false;
+      }
+    }
+
+    /**
+     * Abort the query on the server, once
+     */
+    void cancelQuery()
+    {
+      if (!canceled.compareAndSet(false, true))
+      {
+        return;
+      }
+      stmtInput.canceling.set(true);
+      try
+      {
+        client.cancel(stmtInput);
+      }
+      catch (SFException | SnowflakeSQLException ex)
+      {
+        logger.debug("failed to cancel query {}: {}", queryId,
+                     ex.getMessage());
+      }
+    }
+  }
+}
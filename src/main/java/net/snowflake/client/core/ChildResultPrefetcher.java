@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.JsonResultChunk;
+import net.snowflake.client.jdbc.SnowflakeSQLException;
+import net.snowflake.client.jdbc.SnowflakeUtil;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+import net.snowflake.common.core.SqlState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Prefetcher of the child results of a multi-statement request.
+ * <p>
+ * The children used to be fetched one by one, each only when the caller
+ * moved to it, so a batch of statements paid one round trip per statement
+ * in turn. The prefetcher fetches the result JSON of the upcoming children,
+ * i.e. their metadata and first chunk, in the background while the caller
+ * reads the current one, and hands them off in order.
+ * <p>
+ * The look ahead is bounded:
+ * <ul>
+ * <li>at most as many fetches as the pool size are in flight per request
+ * </li>
+ * <li>no fetch is started once the results fetched and not consumed yet
+ * take net.snowflake.jdbc.childResultPrefetchMemoryLimit MB, 64 by default.
+ * The memory of a result is only known once it is fetched, so the limit
+ * can be exceeded by the results in flight.</li>
+ * </ul>
+ * The result the caller waits for is always fetched, by the caller itself
+ * if no worker has started it yet. The workers are shared by the driver,
+ * their number can be set by JVM property
+ * net.snowflake.jdbc.childResultPrefetchPoolSize.
+ */
+class ChildResultPrefetcher
+{
+  private static final SFLogger logger =
+      SFLoggerFactory.getLogger(ChildResultPrefetcher.class);
+
+  static final String CHILD_RESULT_PREFETCH_POOL_SIZE_JVM =
+      "net.snowflake.jdbc.childResultPrefetchPoolSize";
+
+  static final String CHILD_RESULT_PREFETCH_MEMORY_LIMIT_JVM =
+      "net.snowflake.jdbc.childResultPrefetchMemoryLimit";
+
+  private static final int DEFAULT_POOL_SIZE = 4;
+
+  // in MB
+  private static final long DEFAULT_MEMORY_LIMIT = 64;
+
+  // idle time after which a worker thread exits
+  private static final long WORKER_KEEP_ALIVE_SECS = 60;
+
+  private static final int POOL_SIZE =
+      SnowflakeUtil.getPositiveIntProperty(CHILD_RESULT_PREFETCH_POOL_SIZE_JVM,
+                                           DEFAULT_POOL_SIZE);
+
+  private static final long MEMORY_LIMIT =
+      SnowflakeUtil.getPositiveLongProperty(
+          CHILD_RESULT_PREFETCH_MEMORY_LIMIT_JVM, DEFAULT_MEMORY_LIMIT) *
+      1024 * 1024;
+
+  private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+  /**
+   * Fetcher of the result of a child query
+   */
+  @FunctionalInterface
+  interface ResultFetcher
+  {
+    JsonNode fetch(String queryId) throws SFException, SnowflakeSQLException;
+  }
+
+  private final Executor executor;
+
+  private final ResultFetcher fetcher;
+
+  private final int maxInFlight;
+
+  private final long memoryLimit;
+
+  private final List<Fetch> fetches;
+
+  // below fields are guarded by this
+  private int nextToConsume = 0;
+
+  private int nextToFetch = 0;
+
+  private int inFlight = 0;
+
+  private long bufferedMemory = 0;
+
+  private boolean closed = false;
+
+  /**
+   * Start prefetching the child results of a request
+   *
+   * @param session      the current session
+   * @param childResults child results, in the order they are consumed
+   */
+  ChildResultPrefetcher(SFSession session, List<SFChildResult> childResults)
+  {
+    this(childResults,
+         queryId -> StmtUtil.getQueryResultJSON(queryId, session),
+         EXECUTOR, POOL_SIZE, MEMORY_LIMIT);
+  }
+
+  ChildResultPrefetcher(List<SFChildResult> childResults,
+                        ResultFetcher fetcher,
+                        Executor executor,
+                        int maxInFlight,
+                        long memoryLimit)
+  {
+    this.fetcher = fetcher;
+    this.executor = executor;
+    this.maxInFlight = maxInFlight;
+    this.memoryLimit = memoryLimit;
+    this.fetches = new ArrayList<>(childResults.size());
+    for (SFChildResult childResult : childResults)
+    {
+      fetches.add(new Fetch(childResult.getId()));
+    }
+
+    logger.debug("prefetching {} child results, max in flight: {}, " +
+                 "memory limit: {}",
+                 fetches.size(), maxInFlight, memoryLimit);
+    scheduleFetches();
+  }
+
+  private static ThreadPoolExecutor createExecutor()
+  {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        POOL_SIZE, POOL_SIZE,
+        WORKER_KEEP_ALIVE_SECS, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        SnowflakeUtil.createDaemonThreadFactory("child-result-prefetch-"));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Estimate the memory taken by the rows of a result. The other fields of
+   * the result are small.
+   *
+   * @param result result in JSON
+   * @return estimated memory in bytes
+   */
+  static long estimateMemory(JsonNode result)
+  {
+    JsonNode data = result.path("data");
+
+    JsonNode rowset = data.path("rowset");
+    if (rowset.isPojo() &&
+        ((POJONode) rowset).getPojo() instanceof JsonResultChunk)
+    {
+      return ((JsonResultChunk) ((POJONode) rowset).getPojo())
+          .computeNeededChunkMemory();
+    }
+
+    JsonNode rowsetBase64 = data.path("rowsetBase64");
+    if (rowsetBase64.isBinary())
+    {
+      return ((BinaryNode) rowsetBase64).binaryValue().length;
+    }
+
+    // rows not parsed by QueryResponseParser
+    return rowsetBase64.asText().length() + rowset.toString().length();
+  }
+
+  /**
+   * @return true if there is a result left to consume
+   */
+  synchronized boolean hasNext()
+  {
+    return !closed && nextToConsume < fetches.size();
+  }
+
+  /**
+   * Get the next child result, waiting for it to be fetched
+   *
+   * @return the result in JSON
+   * @throws SFException           if the result can't be fetched
+   * @throws SnowflakeSQLException if the result can't be fetched
+   */
+  JsonNode next() throws SFException, SnowflakeSQLException
+  {
+    Fetch fetch;
+    synchronized (this)
+    {
+      if (!hasNext())
+      {
+        throw new SFException(ErrorCode.INTERNAL_ERROR,
+                              "No child result left to consume");
+      }
+
+      fetch = fetches.get(nextToConsume);
+      fetches.set(nextToConsume, null);
+      if (nextToConsume == nextToFetch)
+      {
+        // not scheduled yet, fetched below
+        nextToFetch++;
+        inFlight++;
+      }
+      nextToConsume++;
+      fetch.consumed = true;
+      bufferedMemory -= fetch.memory;
+    }
+
+    // look ahead while waiting for this result
+    scheduleFetches();
+
+    // no wait in the queue of the workers if none has started it yet
+    fetch.run();
+
+    try
+    {
+      return fetch.result.get();
+    }
+    catch (InterruptedException ex)
+    {
+      throw new SnowflakeSQLException(SqlState.QUERY_CANCELED,
+                                      ErrorCode.INTERRUPTED.getMessageCode());
+    }
+    catch (ExecutionException ex)
+    {
+      Throwable cause = ex.getCause();
+      if (cause instanceof SFException)
+      {
+        throw (SFException) cause;
+      }
+      if (cause instanceof SnowflakeSQLException)
+      {
+        throw (SnowflakeSQLException) cause;
+      }
+      throw new SFException(cause, ErrorCode.INTERNAL_ERROR,
+                            cause.getMessage());
+    }
+  }
+
+  /**
+   * Stop prefetching. The results being fetched are dropped once received.
+   */
+  synchronized void close()
+  {
+    if (closed)
+    {
+      return;
+    }
+    closed = true;
+
+    for (Fetch fetch : fetches)
+    {
+      if (fetch != null)
+      {
+        // a queued fetch won't run
+        fetch.started.set(true);
+        fetch.result.cancel(false);
+      }
+    }
+  }
+
+  private synchronized void scheduleFetches()
+  {
+    // the next result to consume is always fetched
+    while (!closed &&
+           nextToFetch < fetches.size() &&
+           inFlight < maxInFlight &&
+           (nextToFetch == nextToConsume || bufferedMemory < memoryLimit))
+    {
+      inFlight++;
+      executor.execute(fetches.get(nextToFetch++));
+    }
+  }
+
+  private void fetched(Fetch fetch, JsonNode result, long memory,
+                       Throwable error)
+  {
+    synchronized (this)
+    {
+      inFlight--;
+      if (result != null && !fetch.consumed && !closed)
+      {
+        fetch.memory = memory;
+        bufferedMemory += memory;
+      }
+    }
+
+    if (error != null)
+    {
+      fetch.result.completeExceptionally(error);
+    }
+    else
+    {
+      fetch.result.complete(result);
+    }
+
+    scheduleFetches();
+  }
+
+  /**
+   * Fetch of one child result, run by a worker or by the consumer
+   */
+  private final class Fetch implements Runnable
+  {
+    private final String queryId;
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private final CompletableFuture<JsonNode> result =
+        new CompletableFuture<>();
+
+    // below fields are guarded by the prefetcher
+    private boolean consumed = false;
+
+    // memory counted in bufferedMemory
+    private long memory = 0;
+
+    private Fetch(String queryId)
+    {
+      this.queryId = queryId;
+    }
+
+    @Override
+    public void run()
+    {
+      if (!started.compareAndSet(false, true))
+      {
+        return;
+      }
+
+      JsonNode json = null;
+      long memory = 0;
+      Throwable error = null;
+      try
+      {
+        logger.debug("fetching child result: {}", queryId);
+        json = fetcher.fetch(queryId);
+        memory = estimateMemory(json);
+      }
+      catch (Throwable ex)
+      {
+        error = ex;
+        json = null;
+      }
+      fetched(this, json, memory, error);
+    }
+  }
+}
@@ -23,6 +23,15 @@ public interface ChunkDownloader
   SnowflakeResultChunk getNextChunkToConsume()
   throws InterruptedException, SnowflakeSQLException;
 
+  /**
+   * Prepare the chunks for client side sorting: the chunks returned are no
+   * longer freed by the downloader, and their rows are sorted as soon as they
+   * are loaded. Must be called before the first chunk is requested.
+   *
+   * @param context conversion context of the result set
+   */
+  void enableSorting(DataConversionContext context);
+
   /**
    * Terminate the chunk downloader, release all resources allocated
    *
@@ -406,6 +406,54 @@ public class HttpUtil
         true);
   }
 
+  /**
+   * Reader of the content of a successful response
+   *
+   * @param <T> type of the response read from the content
+   */
+  @FunctionalInterface
+  interface ResponseContentReader<T>
+  {
+    T read(InputStream content) throws IOException;
+  }
+
+  /**
+   * Executes a HTTP request with retry and reads the content of the response
+   * as it arrives, instead of copying it to a String first.
+   * <p>
+   * Connection under the httpRequest is released.
+   *
+   * @param httpRequest            request object contains all the information
+   * @param retryTimeout           retry timeout (in seconds)
+   * @param injectSocketTimeout    simulate socket timeout
+   * @param canceling              canceling flag
+   * @param includeRetryParameters whether to include retry parameters in
+   *                               retried requests
+   * @param contentReader          reader of the response content
+   * @param <T>                    type of the response read from the content
+   * @return response read by the content reader
+   * @throws SnowflakeSQLException if Snowflake error occurs
+   * @throws IOException           raises if a general IO error occurs
+   */
+  static <T> T executeRequest(HttpRequestBase httpRequest,
+                              int retryTimeout,
+                              int injectSocketTimeout,
+                              AtomicBoolean canceling,
+                              boolean includeRetryParameters,
+                              ResponseContentReader<T> contentReader)
+  throws SnowflakeSQLException, IOException
+  {
+    return executeRequestInternal(
+        httpRequest,
+        retryTimeout,
+        injectSocketTimeout,
+        canceling,
+        false,
+        includeRetryParameters,
+        true,
+        contentReader);
+  }
+
   /**
    * Helper to execute a request with retry and check and throw exception if
    * response is not success.
@@ -434,6 +482,33 @@ public class HttpUtil
                                                boolean includeRetryParameters,
                                                boolean includeRequestGuid)
   throws SnowflakeSQLException, IOException
+  {
+    return executeRequestInternal(
+        httpRequest,
+        retryTimeout,
+        injectSocketTimeout,
+        canceling,
+        withoutCookies,
+        includeRetryParameters,
+        includeRequestGuid,
+        content ->
+        {
+          StringWriter writer = new StringWriter();
+          IOUtils.copy(content, writer, "UTF-8");
+          return writer.toString();
+        });
+  }
+
+  private static <T> T executeRequestInternal(
+      HttpRequestBase httpRequest,
+      int retryTimeout,
+      int injectSocketTimeout,
+      AtomicBoolean canceling,
+      boolean withoutCookies,
+      boolean includeRetryParameters,
+      boolean includeRequestGuid,
+      ResponseContentReader<T> contentReader)
+  throws SnowflakeSQLException, IOException
   {
     // HttpRequest.toString() contains request URI. Scrub any credentials, if
     // present, before logging
@@ -444,8 +519,7 @@ public class HttpUtil
                  (ArgSupplier) HttpUtil::getHttpClientStats,
                  requestInfoScrubbed);
 
-    String theString;
-    StringWriter writer = null;
+    T theResponse;
     CloseableHttpResponse response = null;
     try
     {
@@ -478,17 +552,13 @@ public class HttpUtil
                                            "null response"));
       }
 
-      writer = new StringWriter();
       try (InputStream ins = response.getEntity().getContent())
       {
-        IOUtils.copy(ins, writer, "UTF-8");
+        theResponse = contentReader.read(ins);
       }
-
-      theString = writer.toString();
     }
     finally
     {
-      IOUtils.closeQuietly(writer);
       IOUtils.closeQuietly(response);
     }
 
@@ -497,7 +567,7 @@ public class HttpUtil
         (ArgSupplier) HttpUtil::getHttpClientStats,
         requestInfoScrubbed);
 
-    return theString;
+    return theResponse;
   }
 
   // This is a workaround for JDK-7036144.
@@ -32,6 +32,9 @@ public class QueryExecDTO
 
   private boolean isInternal;
 
+  // return as soon as the query is submitted
+  private boolean asyncExec;
+
   public QueryExecDTO(String sqlText,
                       boolean describeOnly,
                       Integer sequenceId,
@@ -142,4 +145,14 @@ public class QueryExecDTO
   {
     return this.isInternal;
   }
+
+  public boolean isAsyncExec()
+  {
+    return asyncExec;
+  }
+
+  public void setAsyncExec(boolean asyncExec)
+  {
+    this.asyncExec = asyncExec;
+  }
 }
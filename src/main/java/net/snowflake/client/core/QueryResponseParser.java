@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import net.snowflake.client.jdbc.JsonResultChunk;
+import net.snowflake.client.jdbc.SnowflakeSQLException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming parser of query responses.
+ * <p>
+ * The response is parsed as it is read from the connection, without a copy
+ * of it in a String. The small fields are parsed into the usual JSON tree,
+ * but the rows inlined in the response, which can weigh megabytes, are not:
+ * <ul>
+ * <li>data.rowset, the JSON rows, is parsed straight into a
+ * {@link JsonResultChunk}, held by a POJO node</li>
+ * <li>data.rowsetBase64, the Arrow rows, is decoded from base64 on the fly
+ * and held by a binary node</li>
+ * </ul>
+ * The consumers of the rows, {@link ResultUtil#processResult}, check the
+ * type of these nodes. Any other reader still sees the rowset fields.
+ */
+class QueryResponseParser
+{
+  static final ObjectMapper mapper = ObjectMapperFactory.getObjectMapper();
+
+  private static final String FIELD_DATA = "data";
+
+  private static final String FIELD_ROWSET = "rowset";
+
+  private static final String FIELD_ROWSET_BASE64 = "rowsetBase64";
+
+  private QueryResponseParser()
+  {
+  }
+
+  /**
+   * Parse a query response
+   *
+   * @param in response content
+   * @return response in JSON, with the rowset fields as described above
+   * @throws IOException if the response can't be read or is not valid JSON
+   */
+  static JsonNode parse(InputStream in) throws IOException
+  {
+    try (JsonParser parser = mapper.getFactory().createParser(in))
+    {
+      if (parser.nextToken() != JsonToken.START_OBJECT)
+      {
+        throw new JsonParseException(parser, "expected a JSON object");
+      }
+
+      ObjectNode root = mapper.createObjectNode();
+      while (parser.nextToken() == JsonToken.FIELD_NAME)
+      {
+        String name = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (FIELD_DATA.equals(name) && token == JsonToken.START_OBJECT)
+        {
+          root.set(name, parseData(parser));
+        }
+        else
+        {
+          root.set(name, parser.readValueAsTree());
+        }
+      }
+      return root;
+    }
+  }
+
+  private static ObjectNode parseData(JsonParser parser) throws IOException
+  {
+    ObjectNode data = mapper.createObjectNode();
+    while (parser.nextToken() == JsonToken.FIELD_NAME)
+    {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (FIELD_ROWSET.equals(name) && token == JsonToken.START_ARRAY)
+      {
+        JsonResultChunk chunk = parseRowset(parser);
+        if (chunk == null)
+        {
+          data.putArray(name);
+        }
+        else
+        {
+          data.putPOJO(name, chunk);
+        }
+      }
+      else if (FIELD_ROWSET_BASE64.equals(name) &&
+               token == JsonToken.VALUE_STRING)
+      {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        parser.readBinaryValue(Base64Variants.getDefaultVariant(), bytes);
+        data.put(name, bytes.toByteArray());
+      }
+      else
+      {
+        data.set(name, parser.readValueAsTree());
+      }
+    }
+    return data;
+  }
+
+  /**
+   * Parse the JSON rows into a chunk, the same way as the rows of a chunk
+   * downloaded from the cloud, see SnowflakeChunkDownloader. Each row is
+   * added to the chunk as soon as it is parsed.
+   *
+   * @param parser parser positioned on the start of the rowset array
+   * @return chunk of the rows, null if there is no row
+   * @throws IOException if the rows are not arrays of the same size
+   */
+  private static JsonResultChunk parseRowset(JsonParser parser)
+  throws IOException
+  {
+    // the first row gives the number of columns of the chunk
+    List<Object> firstRow = new ArrayList<>();
+    JsonResultChunk chunk = null;
+    Object[] row = null;
+    int rowCount = 0;
+    int colCount = -1;
+    long byteCount = 0;
+
+    try
+    {
+      while (parser.nextToken() == JsonToken.START_ARRAY)
+      {
+        int rowCells = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+        {
+          Object cell;
+          switch (token)
+          {
+            case VALUE_NULL:
+              cell = null;
+              break;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+              cell = parser.getBooleanValue();
+              byteCount++;
+              break;
+            case VALUE_STRING:
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+              String text = parser.getText();
+              byteCount += utf8Length(text);
+              cell = text;
+              break;
+            default:
+              throw new JsonParseException(parser,
+                                           "unexpected token in rowset: " +
+                                           token);
+          }
+
+          if (colCount == -1)
+          {
+            firstRow.add(cell);
+          }
+          else if (rowCells < colCount)
+          {
+            row[rowCells] = cell;
+          }
+          rowCells++;
+        }
+
+        if (colCount == -1)
+        {
+          colCount = rowCells;
+          row = firstRow.toArray();
+          if (colCount > 0)
+          {
+            chunk = JsonResultChunk.createResponseChunk(colCount);
+          }
+        }
+        else if (colCount != rowCells)
+        {
+          throw new JsonParseException(parser,
+                                       "expected " + colCount +
+                                       " columns and received " + rowCells);
+        }
+        rowCount++;
+
+        // the chunk also stores the brackets and commas of the rows
+        if (byteCount + rowCount * 2L + (long) rowCount * colCount >
+            Integer.MAX_VALUE)
+        {
+          throw new JsonParseException(parser, "rowset too large");
+        }
+
+        if (chunk != null)
+        {
+          chunk.addRow(row);
+        }
+      }
+    }
+    catch (SnowflakeSQLException ex)
+    {
+      throw new JsonParseException(parser, "invalid rowset", ex);
+    }
+
+    if (parser.currentToken() != JsonToken.END_ARRAY)
+    {
+      throw new JsonParseException(parser, "expected a row");
+    }
+    return chunk;
+  }
+
+  /**
+   * @param text a String
+   * @return number of bytes of the String encoded in UTF-8
+   */
+  static int utf8Length(String text)
+  {
+    int length = text.length();
+    for (int i = 0; i < text.length(); i++)
+    {
+      char c = text.charAt(i);
+      if (c >= 0x800)
+      {
+        if (Character.isHighSurrogate(c) && i + 1 < text.length() &&
+            Character.isLowSurrogate(text.charAt(i + 1)))
+        {
+          // 4 bytes for the pair of chars
+          length += 2;
+          i++;
+        }
+        else
+        {
+          length += 2;
+        }
+      }
+      else if (c >= 0x80)
+      {
+        length++;
+      }
+    }
+    return length;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core;
+
+/**
+ * Status of a query reported by the query monitoring service
+ */
+enum QueryStatus
+{
+  RUNNING(true),
+  ABORTING(true),
+  SUCCESS(false),
+  FAILED_WITH_ERROR(false),
+  ABORTED(false),
+  QUEUED(true),
+  FAILED_WITH_INCIDENT(false),
+  DISCONNECTED(false),
+  RESUMING_WAREHOUSE(true),
+  // spelled as reported by the server
+  QUEUED_REPARING_WAREHOUSE(true),
+  RESTARTED(true),
+  BLOCKED(true),
+  // the query is not visible to the monitoring service yet, see
+  // AsyncQueryPoller#MAX_NO_DATA_CHECKS
+  NO_DATA(true);
+
+  private final boolean stillRunning;
+
+  QueryStatus(boolean stillRunning)
+  {
+    this.stillRunning = stillRunning;
+  }
+
+  /**
+   * @return true if the result of the query is not available yet
+   */
+  boolean isStillRunning()
+  {
+    return stillRunning;
+  }
+
+  /**
+   * @param name status name reported by the server
+   * @return the status, null if unknown
+   */
+  static QueryStatus lookupByName(String name)
+  {
+    for (QueryStatus status : QueryStatus.values())
+    {
+      if (status.name().equalsIgnoreCase(name))
+      {
+        return status;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import net.snowflake.client.jdbc.SnowflakeUtil;
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Driver wide hashed timer wheel for query timeouts.
+ * <p>
+ * A query with a timeout used to get its own scheduled thread pool, i.e. a
+ * thread created and torn down per execution. All the timeouts now share
+ * one wheel of {@link #WHEEL_SIZE} buckets, each covering
+ * {@link #TICK_MILLIS} ms, driven by a single daemon thread. Scheduling and
+ * canceling a timeout are O(1): both only enqueue the timeout, and the
+ * wheel thread links it into or unlinks it from its bucket on the next
+ * tick. The precision is one tick, which is plenty for timeouts given in
+ * seconds.
+ * <p>
+ * The wheel thread stops once no timeout has been pending for
+ * {@link #IDLE_STOP_MILLIS} ms and starts again with the next timeout.
+ * Expired tasks run on a separate pool, so a task issuing a cancel request
+ * doesn't delay the other timeouts.
+ */
+public class QueryTimeoutTimer
+{
+  private static final SFLogger logger =
+      SFLoggerFactory.getLogger(QueryTimeoutTimer.class);
+
+  static final long TICK_MILLIS = 100;
+
+  // power of 2, the wheel covers 51.2 seconds per round
+  static final int WHEEL_SIZE = 512;
+
+  private static final long IDLE_STOP_MILLIS = 60000;
+
+  private static final QueryTimeoutTimer INSTANCE = new QueryTimeoutTimer();
+
+  private final long tickNanos = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+
+  // origin of the ticks
+  private final long startTime = System.nanoTime();
+
+  private final Bucket[] wheel = new Bucket[WHEEL_SIZE];
+
+  private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+
+  private final Queue<Timeout> canceledTimeouts =
+      new ConcurrentLinkedQueue<>();
+
+  private final AtomicBoolean running = new AtomicBoolean(false);
+
+  private final AtomicLong pendingCount = new AtomicLong();
+
+  private final AtomicLong expiredCount = new AtomicLong();
+
+  private final AtomicLong canceledCount = new AtomicLong();
+
+  private final ExecutorService taskExecutor;
+
+  // next tick to process, only used by the wheel thread
+  private long tick;
+
+  QueryTimeoutTimer()
+  {
+    for (int i = 0; i < WHEEL_SIZE; i++)
+    {
+      wheel[i] = new Bucket();
+    }
+    taskExecutor = new ThreadPoolExecutor(
+        0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+        SnowflakeUtil.createDaemonThreadFactory("query-timeout-task-"));
+  }
+
+  public static QueryTimeoutTimer getInstance()
+  {
+    return INSTANCE;
+  }
+
+  /**
+   * @return number of timeouts scheduled and neither expired nor canceled
+   */
+  public long getPendingTimeoutCount()
+  {
+    return pendingCount.get();
+  }
+
+  /**
+   * @return number of timeouts expired since the driver was loaded
+   */
+  public long getExpiredTimeoutCount()
+  {
+    return expiredCount.get();
+  }
+
+  /**
+   * @return number of timeouts canceled before expiring since the driver was
+   * loaded
+   */
+  public long getCanceledTimeoutCount()
+  {
+    return canceledCount.get();
+  }
+
+  /**
+   * Run a task after a delay, unless the returned timeout is canceled first
+   *
+   * @param task  task to run
+   * @param delay delay
+   * @param unit  unit of the delay
+   * @return the timeout
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit)
+  {
+    Timeout timeout = new Timeout(
+        task, System.nanoTime() - startTime + unit.toNanos(delay));
+    pendingCount.incrementAndGet();
+    newTimeouts.add(timeout);
+    if (!running.get() && running.compareAndSet(false, true))
+    {
+      startWheel();
+    }
+    return timeout;
+  }
+
+  private void startWheel()
+  {
+    Thread thread =
+        SnowflakeUtil.createDaemonThreadFactory("query-timeout-wheel-")
+            .newThread(this::runWheel);
+    thread.start();
+  }
+
+  private void runWheel()
+  {
+    tick = (System.nanoTime() - startTime) / tickNanos;
+    long idleSince = System.nanoTime();
+
+    while (true)
+    {
+      waitForTick();
+      transferCanceledTimeouts();
+      transferNewTimeouts();
+      wheel[(int) (tick & (WHEEL_SIZE - 1))].expireTimeouts();
+      tick++;
+
+      if (pendingCount.get() > 0)
+      {
+        idleSince = System.nanoTime();
+      }
+      else if (System.nanoTime() - idleSince >=
+               TimeUnit.MILLISECONDS.toNanos(IDLE_STOP_MILLIS))
+      {
+        running.set(false);
+        // a timeout scheduled meanwhile may have seen the wheel running
+        if (newTimeouts.isEmpty() || !running.compareAndSet(false, true))
+        {
+          logger.debug("query timeout wheel stopped");
+          return;
+        }
+      }
+    }
+  }
+
+  private void waitForTick()
+  {
+    long deadline = (tick + 1) * tickNanos;
+    long sleepNanos;
+    while ((sleepNanos = deadline - (System.nanoTime() - startTime)) > 0)
+    {
+      try
+      {
+        TimeUnit.NANOSECONDS.sleep(sleepNanos);
+      }
+      catch (InterruptedException ex)
+      {
+        logger.debug("query timeout wheel interrupted");
+      }
+    }
+  }
+
+  private void transferNewTimeouts()
+  {
+    Timeout timeout;
+    while ((timeout = newTimeouts.poll()) != null)
+    {
+      if (timeout.state.get() != Timeout.ST_PENDING)
+      {
+        continue;
+      }
+      long expireTick = timeout.deadline / tickNanos;
+      timeout.remainingRounds = (expireTick - tick) / WHEEL_SIZE;
+      // a timeout already due goes to the current bucket
+      long bucketTick = Math.max(expireTick, tick);
+      wheel[(int) (bucketTick & (WHEEL_SIZE - 1))].add(timeout);
+    }
+  }
+
+  private void transferCanceledTimeouts()
+  {
+    Timeout timeout;
+    while ((timeout = canceledTimeouts.poll()) != null)
+    {
+      if (timeout.bucket != null)
+      {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  /**
+   * A task scheduled on the wheel
+   */
+  public final class Timeout
+  {
+    private static final int ST_PENDING = 0;
+
+    private static final int ST_CANCELED = 1;
+
+    private static final int ST_EXPIRED = 2;
+
+    private final Runnable task;
+
+    // deadline in nanoseconds since the start of the timer
+    private final long deadline;
+
+    private final AtomicInteger state = new AtomicInteger(ST_PENDING);
+
+    // below fields are only used by the wheel thread
+    private long remainingRounds;
+
+    private Bucket bucket;
+
+    private Timeout next;
+
+    private Timeout prev;
+
+    private Timeout(Runnable task, long deadline)
+    {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancel the timeout so that its task doesn't run
+     *
+     * @return true if the timeout was pending, false if it already expired
+     * or was canceled
+     */
+    public boolean cancel()
+    {
+      if (!state.compareAndSet(ST_PENDING, ST_CANCELED))
+      {
+        return false;
+      }
+      pendingCount.decrementAndGet();
+      canceledCount.incrementAndGet();
+      canceledTimeouts.add(this);
+      return true;
+    }
+
+    private void expire()
+    {
+      if (!state.compareAndSet(ST_PENDING, ST_EXPIRED))
+      {
+        return;
+      }
+      pendingCount.decrementAndGet();
+      expiredCount.incrementAndGet();
+      taskExecutor.execute(task);
+    }
+  }
+
+  /**
+   * Doubly linked list of the timeouts of one slot of the wheel
+   */
+  private final class Bucket
+  {
+    private Timeout head;
+
+    private Timeout tail;
+
+    void add(Timeout timeout)
+    {
+      timeout.bucket = this;
+      if (head == null)
+      {
+        head = tail = timeout;
+      }
+      else
+      {
+        tail.next = timeout;
+        timeout.prev = tail;
+        tail = timeout;
+      }
+    }
+
+    void remove(Timeout timeout)
+    {
+      if (timeout.prev != null)
+      {
+        timeout.prev.next = timeout.next;
+      }
+      else
+      {
+        head = timeout.next;
+      }
+      if (timeout.next != null)
+      {
+        timeout.next.prev = timeout.prev;
+      }
+      else
+      {
+        tail = timeout.prev;
+      }
+      timeout.bucket = null;
+      timeout.next = null;
+      timeout.prev = null;
+    }
+
+    /**
+     * Expire the timeouts of this round, the others wait for one more round
+     */
+    void expireTimeouts()
+    {
+      Timeout timeout = head;
+      while (timeout != null)
+      {
+        Timeout next = timeout.next;
+        if (timeout.remainingRounds <= 0)
+        {
+          remove(timeout);
+          timeout.expire();
+        }
+        else
+        {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+  }
+}
@@ -5,9 +5,15 @@
 package net.snowflake.client.core;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.BinaryNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
 import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.JsonResultChunk;
 import net.snowflake.client.jdbc.SnowflakeChunkDownloader;
 import net.snowflake.client.jdbc.SnowflakeColumnMetadata;
+import net.snowflake.client.jdbc.SnowflakeResultPartition;
 import net.snowflake.client.jdbc.SnowflakeSQLException;
 import net.snowflake.client.jdbc.SnowflakeUtil;
 import net.snowflake.client.log.ArgSupplier;
@@ -17,8 +23,10 @@ import net.snowflake.common.core.SFBinaryFormat;
 import net.snowflake.common.core.SFTime;
 import net.snowflake.common.core.SFTimestamp;
 import net.snowflake.common.core.SnowflakeDateTimeFormat;
+import net.snowflake.common.core.SqlState;
 import net.snowflake.common.util.TimeUtil;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.SQLException;
@@ -100,7 +108,12 @@ public class ResultUtil
     int columnCount;
     private List<SnowflakeColumnMetadata> resultColumnMetadata = new ArrayList<>();
     private JsonNode currentChunkRowset = null;
+    // rows already parsed from the response, see QueryResponseParser
+    private JsonResultChunk firstChunk = null;
     String rowsetBase64;
+    byte[] rowsetBytes;
+    // rowset node of the response, kept for the first result partition
+    private JsonNode responseRowset = null;
     int currentChunkRowCount;
     long resultVersion;
     int numberOfBinds;
@@ -117,6 +130,12 @@ public class ResultUtil
     long sendResultTime;
     List<MetaDataOfBinds> metaDataOfBinds = new ArrayList<>();
     QueryResultFormat queryResultFormat;
+    // inputs of the result partitions, only built when requested
+    private JsonNode chunksNode = null;
+    private String qrmk;
+    private JsonNode chunkHeaders = null;
+    private int networkTimeoutInMilli;
+    private List<SnowflakeResultPartition> resultPartitions = null;
 
     public long getChunkCount()
     {
@@ -185,6 +204,13 @@ public class ResultUtil
       return currentChunkRowset;
     }
 
+    public JsonResultChunk getAndClearFirstChunk()
+    {
+      JsonResultChunk firstChunk = this.firstChunk;
+      this.firstChunk = null;
+      return firstChunk;
+    }
+
     public int getCurrentChunkRowCount()
     {
       return currentChunkRowCount;
@@ -255,10 +281,24 @@ public class ResultUtil
       return metaDataOfBinds;
     }
 
+    public synchronized List<SnowflakeResultPartition> getResultPartitions()
+    {
+      if (resultPartitions == null)
+      {
+        resultPartitions = initResultPartitions(this);
+      }
+      return resultPartitions;
+    }
+
     String getRowsetBase64()
     {
       return rowsetBase64;
     }
+
+    byte[] getRowsetBytes()
+    {
+      return rowsetBytes;
+    }
   }
 
 
@@ -333,22 +373,41 @@ public class ResultUtil
 
     if (resultOutput.queryResultFormat == QueryResultFormat.ARROW)
     {
-      resultOutput.rowsetBase64 =
-          rootNode.path("data").path("rowsetBase64").asText();
+      JsonNode rowsetNode = rootNode.path("data").path("rowsetBase64");
+      if (rowsetNode.isBinary())
+      {
+        // already decoded while the response was read
+        resultOutput.rowsetBytes = ((BinaryNode) rowsetNode).binaryValue();
+        resultOutput.responseRowset = rowsetNode;
+      }
+      else
+      {
+        resultOutput.rowsetBase64 = rowsetNode.asText();
+      }
     }
     else
     {
-      resultOutput.currentChunkRowset = rootNode.path("data").path("rowset");
+      JsonNode rowsetNode = rootNode.path("data").path("rowset");
+      Object pojo = rowsetNode.isPojo() ?
+                    ((POJONode) rowsetNode).getPojo() : null;
 
-      if (resultOutput.currentChunkRowset == null ||
-          resultOutput.currentChunkRowset.isMissingNode())
+      if (pojo instanceof JsonResultChunk)
+      {
+        // already parsed into a chunk while the response was read
+        resultOutput.firstChunk = (JsonResultChunk) pojo;
+        resultOutput.currentChunkRowCount =
+            resultOutput.firstChunk.getRowCount();
+        resultOutput.responseRowset = rowsetNode;
+      }
+      else if (rowsetNode.isMissingNode())
       {
         resultOutput.currentChunkRowCount = 0;
       }
       else
       {
-        resultOutput.currentChunkRowCount =
-            resultOutput.currentChunkRowset.size();
+        resultOutput.currentChunkRowset = rowsetNode;
+        resultOutput.currentChunkRowCount = rowsetNode.size();
+        resultOutput.responseRowset = rowsetNode;
       }
 
       logger.debug("First chunk row count: {}",
@@ -357,17 +416,17 @@ public class ResultUtil
 
     JsonNode chunksNode = rootNode.path("data").path("chunks");
 
+    // Try to get the Query Result Master Key
+    JsonNode qrmkNode = rootNode.path("data").path("qrmk");
+    final String qrmk = qrmkNode.isMissingNode() ?
+                        null : qrmkNode.textValue();
+
+    JsonNode chunkHeaders = rootNode.path("data").path("chunkHeaders");
+
     if (!chunksNode.isMissingNode())
     {
       resultOutput.chunkCount = chunksNode.size();
 
-      // Try to get the Query Result Master Key
-      JsonNode qrmkNode = rootNode.path("data").path("qrmk");
-      final String qrmk = qrmkNode.isMissingNode() ?
-                          null : qrmkNode.textValue();
-
-      JsonNode chunkHeaders = rootNode.path("data").path("chunkHeaders");
-
       // the initialization of chunk downloader will start prefetching
       // first few chunks
       if (resultOutput.chunkCount > 0)
@@ -419,10 +478,79 @@ public class ResultUtil
                                          resultData.networkTimeoutInMilli,
                                          useJsonParserV2,
                                          memoryLimit,
-                                         resultOutput.queryResultFormat);
+                                         resultOutput.queryResultFormat,
+                                         resultOutput.queryId);
+      }
+    }
+
+    initFormatters(resultOutput);
+
+    // result version
+    JsonNode versionNode = rootNode.path("data").path("version");
+
+    if (!versionNode.isMissingNode())
+    {
+      resultOutput.resultVersion = versionNode.longValue();
+    }
+
+    // number of binds
+    JsonNode numberOfBindsNode = rootNode.path("data").path("numberOfBinds");
+
+    if (!numberOfBindsNode.isMissingNode())
+    {
+      resultOutput.numberOfBinds = numberOfBindsNode.intValue();
+    }
+
+    JsonNode arrayBindSupported = rootNode.path("data")
+        .path("arrayBindSupported");
+    resultOutput.arrayBindSupported = !arrayBindSupported.isMissingNode()
+                                      && arrayBindSupported.asBoolean();
+
+    // time result sent by GS (epoch time in millis)
+    JsonNode sendResultTimeNode = rootNode.path("data").path("sendResultTime");
+    if (!sendResultTimeNode.isMissingNode())
+    {
+      resultOutput.sendResultTime = sendResultTimeNode.longValue();
+    }
+
+    logger.debug("result version={}", resultOutput.resultVersion);
+
+    // Bind parameter metadata
+    JsonNode bindData = rootNode.path("data").path("metaDataOfBinds");
+    if (!bindData.isMissingNode())
+    {
+      List<MetaDataOfBinds> returnVal = new ArrayList<>();
+      for (JsonNode child : bindData)
+      {
+        int precision = child.path("precision").asInt();
+        boolean nullable = child.path("nullable").asBoolean();
+        int scale = child.path("scale").asInt();
+        int byteLength = child.path("byteLength").asInt();
+        int length = child.path("length").asInt();
+        String name = child.path("name").asText();
+        String type = child.path("type").asText();
+        MetaDataOfBinds param = new MetaDataOfBinds(precision, nullable, scale, byteLength, length, name, type);
+        returnVal.add(param);
       }
+      resultOutput.metaDataOfBinds = returnVal;
     }
 
+    resultOutput.chunksNode = chunksNode;
+    resultOutput.qrmk = qrmk;
+    resultOutput.chunkHeaders = chunkHeaders;
+    resultOutput.networkTimeoutInMilli = resultData.networkTimeoutInMilli;
+
+    return resultOutput;
+  }
+
+  /**
+   * Initialize the formatters and time zone from the session parameters
+   * returned with the result
+   *
+   * @param resultOutput result output with the parameters
+   */
+  private static void initFormatters(ResultOutput resultOutput)
+  {
     String sqlTimestampFormat = (String) effectiveParamValue(
         resultOutput.parameters, "TIMESTAMP_OUTPUT_FORMAT");
 
@@ -483,57 +611,212 @@ public class ResultUtil
         resultOutput.parameters, "BINARY_OUTPUT_FORMAT");
     resultOutput.binaryFormatter =
         SFBinaryFormat.getSafeOutputFormat(binaryFmt);
+  }
 
-    // result version
-    JsonNode versionNode = rootNode.path("data").path("version");
-
-    if (!versionNode.isMissingNode())
+  /**
+   * Describe the rows of the response and each chunk as a partition that
+   * can be read on its own. The partitions share the metadata, parameters
+   * and chunk headers of the result.
+   *
+   * @param resultOutput result output of the query
+   * @return partitions of the result
+   */
+  private static List<SnowflakeResultPartition> initResultPartitions(
+      ResultOutput resultOutput)
+  {
+    if (resultOutput.chunksNode == null)
     {
-      resultOutput.resultVersion = versionNode.longValue();
+      return Collections.emptyList();
     }
 
-    // number of binds
-    JsonNode numberOfBindsNode = rootNode.path("data").path("numberOfBinds");
-
-    if (!numberOfBindsNode.isMissingNode())
+    Map<String, String> chunkHeaders = new HashMap<>();
+    if (!resultOutput.chunkHeaders.isMissingNode())
     {
-      resultOutput.numberOfBinds = numberOfBindsNode.intValue();
+      resultOutput.chunkHeaders.fields().forEachRemaining(
+          header -> chunkHeaders.put(header.getKey(),
+                                     header.getValue().asText()));
     }
+    PartitionTemplate template = new PartitionTemplate(
+        resultOutput, Collections.unmodifiableMap(chunkHeaders));
 
-    JsonNode arrayBindSupported = rootNode.path("data")
-        .path("arrayBindSupported");
-    resultOutput.arrayBindSupported = !arrayBindSupported.isMissingNode()
-                                      && arrayBindSupported.asBoolean();
+    List<SnowflakeResultPartition> partitions = new ArrayList<>();
+    if (resultOutput.queryResultFormat == QueryResultFormat.ARROW)
+    {
+      if (resultOutput.rowsetBytes != null &&
+          resultOutput.rowsetBytes.length > 0)
+      {
+        partitions.add(template.newPartition(0, -1, null, 0, null,
+                                             resultOutput.responseRowset));
+      }
+      else if (resultOutput.rowsetBase64 != null &&
+               !resultOutput.rowsetBase64.isEmpty())
+      {
+        // the row count is only known once the Arrow stream is read
+        partitions.add(template.newPartition(0, -1, null, 0,
+                                             resultOutput.rowsetBase64,
+                                             null));
+      }
+    }
+    else if (resultOutput.currentChunkRowCount > 0)
+    {
+      partitions.add(template.newPartition(0,
+                                           resultOutput.currentChunkRowCount,
+                                           null, 0, null,
+                                           resultOutput.responseRowset));
+    }
 
-    // time result sent by GS (epoch time in millis)
-    JsonNode sendResultTimeNode = rootNode.path("data").path("sendResultTime");
-    if (!sendResultTimeNode.isMissingNode())
+    for (int i = 0; i < resultOutput.chunksNode.size(); i++)
     {
-      resultOutput.sendResultTime = sendResultTimeNode.longValue();
+      JsonNode chunkNode = resultOutput.chunksNode.get(i);
+      partitions.add(template.newPartition(
+          i + 1,
+          chunkNode.path("rowCount").asInt(),
+          chunkNode.path("url").asText(),
+          chunkNode.path("uncompressedSize").asInt(),
+          null, null));
     }
+    return Collections.unmodifiableList(partitions);
+  }
 
-    logger.debug("result version={}", resultOutput.resultVersion);
+  /**
+   * What the partitions of a result have in common
+   */
+  private static class PartitionTemplate
+  {
+    private final ResultOutput resultOutput;
+
+    private final Map<String, String> chunkHeaders;
+
+    private final List<SnowflakeColumnMetadata> columnMetadata;
+
+    private final Map<String, Object> parameters;
+
+    private PartitionTemplate(ResultOutput resultOutput,
+                              Map<String, String> chunkHeaders)
+    {
+      this.resultOutput = resultOutput;
+      this.chunkHeaders = chunkHeaders;
+      this.columnMetadata =
+          Collections.unmodifiableList(resultOutput.resultColumnMetadata);
+      this.parameters =
+          Collections.unmodifiableMap(resultOutput.parameters);
+    }
+
+    private SnowflakeResultPartition newPartition(int index,
+                                                  int rowCount,
+                                                  String url,
+                                                  int uncompressedSize,
+                                                  String rowset,
+                                                  JsonNode jsonRowset)
+    {
+      return new SnowflakeResultPartition(resultOutput.queryId,
+                                          resultOutput.queryResultFormat,
+                                          index,
+                                          rowCount,
+                                          url,
+                                          uncompressedSize,
+                                          resultOutput.qrmk,
+                                          chunkHeaders,
+                                          resultOutput.networkTimeoutInMilli,
+                                          rowset,
+                                          jsonRowset,
+                                          columnMetadata,
+                                          parameters,
+                                          resultOutput.resultVersion);
+    }
+  }
 
-    // Bind parameter metadata
-    JsonNode bindData = rootNode.path("data").path("metaDataOfBinds");
-    if (!bindData.isMissingNode())
-    {
-      List<MetaDataOfBinds> returnVal = new ArrayList<>();
-      for (JsonNode child : bindData)
+  /**
+   * Prepare the result output of a result partition, read on its own
+   * without session or statement
+   *
+   * @param partition partition of a result
+   * @return result output with the rows of the response or a downloader of
+   * the chunk of the partition
+   * @throws SnowflakeSQLException if the partition is invalid
+   */
+  static ResultOutput processResultPartition(
+      SnowflakeResultPartition partition) throws SnowflakeSQLException
+  {
+    ResultOutput resultOutput = new ResultOutput();
+    resultOutput.queryId = partition.getQueryId();
+    resultOutput.statementType = SFStatementType.SELECT;
+    resultOutput.queryResultFormat = partition.getQueryResultFormat();
+    resultOutput.parameters = partition.getParameters();
+    resultOutput.resultColumnMetadata = partition.getColumnMetadata();
+    resultOutput.columnCount = resultOutput.resultColumnMetadata.size();
+    resultOutput.resultVersion = partition.getResultVersion();
+    resultOutput.resultPartitions = Collections.singletonList(partition);
+    initFormatters(resultOutput);
+
+    if (!partition.isRemote())
+    {
+      if (resultOutput.queryResultFormat == QueryResultFormat.ARROW)
       {
-        int precision = child.path("precision").asInt();
-        boolean nullable = child.path("nullable").asBoolean();
-        int scale = child.path("scale").asInt();
-        int byteLength = child.path("byteLength").asInt();
-        int length = child.path("length").asInt();
-        String name = child.path("name").asText();
-        String type = child.path("type").asText();
-        MetaDataOfBinds param = new MetaDataOfBinds(precision, nullable, scale, byteLength, length, name, type);
-        returnVal.add(param);
+        JsonNode rowset = partition.getJsonRowset();
+        if (rowset != null && rowset.isBinary())
+        {
+          resultOutput.rowsetBytes = ((BinaryNode) rowset).binaryValue();
+        }
+        else
+        {
+          resultOutput.rowsetBase64 = partition.getRowset();
+        }
       }
-      resultOutput.metaDataOfBinds = returnVal;
-    }
-
+      else
+      {
+        JsonNode rowset = partition.getJsonRowset();
+        try
+        {
+          // the rows parsed into a chunk are read again from their JSON
+          if (rowset == null || !rowset.isArray())
+          {
+            rowset = ObjectMapperFactory.getObjectMapper()
+                .readTree(partition.getRowset());
+          }
+        }
+        catch (IOException ex)
+        {
+          throw new SnowflakeSQLException(ex, SqlState.INTERNAL_ERROR,
+                                          ErrorCode.INTERNAL_ERROR
+                                              .getMessageCode(),
+                                          "Invalid rowset of result partition");
+        }
+        resultOutput.currentChunkRowset = rowset;
+        resultOutput.currentChunkRowCount = rowset.size();
+      }
+      return resultOutput;
+    }
+
+    ObjectMapper mapper = ObjectMapperFactory.getObjectMapper();
+    ObjectNode chunkNode = mapper.createObjectNode();
+    chunkNode.put("url", partition.getUrl());
+    chunkNode.put("rowCount", partition.getRowCount());
+    chunkNode.put("uncompressedSize", partition.getUncompressedSize());
+
+    boolean useJsonParserV2 = false;
+    if (resultOutput.parameters.get("JDBC_USE_JSON_PARSER") != null)
+    {
+      useJsonParserV2 =
+          (boolean) resultOutput.parameters.get("JDBC_USE_JSON_PARSER");
+    }
+
+    resultOutput.chunkCount = 1;
+    resultOutput.chunkDownloader =
+        new SnowflakeChunkDownloader(resultOutput.columnCount,
+                                     mapper.createArrayNode().add(chunkNode),
+                                     1,
+                                     partition.getQrmk(),
+                                     mapper.valueToTree(
+                                         partition.getChunkHeaders()),
+                                     partition.getNetworkTimeoutInMilli(),
+                                     useJsonParserV2,
+                                     initMemoryLimit(resultOutput),
+                                     resultOutput.queryResultFormat,
+                                     // the chunk is cached as the only
+                                     // chunk of the partition
+                                     partition.getQueryId() + "_" +
+                                     partition.getIndex());
     return resultOutput;
   }
 
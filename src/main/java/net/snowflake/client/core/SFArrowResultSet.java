@@ -4,6 +4,7 @@
 package net.snowflake.client.core;
 
 import net.snowflake.client.core.arrow.ArrowVectorConverter;
+import net.snowflake.client.jdbc.ArrowBatch;
 import net.snowflake.client.jdbc.ArrowResultChunk;
 import net.snowflake.client.jdbc.ArrowResultChunk.ArrowChunkIterator;
 import net.snowflake.client.jdbc.ErrorCode;
@@ -26,7 +27,13 @@ import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.TimeZone;
 
 import static net.snowflake.client.core.StmtUtil.eventHandler;
@@ -57,10 +64,15 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
   private boolean totalRowCountTruncated;
 
   /**
-   * true if sort first chunk
+   * true if sort result
    */
   private boolean sortResult;
 
+  /**
+   * chunks merged by the sorted iterator, null until the first sorted row
+   */
+  private List<ArrowResultChunk> sortedChunks;
+
   /**
    * statement generate current result set
    */
@@ -101,6 +113,17 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
    */
   private final Telemetry telemetryClient;
 
+  /**
+   * chunk whose record batches are returned by nextArrowBatch, null if the
+   * result is read by rows
+   */
+  private ArrowResultChunk batchChunk;
+
+  /**
+   * index of the next record batch to return in batchChunk
+   */
+  private int nextBatchIndex = 0;
+
   /**
    * Constructor takes a result from the API response that we get from
    * executing a SQL statement.
@@ -184,33 +207,30 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
     this.honorClientTZForTimestampNTZ =
         resultOutput.isHonorClientTZForTimestampNTZ();
     this.binaryFormatter = resultOutput.getBinaryFormatter();
+    this.resultPartitions = resultOutput::getResultPartitions;
 
     // sort result set if needed
+    byte[] rowsetBytes = resultOutput.getRowsetBytes();
     String rowsetBase64 = resultOutput.getRowsetBase64();
-    if (rowsetBase64 == null || rowsetBase64.isEmpty())
+    if (rowsetBytes == null && rowsetBase64 != null && !rowsetBase64.isEmpty())
+    {
+      rowsetBytes = Base64.getDecoder().decode(rowsetBase64);
+    }
+
+    if (rowsetBytes == null || rowsetBytes.length == 0)
     {
       this.currentChunkIterator = ArrowResultChunk.getEmptyChunkIterator();
     }
     else
     {
-      if (sortResult)
-      {
-        // we don't support sort result when there are offline chunks
-        if (resultOutput.getChunkCount() > 0)
-        {
-          throw new SnowflakeSQLException(SqlState.FEATURE_NOT_SUPPORTED,
-                                          ErrorCode.CLIENT_SIDE_SORTING_NOT_SUPPORTED
-                                              .getMessageCode());
-        }
+      this.currentChunkIterator =
+          buildFirstChunk(rowsetBytes).getIterator(this);
+    }
 
-        this.currentChunkIterator = getSortedFirstResultChunk(
-            resultOutput.getRowsetBase64()).getIterator(this);
-      }
-      else
-      {
-        this.currentChunkIterator =
-            buildFirstChunk(resultOutput.getRowsetBase64()).getIterator(this);
-      }
+    if (sortResult && chunkCount > 0)
+    {
+      // the downloaded chunks are kept and sorted for the merge
+      chunkDownloader.enableSorting(this);
     }
 
     resultSetMetaData =
@@ -275,7 +295,8 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
           }
 
           currentChunkIterator.getChunk().freeData();
-          currentChunkIterator = nextChunk.getIterator(this);
+          currentChunkIterator =
+              nextChunk.getIterator(this, currentChunkIterator);
           if (currentChunkIterator.next())
           {
 
@@ -310,16 +331,14 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
   }
 
   /**
-   * Decode rowset returned in query response the load data into arrow vectors
+   * Load the rowset returned in query response into arrow vectors
    *
-   * @param rowsetBase64 first chunk of rowset in arrow format and base64
-   *                     encoded
+   * @param bytes first chunk of rowset in arrow format, decoded from base64
    * @return result chunk with arrow data already being loaded
    */
-  private ArrowResultChunk buildFirstChunk(String rowsetBase64)
+  private ArrowResultChunk buildFirstChunk(byte[] bytes)
   throws SQLException
   {
-    byte[] bytes = Base64.getDecoder().decode(rowsetBase64);
     ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
 
     // create a fake result chunk
@@ -340,41 +359,101 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
   }
 
   /**
-   * Decode rowset returned in query response the load data into arrow vectors
-   * and sort data
-   *
-   * @param rowsetBase64 first chunk of rowset in arrow format and base64
-   *                     encoded
-   * @return result chunk with arrow data already being loaded
+   * Fetch next row in sorted order. The first call waits for all the chunks,
+   * whose rows are sorted as they are downloaded, then the rows of all the
+   * chunks are merged.
    */
-  private ArrowResultChunk getSortedFirstResultChunk(String rowsetBase64) throws SQLException
+  private boolean fetchNextRowSorted() throws SnowflakeSQLException
   {
-    ArrowResultChunk resultChunk = buildFirstChunk(rowsetBase64);
+    if (sortedChunks == null)
+    {
+      sortedChunks = getAllChunks();
+      currentChunkIterator =
+          ArrowResultChunk.getSortedIterator(sortedChunks, this);
+    }
 
-    // enable sorted chunk, the sorting happens when the result chunk is ready to consume
-    resultChunk.enableSortFirstResultChunk();
-    return resultChunk;
+    boolean hasNext = currentChunkIterator.next();
+    if (!hasNext)
+    {
+      freeSortedChunks();
+    }
+    return hasNext;
   }
 
-
   /**
-   * Fetch next row of first chunkd in sorted order. If the result set huge,
-   * then rest of the chunks are ignored.
+   * Wait for the first chunk and all the chunks from the downloader
+   *
+   * @return the chunks in the order received
    */
-  private boolean fetchNextRowSorted() throws SnowflakeSQLException
+  private List<ArrowResultChunk> getAllChunks() throws SnowflakeSQLException
   {
-    boolean hasNext = currentChunkIterator.next();
-    if (hasNext)
+    List<ArrowResultChunk> chunks = new ArrayList<>();
+    chunks.add(currentChunkIterator.getChunk());
+
+    boolean success = false;
+    try
     {
-      return true;
+      while (nextChunkIndex < chunkCount)
+      {
+        eventHandler.triggerStateTransition(
+            BasicEvent.QueryState.CONSUMING_RESULT,
+            String.format(
+                BasicEvent.QueryState.CONSUMING_RESULT.getArgString(),
+                queryId,
+                nextChunkIndex));
+
+        ArrowResultChunk nextChunk =
+            (ArrowResultChunk) chunkDownloader.getNextChunkToConsume();
+        if (nextChunk == null)
+        {
+          throw new SnowflakeSQLException(
+              SqlState.INTERNAL_ERROR,
+              ErrorCode.INTERNAL_ERROR.getMessageCode(),
+              "Expect chunk but got null for chunk index " + nextChunkIndex);
+        }
+        chunks.add(nextChunk);
+        nextChunkIndex++;
+      }
+      success = true;
     }
-    else
+    catch (InterruptedException ex)
+    {
+      throw new SnowflakeSQLException(SqlState.QUERY_CANCELED,
+                                      ErrorCode.INTERRUPTED.getMessageCode());
+    }
+    finally
     {
-      currentChunkIterator.getChunk().freeData();
+      if (!success)
+      {
+        // the downloader no longer frees the chunks it handed out
+        for (ArrowResultChunk chunk : chunks)
+        {
+          chunk.freeData();
+        }
+      }
+    }
 
-      // no more chunks as sorted is only supported
-      // for one chunk
-      return false;
+    // the downloader is terminated once the chunks are freed, its memory
+    // reservations and allocator still cover them
+    return chunks;
+  }
+
+  private void freeSortedChunks()
+  {
+    if (sortedChunks != null)
+    {
+      for (ArrowResultChunk chunk : sortedChunks)
+      {
+        chunk.freeData();
+      }
+      sortedChunks.clear();
+
+      if (chunkCount > 0)
+      {
+        logger.debug("End of chunks");
+        DownloaderMetrics metrics = chunkDownloader.terminate();
+        logChunkDownloaderMetrics(metrics);
+      }
     }
   }
 
@@ -386,8 +465,9 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
   @Override
   public boolean next() throws SFException, SnowflakeSQLException
   {
-    if (isClosed())
+    if (isClosed() || batchChunk != null)
     {
+      // the rows were consumed as record batches
       return false;
     }
 
@@ -426,6 +506,78 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
     }
   }
 
+  /**
+   * Get the next Arrow record batch, to read the result by columns instead of
+   * rows. The batches are read from the same chunk downloader as the rows;
+   * the batches of a chunk are released when moving to the next chunk.
+   * Batches can only be read before the first row, and next() returns false
+   * afterwards.
+   *
+   * @return the record batch, null after the last one
+   * @throws SnowflakeSQLException if rows were already read or the next chunk
+   *                               failed to download
+   */
+  public ArrowBatch nextArrowBatch() throws SnowflakeSQLException
+  {
+    if (batchChunk == null)
+    {
+      if (row > 0 || sortResult)
+      {
+        throw new SnowflakeSQLException(
+            ErrorCode.FEATURE_UNSUPPORTED.getSqlState(),
+            ErrorCode.FEATURE_UNSUPPORTED.getMessageCode(),
+            "reading record batches after rows or of a sorted result");
+      }
+      batchChunk = currentChunkIterator.getChunk();
+    }
+
+    while (nextBatchIndex >= batchChunk.getRecordBatchCount())
+    {
+      if (nextChunkIndex >= chunkCount)
+      {
+        if (chunkCount > 0)
+        {
+          logger.debug("End of chunks");
+          DownloaderMetrics metrics = chunkDownloader.terminate();
+          logChunkDownloaderMetrics(metrics);
+        }
+        return null;
+      }
+
+      try
+      {
+        eventHandler.triggerStateTransition(
+            BasicEvent.QueryState.CONSUMING_RESULT,
+            String.format(
+                BasicEvent.QueryState.CONSUMING_RESULT.getArgString(),
+                queryId,
+                nextChunkIndex));
+
+        ArrowResultChunk nextChunk =
+            (ArrowResultChunk) chunkDownloader.getNextChunkToConsume();
+        if (nextChunk == null)
+        {
+          throw new SnowflakeSQLException(
+              SqlState.INTERNAL_ERROR,
+              ErrorCode.INTERNAL_ERROR.getMessageCode(),
+              "Expect chunk but got null for chunk index " + nextChunkIndex);
+        }
+
+        batchChunk.freeData();
+        batchChunk = nextChunk;
+        nextBatchIndex = 0;
+        nextChunkIndex++;
+      }
+      catch (InterruptedException ex)
+      {
+        throw new SnowflakeSQLException(SqlState.QUERY_CANCELED,
+                                        ErrorCode.INTERRUPTED.getMessageCode());
+      }
+    }
+
+    return batchChunk.getArrowBatch(nextBatchIndex++, this);
+  }
+
   @Override
   public byte getByte(int columnIndex) throws SFException
   {
@@ -547,6 +699,56 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
     return converter.toTimestamp(index, tz);
   }
 
+  @Override
+  public long getUnscaledLong(int columnIndex) throws SFException
+  {
+    ArrowVectorConverter converter =
+        currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    int index = currentChunkIterator.getCurrentRowInRecordBatch();
+    wasNull = converter.isNull(index);
+    return converter.toUnscaledLong(index);
+  }
+
+  @Override
+  public Instant getInstant(int columnIndex) throws SFException
+  {
+    ArrowVectorConverter converter =
+        currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    int index = currentChunkIterator.getCurrentRowInRecordBatch();
+    wasNull = converter.isNull(index);
+    return converter.toInstant(index);
+  }
+
+  @Override
+  public LocalDateTime getLocalDateTime(int columnIndex) throws SFException
+  {
+    ArrowVectorConverter converter =
+        currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    int index = currentChunkIterator.getCurrentRowInRecordBatch();
+    wasNull = converter.isNull(index);
+    return converter.toLocalDateTime(index);
+  }
+
+  @Override
+  public OffsetDateTime getOffsetDateTime(int columnIndex) throws SFException
+  {
+    ArrowVectorConverter converter =
+        currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    int index = currentChunkIterator.getCurrentRowInRecordBatch();
+    wasNull = converter.isNull(index);
+    return converter.toOffsetDateTime(index);
+  }
+
+  @Override
+  public LocalDate getLocalDate(int columnIndex) throws SFException
+  {
+    ArrowVectorConverter converter =
+        currentChunkIterator.getCurrentConverter(columnIndex - 1);
+    int index = currentChunkIterator.getCurrentRowInRecordBatch();
+    wasNull = converter.isNull(index);
+    return converter.toLocalDate(index);
+  }
+
   @Override
   public Object getObject(int columnIndex) throws SFException
   {
@@ -573,6 +775,12 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
     return getBigDecimal(columnIndex).setScale(scale, RoundingMode.HALF_UP);
   }
 
+  @Override
+  protected boolean isSortedOnClient()
+  {
+    return sortResult;
+  }
+
   @Override
   public boolean isLast()
   {
@@ -592,6 +800,14 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
   {
     super.close();
 
+    // the downloader only frees the chunks not handed out yet
+    currentChunkIterator.getChunk().freeData();
+    freeSortedChunks();
+    if (batchChunk != null)
+    {
+      batchChunk.freeData();
+    }
+
     if (chunkDownloader != null)
     {
       DownloaderMetrics metrics = chunkDownloader.terminate();
@@ -696,6 +912,12 @@ public class SFArrowResultSet extends SFBaseResultSet implements DataConversionC
     return timeZone;
   }
 
+  @Override
+  protected TimeZone getSessionTimeZone()
+  {
+    return timeZone;
+  }
+
   @Override
   public boolean getHonorClientTZForTimestampNTZ()
   {
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.core;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Data class of a query submitted asynchronously: its query ID, known as
+ * soon as the query is submitted, and its future result set
+ */
+public class SFAsyncQuery
+{
+  private final String queryId;
+
+  private final CompletableFuture<SFBaseResultSet> result;
+
+  SFAsyncQuery(String queryId, CompletableFuture<SFBaseResultSet> result)
+  {
+    this.queryId = queryId;
+    this.result = result;
+  }
+
+  public String getQueryId()
+  {
+    return queryId;
+  }
+
+  /**
+   * @return future completed with the result set of the query, or with the
+   * exception raised by the query. Canceling it cancels the query.
+   */
+  public CompletableFuture<SFBaseResultSet> getResult()
+  {
+    return result;
+  }
+}
@@ -4,8 +4,10 @@
 
 package net.snowflake.client.core;
 
+import net.snowflake.client.core.arrow.ArrowResultUtil;
 import net.snowflake.client.jdbc.ErrorCode;
 import net.snowflake.client.jdbc.SnowflakeChunkDownloader;
+import net.snowflake.client.jdbc.SnowflakeResultPartition;
 import net.snowflake.client.jdbc.SnowflakeSQLException;
 import net.snowflake.client.jdbc.telemetry.TelemetryData;
 import net.snowflake.client.jdbc.telemetry.TelemetryField;
@@ -20,11 +22,19 @@ import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.function.Supplier;
 
 /**
  * Base class for query result set and metadata result set
@@ -54,6 +64,9 @@ public abstract class SFBaseResultSet
 
   protected long resultVersion = 0;
 
+  // session time zone, converted once for the java.time getters
+  private ZoneId sessionZoneId;
+
   protected int numberOfBinds = 0;
 
   protected List<MetaDataOfBinds> metaDataOfBinds = new ArrayList<>();
@@ -64,6 +77,10 @@ public abstract class SFBaseResultSet
   // indicate whether the result set has been closed or not.
   protected boolean isClosed;
 
+  // parts of the result that can be read independently, built on request
+  protected Supplier<List<SnowflakeResultPartition>> resultPartitions =
+      Collections::emptyList;
+
   abstract public boolean isLast();
 
   abstract public boolean isAfterLast();
@@ -97,6 +114,102 @@ public abstract class SFBaseResultSet
 
   public abstract BigDecimal getBigDecimal(int columnIndex) throws SFException;
 
+  /**
+   * Get a NUMBER value as its unscaled value, the scale being the one of
+   * the column. Subclasses read it without creating a BigDecimal.
+   *
+   * @param columnIndex column index, starting from 1
+   * @return the unscaled value, 0 for SQL NULL
+   * @throws SFException if not a NUMBER or the value doesn't fit in a long
+   */
+  public long getUnscaledLong(int columnIndex) throws SFException
+  {
+    int columnType = resultSetMetaData.getColumnType(columnIndex);
+    if (Types.DECIMAL != columnType && Types.BIGINT != columnType)
+    {
+      throw new SFException(ErrorCode.INVALID_VALUE_CONVERT, columnType,
+                            "unscaled long", "");
+    }
+
+    BigDecimal value = getBigDecimal(columnIndex);
+    if (value == null)
+    {
+      return 0;
+    }
+    try
+    {
+      return value.setScale(resultSetMetaData.getScale(columnIndex))
+          .unscaledValue().longValueExact();
+    }
+    catch (ArithmeticException ex)
+    {
+      throw new SFException(ErrorCode.INVALID_VALUE_CONVERT, columnType,
+                            "unscaled long", value.toPlainString());
+    }
+  }
+
+  /**
+   * Get a TIMESTAMP or DATE value as an Instant. Subclasses compute it from
+   * the value since epoch, without the Timestamp and Calendar objects the
+   * java.sql types need; the base implementations convert those.
+   *
+   * @param columnIndex column index, starting from 1
+   * @return the instant, null for SQL NULL
+   * @throws SFException if the value can't be converted
+   */
+  public Instant getInstant(int columnIndex) throws SFException
+  {
+    Timestamp ts = getTimestamp(columnIndex, TimeZone.getDefault());
+    return ts == null ? null : ts.toInstant();
+  }
+
+  public LocalDateTime getLocalDateTime(int columnIndex) throws SFException
+  {
+    OffsetDateTime dateTime = getOffsetDateTime(columnIndex);
+    return dateTime == null ? null : dateTime.toLocalDateTime();
+  }
+
+  public OffsetDateTime getOffsetDateTime(int columnIndex) throws SFException
+  {
+    Instant instant = getInstant(columnIndex);
+    return instant == null ? null :
+           ArrowResultUtil.toOffsetDateTime(instant, getZoneId(columnIndex));
+  }
+
+  public LocalDate getLocalDate(int columnIndex) throws SFException
+  {
+    Date date = getDate(columnIndex);
+    return date == null ? null : date.toLocalDate();
+  }
+
+  /**
+   * @return session time zone, null if the result set has none
+   */
+  protected TimeZone getSessionTimeZone()
+  {
+    return null;
+  }
+
+  /**
+   * Get the zone of the java.time values of a column without an offset of
+   * their own, see {@link ArrowResultUtil#getZoneId}
+   *
+   * @param columnIndex column index, starting from 1
+   * @return zone of the values
+   * @throws SFException if the column doesn't exist
+   */
+  protected ZoneId getZoneId(int columnIndex) throws SFException
+  {
+    TimeZone sessionTimeZone = getSessionTimeZone();
+    if (sessionZoneId == null && sessionTimeZone != null)
+    {
+      sessionZoneId = sessionTimeZone.toZoneId();
+    }
+    return ArrowResultUtil.getZoneId(
+        resultSetMetaData.getInternalColumnType(columnIndex),
+        sessionZoneId, honorClientTZForTimestampNTZ);
+  }
+
   public abstract BigDecimal getBigDecimal(int columnIndex, int scale) throws SFException;
 
   public abstract SFStatementType getStatementType();
@@ -142,6 +255,34 @@ public abstract class SFBaseResultSet
     return resultSetMetaData;
   }
 
+  /**
+   * @return the partitions of the result, empty if the result can't be
+   * partitioned
+   * @throws SnowflakeSQLException if the result is sorted on the client, as
+   *                               the partitions hold the rows unsorted
+   */
+  public List<SnowflakeResultPartition> getResultPartitions()
+  throws SnowflakeSQLException
+  {
+    if (isSortedOnClient())
+    {
+      throw new SnowflakeSQLException(
+          ErrorCode.FEATURE_UNSUPPORTED.getSqlState(),
+          ErrorCode.FEATURE_UNSUPPORTED.getMessageCode(),
+          "partitions of a result sorted on the client");
+    }
+    return resultPartitions.get();
+  }
+
+  /**
+   * @return true if the rows are sorted on the client, so they are not read in
+   * the order of the chunks
+   */
+  protected boolean isSortedOnClient()
+  {
+    return false;
+  }
+
   public int getRow() throws SQLException
   {
     return row;
@@ -4,7 +4,9 @@
 
 package net.snowflake.client.core;
 
+import net.snowflake.client.core.arrow.ArrowResultUtil;
 import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.JsonResultChunk;
 import net.snowflake.client.jdbc.SnowflakeUtil;
 import net.snowflake.client.log.ArgSupplier;
 import net.snowflake.client.log.SFLogger;
@@ -20,6 +22,12 @@ import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.TimeZone;
 
 /**
@@ -44,6 +52,51 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
    */
   protected abstract Object getObjectInternal(int columnIndex) throws SFException;
 
+  /**
+   * Chunk holding the current row, so typed getters can parse the cells in
+   * place instead of creating a String for every value
+   *
+   * @return the chunk, null if the current row is not stored in a chunk
+   */
+  protected JsonResultChunk getCurrentChunk()
+  {
+    return null;
+  }
+
+  /**
+   * @return index of the current row in the chunk returned by
+   * getCurrentChunk()
+   */
+  protected int getCurrentChunkRowIndex()
+  {
+    return -1;
+  }
+
+  /**
+   * Get the chunk to read a cell of the current row in place, and record
+   * whether the cell is null
+   *
+   * @param columnIndex column index, starting from 1
+   * @return the chunk, null if the cell must be read by getObjectInternal
+   * @throws SFException if the column doesn't exist
+   */
+  private JsonResultChunk getChunkForCell(int columnIndex) throws SFException
+  {
+    JsonResultChunk chunk = getCurrentChunk();
+    if (chunk == null)
+    {
+      return null;
+    }
+
+    if (columnIndex <= 0 || columnIndex > resultSetMetaData.getColumnCount())
+    {
+      throw new SFException(ErrorCode.COLUMN_DOES_NOT_EXIST, columnIndex);
+    }
+
+    wasNull = chunk.isNull(getCurrentChunkRowIndex(), columnIndex - 1);
+    return chunk;
+  }
+
   public Object getObject(int columnIndex) throws SFException
   {
     logger.debug(
@@ -211,6 +264,13 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
     logger.debug(
         "public boolean getBoolean(int columnIndex)");
 
+    JsonResultChunk chunk = getChunkForCell(columnIndex);
+    if (chunk != null)
+    {
+      return !wasNull &&
+             chunk.getBoolean(getCurrentChunkRowIndex(), columnIndex - 1);
+    }
+
     Object obj = getObjectInternal(columnIndex);
     if (obj == null)
     {
@@ -232,6 +292,28 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
   {
     logger.debug("public short getByte(int columnIndex)");
 
+    JsonResultChunk chunk = getChunkForCell(columnIndex);
+    if (chunk != null)
+    {
+      if (wasNull)
+      {
+        return 0;
+      }
+      try
+      {
+        long value =
+            chunk.getLong(getCurrentChunkRowIndex(), columnIndex - 1);
+        if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+        {
+          return (byte) value;
+        }
+      }
+      catch (NumberFormatException ex)
+      {
+        // not an integer, parse the String below for the same error
+      }
+    }
+
     // Column index starts from 1, not 0.
     Object obj = getObjectInternal(columnIndex);
 
@@ -255,6 +337,28 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
   {
     logger.debug("public short getShort(int columnIndex)");
 
+    JsonResultChunk chunk = getChunkForCell(columnIndex);
+    if (chunk != null)
+    {
+      if (wasNull)
+      {
+        return 0;
+      }
+      try
+      {
+        long value =
+            chunk.getLong(getCurrentChunkRowIndex(), columnIndex - 1);
+        if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE)
+        {
+          return (short) value;
+        }
+      }
+      catch (NumberFormatException ex)
+      {
+        // not an integer, parse the String below for the same error
+      }
+    }
+
     // Column index starts from 1, not 0.
     Object obj = getObjectInternal(columnIndex);
 
@@ -278,6 +382,28 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
   {
     logger.debug("public int getInt(int columnIndex)");
 
+    JsonResultChunk chunk = getChunkForCell(columnIndex);
+    if (chunk != null)
+    {
+      if (wasNull)
+      {
+        return 0;
+      }
+      try
+      {
+        long value =
+            chunk.getLong(getCurrentChunkRowIndex(), columnIndex - 1);
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+        {
+          return (int) value;
+        }
+      }
+      catch (NumberFormatException ex)
+      {
+        // not an integer, parse the String below for the same error
+      }
+    }
+
     // Column index starts from 1, not 0.
     Object obj = getObjectInternal(columnIndex);
 
@@ -302,6 +428,23 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
   {
     logger.debug("public long getLong(int columnIndex)");
 
+    JsonResultChunk chunk = getChunkForCell(columnIndex);
+    if (chunk != null)
+    {
+      if (wasNull)
+      {
+        return 0;
+      }
+      try
+      {
+        return chunk.getLong(getCurrentChunkRowIndex(), columnIndex - 1);
+      }
+      catch (NumberFormatException ex)
+      {
+        // not an integer, parse the String below for the same error
+      }
+    }
+
     // Column index starts from 1, not 0.
     Object obj = getObjectInternal(columnIndex);
 
@@ -348,6 +491,11 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
     logger.debug(
         "public BigDecimal getBigDecimal(int columnIndex)");
 
+    BigDecimal value = getBigDecimalInPlace(columnIndex);
+    if (value != null || wasNull)
+    {
+      return value;
+    }
 
     // Column index starts from 1, not 0.
     Object obj = getObjectInternal(columnIndex);
@@ -366,21 +514,46 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
     logger.debug(
         "public BigDecimal getBigDecimal(int columnIndex)");
 
+    BigDecimal value = getBigDecimalInPlace(columnIndex);
+    if (value == null)
+    {
+      if (wasNull)
+      {
+        return null;
+      }
 
-    Object obj = getObjectInternal(columnIndex);
+      Object obj = getObjectInternal(columnIndex);
 
-    if (obj == null)
-    {
-      return null;
-    }
+      if (obj == null)
+      {
+        return null;
+      }
 
-    BigDecimal value = new BigDecimal(obj.toString());
+      value = new BigDecimal(obj.toString());
+    }
 
     value = value.setScale(scale, RoundingMode.HALF_UP);
 
     return value;
   }
 
+  /**
+   * Parse a decimal cell in place
+   *
+   * @param columnIndex column index, starting from 1
+   * @return the value, null if the cell is null or must be parsed as String
+   * @throws SFException if the column doesn't exist
+   */
+  private BigDecimal getBigDecimalInPlace(int columnIndex) throws SFException
+  {
+    JsonResultChunk chunk = getChunkForCell(columnIndex);
+    if (chunk == null || wasNull)
+    {
+      return null;
+    }
+    return chunk.getBigDecimal(getCurrentChunkRowIndex(), columnIndex - 1);
+  }
+
   private SFTimestamp getSFTimestamp(int columnIndex) throws SFException
   {
     logger.debug(
@@ -433,6 +606,31 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
     int columnType = resultSetMetaData.getColumnType(columnIndex);
     if (Types.TIMESTAMP == columnType)
     {
+      // TIMESTAMP_NTZ and TIMESTAMP_LTZ are sent as seconds since epoch
+      int internalColumnType =
+          resultSetMetaData.getInternalColumnType(columnIndex);
+      JsonResultChunk chunk =
+          internalColumnType == SnowflakeUtil.EXTRA_TYPES_TIMESTAMP_TZ ?
+          null : getChunkForCell(columnIndex);
+      if (chunk != null)
+      {
+        if (wasNull)
+        {
+          return null;
+        }
+        Timestamp ts = chunk.getEpochTimestamp(getCurrentChunkRowIndex(),
+                                               columnIndex - 1);
+        if (ts != null)
+        {
+          if (honorClientTZForTimestampNTZ &&
+              internalColumnType == Types.TIMESTAMP)
+          {
+            ts = ArrowResultUtil.moveToTimeZone(ts, timeZoneUTC, tz);
+          }
+          return ResultUtil.adjustTimestamp(ts);
+        }
+      }
+
       SFTimestamp sfTS = getSFTimestamp(columnIndex);
 
       if (sfTS == null)
@@ -474,6 +672,175 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
     }
   }
 
+  @Override
+  public long getUnscaledLong(int columnIndex) throws SFException
+  {
+    int columnType = resultSetMetaData.getColumnType(columnIndex);
+    JsonResultChunk chunk =
+        Types.DECIMAL == columnType || Types.BIGINT == columnType ?
+        getChunkForCell(columnIndex) : null;
+    if (chunk != null)
+    {
+      if (wasNull)
+      {
+        return 0;
+      }
+      try
+      {
+        return chunk.getUnscaledLong(getCurrentChunkRowIndex(),
+                                     columnIndex - 1,
+                                     resultSetMetaData.getScale(columnIndex));
+      }
+      catch (NumberFormatException ex)
+      {
+        // not a plain decimal, convert the BigDecimal for the same error
+      }
+    }
+    return super.getUnscaledLong(columnIndex);
+  }
+
+  @Override
+  protected TimeZone getSessionTimeZone()
+  {
+    return timeZone;
+  }
+
+  @Override
+  public Instant getInstant(int columnIndex) throws SFException
+  {
+    if (Types.TIMESTAMP != resultSetMetaData.getColumnType(columnIndex))
+    {
+      return super.getInstant(columnIndex);
+    }
+
+    if (resultSetMetaData.getInternalColumnType(columnIndex) ==
+        SnowflakeUtil.EXTRA_TYPES_TIMESTAMP_LTZ)
+    {
+      return getEpochInstant(columnIndex);
+    }
+    OffsetDateTime dateTime = getOffsetDateTime(columnIndex);
+    return dateTime == null ? null : dateTime.toInstant();
+  }
+
+  @Override
+  public LocalDateTime getLocalDateTime(int columnIndex) throws SFException
+  {
+    int columnType = resultSetMetaData.getColumnType(columnIndex);
+    if (Types.DATE == columnType)
+    {
+      LocalDate date = getLocalDate(columnIndex);
+      return date == null ? null : date.atStartOfDay();
+    }
+    else if (Types.TIMESTAMP != columnType)
+    {
+      return super.getLocalDateTime(columnIndex);
+    }
+
+    if (resultSetMetaData.getInternalColumnType(columnIndex) ==
+        Types.TIMESTAMP)
+    {
+      Instant epoch = getEpochInstant(columnIndex);
+      return epoch == null ? null : ArrowResultUtil.toWallClockTime(epoch);
+    }
+    OffsetDateTime dateTime = getOffsetDateTime(columnIndex);
+    return dateTime == null ? null : dateTime.toLocalDateTime();
+  }
+
+  @Override
+  public OffsetDateTime getOffsetDateTime(int columnIndex) throws SFException
+  {
+    if (Types.TIMESTAMP != resultSetMetaData.getColumnType(columnIndex))
+    {
+      return super.getOffsetDateTime(columnIndex);
+    }
+
+    int internalColumnType =
+        resultSetMetaData.getInternalColumnType(columnIndex);
+    if (internalColumnType == Types.TIMESTAMP)
+    {
+      LocalDateTime wallClockTime = getLocalDateTime(columnIndex);
+      return wallClockTime == null ? null :
+             wallClockTime.atZone(getZoneId(columnIndex)).toOffsetDateTime();
+    }
+    else if (internalColumnType == SnowflakeUtil.EXTRA_TYPES_TIMESTAMP_TZ)
+    {
+      // sent with its time zone index, parsed as a String
+      SFTimestamp sfTS = getSFTimestamp(columnIndex);
+      Timestamp ts = sfTS == null ? null : sfTS.getTimestamp();
+      if (ts == null)
+      {
+        return null;
+      }
+      return ArrowResultUtil.toOffsetDateTime(
+          ts.toInstant(),
+          ZoneOffset.ofTotalSeconds(
+              sfTS.getTimeZone().getOffset(ts.getTime()) / 1000));
+    }
+
+    Instant instant = getEpochInstant(columnIndex);
+    return instant == null ? null :
+           ArrowResultUtil.toOffsetDateTime(instant, getZoneId(columnIndex));
+  }
+
+  @Override
+  public LocalDate getLocalDate(int columnIndex) throws SFException
+  {
+    int columnType = resultSetMetaData.getColumnType(columnIndex);
+    if (Types.TIMESTAMP == columnType)
+    {
+      LocalDateTime dateTime = getLocalDateTime(columnIndex);
+      return dateTime == null ? null : dateTime.toLocalDate();
+    }
+
+    // dates are sent as days since epoch
+    JsonResultChunk chunk =
+        Types.DATE == columnType ? getChunkForCell(columnIndex) : null;
+    if (chunk != null)
+    {
+      if (wasNull)
+      {
+        return null;
+      }
+      try
+      {
+        return LocalDate.ofEpochDay(
+            chunk.getLong(getCurrentChunkRowIndex(), columnIndex - 1));
+      }
+      catch (NumberFormatException | DateTimeException ex)
+      {
+        // not a day number, parse the String as getDate does
+      }
+    }
+    return super.getLocalDate(columnIndex);
+  }
+
+  /**
+   * Get the seconds since epoch of a TIMESTAMP_NTZ or TIMESTAMP_LTZ value,
+   * read in place when possible
+   */
+  private Instant getEpochInstant(int columnIndex) throws SFException
+  {
+    JsonResultChunk chunk = getChunkForCell(columnIndex);
+    if (chunk != null)
+    {
+      if (wasNull)
+      {
+        return null;
+      }
+      Instant epoch = chunk.getEpochInstant(getCurrentChunkRowIndex(),
+                                            columnIndex - 1);
+      if (epoch != null)
+      {
+        return epoch;
+      }
+    }
+
+    SFTimestamp sfTS = getSFTimestamp(columnIndex);
+    Timestamp ts = sfTS == null ? null : sfTS.getTimestamp();
+    // the epoch of the Timestamp, not its calendar fields
+    return ts == null ? null : ts.toInstant();
+  }
+
   @Override
   public float getFloat(int columnIndex) throws SFException
   {
@@ -513,6 +880,21 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
   {
     logger.debug("public double getDouble(int columnIndex)");
 
+    JsonResultChunk chunk = getChunkForCell(columnIndex);
+    if (chunk != null)
+    {
+      if (wasNull)
+      {
+        return 0;
+      }
+      double value =
+          chunk.getDouble(getCurrentChunkRowIndex(), columnIndex - 1);
+      if (!Double.isNaN(value))
+      {
+        return value;
+      }
+    }
+
     // Column index starts from 1, not 0.
     Object obj = getObjectInternal(columnIndex);
 
@@ -583,6 +965,30 @@ public abstract class SFJsonResultSet extends SFBaseResultSet
 
     logger.debug("public Date getDate(int columnIndex)");
 
+    // dates are sent as days since epoch
+    JsonResultChunk chunk =
+        Types.DATE == resultSetMetaData.getColumnType(columnIndex) ?
+        getChunkForCell(columnIndex) : null;
+    if (chunk != null)
+    {
+      if (wasNull)
+      {
+        return null;
+      }
+      try
+      {
+        long day = chunk.getLong(getCurrentChunkRowIndex(), columnIndex - 1);
+        if (day >= Integer.MIN_VALUE && day <= Integer.MAX_VALUE)
+        {
+          return ArrowResultUtil.getDate((int) day, tz, session);
+        }
+      }
+      catch (NumberFormatException ex)
+      {
+        // not a day number, parse the String below for the same error
+      }
+    }
+
     // Column index starts from 1, not 0.
     Object obj = getObjectInternal(columnIndex);
 
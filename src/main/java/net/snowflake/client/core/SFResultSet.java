@@ -86,19 +86,60 @@ public class SFResultSet extends SFJsonResultSet
               boolean sortResult)
   throws SQLException
   {
+    this(resultOutput, statement.getSession(),
+         statement.getSession().getTelemetryClient(), sortResult);
+
     this.statement = statement;
+    SFSession session = this.statement.getSession();
+    session.setDatabase(resultOutput.getFinalDatabaseName());
+    session.setSchema(resultOutput.getFinalSchemaName());
+    session.setRole(resultOutput.getFinalRoleName());
+    session.setWarehouse(resultOutput.getFinalWarehouseName());
+
+    // update the driver/session with common parameters from GS
+    SessionUtil.updateSfDriverParamValues(this.parameters, statement.getSession());
+
+    // if server gives a send time, log time it took to arrive
+    if (resultOutput.getSendResultTime() != 0)
+    {
+      long timeConsumeFirstResult = this.firstChunkTime - resultOutput.getSendResultTime();
+      logMetric(TelemetryField.TIME_CONSUME_FIRST_RESULT, timeConsumeFirstResult);
+    }
+
+    eventHandler.triggerStateTransition(QueryState.CONSUMING_RESULT,
+                                        String.format(QueryState.CONSUMING_RESULT.getArgString(), queryId, 0));
+  }
+
+  /**
+   * This is a minimum initialization for SFResultSet, without statement.
+   * Used to read a result partition, the constructor taking the statement
+   * calls it as well.
+   *
+   * @param resultOutput    result data after parsing
+   * @param session         session of the result, null for a partition
+   * @param telemetryClient telemetry client
+   * @param sortResult      true if sort results otherwise false
+   * @throws SQLException exception raised from general SQL layers
+   */
+  SFResultSet(ResultUtil.ResultOutput resultOutput,
+              SFSession session,
+              Telemetry telemetryClient,
+              boolean sortResult)
+  throws SQLException
+  {
     this.columnCount = 0;
     this.sortResult = sortResult;
     this.firstChunkTime = System.currentTimeMillis();
 
-    SFSession session = this.statement.getSession();
-    this.telemetryClient = session.getTelemetryClient();
+    this.telemetryClient = telemetryClient;
     this.queryId = resultOutput.getQueryId();
     this.statementType = resultOutput.getStatementType();
     this.totalRowCountTruncated = resultOutput.isTotalRowCountTruncated();
     this.parameters = resultOutput.getParameters();
     this.columnCount = resultOutput.getColumnCount();
     this.firstChunkRowset = resultOutput.getAndClearCurrentChunkRowset();
+    // the rows of the response may already be parsed into a chunk
+    this.currentChunk = resultOutput.getAndClearFirstChunk();
     this.currentChunkRowCount = resultOutput.getCurrentChunkRowCount();
     this.chunkCount = resultOutput.getChunkCount();
     this.chunkDownloader = resultOutput.getChunkDownloader();
@@ -115,14 +156,7 @@ public class SFResultSet extends SFJsonResultSet
     this.numberOfBinds = resultOutput.getNumberOfBinds();
     this.arrayBindSupported = resultOutput.isArrayBindSupported();
     this.metaDataOfBinds = resultOutput.getMetaDataOfBinds();
-
-    session.setDatabase(resultOutput.getFinalDatabaseName());
-    session.setSchema(resultOutput.getFinalSchemaName());
-    session.setRole(resultOutput.getFinalRoleName());
-    session.setWarehouse(resultOutput.getFinalWarehouseName());
-
-    // update the driver/session with common parameters from GS
-    SessionUtil.updateSfDriverParamValues(this.parameters, statement.getSession());
+    this.resultPartitions = resultOutput::getResultPartitions;
 
     // sort result set if needed
     if (sortResult)
@@ -137,16 +171,6 @@ public class SFResultSet extends SFJsonResultSet
       sortResultSet();
     }
 
-    // if server gives a send time, log time it took to arrive
-    if (resultOutput.getSendResultTime() != 0)
-    {
-      long timeConsumeFirstResult = this.firstChunkTime - resultOutput.getSendResultTime();
-      logMetric(TelemetryField.TIME_CONSUME_FIRST_RESULT, timeConsumeFirstResult);
-    }
-
-    eventHandler.triggerStateTransition(BasicEvent.QueryState.CONSUMING_RESULT,
-                                        String.format(QueryState.CONSUMING_RESULT.getArgString(), queryId, 0));
-
     resultSetMetaData = new SFResultSetMetaData(resultOutput.getResultColumnMetadata(),
                                                 queryId,
                                                 session,
@@ -344,6 +368,25 @@ public class SFResultSet extends SFJsonResultSet
     return retValue;
   }
 
+  @Override
+  protected JsonResultChunk getCurrentChunk()
+  {
+    // the first chunk is stored as JSON nodes or as sorted rows
+    if (sortResult || firstChunkRowset != null ||
+        currentChunkRowIndex < 0 ||
+        currentChunkRowIndex >= currentChunkRowCount)
+    {
+      return null;
+    }
+    return currentChunk;
+  }
+
+  @Override
+  protected int getCurrentChunkRowIndex()
+  {
+    return currentChunkRowIndex;
+  }
+
   private void sortResultSet()
   {
     // first fetch rows into firstChunkSortedRowSet
@@ -355,7 +398,9 @@ public class SFResultSet extends SFJsonResultSet
       for (int colIdx = 0; colIdx < columnCount; colIdx++)
       {
         firstChunkSortedRowSet[rowIdx][colIdx] =
-            JsonResultChunk.extractCell(firstChunkRowset, rowIdx, colIdx);
+            firstChunkRowset != null ?
+            JsonResultChunk.extractCell(firstChunkRowset, rowIdx, colIdx) :
+            currentChunk.getCell(rowIdx, colIdx);
       }
     }
 
@@ -403,6 +448,12 @@ public class SFResultSet extends SFJsonResultSet
                 });
   }
 
+  @Override
+  protected boolean isSortedOnClient()
+  {
+    return sortResult;
+  }
+
   @Override
   public boolean isLast()
   {
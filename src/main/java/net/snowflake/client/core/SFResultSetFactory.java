@@ -5,7 +5,9 @@ package net.snowflake.client.core;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.SnowflakeResultPartition;
 import net.snowflake.client.jdbc.SnowflakeSQLException;
+import net.snowflake.client.jdbc.telemetry.NoopTelemetryClient;
 
 import java.sql.SQLException;
 
@@ -13,7 +15,7 @@ import java.sql.SQLException;
  * Factory class to create SFBaseResultSet class. Depending on result
  * format, different instance will be created
  */
-class SFResultSetFactory
+public class SFResultSetFactory
 {
   /**
    * Factory class used to generate ResultSet object according to query result
@@ -52,4 +54,33 @@ class SFResultSetFactory
                                         resultOutput.queryResultFormat.name());
     }
   }
+
+  /**
+   * Create the result set reading one partition of a result, without
+   * session or statement
+   *
+   * @param partition partition of a result
+   * @return result set object
+   * @throws SQLException if the partition can't be read
+   */
+  public static SFBaseResultSet getResultSet(SnowflakeResultPartition partition)
+  throws SQLException
+  {
+    ResultUtil.ResultOutput resultOutput =
+        ResultUtil.processResultPartition(partition);
+
+    switch (resultOutput.queryResultFormat)
+    {
+      case ARROW:
+        return new SFArrowResultSet(resultOutput, new NoopTelemetryClient(),
+                                    false);
+      case JSON:
+        return new SFResultSet(resultOutput, (SFSession) null,
+                               new NoopTelemetryClient(), false);
+      default:
+        throw new SnowflakeSQLException(ErrorCode.INTERNAL_ERROR,
+                                        "Unsupported query result format: " +
+                                        resultOutput.queryResultFormat.name());
+    }
+  }
 }
@@ -12,6 +12,7 @@ import net.snowflake.client.jdbc.ErrorCode;
 import net.snowflake.client.jdbc.SnowflakeFileTransferAgent;
 import net.snowflake.client.jdbc.SnowflakeReauthenticationRequest;
 import net.snowflake.client.jdbc.SnowflakeSQLException;
+import net.snowflake.client.jdbc.SnowflakeUtil;
 import net.snowflake.client.jdbc.telemetry.TelemetryData;
 import net.snowflake.client.jdbc.telemetry.TelemetryUtil;
 import net.snowflake.client.log.ArgSupplier;
@@ -29,9 +30,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -94,6 +93,9 @@ public class SFStatement
   // list of child result objects for queries called by the current query, if any
   private List<SFChildResult> childResults = null;
 
+  // fetches the child results ahead of getMoreResults
+  private ChildResultPrefetcher childResultPrefetcher = null;
+
   // Three parameters adjusted in conservative memory usage mode
   private int conservativePrefetchThreads;
   private int conservativeResultChunkSize;
@@ -319,40 +321,87 @@ public class SFStatement
   }
 
   /**
-   * Set a time bomb to cancel the outstanding query when timeout is reached.
+   * Submit a query without waiting for it to complete. The query is polled
+   * by the driver wide {@link AsyncQueryPoller}, no thread waits for it.
    *
-   * @param executor object to execute statement cancel request
+   * @param sql               sql statement
+   * @param parametersBinding parameters to bind
+   * @return query ID and future result set of the query
+   * @throws SQLException if the connection is closed or the statement can't
+   *                      be executed asynchronously
+   * @throws SFException  if the query can't be submitted
    */
-  private void setTimeBomb(ScheduledExecutorService executor)
+  public SFAsyncQuery executeAsync(
+      String sql,
+      Map<String, ParameterBindingDTO> parametersBinding)
+  throws SQLException, SFException
   {
-    class TimeBombTask implements Callable<Void>
-    {
+    sanityCheckQuery(sql);
 
-      private final SFStatement statement;
+    logger.debug("executeAsync: {}",
+                 (ArgSupplier) () -> SecretDetector.maskSecrets(sql));
 
-      private TimeBombTask(SFStatement statement)
-      {
-        this.statement = statement;
-      }
+    if (session == null || session.isClosed())
+    {
+      throw new SQLException("connection is closed");
+    }
 
-      @Override
-      public Void call() throws SQLException
-      {
-        try
-        {
-          statement.cancel();
-        }
-        catch (SFException ex)
-        {
-          throw new SnowflakeSQLException(ex, ex.getSqlState(),
-                                          ex.getVendorCode(), ex.getParams());
-        }
-        return null;
-      }
+    // PUT/GET and client side commands run on the client
+    String trimmedSql = sql.trim();
+    if (isFileTransfer(trimmedSql) ||
+        trimmedSql.toLowerCase().startsWith("set-sf-property"))
+    {
+      throw new SnowflakeSQLException(
+          ErrorCode.UNSUPPORTED_STATEMENT_TYPE_IN_EXECUTION_API,
+          StmtUtil.truncateSQL(sql));
     }
 
-    executor.schedule(new TimeBombTask(this), this.queryTimeout,
-                      TimeUnit.SECONDS);
+    resetState();
+
+    return (SFAsyncQuery) executeHelper(sql,
+                                        StmtUtil.SF_MEDIA_TYPE,
+                                        parametersBinding,
+                                        false,
+                                        false,
+                                        true);
+  }
+
+  /**
+   * Create the result set of a query submitted asynchronously
+   *
+   * @param result result of the query in JSON
+   * @return result set
+   * @throws SQLException if the result set can't be created
+   */
+  SFBaseResultSet createAsyncResultSet(JsonNode result) throws SQLException
+  {
+    Object sortProperty = session.getSFSessionProperty("sort");
+    boolean sortResult = sortProperty != null && (Boolean) sortProperty;
+    return SFResultSetFactory.getResultSet(result, this, sortResult);
+  }
+
+  /**
+   * Set a time bomb to cancel the outstanding query when timeout is reached.
+   *
+   * @return the timeout, to be canceled when the query completes
+   */
+  private QueryTimeoutTimer.Timeout setTimeBomb()
+  {
+    final SFStatement statement = this;
+    return QueryTimeoutTimer.getInstance().schedule(
+        () ->
+        {
+          try
+          {
+            statement.cancel();
+          }
+          catch (SFException | SQLException ex)
+          {
+            logger.debug("failed to cancel the query after timeout: {}",
+                         ex.getMessage());
+          }
+        },
+        this.queryTimeout, TimeUnit.SECONDS);
   }
 
   /**
@@ -374,7 +423,33 @@ public class SFStatement
                               boolean internal)
   throws SnowflakeSQLException, SFException
   {
-    ScheduledExecutorService executor = null;
+    return executeHelper(sql, mediaType, bindValues, describeOnly, internal,
+                         false);
+  }
+
+  /**
+   * A helper method to build URL and submit the SQL to snowflake for exec
+   *
+   * @param sql          sql statement
+   * @param mediaType    media type
+   * @param bindValues   map of binding values
+   * @param describeOnly whether only show the result set metadata
+   * @param internal     run internal query not showing up in history
+   * @param asyncExec    return as soon as the query is submitted
+   * @return raw json response, or the SFAsyncQuery polling the query if
+   * asyncExec is true
+   * @throws SFException           if query is canceled
+   * @throws SnowflakeSQLException if query is already running
+   */
+  private Object executeHelper(String sql,
+                               String mediaType,
+                               Map<String, ParameterBindingDTO> bindValues,
+                               boolean describeOnly,
+                               boolean internal,
+                               boolean asyncExec)
+  throws SnowflakeSQLException, SFException
+  {
+    QueryTimeoutTimer.Timeout timeBomb = null;
 
     try
     {
@@ -461,7 +536,8 @@ public class SFStatement
           .setDescribedJobId(describeJobUUID)
           .setCombineDescribe(session.getEnableCombineDescribe())
           .setQuerySubmissionTime(System.currentTimeMillis())
-          .setServiceName(session.getServiceName());
+          .setServiceName(session.getServiceName())
+          .setAsyncExec(asyncExec);
 
       if (bindStagePath != null)
       {
@@ -483,12 +559,11 @@ public class SFStatement
         throw new SFException(ErrorCode.QUERY_CANCELED);
       }
 
-      // if timeout is set, start a thread to cancel the request after timeout
-      // reached.
-      if (this.queryTimeout > 0)
+      // if timeout is set, schedule a cancel of the request after timeout
+      // reached. The poller times out the asynchronous queries.
+      if (this.queryTimeout > 0 && !asyncExec)
       {
-        executor = Executors.newScheduledThreadPool(1);
-        setTimeBomb(executor);
+        timeBomb = setTimeBomb();
       }
 
       StmtUtil.StmtOutput stmtOutput = null;
@@ -549,12 +624,14 @@ public class SFStatement
             this.requestId);
       }
 
+      String submittedRequestId;
       synchronized (this)
       {
         /*
          * done with the remote execution of the query. set sequenceId to -1
          * and request id to null so that we don't try to abort it upon canceling.
          */
+        submittedRequestId = this.requestId;
         this.sequenceId = -1;
         this.requestId = null;
       }
@@ -569,6 +646,11 @@ public class SFStatement
 
       logger.debug("Returning from executeHelper");
 
+      if (stmtOutput != null && asyncExec)
+      {
+        return pollAsync(stmtOutput.getResult(), submittedRequestId, sql,
+                         AsyncQueryPoller.getInstance());
+      }
       if (stmtOutput != null)
       {
         return stmtOutput.getResult();
@@ -582,15 +664,61 @@ public class SFStatement
     }
     finally
     {
-      if (executor != null)
+      if (timeBomb != null)
       {
-        executor.shutdownNow();
+        timeBomb.cancel();
       }
       // if this query enabled the new SQL format, re-disable it now
       setUseNewSqlFormat(false);
     }
   }
 
+  /**
+   * Hand a query submitted asynchronously over to the poller
+   *
+   * @param response  response of the submission
+   * @param requestId request ID of the submission
+   * @param sql       sql statement
+   * @param poller    poller of the query if it is still running
+   * @return query ID and future result set of the query
+   * @throws SFException           if the response has no query ID
+   * @throws SnowflakeSQLException if the query failed to be submitted
+   */
+  SFAsyncQuery pollAsync(JsonNode response, String requestId, String sql,
+                         AsyncQueryPoller poller)
+  throws SFException, SnowflakeSQLException
+  {
+    String queryId = response.path("data").path("queryId").asText(null);
+    if (queryId == null)
+    {
+      SnowflakeUtil.checkErrorAndThrowException(response);
+      throw new SFException(ErrorCode.INTERNAL_ERROR,
+                            "No query ID in the response of an async query");
+    }
+
+    if (!StmtUtil.isQueryInProgress(response))
+    {
+      // completed with the submission
+      CompletableFuture<SFBaseResultSet> result = new CompletableFuture<>();
+      try
+      {
+        result.complete(createAsyncResultSet(response));
+      }
+      catch (SQLException ex)
+      {
+        result.completeExceptionally(ex);
+      }
+      return new SFAsyncQuery(queryId, result);
+    }
+
+    String getResultPath = response.path("data").path("getResultUrl")
+        .asText(String.format(StmtUtil.SF_PATH_QUERY_RESULT, queryId));
+    return new SFAsyncQuery(
+        queryId,
+        poller.poll(this, queryId, requestId, sql, getResultPath,
+                    queryTimeout));
+  }
+
   /**
    * calculate conservative memory limit and the number of prefetch threads before query execution
    */
@@ -836,6 +964,7 @@ public class SFStatement
 
     resultSet = null;
     childResults = null;
+    closeChildResultPrefetcher();
     isClosed = true;
 
     if (httpRequest != null)
@@ -901,6 +1030,7 @@ public class SFStatement
   {
     resultSet = null;
     childResults = null;
+    closeChildResultPrefetcher();
 
     if (httpRequest != null)
     {
@@ -956,6 +1086,15 @@ public class SFStatement
     this.hasUnsupportedStageBind = hasUnsupportedStageBind;
   }
 
+  private void closeChildResultPrefetcher()
+  {
+    if (childResultPrefetcher != null)
+    {
+      childResultPrefetcher.close();
+      childResultPrefetcher = null;
+    }
+  }
+
   // *NOTE* this new SQL format is incomplete. It should only be used under certain circumstances.
   private void setUseNewSqlFormat(boolean useNewSqlFormat) throws SFException
   {
@@ -996,12 +1135,17 @@ public class SFStatement
       return false;
     }
 
+    // the remaining child results are fetched in the background, in order
+    if (childResultPrefetcher == null)
+    {
+      childResultPrefetcher = new ChildResultPrefetcher(session, childResults);
+    }
+
     // fetch next result using the query id
     SFChildResult nextResult = childResults.remove(0);
     try
     {
-      JsonNode result = StmtUtil.getQueryResultJSON(
-          nextResult.getId(), session);
+      JsonNode result = childResultPrefetcher.next();
       Object sortProperty = session.getSFSessionProperty("sort");
       boolean sortResult = sortProperty != null && (Boolean) sortProperty;
       resultSet = SFResultSetFactory.getResultSet(result, this, sortResult);
@@ -4,6 +4,7 @@
 
 package net.snowflake.client.core;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Strings;
@@ -47,10 +48,12 @@ public class StmtUtil
 
   private static final String SF_PATH_ABORT_REQUEST_V1 = "/queries/v1/abort-request";
 
-  private static final String SF_PATH_QUERY_RESULT = "/queries/%s/result";
+  static final String SF_PATH_QUERY_RESULT = "/queries/%s/result";
 
   static final String SF_QUERY_REQUEST_ID = "requestId";
 
+  static final String SF_PATH_QUERY_MONITOR = "/monitoring/queries/";
+
   private static final String SF_QUERY_COMBINE_DESCRIBE_EXECUTE = "combinedDescribe";
 
   private static final String SF_HEADER_AUTHORIZATION = HttpHeaders.AUTHORIZATION;
@@ -61,6 +64,10 @@ public class StmtUtil
 
   static final String SF_MEDIA_TYPE = "application/snowflake";
 
+  // the body of a response parsed as it is read is not kept
+  private static final String INVALID_JSON_RESPONSE =
+      "not valid JSON, see the log for the parsing error";
+
   // we don't want to retry canceling forever so put a limit which is
   // twice as much as our default socket timeout
   static final int SF_CANCELING_RETRY_TIMEOUT_IN_MILLIS = 600000; // 10 min
@@ -102,6 +109,9 @@ public class StmtUtil
 
     String serviceName;
 
+    // submit the query without waiting for its result
+    boolean asyncExec = false;
+
     StmtInput()
     {
     }
@@ -221,6 +231,12 @@ public class StmtUtil
       return this;
     }
 
+    public StmtInput setAsyncExec(boolean asyncExec)
+    {
+      this.asyncExec = asyncExec;
+      return this;
+    }
+
     public StmtInput setServiceName(String serviceName)
     {
       this.serviceName = serviceName;
@@ -281,7 +297,7 @@ public class StmtUtil
 
     try
     {
-      String resultAsString = null;
+      JsonNode response = null;
 
       // SNOW-20443: if we are retrying and there is get result URL, we
       // don't need to execute the query again
@@ -323,6 +339,7 @@ public class StmtUtil
         {
           sqlJsonBody.setDescribedJobId(stmtInput.describedJobId);
         }
+        sqlJsonBody.setAsyncExec(stmtInput.asyncExec);
 
         String json = mapper.writeValueAsString(sqlJsonBody);
 
@@ -350,16 +367,14 @@ public class StmtUtil
         eventHandler.triggerStateTransition(BasicEvent.QueryState.SENDING_QUERY,
                                             String.format(QueryState.SENDING_QUERY.getArgString(), stmtInput.requestId));
 
-        resultAsString =
-            HttpUtil.executeRequest(httpRequest,
-                                    stmtInput.networkTimeoutInMillis / 1000,
-                                    stmtInput.injectSocketTimeout,
-                                    stmtInput.canceling,
-                                    true // include retry parameters
-            );
+        response = executeQueryRequest(httpRequest,
+                                       stmtInput,
+                                       stmtInput.injectSocketTimeout,
+                                       true // include retry parameters
+        );
       }
 
-      return pollForOutput(resultAsString, stmtInput, httpRequest);
+      return pollForOutput(response, stmtInput, httpRequest);
     }
     catch (Exception ex)
     {
@@ -407,7 +422,46 @@ public class StmtUtil
     }
   }
 
-  private static StmtOutput pollForOutput(String resultAsString,
+  /**
+   * Execute a request of a query response and parse the response as it is
+   * read, see {@link QueryResponseParser}
+   *
+   * @param httpRequest            request
+   * @param stmtInput              object with context information
+   * @param injectSocketTimeout    simulate socket timeout
+   * @param includeRetryParameters whether to include retry parameters in
+   *                               retried requests
+   * @return the response in JSON, null if the response is not valid JSON
+   * @throws SnowflakeSQLException if Snowflake error occurs
+   * @throws IOException           raises if a general IO error occurs
+   */
+  private static JsonNode executeQueryRequest(HttpRequestBase httpRequest,
+                                              StmtInput stmtInput,
+                                              int injectSocketTimeout,
+                                              boolean includeRetryParameters)
+  throws SnowflakeSQLException, IOException
+  {
+    try
+    {
+      return HttpUtil.executeRequest(httpRequest,
+                                     stmtInput.networkTimeoutInMillis / 1000,
+                                     injectSocketTimeout,
+                                     stmtInput.canceling,
+                                     includeRetryParameters,
+                                     QueryResponseParser::parse);
+    }
+    catch (JsonProcessingException ex)
+    {
+      logger.error("Bad result json, JSON parsing exception: {}, " +
+                   "http request: {}",
+                   ex.getLocalizedMessage(), httpRequest);
+
+      logger.error("Exception stack trace", ex);
+      return null;
+    }
+  }
+
+  private static StmtOutput pollForOutput(JsonNode response,
                                           StmtInput stmtInput,
                                           HttpPost httpRequest)
   throws SFException, SnowflakeSQLException
@@ -428,24 +482,7 @@ public class StmtUtil
 
     do
     {
-      pingPongResponseJson = null;
-
-      if (resultAsString != null)
-      {
-        try
-        {
-          pingPongResponseJson = mapper.readTree(resultAsString);
-        }
-        catch (Exception ex)
-        {
-          logger.error("Bad result json: {}, " +
-                       "JSON parsing exception: {}, http request: {}",
-                       resultAsString, ex.getLocalizedMessage(),
-                       httpRequest);
-
-          logger.error("Exception stack trace", ex);
-        }
-      }
+      pingPongResponseJson = response;
 
       eventHandler.triggerStateTransition(BasicEvent.QueryState.WAITING_FOR_RESULT,
                                           "{requestId: " + stmtInput.requestId + "," +
@@ -462,7 +499,7 @@ public class StmtUtil
           throw (SFException) IncidentUtil.generateIncidentV2WithException(
               stmtInput.serverUrl,
               stmtInput.sessionToken,
-              new SFException(ErrorCode.BAD_RESPONSE, resultAsString),
+              new SFException(ErrorCode.BAD_RESPONSE, INVALID_JSON_RESPONSE),
               null,
               stmtInput.requestId);
         }
@@ -485,12 +522,10 @@ public class StmtUtil
         SnowflakeUtil.checkErrorAndThrowException(pingPongResponseJson);
       }
 
-      // check the response code to see if it is a progress report response
+      // check the response code to see if it is a progress report response,
+      // an asynchronous query returns as soon as it is submitted
       if (pingPongResponseJson != null &&
-          !QueryInProgressResponse.QUERY_IN_PROGRESS_CODE.equals(
-              pingPongResponseJson.path("code").asText())
-          && !QueryInProgressResponse.QUERY_IN_PROGRESS_ASYNC_CODE.equals(
-          pingPongResponseJson.path("code").asText()))
+          (stmtInput.asyncExec || !isQueryInProgress(pingPongResponseJson)))
       {
         queryInProgress = false;
       }
@@ -519,9 +554,9 @@ public class StmtUtil
           }
         }
 
-        resultAsString = getQueryResult(pingPongResponseJson,
-                                        previousGetResultPath,
-                                        stmtInput);
+        response = getQueryResult(pingPongResponseJson,
+                                  previousGetResultPath,
+                                  stmtInput);
 
         // save the previous get result path in case we run into session
         // expiration
@@ -557,11 +592,11 @@ public class StmtUtil
    * @param inProgressResponse    In progress response in JSON form
    * @param previousGetResultPath previous get results path
    * @param stmtInput             input statement
-   * @return results in string form
+   * @return results in JSON, null if the response is not valid JSON
    * @throws SFException           exception raised from Snowflake components
    * @throws SnowflakeSQLException exception raised from Snowflake components
    */
-  static protected String getQueryResult(JsonNode inProgressResponse,
+  static protected JsonNode getQueryResult(JsonNode inProgressResponse,
                                          String previousGetResultPath,
                                          StmtInput stmtInput)
   throws SFException, SnowflakeSQLException
@@ -601,11 +636,11 @@ public class StmtUtil
    *
    * @param getResultPath path to results
    * @param stmtInput     object with context information
-   * @return results in string form
+   * @return results in JSON, null if the response is not valid JSON
    * @throws SFException           exception raised from Snowflake components
    * @throws SnowflakeSQLException exception raised from Snowflake components
    */
-  static protected String getQueryResult(String getResultPath,
+  static protected JsonNode getQueryResult(String getResultPath,
                                          StmtInput stmtInput)
   throws SFException, SnowflakeSQLException
   {
@@ -631,10 +666,7 @@ public class StmtUtil
 
       setServiceNameHeader(stmtInput, httpRequest);
 
-      return HttpUtil.executeRequest(httpRequest,
-                                     stmtInput.networkTimeoutInMillis / 1000,
-                                     0,
-                                     stmtInput.canceling);
+      return executeQueryRequest(httpRequest, stmtInput, 0, false);
     }
     catch (URISyntaxException | IOException ex)
     {
@@ -647,6 +679,102 @@ public class StmtUtil
     }
   }
 
+  static boolean isQueryInProgress(JsonNode response)
+  {
+    String code = response.path("code").asText();
+    return QueryInProgressResponse.QUERY_IN_PROGRESS_CODE.equals(code) ||
+           QueryInProgressResponse.QUERY_IN_PROGRESS_ASYNC_CODE.equals(code);
+  }
+
+  /**
+   * Issue one get-result call for a query submitted asynchronously, without
+   * polling until the query completes
+   *
+   * @param getResultPath path to results
+   * @param stmtInput     object with context information
+   * @return the result in JSON, null if the query is still in progress
+   * @throws SFException           exception raised from Snowflake components
+   * @throws SnowflakeSQLException exception raised from Snowflake components
+   */
+  static JsonNode getQueryResultIfDone(String getResultPath,
+                                       StmtInput stmtInput)
+  throws SFException, SnowflakeSQLException
+  {
+    JsonNode result = getQueryResult(getResultPath, stmtInput);
+    if (result == null)
+    {
+      throw new SFException(ErrorCode.BAD_RESPONSE, INVALID_JSON_RESPONSE);
+    }
+
+    // raise server side error as an exception if any
+    SnowflakeUtil.checkErrorAndThrowException(result);
+    return isQueryInProgress(result) ? null : result;
+  }
+
+  /**
+   * Get the status of a query from the query monitoring service. Unlike the
+   * get-result call, the server doesn't wait for the query to complete.
+   *
+   * @param queryId   query ID
+   * @param stmtInput object with context information
+   * @return status of the query, null if the status is not known
+   * @throws SFException           exception raised from Snowflake components
+   * @throws SnowflakeSQLException exception raised from Snowflake components
+   */
+  static QueryStatus getQueryStatus(String queryId, StmtInput stmtInput)
+  throws SFException, SnowflakeSQLException
+  {
+    HttpGet httpRequest = null;
+    String responseAsString = null;
+
+    try
+    {
+      URIBuilder uriBuilder = new URIBuilder(stmtInput.serverUrl);
+
+      uriBuilder.setPath(SF_PATH_QUERY_MONITOR + queryId);
+
+      uriBuilder.addParameter(SF_QUERY_REQUEST_ID,
+                              UUID.randomUUID().toString());
+
+      httpRequest = new HttpGet(uriBuilder.build());
+
+      httpRequest.addHeader("accept", "application/json");
+
+      httpRequest.setHeader(SF_HEADER_AUTHORIZATION,
+                            SF_HEADER_SNOWFLAKE_AUTHTYPE + " " + SF_HEADER_TOKEN_TAG
+                            + "=\"" + stmtInput.sessionToken + "\"");
+
+      setServiceNameHeader(stmtInput, httpRequest);
+
+      responseAsString = HttpUtil.executeRequest(
+          httpRequest,
+          stmtInput.networkTimeoutInMillis / 1000,
+          0,
+          stmtInput.canceling);
+
+      JsonNode response = mapper.readTree(responseAsString);
+
+      // raise server side error as an exception if any
+      SnowflakeUtil.checkErrorAndThrowException(response);
+
+      JsonNode queries = response.path("data").path("queries");
+      if (queries.size() == 0)
+      {
+        return QueryStatus.NO_DATA;
+      }
+      return QueryStatus.lookupByName(queries.get(0).path("status").asText());
+    }
+    catch (URISyntaxException | IOException ex)
+    {
+      logger.debug("Exception encountered when getting status of query {}: " +
+                   "{}, response: {}",
+                   queryId, ex.getLocalizedMessage(), responseAsString);
+
+      throw new SFException(ex, ErrorCode.INTERNAL_ERROR,
+                            ex.getLocalizedMessage());
+    }
+  }
+
   /**
    * Issue get-result call to get query result given an in progress response.
    * <p>
@@ -669,9 +797,9 @@ public class StmtUtil
         .setMediaType(SF_MEDIA_TYPE)
         .setServiceName(session.getServiceName());
 
-    String resultAsString = getQueryResult(getResultPath, stmtInput);
+    JsonNode result = getQueryResult(getResultPath, stmtInput);
 
-    StmtOutput stmtOutput = pollForOutput(resultAsString, stmtInput, null);
+    StmtOutput stmtOutput = pollForOutput(result, stmtInput, null);
     return stmtOutput.getResult();
   }
 
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Dictionary of the String values of one column, returning the same String
+ * instance for the cells having the same UTF-8 bytes.
+ * <p>
+ * Columns like a status or a country code have few distinct values, so the
+ * cells are looked up by their bytes, in place, and only the first cell of
+ * each value is decoded. Applications holding the rows keep one instance
+ * per value instead of one per cell. When a column turns out to have more
+ * distinct values than the dictionary holds, the dictionary is dropped and
+ * the cells are decoded as usual.
+ * <p>
+ * A dictionary is used by the thread reading its chunk, it is not thread
+ * safe. Dictionaries are off unless enabled with
+ * -Dnet.snowflake.jdbc.enableStringDictionary=true.
+ */
+public class StringDictionary
+{
+  static final String ENABLE_STRING_DICTIONARY_JVM =
+      "net.snowflake.jdbc.enableStringDictionary";
+
+  // distinct values kept before the column is considered high cardinality
+  static final int MAX_ENTRIES = 256;
+
+  // longer values are always decoded
+  static final int MAX_VALUE_LENGTH = 64;
+
+  // open addressing table, at most half full
+  private static final int TABLE_SIZE = MAX_ENTRIES * 2;
+
+  /**
+   * Bytes of the cells, read in place
+   */
+  @FunctionalInterface
+  public interface ByteSource
+  {
+    byte getByte(int offset);
+  }
+
+  private boolean active = true;
+
+  // allocated with the first value
+  private byte[][] keys;
+
+  private int[] hashes;
+
+  private String[] values;
+
+  private int size = 0;
+
+  /**
+   * @return true if the String values of the results are deduplicated
+   */
+  public static boolean isEnabled()
+  {
+    return Boolean.parseBoolean(
+        System.getProperty(ENABLE_STRING_DICTIONARY_JVM));
+  }
+
+  /**
+   * @return true until the column has too many distinct values
+   */
+  public boolean isActive()
+  {
+    return active;
+  }
+
+  /**
+   * Get the String of a cell, adding it to the dictionary the first time
+   *
+   * @param source bytes of the cells
+   * @param offset offset of the cell
+   * @param length length of the cell in bytes
+   * @return the String of the cell, null if the cell is not kept in the
+   * dictionary and has to be decoded by the caller
+   */
+  public String get(ByteSource source, int offset, int length)
+  {
+    if (!active || length > MAX_VALUE_LENGTH)
+    {
+      return null;
+    }
+    if (keys == null)
+    {
+      keys = new byte[TABLE_SIZE][];
+      hashes = new int[TABLE_SIZE];
+      values = new String[TABLE_SIZE];
+    }
+
+    int hash = 1;
+    for (int i = 0; i < length; i++)
+    {
+      hash = 31 * hash + source.getByte(offset + i);
+    }
+
+    int slot = (hash ^ (hash >>> 16)) & (TABLE_SIZE - 1);
+    while (keys[slot] != null)
+    {
+      if (hashes[slot] == hash && keys[slot].length == length &&
+          matches(keys[slot], source, offset))
+      {
+        return values[slot];
+      }
+      slot = (slot + 1) & (TABLE_SIZE - 1);
+    }
+
+    if (size == MAX_ENTRIES)
+    {
+      // high cardinality, stop looking up the cells
+      active = false;
+      keys = null;
+      hashes = null;
+      values = null;
+      return null;
+    }
+
+    byte[] key = new byte[length];
+    for (int i = 0; i < length; i++)
+    {
+      key[i] = source.getByte(offset + i);
+    }
+    String value = new String(key, StandardCharsets.UTF_8);
+    keys[slot] = key;
+    hashes[slot] = hash;
+    values[slot] = value;
+    size++;
+    return value;
+  }
+
+  private static boolean matches(byte[] key, ByteSource source, int offset)
+  {
+    for (int i = 0; i < key.length; i++)
+    {
+      if (key[i] != source.getByte(offset + i))
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -12,6 +12,11 @@ import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
 import java.util.TimeZone;
 
 /**
@@ -37,12 +42,15 @@ abstract class AbstractArrowVectorConverter implements ArrowVectorConverter
 
   protected int columnIndex;
 
+  // session time zone, converted once for the java.time conversions
+  private ZoneId sessionZoneId;
+
   /**
    * Field names of the struct vectors used by timestamp
    */
-  public static final String FIELD_NAME_EPOCH = "epoch";  // seconds since epoch
-  public static final String FIELD_NAME_TIME_ZONE_INDEX = "timezone";  // time zone index
-  public static final String FIELD_NAME_FRACTION = "fraction";  // fraction in nanoseconds
+  public static final String FIELD_NAME_EPOCH = ArrowResultUtil.FIELD_NAME_EPOCH;
+  public static final String FIELD_NAME_TIME_ZONE_INDEX = ArrowResultUtil.FIELD_NAME_TIME_ZONE_INDEX;
+  public static final String FIELD_NAME_FRACTION = ArrowResultUtil.FIELD_NAME_FRACTION;
 
 
   AbstractArrowVectorConverter(String logicalTypeStr,
@@ -163,12 +171,76 @@ abstract class AbstractArrowVectorConverter implements ArrowVectorConverter
                           "");
   }
 
+  @Override
+  public long toUnscaledLong(int index) throws SFException
+  {
+    throw new SFException(ErrorCode.INVALID_VALUE_CONVERT,
+                          logicalTypeStr,
+                          "unscaled long",
+                          "");
+  }
+
+  @Override
+  public Instant toInstant(int index) throws SFException
+  {
+    Timestamp ts = toTimestamp(index, TimeZone.getDefault());
+    return ts == null ? null : ts.toInstant();
+  }
+
+  @Override
+  public LocalDateTime toLocalDateTime(int index) throws SFException
+  {
+    OffsetDateTime dateTime = toOffsetDateTime(index);
+    return dateTime == null ? null : dateTime.toLocalDateTime();
+  }
+
+  @Override
+  public OffsetDateTime toOffsetDateTime(int index) throws SFException
+  {
+    // the converters of timestamps override it, other values are read in
+    // the client time zone
+    Instant instant = toInstant(index);
+    return instant == null ? null :
+           ArrowResultUtil.toOffsetDateTime(instant, ZoneId.systemDefault());
+  }
+
+  @Override
+  public LocalDate toLocalDate(int index) throws SFException
+  {
+    Date date = toDate(index);
+    return date == null ? null : date.toLocalDate();
+  }
+
+  /**
+   * Get the zone of the java.time values of a type without an offset of
+   * their own, see {@link ArrowResultUtil#getZoneId}
+   *
+   * @param internalColumnType internal type of the values
+   * @return zone of the values
+   */
+  protected ZoneId getZoneId(int internalColumnType)
+  {
+    if (sessionZoneId == null && context.getTimeZone() != null)
+    {
+      sessionZoneId = context.getTimeZone().toZoneId();
+    }
+    return ArrowResultUtil.getZoneId(
+        internalColumnType, sessionZoneId,
+        context.getHonorClientTZForTimestampNTZ());
+  }
+
   @Override
   public boolean isNull(int index)
   {
     return valueVector.isNull(index);
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    this.valueVector = vector;
+  }
+
   @Override
   abstract public Object toObject(int index) throws SFException;
 
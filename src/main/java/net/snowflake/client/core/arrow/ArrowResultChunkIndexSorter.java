@@ -4,92 +4,115 @@
 package net.snowflake.client.core.arrow;
 
 import net.snowflake.client.core.SFException;
-import org.apache.arrow.memory.BufferAllocator;
-import org.apache.arrow.vector.IntVector;
 import org.apache.arrow.vector.ValueVector;
-import org.apache.arrow.vector.types.Types;
-import org.apache.arrow.vector.types.pojo.FieldType;
 
 import java.util.List;
-import java.util.stream.IntStream;
 
 /**
- * Use quick sort to sort Arrow result chunk
- * The sorted order is represented in the indices vector
+ * Use merge sort to sort an Arrow record batch
+ * The sorted order is represented in the indices array, the record batch
+ * itself is not modified. The sort is stable, so rows comparing equal keep
+ * the order they were received in.
  */
 public class ArrowResultChunkIndexSorter
 {
-  private List<ValueVector> resultChunk;
-  private List<ArrowVectorConverter> converters;
-  /**
-   * Vector indices to sort.
-   */
-  private IntVector indices;
+  // below this size ranges are sorted by insertion
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private final List<ValueVector> resultChunk;
+  private final List<ArrowVectorConverter> converters;
+  private final ArrowRowComparator comparator;
 
-  public ArrowResultChunkIndexSorter(List<ValueVector> resultChunk, List<ArrowVectorConverter> converters)
+  public ArrowResultChunkIndexSorter(List<ValueVector> resultChunk,
+                                     List<ArrowVectorConverter> converters)
   {
-    this.resultChunk = resultChunk;
-    this.converters = converters;
-    initIndices();
+    this(resultChunk, converters, new ArrowRowComparator(resultChunk));
   }
 
   /**
-   * initialize original indices
+   * @param resultChunk columns of the record batch
+   * @param converters  converters of the columns
+   * @param comparator  comparator built for the schema of the result
    */
-  private void initIndices()
+  public ArrowResultChunkIndexSorter(List<ValueVector> resultChunk,
+                                     List<ArrowVectorConverter> converters,
+                                     ArrowRowComparator comparator)
   {
-    BufferAllocator rootAllocator = resultChunk.get(0).getAllocator();
-    FieldType fieldType = new FieldType(true,
-                                        Types.MinorType.INT.getType(),
-                                        null, null);
-
-    indices = new IntVector("indices", fieldType, rootAllocator);
-    IntStream.range(0, resultChunk.get(0).getValueCount()).forEach(i -> indices.setSafe(i, i));
+    this.resultChunk = resultChunk;
+    this.converters = converters;
+    this.comparator = comparator;
   }
 
   /**
    * This method is only used when sf-property sort is on
    *
-   * @return sorted indices
-   * @throws SFException
+   * @return indices of the rows in sorted order
+   * @throws SFException if a value can't be converted
    */
-  public IntVector sort() throws SFException
+  public int[] sort() throws SFException
   {
-    quickSort(0, resultChunk.get(0).getValueCount() - 1);
+    int rowCount = resultChunk.get(0).getValueCount();
+    int[] indices = new int[rowCount];
+    for (int i = 0; i < rowCount; i++)
+    {
+      indices[i] = i;
+    }
+    mergeSort(indices, new int[rowCount], 0, rowCount);
     return indices;
   }
 
-  private void quickSort(int low, int high) throws SFException
+  /**
+   * Sort indices[low, high) using buffer as scratch space
+   */
+  private void mergeSort(int[] indices, int[] buffer, int low, int high)
+  throws SFException
   {
-    if (low < high)
+    if (high - low <= INSERTION_SORT_THRESHOLD)
     {
-      int mid = partition(low, high);
-      quickSort(low, mid - 1);
-      quickSort(mid + 1, high);
+      insertionSort(indices, low, high);
+      return;
     }
-  }
 
-  private int partition(int low, int high) throws SFException
-  {
-    int pivotIndex = indices.get(low);
+    int mid = (low + high) >>> 1;
+    mergeSort(indices, buffer, low, mid);
+    mergeSort(indices, buffer, mid, high);
+    if (compare(indices[mid - 1], indices[mid]) <= 0)
+    {
+      // already in order
+      return;
+    }
 
-    while (low < high)
+    System.arraycopy(indices, low, buffer, low, high - low);
+    int left = low;
+    int right = mid;
+    for (int i = low; i < high; i++)
     {
-      while (low < high && compare(indices.get(high), pivotIndex) >= 0)
+      if (right >= high ||
+          left < mid && compare(buffer[left], buffer[right]) <= 0)
       {
-        high -= 1;
+        indices[i] = buffer[left++];
       }
-      indices.set(low, indices.get(high));
-
-      while (low < high && compare(indices.get(low), pivotIndex) <= 0)
+      else
       {
-        low += 1;
+        indices[i] = buffer[right++];
       }
-      indices.set(high, indices.get(low));
     }
+  }
 
-    indices.setSafe(low, pivotIndex);
-    return low;
+  private void insertionSort(int[] indices, int low, int high)
+  throws SFException
+  {
+    for (int i = low + 1; i < high; i++)
+    {
+      int index = indices[i];
+      int j = i - 1;
+      while (j >= low && compare(indices[j], index) > 0)
+      {
+        indices[j + 1] = indices[j];
+        j--;
+      }
+      indices[j + 1] = index;
+    }
   }
 
   /**
@@ -99,37 +122,7 @@ public class ArrowResultChunkIndexSorter
    */
   private int compare(int index1, int index2) throws SFException
   {
-    int numCols = converters.size();
-    for (int colIdx = 0; colIdx < numCols; colIdx++)
-    {
-      if (converters.get(colIdx).isNull(index1) && converters.get(colIdx).isNull(index2))
-      {
-        continue;
-      }
-
-      // null is considered bigger than all values
-      if (converters.get(colIdx).isNull(index1))
-      {
-        return 1;
-      }
-
-      if (converters.get(colIdx).isNull(index2))
-      {
-        return -1;
-      }
-
-      int res = converters.get(colIdx).toString(index1).compareTo(converters.get(colIdx).toString(index2));
-
-      // continue to next column if no difference
-      if (res == 0)
-      {
-        continue;
-      }
-
-      return res;
-    }
-
-    // all columns are the same
-    return 0;
+    return comparator.compare(resultChunk, converters, index1,
+                              resultChunk, converters, index2);
   }
 }
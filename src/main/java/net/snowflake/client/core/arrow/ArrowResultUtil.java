@@ -9,13 +9,21 @@ import net.snowflake.client.core.ResultUtil;
 import net.snowflake.client.core.SFException;
 import net.snowflake.client.core.SFSession;
 import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.SnowflakeUtil;
 import net.snowflake.client.log.ArgSupplier;
 import net.snowflake.client.log.SFLogger;
 import net.snowflake.client.log.SFLoggerFactory;
 import net.snowflake.common.core.CalendarCache;
 
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Calendar;
 import java.util.TimeZone;
 
@@ -30,11 +38,53 @@ public class ArrowResultUtil
 
   public static final int MAX_SCALE_POWERS_OF_10 = 9;
 
+  /**
+   * Field names of the struct vectors used by timestamp
+   */
+  public static final String FIELD_NAME_EPOCH = "epoch";  // seconds since epoch
+  public static final String FIELD_NAME_TIME_ZONE_INDEX = "timezone";  // time zone index
+  public static final String FIELD_NAME_FRACTION = "fraction";  // fraction in nanoseconds
+
+  // powers of ten exactly represented as doubles
+  private static final double[] DOUBLE_POWERS_OF_10 = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  // longs up to this magnitude are exactly represented as doubles
+  private static final long MAX_EXACT_DOUBLE_LONG = 1L << 53;
+
+  // range of the values converted to java.time, a day within the range of
+  // LocalDateTime so the values can be moved to any offset
+  private static final long MIN_JAVA_TIME_SECONDS =
+      LocalDateTime.MIN.toEpochSecond(ZoneOffset.UTC) + 86400;
+  private static final long MAX_JAVA_TIME_SECONDS =
+      LocalDateTime.MAX.toEpochSecond(ZoneOffset.UTC) - 86400;
+
   public static int powerOfTen(int pow)
   {
     return POWERS_OF_10[pow];
   }
 
+  /**
+   * Convert a fixed-point value to double. When the unscaled value and the
+   * power of ten are both exact doubles, a single division gives the
+   * correctly rounded result, as BigDecimal.doubleValue does.
+   *
+   * @param unscaled unscaled value
+   * @param scale    scale of the value
+   * @return the value as a double
+   */
+  public static double unscaledToDouble(long unscaled, int scale)
+  {
+    if (unscaled >= -MAX_EXACT_DOUBLE_LONG &&
+        unscaled <= MAX_EXACT_DOUBLE_LONG &&
+        scale >= 0 && scale < DOUBLE_POWERS_OF_10.length)
+    {
+      return unscaled / DOUBLE_POWERS_OF_10[scale];
+    }
+    return BigDecimal.valueOf(unscaled, scale).doubleValue();
+  }
+
   public static String getStringFormat(int scale)
   {
     StringBuilder sb = new StringBuilder();
@@ -166,6 +216,122 @@ public class ArrowResultUtil
     return createTimestamp(seconds, fraction);
   }
 
+  /**
+   * generate Instant from the value since epoch. Unlike Timestamp, Instant
+   * uses the proleptic Gregorian calendar, as Snowflake does, so no Julian
+   * calendar adjustment is needed.
+   *
+   * @param epoch the value since epoch time
+   * @param scale the scale of the value
+   * @return the instant, null if out of the range of java.time
+   */
+  public static Instant toJavaInstant(long epoch, int scale)
+  {
+    long seconds = Math.floorDiv(epoch, (long) powerOfTen(scale));
+    int fraction = (int) Math.floorMod(epoch, (long) powerOfTen(scale)) *
+                   powerOfTen(9 - scale);
+    return createInstant(seconds, fraction);
+  }
+
+  /**
+   * create Instant using seconds since epoch and fraction in nanoseconds
+   *
+   * @param seconds  seconds since epoch
+   * @param fraction nanoseconds, from 0 to 999,999,999
+   * @return the instant, null if out of the range of java.time
+   */
+  public static Instant createInstant(long seconds, int fraction)
+  {
+    if (seconds < MIN_JAVA_TIME_SECONDS || seconds > MAX_JAVA_TIME_SECONDS)
+    {
+      return null;
+    }
+    return Instant.ofEpochSecond(seconds, fraction);
+  }
+
+  /**
+   * @param epoch value of a TIMESTAMP_NTZ since epoch
+   * @return wall clock time of the value, which is stored as if in UTC
+   */
+  public static LocalDateTime toWallClockTime(Instant epoch)
+  {
+    return LocalDateTime.ofEpochSecond(epoch.getEpochSecond(),
+                                       epoch.getNano(),
+                                       ZoneOffset.UTC);
+  }
+
+  /**
+   * @param instant instant of the value
+   * @param zone    zone of the value
+   * @return date-time with the offset of the zone at the instant
+   */
+  public static OffsetDateTime toOffsetDateTime(Instant instant, ZoneId zone)
+  {
+    if (zone instanceof ZoneOffset)
+    {
+      // fixed offset, no zone rules to look up
+      ZoneOffset offset = (ZoneOffset) zone;
+      return OffsetDateTime.of(
+          LocalDateTime.ofEpochSecond(instant.getEpochSecond(),
+                                      instant.getNano(),
+                                      offset),
+          offset);
+    }
+    return OffsetDateTime.ofInstant(instant, zone);
+  }
+
+  /**
+   * @param timeZoneIndex time zone index of a TIMESTAMP_TZ value, the offset
+   *                      in minutes plus 1440
+   * @param resultVersion version of the result, UTC for version 0
+   * @return offset of the value
+   */
+  public static ZoneOffset toZoneOffset(int timeZoneIndex, long resultVersion)
+  {
+    if (resultVersion > 0)
+    {
+      return ZoneOffset.ofTotalSeconds((timeZoneIndex - 1440) * 60);
+    }
+    return ZoneOffset.UTC;
+  }
+
+  /**
+   * Zone of the java.time values of a column whose values carry no offset
+   * of their own. It is the one rule of all result sets, which keeps the
+   * instant of a value equal to the instant of its Timestamp:
+   * <ul>
+   * <li>TIMESTAMP_LTZ and TIMESTAMP_TZ: the session time zone</li>
+   * <li>TIMESTAMP_NTZ: the client time zone if honored, as for Timestamp
+   * values, UTC otherwise</li>
+   * <li>other types: the client time zone, in which their java.sql values
+   * are read</li>
+   * </ul>
+   *
+   * @param internalColumnType           internal type of the column
+   * @param sessionZoneId                session time zone, null if unknown
+   * @param honorClientTZForTimestampNTZ whether TIMESTAMP_NTZ values are in
+   *                                     the client time zone
+   * @return zone of the values
+   */
+  public static ZoneId getZoneId(int internalColumnType,
+                                 ZoneId sessionZoneId,
+                                 boolean honorClientTZForTimestampNTZ)
+  {
+    switch (internalColumnType)
+    {
+      case SnowflakeUtil.EXTRA_TYPES_TIMESTAMP_LTZ:
+      case SnowflakeUtil.EXTRA_TYPES_TIMESTAMP_TZ:
+        return sessionZoneId != null ? sessionZoneId : ZoneId.systemDefault();
+
+      case Types.TIMESTAMP:
+        return honorClientTZForTimestampNTZ ?
+               ZoneId.systemDefault() : ZoneOffset.UTC;
+
+      default:
+        return ZoneId.systemDefault();
+    }
+  }
+
   /**
    * check whether the input seconds out of the scope of Java timestamp
    *
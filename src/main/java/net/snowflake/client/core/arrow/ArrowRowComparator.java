@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core.arrow;
+
+import io.netty.buffer.ArrowBuf;
+import net.snowflake.client.core.SFException;
+import net.snowflake.client.jdbc.SnowflakeType;
+import org.apache.arrow.vector.BaseVariableWidthVector;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.types.Types;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compare rows of Arrow record batches in the order of client side sorting,
+ * which is the order of the string values of the columns, with nulls last,
+ * the same as for JSON results.
+ * <p>
+ * Text and integer columns are compared on the values in the vectors, in
+ * the order their strings would have, without creating the strings. Other
+ * columns are compared on the strings returned by their converters.
+ */
+public class ArrowRowComparator
+{
+  private static final long[] LONG_POWERS_OF_10 = new long[19];
+
+  static
+  {
+    LONG_POWERS_OF_10[0] = 1;
+    for (int i = 1; i < LONG_POWERS_OF_10.length; i++)
+    {
+      LONG_POWERS_OF_10[i] = LONG_POWERS_OF_10[i - 1] * 10;
+    }
+  }
+
+  private enum ColumnOrder
+  {
+    // UTF-8 bytes of a VarCharVector
+    TEXT,
+
+    // value of an integer vector, in the order of its decimal string
+    INTEGER,
+
+    // string of the converter, which doesn't depend on the session formats
+    STRING,
+
+    // string of the converter, formatted with the session formats
+    FORMATTED_STRING
+  }
+
+  private final ColumnOrder[] columnOrders;
+
+  /**
+   * @param vectors columns of a record batch of the result, all the record
+   *                batches compared must have the same schema
+   */
+  public ArrowRowComparator(List<ValueVector> vectors)
+  {
+    columnOrders = new ColumnOrder[vectors.size()];
+    for (int i = 0; i < columnOrders.length; i++)
+    {
+      columnOrders[i] = getColumnOrder(vectors.get(i));
+    }
+  }
+
+  private static ColumnOrder getColumnOrder(ValueVector vector)
+  {
+    Map<String, String> customMeta = vector.getField().getMetadata();
+    String logicalType = customMeta.get("logicalType");
+    if (logicalType == null)
+    {
+      return ColumnOrder.STRING;
+    }
+
+    Types.MinorType type =
+        Types.getMinorTypeForArrowType(vector.getField().getType());
+    switch (SnowflakeType.valueOf(logicalType))
+    {
+      case ANY:
+      case ARRAY:
+      case CHAR:
+      case TEXT:
+      case OBJECT:
+      case VARIANT:
+        return vector instanceof VarCharVector ?
+               ColumnOrder.TEXT : ColumnOrder.STRING;
+
+      case FIXED:
+        if ("0".equals(customMeta.get("scale")) &&
+            (type == Types.MinorType.TINYINT ||
+             type == Types.MinorType.SMALLINT ||
+             type == Types.MinorType.INT ||
+             type == Types.MinorType.BIGINT))
+        {
+          return ColumnOrder.INTEGER;
+        }
+        return ColumnOrder.STRING;
+
+      case BOOLEAN:
+      case REAL:
+        return ColumnOrder.STRING;
+
+      default:
+        return ColumnOrder.FORMATTED_STRING;
+    }
+  }
+
+  /**
+   * The formatters of dates, times, timestamps and binaries are not thread
+   * safe, so the record batches having such columns must be compared by the
+   * thread consuming the result.
+   *
+   * @return true if several threads can compare rows at the same time, each
+   * with its own converters
+   */
+  public boolean isThreadSafe()
+  {
+    for (ColumnOrder order : columnOrders)
+    {
+      if (order == ColumnOrder.FORMATTED_STRING)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compare two rows, possibly of different record batches
+   *
+   * @param vectors1    columns of the record batch of the first row
+   * @param converters1 converters of the record batch of the first row
+   * @param index1      index of the first row in its record batch
+   * @param vectors2    columns of the record batch of the second row
+   * @param converters2 converters of the record batch of the second row
+   * @param index2      index of the second row in its record batch
+   * @return negative, zero or positive if the first row sorts before, the
+   * same as or after the second one
+   * @throws SFException if a value can't be converted
+   */
+  public int compare(List<ValueVector> vectors1,
+                     List<ArrowVectorConverter> converters1, int index1,
+                     List<ValueVector> vectors2,
+                     List<ArrowVectorConverter> converters2, int index2)
+  throws SFException
+  {
+    for (int colIdx = 0; colIdx < columnOrders.length; colIdx++)
+    {
+      ArrowVectorConverter converter1 = converters1.get(colIdx);
+      ArrowVectorConverter converter2 = converters2.get(colIdx);
+      boolean isNull1 = converter1.isNull(index1);
+      boolean isNull2 = converter2.isNull(index2);
+      if (isNull1 || isNull2)
+      {
+        if (isNull1 && isNull2)
+        {
+          continue;
+        }
+
+        // null is considered bigger than all values
+        return isNull1 ? 1 : -1;
+      }
+
+      int res;
+      switch (columnOrders[colIdx])
+      {
+        case TEXT:
+          res = compareText((VarCharVector) vectors1.get(colIdx), index1,
+                            (VarCharVector) vectors2.get(colIdx), index2);
+          break;
+
+        case INTEGER:
+          res = compareAsDecimalStrings(getLong(vectors1.get(colIdx), index1),
+                                        getLong(vectors2.get(colIdx), index2));
+          break;
+
+        default:
+          res = converter1.toString(index1)
+              .compareTo(converter2.toString(index2));
+          break;
+      }
+
+      // continue to next column if no difference
+      if (res != 0)
+      {
+        return res;
+      }
+    }
+
+    // all columns are the same
+    return 0;
+  }
+
+  private static long getLong(ValueVector vector, int index)
+  {
+    if (vector instanceof BigIntVector)
+    {
+      return ((BigIntVector) vector).get(index);
+    }
+    else if (vector instanceof IntVector)
+    {
+      return ((IntVector) vector).get(index);
+    }
+    else if (vector instanceof SmallIntVector)
+    {
+      return ((SmallIntVector) vector).get(index);
+    }
+    return ((TinyIntVector) vector).get(index);
+  }
+
+  /**
+   * Compare the UTF-8 bytes of two strings in place, in the order of
+   * String.compareTo
+   */
+  private static int compareText(VarCharVector vector1, int index1,
+                                 VarCharVector vector2, int index2)
+  {
+    ArrowBuf offsets1 = vector1.getOffsetBuffer();
+    ArrowBuf offsets2 = vector2.getOffsetBuffer();
+    int start1 = offsets1.getInt(index1 * BaseVariableWidthVector.OFFSET_WIDTH);
+    int start2 = offsets2.getInt(index2 * BaseVariableWidthVector.OFFSET_WIDTH);
+    int length1 = offsets1.getInt(
+        (index1 + 1) * BaseVariableWidthVector.OFFSET_WIDTH) - start1;
+    int length2 = offsets2.getInt(
+        (index2 + 1) * BaseVariableWidthVector.OFFSET_WIDTH) - start2;
+
+    ArrowBuf data1 = vector1.getDataBuffer();
+    ArrowBuf data2 = vector2.getDataBuffer();
+    int length = Math.min(length1, length2);
+    for (int i = 0; i < length; i++)
+    {
+      int b1 = data1.getByte(start1 + i) & 0xff;
+      int b2 = data2.getByte(start2 + i) & 0xff;
+      if (b1 != b2)
+      {
+        return compareUtf8Bytes(b1, b2);
+      }
+    }
+    return Integer.compare(length1, length2);
+  }
+
+  /**
+   * Compare the first differing bytes of two UTF-8 strings.
+   * <p>
+   * UTF-8 bytes sort in code point order, while String.compareTo compares
+   * UTF-16 code units, in which the surrogate pairs of the supplementary
+   * characters sort before U+E000 to U+FFFF. Those are the only characters
+   * whose order differs, and their leading bytes tell them apart: 0xF0 to
+   * 0xF4 for supplementary characters, 0xEE and 0xEF for U+E000 to U+FFFF.
+   * As the previous bytes are equal, both bytes are at the same position in
+   * their character.
+   */
+  static int compareUtf8Bytes(int b1, int b2)
+  {
+    if (b1 >= 0xF0 && (b2 == 0xEE || b2 == 0xEF))
+    {
+      return -1;
+    }
+    if (b2 >= 0xF0 && (b1 == 0xEE || b1 == 0xEF))
+    {
+      return 1;
+    }
+    return b1 - b2;
+  }
+
+  /**
+   * Compare two longs as Long.toString(v1).compareTo(Long.toString(v2))
+   * would, without creating the strings
+   */
+  static int compareAsDecimalStrings(long v1, long v2)
+  {
+    if (v1 == v2)
+    {
+      return 0;
+    }
+    if ((v1 < 0) != (v2 < 0))
+    {
+      // '-' sorts before the digits
+      return v1 < 0 ? -1 : 1;
+    }
+    if (v1 == Long.MIN_VALUE || v2 == Long.MIN_VALUE)
+    {
+      // no positive counterpart
+      return Long.toString(v1).compareTo(Long.toString(v2));
+    }
+
+    // same sign, so same prefix: compare the digits
+    return compareDigits(Math.abs(v1), Math.abs(v2));
+  }
+
+  /**
+   * Compare the decimal digits of two different non negative longs as strings
+   */
+  private static int compareDigits(long v1, long v2)
+  {
+    int digits1 = countDigits(v1);
+    int digits2 = countDigits(v2);
+    if (digits1 == digits2)
+    {
+      return Long.compare(v1, v2);
+    }
+    if (digits1 < digits2)
+    {
+      // a prefix sorts before the longer string
+      long prefix2 = v2 / LONG_POWERS_OF_10[digits2 - digits1];
+      return v1 <= prefix2 ? -1 : 1;
+    }
+    long prefix1 = v1 / LONG_POWERS_OF_10[digits1 - digits2];
+    return prefix1 < v2 ? -1 : 1;
+  }
+
+  private static int countDigits(long value)
+  {
+    int digits = 1;
+    while (digits < LONG_POWERS_OF_10.length &&
+           value >= LONG_POWERS_OF_10[digits])
+    {
+      digits++;
+    }
+    return digits;
+  }
+}
@@ -4,11 +4,16 @@
 package net.snowflake.client.core.arrow;
 
 import net.snowflake.client.core.SFException;
+import org.apache.arrow.vector.ValueVector;
 
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.TimeZone;
 
 /**
@@ -24,6 +29,15 @@ public interface ArrowVectorConverter
    */
   boolean isNull(int index);
 
+  /**
+   * Attach the converter to the vector of the same column in another record
+   * batch. The vector must have the same field as the one the converter was
+   * created for.
+   *
+   * @param vector value vector of the column in the new record batch
+   */
+  void setVector(ValueVector vector);
+
   /**
    * Convert value in arrow vector to boolean data
    *
@@ -142,6 +156,52 @@ public interface ArrowVectorConverter
    */
   BigDecimal toBigDecimal(int index) throws SFException;
 
+  /**
+   * Convert value in arrow vector of a fixed-point number to its unscaled
+   * value, the scale being the one of the column
+   *
+   * @param index index of the value to be converted in the vector
+   * @return unscaled value, 0 if null
+   * @throws SFException if not a number or the value doesn't fit in a long
+   */
+  long toUnscaledLong(int index) throws SFException;
+
+  /**
+   * Convert value in arrow vector to Instant
+   *
+   * @param index index of the value to be converted in the vector
+   * @return Instant converted from arrow vector
+   * @throws SFException invalid data conversion
+   */
+  Instant toInstant(int index) throws SFException;
+
+  /**
+   * Convert value in arrow vector to LocalDateTime
+   *
+   * @param index index of the value to be converted in the vector
+   * @return LocalDateTime converted from arrow vector
+   * @throws SFException invalid data conversion
+   */
+  LocalDateTime toLocalDateTime(int index) throws SFException;
+
+  /**
+   * Convert value in arrow vector to OffsetDateTime
+   *
+   * @param index index of the value to be converted in the vector
+   * @return OffsetDateTime converted from arrow vector
+   * @throws SFException invalid data conversion
+   */
+  OffsetDateTime toOffsetDateTime(int index) throws SFException;
+
+  /**
+   * Convert value in arrow vector to LocalDate
+   *
+   * @param index index of the value to be converted in the vector
+   * @return LocalDate converted from arrow vector
+   * @throws SFException invalid data conversion
+   */
+  LocalDate toLocalDate(int index) throws SFException;
+
   /**
    * Convert value in arrow vector to Object
    *
@@ -42,6 +42,13 @@ public class BigIntToFixedConverter extends AbstractArrowVectorConverter
     this.bigIntVector = (BigIntVector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.bigIntVector = (BigIntVector) vector;
+  }
+
   @Override
   public byte[] toBytes(int index)
   {
@@ -127,6 +134,12 @@ public class BigIntToFixedConverter extends AbstractArrowVectorConverter
     }
   }
 
+  @Override
+  public long toUnscaledLong(int index) throws SFException
+  {
+    return isNull(index) ? 0 : getLong(index);
+  }
+
   @Override
   public float toFloat(int index) throws SFException
   {
@@ -42,18 +42,7 @@ public class BigIntToScaledFixedConverter extends BigIntToFixedConverter
     {
       return 0;
     }
-    int scale = sfScale;
-    double res = getLong(index);
-    while (scale > ArrowResultUtil.MAX_SCALE_POWERS_OF_10)
-    {
-      res = res / ArrowResultUtil.powerOfTen(ArrowResultUtil.MAX_SCALE_POWERS_OF_10);
-      scale -= ArrowResultUtil.MAX_SCALE_POWERS_OF_10;
-    }
-    if (scale > 0)
-    {
-      res = res / ArrowResultUtil.powerOfTen(scale);
-    }
-    return res;
+    return ArrowResultUtil.unscaledToDouble(getLong(index), sfScale);
   }
 
   @Override
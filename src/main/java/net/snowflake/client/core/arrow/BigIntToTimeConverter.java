@@ -27,6 +27,13 @@ public class BigIntToTimeConverter extends AbstractArrowVectorConverter
     this.bigIntVector = (BigIntVector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.bigIntVector = (BigIntVector) vector;
+  }
+
   /**
    * parse long into SFTime
    *
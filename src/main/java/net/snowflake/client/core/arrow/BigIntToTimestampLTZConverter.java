@@ -9,12 +9,17 @@ import net.snowflake.client.core.ResultUtil;
 import net.snowflake.client.core.SFException;
 import net.snowflake.client.jdbc.ErrorCode;
 import net.snowflake.client.jdbc.SnowflakeType;
+import net.snowflake.client.jdbc.SnowflakeUtil;
 import org.apache.arrow.vector.BigIntVector;
 import org.apache.arrow.vector.ValueVector;
 
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.TimeZone;
 
 /**
@@ -30,6 +35,13 @@ public class BigIntToTimestampLTZConverter extends AbstractArrowVectorConverter
     this.bigIntVector = (BigIntVector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.bigIntVector = (BigIntVector) vector;
+  }
+
   @Override
   public String toString(int index) throws SFException
   {
@@ -73,6 +85,42 @@ public class BigIntToTimestampLTZConverter extends AbstractArrowVectorConverter
     return adjustedTimestamp;
   }
 
+  @Override
+  public Instant toInstant(int index)
+  {
+    return isNull(index) ? null : getEpochInstant(index);
+  }
+
+  @Override
+  public OffsetDateTime toOffsetDateTime(int index)
+  {
+    Instant instant = toInstant(index);
+    return instant == null ? null :
+           ArrowResultUtil.toOffsetDateTime(
+               instant, getZoneId(SnowflakeUtil.EXTRA_TYPES_TIMESTAMP_LTZ));
+  }
+
+  @Override
+  public LocalDateTime toLocalDateTime(int index)
+  {
+    OffsetDateTime dateTime = toOffsetDateTime(index);
+    return dateTime == null ? null : dateTime.toLocalDateTime();
+  }
+
+  @Override
+  public LocalDate toLocalDate(int index)
+  {
+    OffsetDateTime dateTime = toOffsetDateTime(index);
+    return dateTime == null ? null : dateTime.toLocalDate();
+  }
+
+  private Instant getEpochInstant(int index)
+  {
+    long val = bigIntVector.getDataBuffer().getLong(index * BigIntVector.TYPE_WIDTH);
+    return ArrowResultUtil.toJavaInstant(val, context.getScale(columnIndex));
+  }
+
+
   @Override
   public Date toDate(int index) throws SFException
   {
@@ -15,6 +15,11 @@ import org.apache.arrow.vector.ValueVector;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.TimeZone;
 
 /**
@@ -31,6 +36,13 @@ public class BigIntToTimestampNTZConverter extends AbstractArrowVectorConverter
     this.bigIntVector = (BigIntVector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.bigIntVector = (BigIntVector) vector;
+  }
+
   @Override
   public String toString(int index) throws SFException
   {
@@ -81,6 +93,43 @@ public class BigIntToTimestampNTZConverter extends AbstractArrowVectorConverter
     return adjustedTimestamp;
   }
 
+  @Override
+  public LocalDateTime toLocalDateTime(int index)
+  {
+    Instant epoch = isNull(index) ? null : getEpochInstant(index);
+    return epoch == null ? null : ArrowResultUtil.toWallClockTime(epoch);
+  }
+
+  @Override
+  public OffsetDateTime toOffsetDateTime(int index)
+  {
+    LocalDateTime wallClockTime = toLocalDateTime(index);
+    return wallClockTime == null ? null :
+           wallClockTime.atZone(getZoneId(Types.TIMESTAMP))
+               .toOffsetDateTime();
+  }
+
+  @Override
+  public Instant toInstant(int index)
+  {
+    OffsetDateTime dateTime = toOffsetDateTime(index);
+    return dateTime == null ? null : dateTime.toInstant();
+  }
+
+  @Override
+  public LocalDate toLocalDate(int index)
+  {
+    LocalDateTime wallClockTime = toLocalDateTime(index);
+    return wallClockTime == null ? null : wallClockTime.toLocalDate();
+  }
+
+  private Instant getEpochInstant(int index)
+  {
+    long val = bigIntVector.getDataBuffer().getLong(index * BigIntVector.TYPE_WIDTH);
+    return ArrowResultUtil.toJavaInstant(val, context.getScale(columnIndex));
+  }
+
+
   @Override
   public Date toDate(int index) throws SFException
   {
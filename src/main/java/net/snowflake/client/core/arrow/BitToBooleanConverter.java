@@ -21,6 +21,13 @@ public class BitToBooleanConverter extends AbstractArrowVectorConverter
     this.bitVector = (BitVector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.bitVector = (BitVector) vector;
+  }
+
   private int getBit(int index)
   {
     // read a bit from the bitVector
@@ -15,6 +15,8 @@ import org.apache.arrow.vector.ValueVector;
 
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.TimeZone;
 
 /**
@@ -30,6 +32,13 @@ public class DateConverter extends AbstractArrowVectorConverter
     this.dateVector = (DateDayVector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.dateVector = (DateDayVector) vector;
+  }
+
   @Override
   public Date toDate(int index) throws SFException
   {
@@ -45,6 +54,28 @@ public class DateConverter extends AbstractArrowVectorConverter
     }
   }
 
+  @Override
+  public LocalDate toLocalDate(int index)
+  {
+    if (isNull(index))
+    {
+      return null;
+    }
+    else
+    {
+      // days since epoch, in the proleptic Gregorian calendar of LocalDate
+      int val = dateVector.getDataBuffer().getInt(index * IntVector.TYPE_WIDTH);
+      return LocalDate.ofEpochDay(val);
+    }
+  }
+
+  @Override
+  public LocalDateTime toLocalDateTime(int index)
+  {
+    LocalDate date = toLocalDate(index);
+    return date == null ? null : date.atStartOfDay();
+  }
+
   @Override
   public int toInt(int index)
   {
@@ -31,6 +31,13 @@ public class DecimalToScaledFixedConverter extends AbstractArrowVectorConverter
     decimalVector = (DecimalVector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    decimalVector = (DecimalVector) vector;
+  }
+
   @Override
   public byte[] toBytes(int index)
   {
@@ -139,6 +146,10 @@ public class DecimalToScaledFixedConverter extends AbstractArrowVectorConverter
     {
       return 0;
     }
+    if (decimalVector.getScale() == 0 && fitsInLong(index))
+    {
+      return getLowBits(index);
+    }
     BigDecimal bigDecimal = toBigDecimal(index);
     if (bigDecimal.scale() == 0)
     {
@@ -179,6 +190,11 @@ public class DecimalToScaledFixedConverter extends AbstractArrowVectorConverter
     {
       return 0;
     }
+    if (fitsInLong(index))
+    {
+      return ArrowResultUtil.unscaledToDouble(getLowBits(index),
+                                              decimalVector.getScale());
+    }
     BigDecimal bigDecimal = toBigDecimal(index);
     return bigDecimal.doubleValue();
   }
@@ -186,9 +202,46 @@ public class DecimalToScaledFixedConverter extends AbstractArrowVectorConverter
   @Override
   public BigDecimal toBigDecimal(int index)
   {
+    if (!isNull(index) && fitsInLong(index))
+    {
+      // no byte array or BigInteger to build
+      return BigDecimal.valueOf(getLowBits(index), decimalVector.getScale());
+    }
     return decimalVector.getObject(index);
   }
 
+  @Override
+  public long toUnscaledLong(int index) throws SFException
+  {
+    if (isNull(index))
+    {
+      return 0;
+    }
+    if (fitsInLong(index))
+    {
+      return getLowBits(index);
+    }
+    throw new SFException(ErrorCode.INVALID_VALUE_CONVERT, logicalTypeStr,
+                          "unscaled long", toBigDecimal(index).toPlainString());
+  }
+
+  /**
+   * The values are 128 bit little endian two's complement integers, which
+   * fit in a long when the high bits only extend the sign of the low bits
+   */
+  private boolean fitsInLong(int index)
+  {
+    long high = decimalVector.getDataBuffer()
+        .getLong(index * DecimalVector.TYPE_WIDTH + Long.BYTES);
+    return high == getLowBits(index) >> 63;
+  }
+
+  private long getLowBits(int index)
+  {
+    return decimalVector.getDataBuffer()
+        .getLong(index * DecimalVector.TYPE_WIDTH);
+  }
+
   @Override
   public Object toObject(int index) throws SFException
   {
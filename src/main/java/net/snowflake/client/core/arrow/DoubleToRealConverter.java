@@ -18,6 +18,13 @@ public class DoubleToRealConverter extends AbstractArrowVectorConverter
     this.float8Vector = (Float8Vector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.float8Vector = (Float8Vector) vector;
+  }
+
   @Override
   public double toDouble(int index)
   {
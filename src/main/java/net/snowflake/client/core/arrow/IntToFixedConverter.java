@@ -34,6 +34,13 @@ public class IntToFixedConverter extends AbstractArrowVectorConverter
     this.intVector = (IntVector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.intVector = (IntVector) vector;
+  }
+
   @Override
   public byte[] toBytes(int index) throws SFException
   {
@@ -106,6 +113,12 @@ public class IntToFixedConverter extends AbstractArrowVectorConverter
     return (long) toInt(index);
   }
 
+  @Override
+  public long toUnscaledLong(int index) throws SFException
+  {
+    return isNull(index) ? 0 : getInt(index);
+  }
+
   @Override
   public float toFloat(int index) throws SFException
   {
@@ -34,6 +34,13 @@ public class SmallIntToFixedConverter extends AbstractArrowVectorConverter
     this.smallIntVector = (SmallIntVector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.smallIntVector = (SmallIntVector) vector;
+  }
+
   protected short getShort(int index) throws SFException
   {
     return smallIntVector.getDataBuffer().getShort(index * SmallIntVector.TYPE_WIDTH);
@@ -105,6 +112,12 @@ public class SmallIntToFixedConverter extends AbstractArrowVectorConverter
     }
   }
 
+  @Override
+  public long toUnscaledLong(int index) throws SFException
+  {
+    return isNull(index) ? 0 : getShort(index);
+  }
+
   @Override
   public float toFloat(int index) throws SFException
   {
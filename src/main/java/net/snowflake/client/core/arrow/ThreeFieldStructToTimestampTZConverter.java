@@ -18,6 +18,10 @@ import org.apache.arrow.vector.complex.StructVector;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.TimeZone;
 
 /**
@@ -40,6 +44,16 @@ public class ThreeFieldStructToTimestampTZConverter extends AbstractArrowVectorC
     timeZoneIndices = structVector.getChild(FIELD_NAME_TIME_ZONE_INDEX, IntVector.class);
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    structVector = (StructVector) vector;
+    epochs = structVector.getChild(FIELD_NAME_EPOCH, BigIntVector.class);
+    fractions = structVector.getChild(FIELD_NAME_FRACTION, IntVector.class);
+    timeZoneIndices = structVector.getChild(FIELD_NAME_TIME_ZONE_INDEX, IntVector.class);
+  }
+
   @Override
   public String toString(int index) throws SFException
   {
@@ -98,6 +112,44 @@ public class ThreeFieldStructToTimestampTZConverter extends AbstractArrowVectorC
     return adjustedTimestamp;
   }
 
+  @Override
+  public Instant toInstant(int index)
+  {
+    return epochs.isNull(index) ? null : getEpochInstant(index);
+  }
+
+  @Override
+  public OffsetDateTime toOffsetDateTime(int index)
+  {
+    Instant instant = toInstant(index);
+    return instant == null ? null :
+           ArrowResultUtil.toOffsetDateTime(instant, ArrowResultUtil.toZoneOffset(
+               timeZoneIndices.getDataBuffer().getInt(index * IntVector.TYPE_WIDTH),
+               context.getResultVersion()));
+  }
+
+  @Override
+  public LocalDateTime toLocalDateTime(int index)
+  {
+    OffsetDateTime dateTime = toOffsetDateTime(index);
+    return dateTime == null ? null : dateTime.toLocalDateTime();
+  }
+
+  @Override
+  public LocalDate toLocalDate(int index)
+  {
+    OffsetDateTime dateTime = toOffsetDateTime(index);
+    return dateTime == null ? null : dateTime.toLocalDate();
+  }
+
+  private Instant getEpochInstant(int index)
+  {
+    long epoch = epochs.getDataBuffer().getLong(index * BigIntVector.TYPE_WIDTH);
+    int fraction = fractions.getDataBuffer().getInt(index * IntVector.TYPE_WIDTH);
+    return ArrowResultUtil.createInstant(epoch, fraction);
+  }
+
+
   @Override
   public Date toDate(int index) throws SFException
   {
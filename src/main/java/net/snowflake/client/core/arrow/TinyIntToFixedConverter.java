@@ -31,6 +31,13 @@ public class TinyIntToFixedConverter extends AbstractArrowVectorConverter
     this.tinyIntVector = (TinyIntVector) fieldVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.tinyIntVector = (TinyIntVector) vector;
+  }
+
   @Override
   public byte toByte(int index) throws SFException
   {
@@ -74,6 +81,12 @@ public class TinyIntToFixedConverter extends AbstractArrowVectorConverter
     return (int) toByte(index);
   }
 
+  @Override
+  public long toUnscaledLong(int index) throws SFException
+  {
+    return isNull(index) ? 0 : getByte(index);
+  }
+
   @Override
   public float toFloat(int index) throws SFException
   {
@@ -9,6 +9,7 @@ import net.snowflake.client.core.ResultUtil;
 import net.snowflake.client.core.SFException;
 import net.snowflake.client.jdbc.ErrorCode;
 import net.snowflake.client.jdbc.SnowflakeType;
+import net.snowflake.client.jdbc.SnowflakeUtil;
 import org.apache.arrow.vector.BigIntVector;
 import org.apache.arrow.vector.IntVector;
 import org.apache.arrow.vector.ValueVector;
@@ -17,6 +18,10 @@ import org.apache.arrow.vector.complex.StructVector;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.TimeZone;
 
 /**
@@ -36,6 +41,15 @@ public class TwoFieldStructToTimestampLTZConverter extends AbstractArrowVectorCo
     fractions = structVector.getChild(FIELD_NAME_FRACTION, IntVector.class);
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    structVector = (StructVector) vector;
+    epochs = structVector.getChild(FIELD_NAME_EPOCH, BigIntVector.class);
+    fractions = structVector.getChild(FIELD_NAME_FRACTION, IntVector.class);
+  }
+
   @Override
   public boolean isNull(int index)
   {
@@ -89,6 +103,43 @@ public class TwoFieldStructToTimestampLTZConverter extends AbstractArrowVectorCo
     return adjustedTimestamp;
   }
 
+  @Override
+  public Instant toInstant(int index)
+  {
+    return isNull(index) ? null : getEpochInstant(index);
+  }
+
+  @Override
+  public OffsetDateTime toOffsetDateTime(int index)
+  {
+    Instant instant = toInstant(index);
+    return instant == null ? null :
+           ArrowResultUtil.toOffsetDateTime(
+               instant, getZoneId(SnowflakeUtil.EXTRA_TYPES_TIMESTAMP_LTZ));
+  }
+
+  @Override
+  public LocalDateTime toLocalDateTime(int index)
+  {
+    OffsetDateTime dateTime = toOffsetDateTime(index);
+    return dateTime == null ? null : dateTime.toLocalDateTime();
+  }
+
+  @Override
+  public LocalDate toLocalDate(int index)
+  {
+    OffsetDateTime dateTime = toOffsetDateTime(index);
+    return dateTime == null ? null : dateTime.toLocalDate();
+  }
+
+  private Instant getEpochInstant(int index)
+  {
+    long epoch = epochs.getDataBuffer().getLong(index * BigIntVector.TYPE_WIDTH);
+    int fraction = fractions.getDataBuffer().getInt(index * IntVector.TYPE_WIDTH);
+    return ArrowResultUtil.createInstant(epoch, fraction);
+  }
+
+
   @Override
   public Date toDate(int index) throws SFException
   {
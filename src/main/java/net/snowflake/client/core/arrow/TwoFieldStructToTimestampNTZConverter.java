@@ -17,6 +17,11 @@ import org.apache.arrow.vector.complex.StructVector;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.TimeZone;
 
 /**
@@ -38,6 +43,15 @@ public class TwoFieldStructToTimestampNTZConverter extends AbstractArrowVectorCo
     fractions = structVector.getChild(FIELD_NAME_FRACTION, IntVector.class);
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    structVector = (StructVector) vector;
+    epochs = structVector.getChild(FIELD_NAME_EPOCH, BigIntVector.class);
+    fractions = structVector.getChild(FIELD_NAME_FRACTION, IntVector.class);
+  }
+
   @Override
   public boolean isNull(int index)
   {
@@ -98,6 +112,44 @@ public class TwoFieldStructToTimestampNTZConverter extends AbstractArrowVectorCo
     return adjustedTimestamp;
   }
 
+  @Override
+  public LocalDateTime toLocalDateTime(int index)
+  {
+    Instant epoch = isNull(index) ? null : getEpochInstant(index);
+    return epoch == null ? null : ArrowResultUtil.toWallClockTime(epoch);
+  }
+
+  @Override
+  public OffsetDateTime toOffsetDateTime(int index)
+  {
+    LocalDateTime wallClockTime = toLocalDateTime(index);
+    return wallClockTime == null ? null :
+           wallClockTime.atZone(getZoneId(Types.TIMESTAMP))
+               .toOffsetDateTime();
+  }
+
+  @Override
+  public Instant toInstant(int index)
+  {
+    OffsetDateTime dateTime = toOffsetDateTime(index);
+    return dateTime == null ? null : dateTime.toInstant();
+  }
+
+  @Override
+  public LocalDate toLocalDate(int index)
+  {
+    LocalDateTime wallClockTime = toLocalDateTime(index);
+    return wallClockTime == null ? null : wallClockTime.toLocalDate();
+  }
+
+  private Instant getEpochInstant(int index)
+  {
+    long epoch = epochs.getDataBuffer().getLong(index * BigIntVector.TYPE_WIDTH);
+    int fraction = fractions.getDataBuffer().getInt(index * IntVector.TYPE_WIDTH);
+    return ArrowResultUtil.createInstant(epoch, fraction);
+  }
+
+
   @Override
   public Date toDate(int index) throws SFException
   {
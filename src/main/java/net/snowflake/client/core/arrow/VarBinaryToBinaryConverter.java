@@ -19,6 +19,13 @@ public class VarBinaryToBinaryConverter extends AbstractArrowVectorConverter
     this.varBinaryVector = (VarBinaryVector) valueVector;
   }
 
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.varBinaryVector = (VarBinaryVector) vector;
+  }
+
   @Override
   public String toString(int index)
   {
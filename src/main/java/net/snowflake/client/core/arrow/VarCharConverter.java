@@ -3,8 +3,11 @@
  */
 package net.snowflake.client.core.arrow;
 
+import io.netty.buffer.ArrowBuf;
 import net.snowflake.client.core.DataConversionContext;
+import net.snowflake.client.core.StringDictionary;
 import net.snowflake.client.jdbc.SnowflakeType;
+import org.apache.arrow.vector.BaseVariableWidthVector;
 import org.apache.arrow.vector.ValueVector;
 import org.apache.arrow.vector.VarCharVector;
 
@@ -13,22 +16,102 @@ import java.nio.charset.StandardCharsets;
 
 /**
  * Convert Arrow VarCharVector to Java types
+ * <p>
+ * Numbers are parsed from the bytes of the vector when they are plain
+ * decimals whose unscaled value fits in a long, other values are parsed from
+ * their String, which also gives the same errors as before.
+ * <p>
+ * The String decoded last is kept, so reading a cell again doesn't decode it
+ * again. The cache is on by default; set the JVM property
+ * net.snowflake.jdbc.disableVarCharDecodeCache to true to turn it off.
  */
 public class VarCharConverter extends AbstractArrowVectorConverter
 {
+  /**
+   * JVM property to disable the cache of the last decoded String, false by
+   * default
+   */
+  static final String DISABLE_VARCHAR_DECODE_CACHE_JVM =
+      "net.snowflake.jdbc.disableVarCharDecodeCache";
+
   private VarCharVector varCharVector;
 
+  // whether the last decoded String is kept for the next call on the cell
+  private final boolean decodeCacheEnabled;
+
+  private int cachedIndex = -1;
+
+  private String cachedString;
+
+  // canonical Strings of the column, null unless enabled
+  private final StringDictionary dictionary;
+
+  private final StringDictionary.ByteSource dataSource =
+      offset -> varCharVector.getDataBuffer().getByte(offset);
+
+  // value of the last cell parsed in place
+  private long parsedUnscaled;
+
+  // number of digits after the point, -1 if there is no point
+  private int parsedScale;
+
+  private boolean parsedNegative;
+
   public VarCharConverter(ValueVector valueVector, int columnIndex, DataConversionContext context)
   {
     super(SnowflakeType.TEXT.name(), valueVector, columnIndex, context);
     this.varCharVector = (VarCharVector) valueVector;
+    this.decodeCacheEnabled = !Boolean.parseBoolean(
+        System.getProperty(DISABLE_VARCHAR_DECODE_CACHE_JVM));
+    this.dictionary = StringDictionary.isEnabled() ?
+                      new StringDictionary() : null;
+  }
+
+  @Override
+  public void setVector(ValueVector vector)
+  {
+    super.setVector(vector);
+    this.varCharVector = (VarCharVector) vector;
+    cachedIndex = -1;
+    cachedString = null;
   }
 
   @Override
   public String toString(int index)
   {
-    byte[] bytes = toBytes(index);
-    return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    if (decodeCacheEnabled && index == cachedIndex)
+    {
+      return cachedString;
+    }
+
+    String str = decode(index);
+    if (decodeCacheEnabled)
+    {
+      cachedIndex = index;
+      cachedString = str;
+    }
+    return str;
+  }
+
+  private String decode(int index)
+  {
+    if (isNull(index))
+    {
+      return null;
+    }
+    if (dictionary != null && dictionary.isActive())
+    {
+      ArrowBuf offsets = varCharVector.getOffsetBuffer();
+      int start = offsets.getInt(index * BaseVariableWidthVector.OFFSET_WIDTH);
+      int end =
+          offsets.getInt((index + 1) * BaseVariableWidthVector.OFFSET_WIDTH);
+      String str = dictionary.get(dataSource, start, end - start);
+      if (str != null)
+      {
+        return str;
+      }
+    }
+    return new String(varCharVector.get(index), StandardCharsets.UTF_8);
   }
 
   @Override
@@ -46,43 +129,45 @@ public class VarCharConverter extends AbstractArrowVectorConverter
   @Override
   public short toShort(int index)
   {
-    String str = toString(index);
-    if (str == null)
+    if (isNull(index))
     {
       return 0;
     }
-    else
+    if (parseInPlace(index) && parsedScale < 0 &&
+        parsedUnscaled == (short) parsedUnscaled)
     {
-      return Short.parseShort(str);
+      return (short) parsedUnscaled;
     }
+    return Short.parseShort(toString(index));
   }
 
   @Override
   public int toInt(int index)
   {
-    String str = toString(index);
-    if (str == null)
+    if (isNull(index))
     {
       return 0;
     }
-    else
+    if (parseInPlace(index) && parsedScale < 0 &&
+        parsedUnscaled == (int) parsedUnscaled)
     {
-      return Integer.parseInt(str);
+      return (int) parsedUnscaled;
     }
+    return Integer.parseInt(toString(index));
   }
 
   @Override
   public long toLong(int index)
   {
-    String str = toString(index);
-    if (str == null)
+    if (isNull(index))
     {
       return 0;
     }
-    else
+    if (parseInPlace(index) && parsedScale < 0)
     {
-      return Long.parseLong(str);
+      return parsedUnscaled;
     }
+    return Long.parseLong(toString(index));
   }
 
   @Override
@@ -102,28 +187,103 @@ public class VarCharConverter extends AbstractArrowVectorConverter
   @Override
   public double toDouble(int index)
   {
-    String str = toString(index);
-    if (str == null)
+    if (isNull(index))
     {
       return 0;
     }
-    else
+    if (parseInPlace(index))
     {
-      return Double.parseDouble(str);
+      if (parsedUnscaled == 0)
+      {
+        // keep the sign of -0
+        return parsedNegative ? -0.0 : 0.0;
+      }
+      return ArrowResultUtil.unscaledToDouble(parsedUnscaled,
+                                              Math.max(parsedScale, 0));
     }
+    return Double.parseDouble(toString(index));
   }
 
   @Override
   public BigDecimal toBigDecimal(int index)
   {
-    String str = toString(index);
-    if (str == null)
+    if (isNull(index))
     {
       return null;
     }
-    else
+    if (parseInPlace(index))
+    {
+      return BigDecimal.valueOf(parsedUnscaled, Math.max(parsedScale, 0));
+    }
+    return new BigDecimal(toString(index));
+  }
+
+  /**
+   * Parse a cell from the bytes of the vector, without creating a String.
+   * The result is left in parsedUnscaled, parsedScale and parsedNegative.
+   *
+   * @param index index of a non null cell
+   * @return true if the cell is a plain decimal, an optional sign, digits
+   * and at most one point, whose unscaled value fits in a long
+   */
+  private boolean parseInPlace(int index)
+  {
+    ArrowBuf offsets = varCharVector.getOffsetBuffer();
+    int pos = offsets.getInt(index * BaseVariableWidthVector.OFFSET_WIDTH);
+    final int end =
+        offsets.getInt((index + 1) * BaseVariableWidthVector.OFFSET_WIDTH);
+    if (pos >= end)
+    {
+      return false;
+    }
+
+    ArrowBuf data = varCharVector.getDataBuffer();
+    final byte first = data.getByte(pos);
+    final boolean negative = first == '-';
+    if (negative || first == '+')
+    {
+      pos++;
+    }
+
+    // accumulate negatively to reach Long.MIN_VALUE
+    final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    final long multmin = limit / 10;
+    long result = 0;
+    int digits = 0;
+    int scale = -1;
+    for (; pos < end; pos++)
+    {
+      final byte c = data.getByte(pos);
+      if (c == '.' && scale < 0)
+      {
+        scale = 0;
+        continue;
+      }
+      final int digit = c - '0';
+      if (digit < 0 || digit > 9 || result < multmin)
+      {
+        return false;
+      }
+      result *= 10;
+      if (result < limit + digit)
+      {
+        return false;
+      }
+      result -= digit;
+      digits++;
+      if (scale >= 0)
+      {
+        scale++;
+      }
+    }
+
+    if (digits == 0)
     {
-      return new BigDecimal(str);
+      return false;
     }
+    parsedUnscaled = negative ? result : -result;
+    parsedScale = scale;
+    parsedNegative = negative;
+    return true;
   }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+/**
+ * Sizes the prefetch window of a chunk downloader while a result is being
+ * scanned.
+ * <p>
+ * The controller keeps moving averages of how long it takes to fetch a chunk
+ * (download plus parse) and how long the consumer dwells on a chunk. Enough
+ * chunks must be in flight to hide the fetch latency behind consumption:
+ * fetch / dwell, plus one for the chunk being consumed. A fast consumer
+ * that had to wait for its chunk grows the window right away, a slow
+ * consumer shrinks it so prefetched chunks don't sit in memory.
+ */
+class AdaptivePrefetchController
+{
+  // weight of the newest sample in the moving averages
+  private static final double SMOOTHING = 0.3;
+
+  private final int minWindow;
+
+  private final int maxWindow;
+
+  private int window;
+
+  // moving average of millis to download and parse a chunk
+  private double fetchMillis = -1;
+
+  // moving average of millis the consumer spends on a chunk
+  private double dwellMillis = -1;
+
+  /**
+   * @param initialWindow initial number of chunks in flight
+   * @param maxWindow     maximum number of chunks in flight
+   */
+  AdaptivePrefetchController(int initialWindow, int maxWindow)
+  {
+    this.minWindow = 1;
+    this.maxWindow = Math.max(minWindow, maxWindow);
+    this.window = Math.max(minWindow, Math.min(initialWindow, this.maxWindow));
+  }
+
+  /**
+   * Record the time taken by a download thread to fetch a chunk
+   *
+   * @param downloadMillis time spent downloading
+   * @param parseMillis    time spent parsing
+   */
+  synchronized void recordFetch(long downloadMillis, long parseMillis)
+  {
+    fetchMillis = smooth(fetchMillis, downloadMillis + parseMillis);
+  }
+
+  /**
+   * Record the time the consumer spent on the previous chunk and the time it
+   * waited for the next one to become ready, then resize the window
+   *
+   * @param dwell millis spent consuming the previous chunk, negative if
+   *              there was no previous chunk
+   * @param wait  millis waited for the next chunk
+   */
+  synchronized void recordConsume(long dwell, long wait)
+  {
+    if (dwell >= 0)
+    {
+      dwellMillis = smooth(dwellMillis, dwell);
+    }
+
+    if (wait > 0)
+    {
+      // the consumer stalled, don't wait for the averages to catch up
+      window = Math.min(maxWindow, window + 1);
+      return;
+    }
+
+    if (fetchMillis < 0 || dwellMillis < 0)
+    {
+      return;
+    }
+
+    int target = (int) Math.ceil(fetchMillis / Math.max(1.0, dwellMillis)) + 1;
+    target = Math.max(minWindow, Math.min(maxWindow, target));
+
+    // shrink one step at a time so a short burst doesn't drain the pipeline
+    window = target < window ? window - 1 : target;
+  }
+
+  /**
+   * @return number of chunks that may be in flight ahead of the consumer
+   */
+  synchronized int getWindow()
+  {
+    return window;
+  }
+
+  synchronized long getAverageFetchMillis()
+  {
+    return Math.max(0, Math.round(fetchMillis));
+  }
+
+  synchronized long getAverageDwellMillis()
+  {
+    return Math.max(0, Math.round(dwellMillis));
+  }
+
+  private static double smooth(double average, long sample)
+  {
+    return average < 0 ? sample : average + SMOOTHING * (sample - average);
+  }
+}
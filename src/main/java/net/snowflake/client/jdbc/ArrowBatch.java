@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import net.snowflake.client.core.DataConversionContext;
+import net.snowflake.client.core.arrow.ArrowResultUtil;
+import net.snowflake.common.core.SqlState;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.StructVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static net.snowflake.client.core.arrow.ArrowResultUtil.FIELD_NAME_EPOCH;
+import static net.snowflake.client.core.arrow.ArrowResultUtil.FIELD_NAME_FRACTION;
+
+/**
+ * One Arrow record batch of a result, for callers reading the result column
+ * by column instead of row by row.
+ * <p>
+ * The vectors belong to the result set: they stay valid until the batches of
+ * the next chunk are requested or the result set is closed, and must not be
+ * closed by the caller. Columns of Snowflake specific logical types can be
+ * converted a column at a time: fixed-point numbers to longs or doubles and
+ * timestamps to nanoseconds since epoch.
+ */
+public class ArrowBatch
+{
+  private static final long NANOS_PER_SECOND = 1000000000L;
+
+  private final List<ValueVector> vectors;
+
+  private final DataConversionContext context;
+
+  ArrowBatch(List<ValueVector> vectors, DataConversionContext context)
+  {
+    this.vectors = vectors;
+    this.context = context;
+  }
+
+  /**
+   * @return number of rows in the batch
+   */
+  public int getRowCount()
+  {
+    return vectors.isEmpty() ? 0 : vectors.get(0).getValueCount();
+  }
+
+  /**
+   * @return number of columns in the batch
+   */
+  public int getColumnCount()
+  {
+    return vectors.size();
+  }
+
+  /**
+   * @return the column vectors as sent by the server, with the Snowflake
+   * logical type, precision and scale in the field metadata
+   */
+  public List<ValueVector> getVectors()
+  {
+    return Collections.unmodifiableList(vectors);
+  }
+
+  /**
+   * @return a VectorSchemaRoot over the column vectors, without copying them
+   */
+  public VectorSchemaRoot getVectorSchemaRoot()
+  {
+    List<Field> fields = new ArrayList<>(vectors.size());
+    List<FieldVector> fieldVectors = new ArrayList<>(vectors.size());
+    for (ValueVector vector : vectors)
+    {
+      fields.add(vector.getField());
+      fieldVectors.add((FieldVector) vector);
+    }
+    return new VectorSchemaRoot(fields, fieldVectors, getRowCount());
+  }
+
+  /**
+   * @param columnIndex zero based column
+   * @param rowIndex    zero based row
+   * @return true if the value is null
+   */
+  public boolean isNull(int columnIndex, int rowIndex)
+  {
+    ValueVector vector = vectors.get(columnIndex);
+    if (vector instanceof StructVector)
+    {
+      // timestamps stored as structs are null when their epoch is
+      return ((StructVector) vector).getChild(FIELD_NAME_EPOCH)
+          .isNull(rowIndex);
+    }
+    return vector.isNull(rowIndex);
+  }
+
+  /**
+   * Get the unscaled values of a FIXED column
+   *
+   * @param columnIndex zero based column
+   * @return values, 0 for nulls
+   * @throws SQLException if the column is not FIXED or doesn't fit in longs
+   */
+  public long[] getLongs(int columnIndex) throws SQLException
+  {
+    ValueVector vector = vectors.get(columnIndex);
+    final int rowCount = vector.getValueCount();
+    long[] values = new long[rowCount];
+
+    if (!SnowflakeType.FIXED.name().equals(
+        vector.getField().getMetadata().get("logicalType")))
+    {
+      throw unsupportedConversion(columnIndex, "long");
+    }
+
+    switch (getMinorType(vector))
+    {
+      case TINYINT:
+        for (int i = 0; i < rowCount; i++)
+        {
+          values[i] = vector.getDataBuffer()
+              .getByte(i * TinyIntVector.TYPE_WIDTH);
+        }
+        break;
+
+      case SMALLINT:
+        for (int i = 0; i < rowCount; i++)
+        {
+          values[i] = vector.getDataBuffer()
+              .getShort(i * SmallIntVector.TYPE_WIDTH);
+        }
+        break;
+
+      case INT:
+        for (int i = 0; i < rowCount; i++)
+        {
+          values[i] = vector.getDataBuffer()
+              .getInt(i * IntVector.TYPE_WIDTH);
+        }
+        break;
+
+      case BIGINT:
+        for (int i = 0; i < rowCount; i++)
+        {
+          values[i] = vector.getDataBuffer()
+              .getLong(i * BigIntVector.TYPE_WIDTH);
+        }
+        break;
+
+      default:
+        throw unsupportedConversion(columnIndex, "long");
+    }
+
+    // nulls may hold garbage in the data buffer
+    for (int i = 0; i < rowCount; i++)
+    {
+      if (vector.isNull(i))
+      {
+        values[i] = 0;
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Get the values of a FIXED or REAL column as doubles. The scale of
+   * fixed-point numbers is applied as by getDouble of the result set, see
+   * {@link ArrowResultUtil#unscaledToDouble(long, int)}.
+   *
+   * @param columnIndex zero based column
+   * @return values, 0 for nulls
+   * @throws SQLException if the column is not numeric
+   */
+  public double[] getDoubles(int columnIndex) throws SQLException
+  {
+    ValueVector vector = vectors.get(columnIndex);
+    final int rowCount = vector.getValueCount();
+    double[] values = new double[rowCount];
+
+    Types.MinorType type = getMinorType(vector);
+    if (type == Types.MinorType.FLOAT8)
+    {
+      for (int i = 0; i < rowCount; i++)
+      {
+        values[i] = vector.isNull(i) ? 0 : vector.getDataBuffer()
+            .getDouble(i * Float8Vector.TYPE_WIDTH);
+      }
+    }
+    else if (type == Types.MinorType.DECIMAL)
+    {
+      DecimalVector decimalVector = (DecimalVector) vector;
+      for (int i = 0; i < rowCount; i++)
+      {
+        values[i] = decimalVector.isNull(i) ? 0 :
+                    decimalVector.getObject(i).doubleValue();
+      }
+    }
+    else
+    {
+      long[] unscaled = getLongs(columnIndex);
+      int scale = getFieldScale(vector);
+      for (int i = 0; i < rowCount; i++)
+      {
+        values[i] = ArrowResultUtil.unscaledToDouble(unscaled[i], scale);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Get the values of a TIMESTAMP_NTZ, TIMESTAMP_LTZ or TIMESTAMP_TZ column as
+   * nanoseconds since epoch, in UTC. The range is the years 1677 to 2262.
+   *
+   * @param columnIndex zero based column
+   * @return values, 0 for nulls
+   * @throws SQLException if the column is not a timestamp
+   */
+  public long[] getEpochNanos(int columnIndex) throws SQLException
+  {
+    ValueVector vector = vectors.get(columnIndex);
+    final int rowCount = vector.getValueCount();
+    long[] values = new long[rowCount];
+
+    String logicalType = vector.getField().getMetadata().get("logicalType");
+    if (logicalType == null || !logicalType.startsWith("TIMESTAMP"))
+    {
+      throw unsupportedConversion(columnIndex, "epoch nanoseconds");
+    }
+
+    if (vector instanceof BigIntVector)
+    {
+      // scaled value since epoch
+      long multiplier = ArrowResultUtil.powerOfTen(
+          ArrowResultUtil.MAX_SCALE_POWERS_OF_10 -
+          context.getScale(columnIndex + 1));
+      for (int i = 0; i < rowCount; i++)
+      {
+        values[i] = vector.isNull(i) ? 0 : multiplier * vector.getDataBuffer()
+            .getLong(i * BigIntVector.TYPE_WIDTH);
+      }
+      return values;
+    }
+
+    StructVector structVector = (StructVector) vector;
+    BigIntVector epochs =
+        structVector.getChild(FIELD_NAME_EPOCH, BigIntVector.class);
+    IntVector fractions =
+        structVector.getChild(FIELD_NAME_FRACTION, IntVector.class);
+    if (fractions == null)
+    {
+      // TIMESTAMP_TZ with a scaled epoch and a time zone
+      long multiplier = ArrowResultUtil.powerOfTen(
+          ArrowResultUtil.MAX_SCALE_POWERS_OF_10 -
+          context.getScale(columnIndex + 1));
+      for (int i = 0; i < rowCount; i++)
+      {
+        values[i] = epochs.isNull(i) ? 0 : multiplier * epochs.getDataBuffer()
+            .getLong(i * BigIntVector.TYPE_WIDTH);
+      }
+    }
+    else
+    {
+      // seconds since epoch and nanoseconds
+      for (int i = 0; i < rowCount; i++)
+      {
+        values[i] = epochs.isNull(i) ? 0 :
+                    epochs.getDataBuffer()
+                        .getLong(i * BigIntVector.TYPE_WIDTH) * NANOS_PER_SECOND
+                    + fractions.getDataBuffer()
+                        .getInt(i * IntVector.TYPE_WIDTH);
+      }
+    }
+    return values;
+  }
+
+  private static Types.MinorType getMinorType(ValueVector vector)
+  {
+    return Types.getMinorTypeForArrowType(vector.getField().getType());
+  }
+
+  private static int getFieldScale(ValueVector vector)
+  {
+    String scale = vector.getField().getMetadata().get("scale");
+    return scale == null ? 0 : Integer.parseInt(scale);
+  }
+
+  private SQLException unsupportedConversion(int columnIndex, String target)
+  {
+    return new SnowflakeSQLException(
+        SqlState.INTERNAL_ERROR,
+        ErrorCode.INTERNAL_ERROR.getMessageCode(),
+        "Cannot convert column " + (columnIndex + 1) + " of type " +
+        vectors.get(columnIndex).getField().getMetadata().get("logicalType") +
+        " to " + target);
+  }
+}
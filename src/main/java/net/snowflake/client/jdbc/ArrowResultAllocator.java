@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+import org.apache.arrow.memory.BufferAllocator;
+
+/**
+ * Off-heap memory of the Arrow chunks of one result set.
+ * <p>
+ * Each result set gets a child allocator of the driver wide root allocator,
+ * bounded by a limit derived from CLIENT_MEMORY_LIMIT, so a single query
+ * can't exhaust the direct memory of the JVM. Each chunk in turn allocates
+ * its vectors from its own child allocator, which gives the exact number of
+ * bytes the chunk holds and fails loudly if any buffer is leaked when the
+ * chunk is freed.
+ * <p>
+ * The allocator of the result set is closed once the result set is released
+ * and the last chunk handed out to the consumer is freed.
+ */
+class ArrowResultAllocator
+{
+  private static final SFLogger logger =
+      SFLoggerFactory.getLogger(ArrowResultAllocator.class);
+
+  private final BufferAllocator allocator;
+
+  // number of chunk allocators not closed yet
+  private int openChunks = 0;
+
+  // true once the result set doesn't need new chunk allocators
+  private boolean released = false;
+
+  ArrowResultAllocator(BufferAllocator parent, String name, long limit)
+  {
+    this.allocator = parent.newChildAllocator(name, 0, limit);
+  }
+
+  /**
+   * Create the allocator of a chunk
+   *
+   * @param name name of the allocator, for debugging
+   * @return new allocator bounded by the limit of the result set
+   */
+  synchronized BufferAllocator newChunkAllocator(String name)
+  {
+    if (released)
+    {
+      throw new IllegalStateException(
+          "Arrow allocator of the result set already released");
+    }
+    BufferAllocator chunkAllocator =
+        allocator.newChildAllocator(name, 0, allocator.getLimit());
+    openChunks++;
+    return chunkAllocator;
+  }
+
+  /**
+   * Close the allocator of a chunk whose vectors were all cleared
+   *
+   * @param chunkAllocator allocator returned by newChunkAllocator
+   */
+  synchronized void closeChunkAllocator(BufferAllocator chunkAllocator)
+  {
+    try
+    {
+      chunkAllocator.close();
+    }
+    catch (IllegalStateException ex)
+    {
+      logger.error("Arrow memory leaked by result chunk: {}",
+                   ex.getLocalizedMessage());
+    }
+    openChunks--;
+    closeIfUnused();
+  }
+
+  /**
+   * Raise or lower the memory limit of the result set
+   *
+   * @param limit new limit in bytes
+   */
+  void setLimit(long limit)
+  {
+    allocator.setLimit(limit);
+  }
+
+  /**
+   * @return bytes currently allocated by the chunks of the result set
+   */
+  long getAllocatedMemory()
+  {
+    return allocator.getAllocatedMemory();
+  }
+
+  /**
+   * Release the allocator when the result set is done with it. It is closed
+   * as soon as the chunks still in use are freed.
+   */
+  synchronized void release()
+  {
+    if (!released)
+    {
+      released = true;
+      closeIfUnused();
+    }
+  }
+
+  private void closeIfUnused()
+  {
+    if (released && openChunks == 0)
+    {
+      try
+      {
+        allocator.close();
+      }
+      catch (IllegalStateException ex)
+      {
+        logger.error("Arrow memory leaked by result set: {}",
+                     ex.getLocalizedMessage());
+      }
+    }
+  }
+}
@@ -6,6 +6,7 @@ package net.snowflake.client.jdbc;
 import net.snowflake.client.core.DataConversionContext;
 import net.snowflake.client.core.SFException;
 import net.snowflake.client.core.arrow.ArrowResultChunkIndexSorter;
+import net.snowflake.client.core.arrow.ArrowRowComparator;
 import net.snowflake.client.core.arrow.ArrowVectorConverter;
 import net.snowflake.client.core.arrow.BigIntToFixedConverter;
 import net.snowflake.client.core.arrow.BigIntToScaledFixedConverter;
@@ -31,20 +32,21 @@ import net.snowflake.client.core.arrow.VarCharConverter;
 import net.snowflake.client.log.SFLogger;
 import net.snowflake.client.log.SFLoggerFactory;
 import net.snowflake.common.core.SqlState;
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
-import org.apache.arrow.vector.IntVector;
 import org.apache.arrow.vector.ValueVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.ipc.ArrowStreamReader;
 import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.util.TransferPair;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -68,14 +70,68 @@ public class ArrowResultChunk extends SnowflakeResultChunk
    * arrow root allocator
    */
   private static RootAllocator rootAllocator = new RootAllocator(Integer.MAX_VALUE);
-  private boolean enableSortFirstResultChunk;
-  private IntVector firstResultChunkSortedIndices;
+
+  /**
+   * record batches with their rows in sorted order, null if not sorted
+   */
+  private List<SortedRecordBatch> sortedRecordBatches;
+
+  /**
+   * allocator of the result set, null to allocate from the root allocator
+   */
+  private final ArrowResultAllocator resultAllocator;
+
+  /**
+   * allocator holding the vectors of this chunk, null if not loaded
+   */
+  private BufferAllocator chunkAllocator;
 
   public ArrowResultChunk(String url, int rowCount, int colCount,
                           int uncompressedSize)
+  {
+    this(url, rowCount, colCount, uncompressedSize, null);
+  }
+
+  ArrowResultChunk(String url, int rowCount, int colCount,
+                   int uncompressedSize, ArrowResultAllocator resultAllocator)
   {
     super(url, rowCount, colCount, uncompressedSize);
     this.batchOfVectors = new ArrayList<>();
+    this.resultAllocator = resultAllocator;
+  }
+
+  /**
+   * Create the allocator of the Arrow chunks of a result set
+   *
+   * @param queryId query ID of the result
+   * @param limit   maximum bytes the chunks of the result can allocate
+   * @return a new child of the root allocator
+   */
+  static ArrowResultAllocator createResultAllocator(String queryId, long limit)
+  {
+    return new ArrowResultAllocator(rootAllocator, "result-" + queryId, limit);
+  }
+
+  private synchronized BufferAllocator getChunkAllocator()
+  {
+    if (resultAllocator == null)
+    {
+      return rootAllocator;
+    }
+    if (chunkAllocator == null)
+    {
+      chunkAllocator = resultAllocator.newChunkAllocator(getScrubbedUrl());
+    }
+    return chunkAllocator;
+  }
+
+  /**
+   * @return bytes of off-heap memory held by the vectors of the chunk, 0 if
+   * the chunk allocates from the root allocator
+   */
+  synchronized long getAllocatedMemory()
+  {
+    return chunkAllocator == null ? 0 : chunkAllocator.getAllocatedMemory();
   }
 
   private void addBatchData(List<ValueVector> batch)
@@ -89,7 +145,9 @@ public class ArrowResultChunk extends SnowflakeResultChunk
    * Note, there is no copy of data involved once data is loaded into memory.
    * a.k.a ArrowStreamReader originally allocates the memory to hold vectors,
    * but those memory ownership is transfer into ArrowResultChunk class and once
-   * ArrowStreamReader is garbage collected, memory will not be cleared up
+   * ArrowStreamReader is garbage collected, memory will not be cleared up.
+   * If the stream is also a channel, Arrow reads its buffers from the channel
+   * directly.
    *
    * @param is          inputStream which contain arrow data file in bytes
    * @param resultChunk result chunk that holds the resulted arrow vector
@@ -99,7 +157,11 @@ public class ArrowResultChunk extends SnowflakeResultChunk
                                      ArrowResultChunk resultChunk)
   throws IOException
   {
-    try (ArrowStreamReader reader = new ArrowStreamReader(is, rootAllocator))
+    BufferAllocator allocator = resultChunk.getChunkAllocator();
+    try (ArrowStreamReader reader = is instanceof ReadableByteChannel ?
+                                    new ArrowStreamReader(
+                                        (ReadableByteChannel) is, allocator) :
+                                    new ArrowStreamReader(is, allocator))
     {
       while (reader.loadNextBatch())
       {
@@ -111,7 +173,7 @@ public class ArrowResultChunk extends SnowflakeResultChunk
         {
           // transfer will not copy data but transfer ownership of memory
           // from streamReader to resultChunk
-          TransferPair t = f.getTransferPair(rootAllocator);
+          TransferPair t = f.getTransferPair(allocator);
           t.transfer();
           valueVectors.add(t.getTo());
         }
@@ -135,15 +197,24 @@ public class ArrowResultChunk extends SnowflakeResultChunk
   }
 
   @Override
-  public void freeData()
+  public synchronized void freeData()
   {
     batchOfVectors.forEach(list -> list.forEach(ValueVector::clear));
-    if (firstResultChunkSortedIndices != null)
+    sortedRecordBatches = null;
+    if (chunkAllocator != null)
     {
-      firstResultChunkSortedIndices.clear();
+      resultAllocator.closeChunkAllocator(chunkAllocator);
+      chunkAllocator = null;
     }
   }
 
+  @Override
+  synchronized void resetData()
+  {
+    freeData();
+    batchOfVectors = new ArrayList<>();
+  }
+
   /**
    * Given a list of arrow vectors (all columns in a single record batch),
    * return list of arrow vector converter. Note, converter is built on top of
@@ -352,6 +423,28 @@ public class ArrowResultChunk extends SnowflakeResultChunk
   }
 
 
+  /**
+   * @return number of record batches in the chunk
+   */
+  public int getRecordBatchCount()
+  {
+    return batchOfVectors.size();
+  }
+
+  /**
+   * Get a record batch of the chunk to read it by columns
+   *
+   * @param batchIndex            index of the record batch
+   * @param dataConversionContext conversion context of the result set
+   * @return the record batch
+   */
+  public ArrowBatch getArrowBatch(int batchIndex,
+                                  DataConversionContext dataConversionContext)
+  {
+    return new ArrowBatch(batchOfVectors.get(batchIndex),
+                          dataConversionContext);
+  }
+
   /**
    * @return an iterator to iterate over current chunk
    */
@@ -360,14 +453,126 @@ public class ArrowResultChunk extends SnowflakeResultChunk
     return new ArrowChunkIterator(this, dataConversionContext);
   }
 
+  /**
+   * Get an iterator that reuses the converters of the iterator of the previous
+   * chunk, as all the chunks of a result share the same schema
+   *
+   * @param dataConversionContext conversion context of the result set
+   * @param previous              iterator of the previous chunk
+   * @return an iterator to iterate over current chunk
+   */
+  public ArrowChunkIterator getIterator(DataConversionContext dataConversionContext,
+                                        ArrowChunkIterator previous)
+  {
+    ArrowChunkIterator iterator =
+        new ArrowChunkIterator(this, dataConversionContext);
+    iterator.currentConverters = previous.currentConverters;
+    iterator.converterFields = previous.converterFields;
+    return iterator;
+  }
+
   public static ArrowChunkIterator getEmptyChunkIterator()
   {
     return new ArrowChunkIterator(new EmptyArrowResultChunk());
   }
 
-  public void enableSortFirstResultChunk()
+  /**
+   * Sort the rows of each record batch of the chunk, for client side sorting.
+   * The rows are sorted once, the next calls return immediately.
+   *
+   * @param dataConversionContext conversion context of the result set
+   * @throws SnowflakeSQLException if a value can't be converted
+   */
+  public void sortRecordBatches(DataConversionContext dataConversionContext)
+  throws SnowflakeSQLException
   {
-    enableSortFirstResultChunk = true;
+    sortRecordBatches(dataConversionContext, false);
+  }
+
+  /**
+   * Sort the rows of each record batch from a thread parsing chunks, unless
+   * the columns can only be compared by the thread consuming the result
+   *
+   * @param dataConversionContext conversion context of the result set
+   * @throws SnowflakeSQLException if a value can't be converted
+   */
+  void sortRecordBatchesConcurrently(
+      DataConversionContext dataConversionContext)
+  throws SnowflakeSQLException
+  {
+    sortRecordBatches(dataConversionContext, true);
+  }
+
+  private synchronized void sortRecordBatches(
+      DataConversionContext dataConversionContext, boolean concurrently)
+  throws SnowflakeSQLException
+  {
+    if (sortedRecordBatches != null)
+    {
+      return;
+    }
+
+    List<SortedRecordBatch> sorted = new ArrayList<>(batchOfVectors.size());
+    ArrowRowComparator comparator = null;
+    try
+    {
+      for (List<ValueVector> vectors : batchOfVectors)
+      {
+        if (vectors.isEmpty() || vectors.get(0).getValueCount() == 0)
+        {
+          continue;
+        }
+        if (comparator == null)
+        {
+          comparator = new ArrowRowComparator(vectors);
+          if (concurrently && !comparator.isThreadSafe())
+          {
+            return;
+          }
+        }
+
+        List<ArrowVectorConverter> converters =
+            initConverters(vectors, dataConversionContext);
+        int[] indices = new ArrowResultChunkIndexSorter(
+            vectors, converters, comparator).sort();
+        sorted.add(new SortedRecordBatch(vectors, converters, indices));
+      }
+    }
+    catch (SFException ex)
+    {
+      throw new SnowflakeSQLException(ex, SqlState.INTERNAL_ERROR,
+                                      ErrorCode.INTERNAL_ERROR.getMessageCode(),
+                                      "Failed to sort result chunk: "
+                                      + ex.getLocalizedMessage());
+    }
+    sortedRecordBatches = sorted;
+  }
+
+  /**
+   * Get an iterator over the rows of several chunks in sorted order, merging
+   * the sorted record batches of all the chunks. The chunks are sorted first
+   * if needed, and must not be freed before the end of the iteration.
+   *
+   * @param chunks                chunks of the result, in the order received
+   * @param dataConversionContext conversion context of the result set
+   * @return an iterator over all the rows of the chunks
+   * @throws SnowflakeSQLException if a value can't be converted
+   */
+  public static ArrowChunkIterator getSortedIterator(
+      List<ArrowResultChunk> chunks,
+      DataConversionContext dataConversionContext)
+  throws SnowflakeSQLException
+  {
+    List<SortedRecordBatch> batches = new ArrayList<>();
+    for (ArrowResultChunk chunk : chunks)
+    {
+      chunk.sortRecordBatches(dataConversionContext);
+      synchronized (chunk)
+      {
+        batches.addAll(chunk.sortedRecordBatches);
+      }
+    }
+    return new SortedMergeIterator(batches);
   }
 
   /**
@@ -401,11 +606,17 @@ public class ArrowResultChunk extends SnowflakeResultChunk
     private int rowCountInCurrentRecordBatch;
 
     /**
-     * list of converters that attached to current record batch
-     * Note: this list is updated every time iterator points to a new record
-     * batch
+     * converters attached to current record batch, indexed by column
+     * Note: the converters are created once and attached to the vectors of
+     * every record batch the iterator points to, as long as the schema does
+     * not change
+     */
+    private ArrowVectorConverter[] currentConverters;
+
+    /**
+     * fields of the vectors the converters were created for
      */
-    private List<ArrowVectorConverter> currentConverters;
+    private List<Field> converterFields;
 
     /**
      * formatters to each data type
@@ -430,7 +641,7 @@ public class ArrowResultChunk extends SnowflakeResultChunk
       this.totalRecordBatch = 0;
       this.currentRowInRecordBatch = -1;
       this.rowCountInCurrentRecordBatch = 0;
-      this.currentConverters = Collections.emptyList();
+      this.currentConverters = new ArrowVectorConverter[0];
     }
 
     /**
@@ -450,22 +661,51 @@ public class ArrowResultChunk extends SnowflakeResultChunk
         if (currentRecordBatchIndex < totalRecordBatch)
         {
           this.currentRowInRecordBatch = 0;
-          this.rowCountInCurrentRecordBatch =
-              resultChunk.batchOfVectors.get(currentRecordBatchIndex)
-                  .get(0).getValueCount();
-          currentConverters = initConverters(
-              resultChunk.batchOfVectors.get(currentRecordBatchIndex),
-              dataConversionContext);
-          if (currentRecordBatchIndex == 0 && resultChunk.sortFirstResultChunkEnabled())
-          {
-            resultChunk.sortFirstResultChunk(currentConverters);
-          }
+          List<ValueVector> vectors =
+              resultChunk.batchOfVectors.get(currentRecordBatchIndex);
+          this.rowCountInCurrentRecordBatch = vectors.get(0).getValueCount();
+          bindConverters(vectors);
           return true;
         }
       }
       return false;
     }
 
+    /**
+     * Attach the converters to the vectors of a record batch, creating them
+     * only for the first record batch or when the schema changes
+     */
+    private void bindConverters(List<ValueVector> vectors)
+        throws SnowflakeSQLException
+    {
+      if (currentConverters != null &&
+          currentConverters.length == vectors.size())
+      {
+        boolean sameSchema = true;
+        for (int i = 0; i < vectors.size() && sameSchema; i++)
+        {
+          sameSchema = vectors.get(i).getField().equals(converterFields.get(i));
+        }
+
+        if (sameSchema)
+        {
+          for (int i = 0; i < currentConverters.length; i++)
+          {
+            currentConverters[i].setVector(vectors.get(i));
+          }
+          return;
+        }
+      }
+
+      currentConverters = initConverters(vectors, dataConversionContext)
+          .toArray(new ArrowVectorConverter[0]);
+      converterFields = new ArrayList<>(vectors.size());
+      for (ValueVector vector : vectors)
+      {
+        converterFields.add(vector.getField());
+      }
+    }
+
     public boolean isLast()
     {
       return currentRecordBatchIndex + 1 == totalRecordBatch
@@ -485,12 +725,12 @@ public class ArrowResultChunk extends SnowflakeResultChunk
 
     public ArrowVectorConverter getCurrentConverter(int columnIdx) throws SFException
     {
-      if (columnIdx < 0 || columnIdx >= currentConverters.size())
+      if (columnIdx < 0 || columnIdx >= currentConverters.length)
       {
         throw new SFException(ErrorCode.COLUMN_DOES_NOT_EXIST, columnIdx + 1);
       }
 
-      return currentConverters.get(columnIdx);
+      return currentConverters[columnIdx];
     }
 
     /**
@@ -498,37 +738,183 @@ public class ArrowResultChunk extends SnowflakeResultChunk
      */
     public int getCurrentRowInRecordBatch()
     {
-      if (resultChunk.sortFirstResultChunkEnabled() && currentRecordBatchIndex == 0)
+      return currentRowInRecordBatch;
+    }
+  }
+
+  /**
+   * Record batch with the indices of its rows in sorted order
+   */
+  private static class SortedRecordBatch
+  {
+    private final List<ValueVector> vectors;
+
+    private final List<ArrowVectorConverter> converters;
+
+    private final int[] sortedIndices;
+
+    SortedRecordBatch(List<ValueVector> vectors,
+                      List<ArrowVectorConverter> converters,
+                      int[] sortedIndices)
+    {
+      this.vectors = vectors;
+      this.converters = converters;
+      this.sortedIndices = sortedIndices;
+    }
+  }
+
+  /**
+   * Iterator merging sorted record batches with a binary heap, so the rows
+   * of the whole result come out in order without sorting them all again.
+   * Rows comparing equal come out in the order they were received.
+   */
+  private static class SortedMergeIterator extends ArrowChunkIterator
+  {
+    private final List<SortedRecordBatch> batches;
+
+    /**
+     * position of the current row of each record batch in its sorted indices
+     */
+    private final int[] positions;
+
+    /**
+     * record batches not exhausted yet, the one with the smallest row first
+     */
+    private final int[] heap;
+
+    private int heapSize = 0;
+
+    private final ArrowRowComparator comparator;
+
+    private boolean started = false;
+
+    SortedMergeIterator(List<SortedRecordBatch> batches)
+    {
+      super(new EmptyArrowResultChunk());
+      this.batches = batches;
+      this.positions = new int[batches.size()];
+      this.heap = new int[batches.size()];
+      this.comparator = batches.isEmpty() ? null :
+                        new ArrowRowComparator(batches.get(0).vectors);
+    }
+
+    @Override
+    public boolean next() throws SnowflakeSQLException
+    {
+      try
+      {
+        if (!started)
+        {
+          started = true;
+          for (int i = 0; i < batches.size(); i++)
+          {
+            heap[heapSize++] = i;
+          }
+          for (int i = heapSize / 2 - 1; i >= 0; i--)
+          {
+            siftDown(i);
+          }
+        }
+        else if (heapSize > 0)
+        {
+          int top = heap[0];
+          positions[top]++;
+          if (positions[top] == batches.get(top).sortedIndices.length)
+          {
+            heap[0] = heap[--heapSize];
+          }
+          if (heapSize > 0)
+          {
+            siftDown(0);
+          }
+        }
+      }
+      catch (SFException ex)
       {
-        return resultChunk.firstResultChunkSortedIndices.get(currentRowInRecordBatch);
+        throw new SnowflakeSQLException(ex, SqlState.INTERNAL_ERROR,
+                                        ErrorCode.INTERNAL_ERROR.getMessageCode(),
+                                        "Failed to merge sorted result chunks: "
+                                        + ex.getLocalizedMessage());
       }
-      else
+      return heapSize > 0;
+    }
+
+    private void siftDown(int i) throws SFException
+    {
+      while (true)
       {
-        return currentRowInRecordBatch;
+        int smallest = i;
+        int left = 2 * i + 1;
+        int right = left + 1;
+        if (left < heapSize && less(heap[left], heap[smallest]))
+        {
+          smallest = left;
+        }
+        if (right < heapSize && less(heap[right], heap[smallest]))
+        {
+          smallest = right;
+        }
+        if (smallest == i)
+        {
+          return;
+        }
+        int tmp = heap[i];
+        heap[i] = heap[smallest];
+        heap[smallest] = tmp;
+        i = smallest;
       }
     }
-  }
 
-  private void sortFirstResultChunk(List<ArrowVectorConverter> converters) throws SnowflakeSQLException
-  {
-    try
+    /**
+     * @return true if the current row of batch1 comes before the one of
+     * batch2, ties going to the batch received first
+     */
+    private boolean less(int batch1, int batch2) throws SFException
     {
-      List<ValueVector> firstResultChunk = this.batchOfVectors.get(0);
-      ArrowResultChunkIndexSorter sorter = new ArrowResultChunkIndexSorter(firstResultChunk, converters);
-      firstResultChunkSortedIndices = sorter.sort();
+      SortedRecordBatch b1 = batches.get(batch1);
+      SortedRecordBatch b2 = batches.get(batch2);
+      int res = comparator.compare(
+          b1.vectors, b1.converters, b1.sortedIndices[positions[batch1]],
+          b2.vectors, b2.converters, b2.sortedIndices[positions[batch2]]);
+      return res < 0 || res == 0 && batch1 < batch2;
     }
-    catch (SFException ex)
+
+    @Override
+    public boolean isLast()
     {
-      throw new SnowflakeSQLException(ex, SqlState.INTERNAL_ERROR,
-                                      ErrorCode.INTERNAL_ERROR.getMessageCode(),
-                                      "Failed to sort first result chunk: "
-                                      + ex.getLocalizedMessage());
+      return started && heapSize == 1 &&
+             positions[heap[0]] + 1 == batches.get(heap[0]).sortedIndices.length;
     }
-  }
 
-  private boolean sortFirstResultChunkEnabled()
-  {
-    return enableSortFirstResultChunk;
+    @Override
+    public boolean isAfterLast()
+    {
+      return started && heapSize == 0;
+    }
+
+    @Override
+    public ArrowVectorConverter getCurrentConverter(int columnIdx)
+    throws SFException
+    {
+      if (heapSize == 0)
+      {
+        throw new SFException(ErrorCode.INTERNAL_ERROR,
+                              "No current row in sorted result");
+      }
+      List<ArrowVectorConverter> converters =
+          batches.get(heap[0]).converters;
+      if (columnIdx < 0 || columnIdx >= converters.size())
+      {
+        throw new SFException(ErrorCode.COLUMN_DOES_NOT_EXIST, columnIdx + 1);
+      }
+      return converters.get(columnIdx);
+    }
+
+    @Override
+    public int getCurrentRowInRecordBatch()
+    {
+      return batches.get(heap[0]).sortedIndices[positions[heap[0]]];
+    }
   }
 
   /**
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static net.snowflake.client.core.SessionUtil.DEFAULT_CLIENT_PREFETCH_THREADS;
+
+/**
+ * Driver wide scheduler of result chunk downloads.
+ * <p>
+ * All the result sets in JVM submit their chunk tasks to shared bounded
+ * pools of worker threads instead of owning a private thread pool. Fetching
+ * a chunk is a two stage pipeline: I/O workers only pull the chunk bytes
+ * from the network, and a separate pool sized to the number of cores
+ * decompresses and parses them, so network waits and parsing overlap.
+ * <p>
+ * In both pools pending tasks are ordered by their distance from the next
+ * chunk the owning result set will consume, so the first unconsumed chunk
+ * of every query is served before any query gets further ahead; ties are
+ * broken in submission order.
+ * <p>
+ * The pool sizes can be set by JVM properties
+ * net.snowflake.jdbc.chunkDownloaderPoolSize and
+ * net.snowflake.jdbc.chunkParserPoolSize. Idle workers time out, so the
+ * pools don't hold threads when no results are being fetched.
+ */
+public class ChunkDownloadScheduler
+{
+  public static final String CHUNK_DOWNLOADER_POOL_SIZE_JVM =
+      "net.snowflake.jdbc.chunkDownloaderPoolSize";
+
+  public static final String CHUNK_PARSER_POOL_SIZE_JVM =
+      "net.snowflake.jdbc.chunkParserPoolSize";
+
+  // idle time after which a worker thread exits
+  private static final long WORKER_KEEP_ALIVE_SECS = 60;
+
+  private static final ChunkDownloadScheduler INSTANCE =
+      new ChunkDownloadScheduler(
+          SnowflakeUtil.getPositiveIntProperty(
+              CHUNK_DOWNLOADER_POOL_SIZE_JVM,
+              Math.max(DEFAULT_CLIENT_PREFETCH_THREADS * 4,
+                       Runtime.getRuntime().availableProcessors() * 2)),
+          SnowflakeUtil.getPositiveIntProperty(
+              CHUNK_PARSER_POOL_SIZE_JVM,
+              Runtime.getRuntime().availableProcessors()));
+
+  // I/O stage, downloads the chunk bytes
+  private final ThreadPoolExecutor executor;
+
+  // CPU stage, decompresses and parses the chunk bytes
+  private final ThreadPoolExecutor parseExecutor;
+
+  // submission order used to break ties between equal priorities
+  private final AtomicLong sequence = new AtomicLong(0);
+
+  ChunkDownloadScheduler(int poolSize, int parsePoolSize)
+  {
+    this.executor = createExecutor(poolSize, "result-chunk-downloader-");
+    this.parseExecutor = createExecutor(parsePoolSize, "result-chunk-parser-");
+  }
+
+  private static ThreadPoolExecutor createExecutor(int poolSize,
+                                                   String threadNamePrefix)
+  {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        poolSize, poolSize,
+        WORKER_KEEP_ALIVE_SECS, TimeUnit.SECONDS,
+        new PriorityBlockingQueue<>(),
+        SnowflakeUtil.createDaemonThreadFactory(threadNamePrefix));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  public static ChunkDownloadScheduler getInstance()
+  {
+    return INSTANCE;
+  }
+
+  /**
+   * Submit a chunk download task
+   *
+   * @param task     download task
+   * @param priority distance of the chunk from the next chunk to consume,
+   *                 lower value runs first
+   * @return future of the task, can be used to cancel it
+   */
+  Future<Void> submit(Callable<Void> task, int priority)
+  {
+    ScheduledChunkTask scheduledTask =
+        new ScheduledChunkTask(task, priority, sequence.getAndIncrement());
+    executor.execute(scheduledTask);
+    return scheduledTask;
+  }
+
+  /**
+   * Submit a chunk parse task
+   *
+   * @param task     parse task
+   * @param priority distance of the chunk from the next chunk to consume,
+   *                 lower value runs first
+   * @return future of the task, can be used to cancel it
+   */
+  Future<Void> submitParse(Callable<Void> task, int priority)
+  {
+    ScheduledChunkTask scheduledTask =
+        new ScheduledChunkTask(task, priority, sequence.getAndIncrement());
+    parseExecutor.execute(scheduledTask);
+    return scheduledTask;
+  }
+
+  /**
+   * Cancel a task, interrupting the worker if it is already running
+   *
+   * @param future future returned by submit or submitParse
+   */
+  void cancel(Future<Void> future)
+  {
+    future.cancel(true);
+    if (future instanceof Runnable)
+    {
+      executor.remove((Runnable) future);
+      parseExecutor.remove((Runnable) future);
+    }
+  }
+
+  /**
+   * @return maximum number of worker threads
+   */
+  public int getMaximumPoolSize()
+  {
+    return executor.getMaximumPoolSize();
+  }
+
+  /**
+   * @return number of workers currently downloading a chunk
+   */
+  public int getActiveCount()
+  {
+    return executor.getActiveCount();
+  }
+
+  /**
+   * @return number of download tasks waiting for a worker
+   */
+  public int getQueuedCount()
+  {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * @return maximum number of parser threads
+   */
+  public int getMaximumParsePoolSize()
+  {
+    return parseExecutor.getMaximumPoolSize();
+  }
+
+  /**
+   * @return number of parse tasks waiting for a worker
+   */
+  public int getQueuedParseCount()
+  {
+    return parseExecutor.getQueue().size();
+  }
+
+  /**
+   * Download task ordered by priority and then by submission order
+   */
+  private static class ScheduledChunkTask extends FutureTask<Void>
+      implements Comparable<ScheduledChunkTask>
+  {
+    private final int priority;
+
+    private final long sequence;
+
+    ScheduledChunkTask(Callable<Void> task, int priority, long sequence)
+    {
+      super(task);
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(ScheduledChunkTask other)
+    {
+      if (priority != other.priority)
+      {
+        return Integer.compare(priority, other.priority);
+      }
+      return Long.compare(sequence, other.sequence);
+    }
+  }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JVM wide arbiter of the memory reserved by result chunk downloaders.
+ * <p>
+ * Reservations are taken with a compare-and-set on a shared counter, so
+ * downloaders don't contend on a global monitor when making prefetch
+ * decisions. A downloader that has nothing in flight and cannot reserve
+ * memory blocks until another downloader releases memory, instead of
+ * polling with sleeps.
+ * <p>
+ * Each result set registers a {@link QueryAccount} when it first reserves
+ * memory. While other queries are waiting for memory, a query that already
+ * holds more than its fair share (memory limit divided by the number of
+ * registered queries) is not allowed to grow its prefetch window.
+ */
+public class ChunkMemoryArbiter
+{
+  private static final SFLogger logger =
+      SFLoggerFactory.getLogger(ChunkMemoryArbiter.class);
+
+  private static final ChunkMemoryArbiter INSTANCE = new ChunkMemoryArbiter();
+
+  // bytes reserved by all the chunk downloaders in JVM
+  private final AtomicLong reservedBytes = new AtomicLong(0);
+
+  // bytes requested by downloaders blocked in awaitReservation
+  private final AtomicLong waitingBytes = new AtomicLong(0);
+
+  // number of downloaders blocked in awaitReservation
+  private final AtomicInteger waitingCount = new AtomicInteger(0);
+
+  // number of registered query accounts
+  private final AtomicInteger activeQueries = new AtomicInteger(0);
+
+  // waiters park on this condition and are signaled on release
+  private final ReentrantLock waitLock = new ReentrantLock();
+
+  private final Condition memoryReleased = waitLock.newCondition();
+
+  // account handed out to queries already closed, never holds memory
+  private final QueryAccount closedAccount = new QueryAccount(true);
+
+  ChunkMemoryArbiter()
+  {
+  }
+
+  public static ChunkMemoryArbiter getInstance()
+  {
+    return INSTANCE;
+  }
+
+  /**
+   * Register a new query with the arbiter
+   *
+   * @return account through which the query reserves and releases memory
+   */
+  QueryAccount register()
+  {
+    activeQueries.incrementAndGet();
+    return new QueryAccount(false);
+  }
+
+  /**
+   * @return shared account that is already closed and is not counted in the
+   * fair shares, for a query that reserves memory after it was closed
+   */
+  QueryAccount getClosedAccount()
+  {
+    return closedAccount;
+  }
+
+  /**
+   * @return bytes currently reserved for result chunks across JVM
+   */
+  public long getReservedBytes()
+  {
+    return reservedBytes.get();
+  }
+
+  /**
+   * @return bytes requested by downloaders currently waiting for memory
+   */
+  public long getWaitingBytes()
+  {
+    return waitingBytes.get();
+  }
+
+  /**
+   * @return number of downloaders currently waiting for memory
+   */
+  public int getWaitingCount()
+  {
+    return waitingCount.get();
+  }
+
+  /**
+   * @return number of queries registered with the arbiter
+   */
+  public int getActiveQueries()
+  {
+    return activeQueries.get();
+  }
+
+  private void signalWaiters()
+  {
+    // the waiter increments the count while holding the lock before checking
+    // the reserved bytes, so a zero here means the waiter sees our release
+    if (waitingCount.get() > 0)
+    {
+      waitLock.lock();
+      try
+      {
+        memoryReleased.signalAll();
+      }
+      finally
+      {
+        waitLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Memory account of a single query (result set). Once closed, the account
+   * neither reserves nor releases memory, so a download thread still running
+   * for a terminated query can't change the JVM wide reservations.
+   */
+  class QueryAccount
+  {
+    // value of reserved once the account is closed
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    // bytes reserved by this query, CLOSED once the account is closed
+    private final AtomicLong reserved;
+
+    private QueryAccount(boolean closed)
+    {
+      this.reserved = new AtomicLong(closed ? CLOSED : 0);
+    }
+
+    /**
+     * Add bytes to the reservations of this query, or remove them if
+     * negative, unless the account is closed
+     *
+     * @param bytes bytes to add
+     * @return false if the account is closed
+     */
+    private boolean addReserved(long bytes)
+    {
+      long current;
+      do
+      {
+        current = reserved.get();
+        if (current == CLOSED)
+        {
+          return false;
+        }
+      }
+      while (!reserved.compareAndSet(current, current + bytes));
+      return true;
+    }
+
+    /**
+     * Try to reserve memory without blocking
+     *
+     * @param bytes       bytes to reserve
+     * @param memoryLimit memory limit of the query
+     * @return true if the memory was reserved, false if not enough memory is
+     * free or the account is closed
+     */
+    boolean tryReserve(long bytes, long memoryLimit)
+    {
+      long ownReserved = reserved.get();
+      if (ownReserved == CLOSED)
+      {
+        return false;
+      }
+
+      // let the waiting queries go first if this one holds its fair share
+      if (ownReserved > 0 && waitingCount.get() > 0 &&
+          ownReserved + bytes > memoryLimit / Math.max(1, activeQueries.get()))
+      {
+        return false;
+      }
+
+      long current;
+      do
+      {
+        current = reservedBytes.get();
+        if (current + bytes > memoryLimit)
+        {
+          return false;
+        }
+      }
+      while (!reservedBytes.compareAndSet(current, current + bytes));
+
+      if (!addReserved(bytes))
+      {
+        // closed in the meantime
+        reservedBytes.addAndGet(-bytes);
+        signalWaiters();
+        return false;
+      }
+      return true;
+    }
+
+    /**
+     * Reserve memory, waiting for other queries to release memory if needed
+     *
+     * @param bytes         bytes to reserve
+     * @param memoryLimit   memory limit of the query
+     * @param timeoutMillis maximum time to wait
+     * @return true if the memory was reserved, false on timeout or if the
+     * account is closed
+     * @throws InterruptedException if the waiting thread was interrupted
+     */
+    boolean awaitReservation(long bytes, long memoryLimit, long timeoutMillis)
+    throws InterruptedException
+    {
+      if (tryReserve(bytes, memoryLimit))
+      {
+        return true;
+      }
+      if (isClosed())
+      {
+        return false;
+      }
+
+      long remainingNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+      waitLock.lock();
+      waitingCount.incrementAndGet();
+      waitingBytes.addAndGet(bytes);
+      try
+      {
+        while (!tryReserve(bytes, memoryLimit))
+        {
+          if (remainingNanos <= 0 || isClosed())
+          {
+            return false;
+          }
+          remainingNanos = memoryReleased.awaitNanos(remainingNanos);
+        }
+        return true;
+      }
+      finally
+      {
+        waitingBytes.addAndGet(-bytes);
+        waitingCount.decrementAndGet();
+        waitLock.unlock();
+      }
+    }
+
+    /**
+     * Reserve memory already in use, even above the memory limit. Used when
+     * the memory held by a chunk turns out larger than estimated. Does
+     * nothing once the account is closed.
+     *
+     * @param bytes bytes to reserve
+     */
+    void forceReserve(long bytes)
+    {
+      // counted globally first, so the total never misses reserved bytes
+      reservedBytes.addAndGet(bytes);
+      if (!addReserved(bytes))
+      {
+        reservedBytes.addAndGet(-bytes);
+      }
+    }
+
+    /**
+     * Release memory reserved by this query and wake up waiters. Does nothing
+     * once the account is closed, closing released everything.
+     *
+     * @param bytes bytes to release
+     */
+    void release(long bytes)
+    {
+      if (bytes > 0 && addReserved(-bytes))
+      {
+        reservedBytes.addAndGet(-bytes);
+        signalWaiters();
+      }
+    }
+
+    /**
+     * @return bytes reserved by this query
+     */
+    long getReserved()
+    {
+      long current = reserved.get();
+      return current == CLOSED ? 0 : current;
+    }
+
+    /**
+     * @return true if the account is closed
+     */
+    boolean isClosed()
+    {
+      return reserved.get() == CLOSED;
+    }
+
+    /**
+     * Release everything still held by this query and unregister it
+     */
+    void close()
+    {
+      long leftover = reserved.getAndSet(CLOSED);
+      if (leftover != CLOSED)
+      {
+        if (leftover > 0)
+        {
+          logger.debug("releasing {} bytes left over on close", leftover);
+          reservedBytes.addAndGet(-leftover);
+        }
+        activeQueries.decrementAndGet();
+        // memory and fair shares grew, waiters may be able to proceed
+        signalWaiters();
+      }
+    }
+  }
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Stream over a downloaded chunk payload, inflating it on the fly if it is
+ * gzip compressed.
+ * <p>
+ * The stream is also a channel, so the Arrow reader fills its off-heap
+ * buffers from it directly: the inflater reads the whole compressed payload
+ * in place and its output is copied once into the Arrow buffer, instead of
+ * going through the buffers of GZIPInputStream and of the channel adapter
+ * Arrow wraps around a plain InputStream. An uncompressed payload is copied
+ * straight from the byte array.
+ * <p>
+ * The inflaters and copy buffers come from a pool owned by the result set,
+ * so they are recycled between its chunks.
+ */
+class ChunkPayloadStream extends InputStream implements ReadableByteChannel
+{
+  private static final int GZIP_MAGIC = 0x8b1f;
+
+  // gzip header flags
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  private static final int COPY_BUFFER_SIZE = 128 * 1024;
+
+  private final byte[] payload;
+
+  // next payload byte to read, or the start of the current gzip member
+  private int position = 0;
+
+  private final InflaterPool pool;
+
+  // inflater and copy buffer, null if the payload is not compressed
+  private InflaterPool.Entry entry;
+
+  private final CRC32 crc = new CRC32();
+
+  private boolean eof = false;
+
+  private boolean closed = false;
+
+  /**
+   * @param payload    the chunk payload as downloaded
+   * @param compressed true if the payload is gzip compressed
+   * @param pool       pool of inflaters of the result set
+   * @throws IOException if the gzip header is invalid
+   */
+  ChunkPayloadStream(byte[] payload, boolean compressed, InflaterPool pool)
+  throws IOException
+  {
+    this.payload = payload;
+    this.pool = pool;
+    if (compressed)
+    {
+      this.entry = pool.acquire();
+      readHeader();
+    }
+  }
+
+  @Override
+  public int read() throws IOException
+  {
+    byte[] b = new byte[1];
+    return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException
+  {
+    ensureOpen();
+    if (len == 0)
+    {
+      return 0;
+    }
+    if (eof)
+    {
+      return -1;
+    }
+
+    if (entry == null)
+    {
+      int n = Math.min(len, payload.length - position);
+      if (n == 0)
+      {
+        eof = true;
+        return -1;
+      }
+      System.arraycopy(payload, position, b, off, n);
+      position += n;
+      return n;
+    }
+    return inflate(b, off, len);
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException
+  {
+    ensureOpen();
+    if (dst.hasArray())
+    {
+      int n = read(dst.array(), dst.arrayOffset() + dst.position(),
+                   dst.remaining());
+      if (n > 0)
+      {
+        dst.position(dst.position() + n);
+      }
+      return n;
+    }
+
+    if (entry == null)
+    {
+      int n = Math.min(dst.remaining(), payload.length - position);
+      if (n == 0 && dst.hasRemaining())
+      {
+        eof = true;
+        return -1;
+      }
+      dst.put(payload, position, n);
+      position += n;
+      return n;
+    }
+
+    // off-heap buffer, inflate through the copy buffer
+    int total = 0;
+    while (dst.hasRemaining())
+    {
+      int n = inflate(entry.buffer, 0,
+                      Math.min(entry.buffer.length, dst.remaining()));
+      if (n == -1)
+      {
+        return total == 0 ? -1 : total;
+      }
+      dst.put(entry.buffer, 0, n);
+      total += n;
+    }
+    return total;
+  }
+
+  @Override
+  public boolean isOpen()
+  {
+    return !closed;
+  }
+
+  @Override
+  public void close()
+  {
+    if (!closed)
+    {
+      closed = true;
+      if (entry != null)
+      {
+        pool.release(entry);
+        entry = null;
+      }
+    }
+  }
+
+  private void ensureOpen() throws IOException
+  {
+    if (closed)
+    {
+      throw new ClosedChannelException();
+    }
+  }
+
+  /**
+   * Inflate into an array, moving on to the next gzip member if any
+   *
+   * @return number of bytes inflated, -1 at the end of the payload
+   */
+  private int inflate(byte[] b, int off, int len) throws IOException
+  {
+    Inflater inflater = entry.inflater;
+    while (!eof)
+    {
+      int n;
+      try
+      {
+        n = inflater.inflate(b, off, len);
+      }
+      catch (DataFormatException ex)
+      {
+        String message = ex.getMessage();
+        throw new ZipException(message != null ?
+                               message : "Invalid ZLIB data format");
+      }
+
+      if (n > 0)
+      {
+        crc.update(b, off, n);
+        return n;
+      }
+
+      if (inflater.finished())
+      {
+        if (!nextMember())
+        {
+          eof = true;
+        }
+      }
+      else if (inflater.needsDictionary())
+      {
+        throw new ZipException("Unexpected preset dictionary in gzip data");
+      }
+      else if (inflater.needsInput())
+      {
+        throw new EOFException("Unexpected end of gzip chunk payload");
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Check the trailer of the gzip member just inflated and start the next
+   * member, if any
+   *
+   * @return false if there is no more member
+   */
+  private boolean nextMember() throws IOException
+  {
+    Inflater inflater = entry.inflater;
+    int trailer = payload.length - inflater.getRemaining();
+    if (trailer + 8 > payload.length)
+    {
+      throw new EOFException("Unexpected end of gzip chunk payload");
+    }
+    if (readInt(trailer) != (int) crc.getValue() ||
+        readInt(trailer + 4) != (int) inflater.getBytesWritten())
+    {
+      throw new ZipException("Corrupt GZIP trailer");
+    }
+
+    position = trailer + 8;
+    if (payload.length - position < 2 || readShort(position) != GZIP_MAGIC)
+    {
+      // like GZIPInputStream, ignore anything after the last member
+      return false;
+    }
+
+    inflater.reset();
+    crc.reset();
+    readHeader();
+    return true;
+  }
+
+  /**
+   * Skip the gzip member header at the current position and point the
+   * inflater at the compressed data
+   */
+  private void readHeader() throws IOException
+  {
+    if (payload.length - position < 10)
+    {
+      throw new EOFException("Unexpected end of gzip chunk payload");
+    }
+    if (readShort(position) != GZIP_MAGIC)
+    {
+      throw new ZipException("Not in GZIP format");
+    }
+    if (payload[position + 2] != 8)
+    {
+      throw new ZipException("Unsupported compression method");
+    }
+
+    int flags = payload[position + 3] & 0xff;
+    int p = position + 10;
+    try
+    {
+      if ((flags & FEXTRA) != 0)
+      {
+        p += 2 + readShort(p);
+      }
+      if ((flags & FNAME) != 0)
+      {
+        p = skipZeroTerminated(p);
+      }
+      if ((flags & FCOMMENT) != 0)
+      {
+        p = skipZeroTerminated(p);
+      }
+      if ((flags & FHCRC) != 0)
+      {
+        p += 2;
+      }
+    }
+    catch (ArrayIndexOutOfBoundsException ex)
+    {
+      throw new EOFException("Unexpected end of gzip chunk payload");
+    }
+    if (p > payload.length)
+    {
+      throw new EOFException("Unexpected end of gzip chunk payload");
+    }
+
+    entry.inflater.setInput(payload, p, payload.length - p);
+  }
+
+  private int skipZeroTerminated(int offset)
+  {
+    while (payload[offset] != 0)
+    {
+      offset++;
+    }
+    return offset + 1;
+  }
+
+  // little endian, as in the gzip format
+  private int readShort(int offset)
+  {
+    return (payload[offset] & 0xff) | ((payload[offset + 1] & 0xff) << 8);
+  }
+
+  private int readInt(int offset)
+  {
+    return readShort(offset) | (readShort(offset + 2) << 16);
+  }
+
+  /**
+   * Inflaters and copy buffers of a result set, recycled between its chunks.
+   * Chunks are parsed concurrently, so the pool grows up to the number of
+   * chunks being parsed at the same time.
+   */
+  static class InflaterPool
+  {
+    private final ConcurrentLinkedQueue<Entry> entries =
+        new ConcurrentLinkedQueue<>();
+
+    private volatile boolean closed = false;
+
+    static class Entry
+    {
+      final Inflater inflater = new Inflater(true);
+
+      final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+    }
+
+    Entry acquire()
+    {
+      Entry entry = entries.poll();
+      return entry == null ? new Entry() : entry;
+    }
+
+    void release(Entry entry)
+    {
+      entry.inflater.reset();
+      entries.offer(entry);
+      if (closed)
+      {
+        // released after the pool was closed
+        end();
+      }
+    }
+
+    /**
+     * Free the native memory of the pooled inflaters
+     */
+    void close()
+    {
+      closed = true;
+      end();
+    }
+
+    private void end()
+    {
+      Entry entry;
+      while ((entry = entries.poll()) != null)
+      {
+        entry.inflater.end();
+      }
+    }
+  }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Local disk cache of downloaded result chunks keyed by query ID and chunk
+ * index.
+ * <p>
+ * A result that is read again within the result retention window is served
+ * from local disk instead of being fetched again from the cloud storage.
+ * The chunks are stored as received, i.e. still compressed. The cache is
+ * bounded in size and evicts the least recently used chunks first; the
+ * entries found in the directory at startup are kept, so the cache survives
+ * restarts of the JVM.
+ * <p>
+ * The cache is enabled by JVM property net.snowflake.jdbc.resultCacheDirectory,
+ * and its size in bytes is set by net.snowflake.jdbc.resultCacheMaxSize.
+ * The chunks hold query results, so on POSIX file systems the files, and
+ * the directory when the driver creates it, are only accessible by their
+ * owner.
+ */
+class ChunkResultCache
+{
+  private static final SFLogger logger =
+      SFLoggerFactory.getLogger(ChunkResultCache.class);
+
+  static final String RESULT_CACHE_DIRECTORY_JVM =
+      "net.snowflake.jdbc.resultCacheDirectory";
+
+  static final String RESULT_CACHE_MAX_SIZE_JVM =
+      "net.snowflake.jdbc.resultCacheMaxSize";
+
+  private static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+
+  private static final String FILE_SUFFIX = ".chunk";
+
+  private static final String TMP_FILE_SUFFIX = ".tmp";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final boolean IS_POSIX =
+      FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+
+  private static volatile ChunkResultCache instance;
+
+  private final File directory;
+
+  private final long maxSize;
+
+  // file name to file size, in access order
+  private final LinkedHashMap<String, Long> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private long totalSize = 0;
+
+  /**
+   * Chunk payload read from the cache
+   */
+  static class CachedChunk
+  {
+    final byte[] bytes;
+
+    // Content-Encoding of the bytes, null if not compressed
+    final String contentEncoding;
+
+    CachedChunk(byte[] bytes, String contentEncoding)
+    {
+      this.bytes = bytes;
+      this.contentEncoding = contentEncoding;
+    }
+  }
+
+  ChunkResultCache(File directory, long maxSize)
+  {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    loadEntries();
+  }
+
+  /**
+   * @return the cache configured by JVM properties, null if not enabled
+   */
+  static ChunkResultCache getInstance()
+  {
+    String path = System.getProperty(RESULT_CACHE_DIRECTORY_JVM);
+    if (path == null)
+    {
+      return null;
+    }
+
+    if (instance == null)
+    {
+      synchronized (ChunkResultCache.class)
+      {
+        if (instance == null)
+        {
+          File dir = new File(path);
+          try
+          {
+            if (!dir.isDirectory())
+            {
+              Files.createDirectories(dir.toPath(), ownerOnly("rwx------"));
+            }
+          }
+          catch (IOException ex)
+          {
+            logger.debug("cannot create result cache directory: {}: {}",
+                         path, ex.getLocalizedMessage());
+            return null;
+          }
+          instance = new ChunkResultCache(
+              dir, SnowflakeUtil.getPositiveLongProperty(
+                  RESULT_CACHE_MAX_SIZE_JVM, DEFAULT_MAX_SIZE));
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * @param permissions POSIX permissions, e.g. rw-------
+   * @return attribute setting the permissions at creation, none if the file
+   * system is not POSIX
+   */
+  private static FileAttribute<?>[] ownerOnly(String permissions)
+  {
+    return IS_POSIX ?
+           new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(
+               PosixFilePermissions.fromString(permissions))} :
+           new FileAttribute<?>[0];
+  }
+
+  /**
+   * Index the chunks cached by previous runs, oldest first, and delete the
+   * temporary files left over by runs that died while writing a chunk
+   */
+  private void loadEntries()
+  {
+    File[] tmpFiles = directory.listFiles(
+        (dir, name) -> name.endsWith(TMP_FILE_SUFFIX));
+    if (tmpFiles != null)
+    {
+      for (File tmpFile : tmpFiles)
+      {
+        if (!tmpFile.delete())
+        {
+          logger.debug("failed to delete {}", tmpFile.getPath());
+        }
+      }
+    }
+
+    File[] files = directory.listFiles(
+        (dir, name) -> name.endsWith(FILE_SUFFIX));
+    if (files == null)
+    {
+      return;
+    }
+
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    synchronized (this)
+    {
+      for (File file : files)
+      {
+        entries.put(file.getName(), file.length());
+        totalSize += file.length();
+      }
+      evict();
+    }
+    logger.debug("result cache {}: {} chunks, {} bytes",
+                 directory.getPath(), entries.size(), totalSize);
+  }
+
+  /**
+   * Get a chunk from the cache
+   *
+   * @param queryId    query ID of the result
+   * @param chunkIndex index of the chunk
+   * @return the cached chunk, null if not cached
+   */
+  CachedChunk get(String queryId, int chunkIndex)
+  {
+    String name = fileName(queryId, chunkIndex);
+    synchronized (this)
+    {
+      if (entries.get(name) == null)
+      {
+        return null;
+      }
+    }
+
+    File file = new File(directory, name);
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)))
+    {
+      String contentEncoding = in.readUTF();
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return new CachedChunk(bytes,
+                             contentEncoding.isEmpty() ? null : contentEncoding);
+    }
+    catch (IOException ex)
+    {
+      // evicted meanwhile or corrupted, fetch it again
+      logger.debug("failed to read cached chunk {}: {}",
+                   name, ex.getLocalizedMessage());
+      remove(name);
+      return null;
+    }
+  }
+
+  /**
+   * Store a chunk in the cache, evicting the least recently used chunks if
+   * the cache gets too large
+   *
+   * @param queryId         query ID of the result
+   * @param chunkIndex      index of the chunk
+   * @param bytes           chunk payload as received
+   * @param contentEncoding Content-Encoding of the payload, null if none
+   */
+  void put(String queryId, int chunkIndex, byte[] bytes, String contentEncoding)
+  {
+    if (bytes.length > maxSize)
+    {
+      return;
+    }
+
+    String name = fileName(queryId, chunkIndex);
+    File file = new File(directory, name);
+    File tmpFile = null;
+    try
+    {
+      // write aside and rename, so readers never see a partial file
+      tmpFile = Files.createTempFile(directory.toPath(), name, TMP_FILE_SUFFIX,
+                                     ownerOnly("rw-------")).toFile();
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(tmpFile), BUFFER_SIZE)))
+      {
+        out.writeUTF(contentEncoding == null ? "" : contentEncoding);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+      Files.move(tmpFile.toPath(), file.toPath(),
+                 StandardCopyOption.REPLACE_EXISTING,
+                 StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException ex)
+    {
+      logger.debug("failed to cache chunk {}: {}",
+                   name, ex.getLocalizedMessage());
+      if (tmpFile != null && tmpFile.exists() && !tmpFile.delete())
+      {
+        logger.debug("failed to delete {}", tmpFile.getPath());
+      }
+      return;
+    }
+
+    synchronized (this)
+    {
+      Long previous = entries.put(name, file.length());
+      totalSize += file.length() - (previous == null ? 0 : previous);
+      evict();
+    }
+  }
+
+  /**
+   * Remove a chunk from the cache, e.g. when its copy turns out to be bad
+   *
+   * @param queryId    query ID of the result
+   * @param chunkIndex index of the chunk
+   */
+  void invalidate(String queryId, int chunkIndex)
+  {
+    String name = fileName(queryId, chunkIndex);
+    remove(name);
+
+    File file = new File(directory, name);
+    if (file.exists() && !file.delete())
+    {
+      logger.debug("failed to delete cached chunk: {}", file.getPath());
+    }
+  }
+
+  /**
+   * @return total size of the cached chunks in bytes
+   */
+  synchronized long getSize()
+  {
+    return totalSize;
+  }
+
+  /**
+   * @return number of cached chunks
+   */
+  synchronized int getCount()
+  {
+    return entries.size();
+  }
+
+  private synchronized void remove(String name)
+  {
+    Long size = entries.remove(name);
+    if (size != null)
+    {
+      totalSize -= size;
+    }
+  }
+
+  /**
+   * Delete the least recently used chunks until the cache fits its size
+   */
+  private synchronized void evict()
+  {
+    Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+    while (totalSize > maxSize && it.hasNext())
+    {
+      Map.Entry<String, Long> eldest = it.next();
+      it.remove();
+      totalSize -= eldest.getValue();
+
+      File file = new File(directory, eldest.getKey());
+      if (file.exists() && !file.delete())
+      {
+        logger.debug("failed to delete cached chunk: {}", file.getPath());
+      }
+    }
+  }
+
+  private static String fileName(String queryId, int chunkIndex)
+  {
+    // query IDs are UUIDs, keep the name safe anyway
+    return queryId.replaceAll("[^A-Za-z0-9\\-]", "_") + "_" + chunkIndex +
+           FILE_SUFFIX;
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Local disk copy of a result chunk downloaded while the chunk memory limit
+ * was reached.
+ * <p>
+ * The chunk is stored as received from the cloud storage, i.e. still
+ * compressed, and is parsed only when memory can be reserved for it. The
+ * spill tier is enabled by JVM property net.snowflake.jdbc.enableResultSpill
+ * or by setting the spill directory with net.snowflake.jdbc.resultSpillDirectory;
+ * the default directory is java.io.tmpdir. The file is deleted once the
+ * chunk is parsed from it or the downloader is terminated.
+ * <p>
+ * The download thread writing the file and the consumer thread reserving
+ * memory for the chunk hand off through {@link #markWritten()} and
+ * {@link #requestLoad()}: whichever comes second starts the parsing.
+ */
+class ChunkSpillFile
+{
+  private static final SFLogger logger =
+      SFLoggerFactory.getLogger(ChunkSpillFile.class);
+
+  static final String ENABLE_RESULT_SPILL_JVM =
+      "net.snowflake.jdbc.enableResultSpill";
+
+  static final String RESULT_SPILL_DIRECTORY_JVM =
+      "net.snowflake.jdbc.resultSpillDirectory";
+
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private final File file;
+
+  // Content-Encoding of the stored bytes, null if not compressed
+  private String contentEncoding;
+
+  private boolean written = false;
+
+  private boolean loadRequested = false;
+
+  private ChunkSpillFile(File file)
+  {
+    this.file = file;
+  }
+
+  /**
+   * @return true if chunks can be spilled to local disk
+   */
+  static boolean isEnabled()
+  {
+    return Boolean.parseBoolean(System.getProperty(ENABLE_RESULT_SPILL_JVM)) ||
+           System.getProperty(RESULT_SPILL_DIRECTORY_JVM) != null;
+  }
+
+  /**
+   * Create an empty spill file for a chunk
+   *
+   * @param chunkIndex index of the chunk, used in the file name
+   * @return spill file
+   * @throws IOException if the file cannot be created
+   */
+  static ChunkSpillFile create(int chunkIndex) throws IOException
+  {
+    String directory = System.getProperty(RESULT_SPILL_DIRECTORY_JVM);
+    File file = directory == null ?
+                Files.createTempFile("sf-result-chunk-" + chunkIndex + "-",
+                                     ".spill").toFile() :
+                Files.createTempFile(new File(directory).toPath(),
+                                     "sf-result-chunk-" + chunkIndex + "-",
+                                     ".spill").toFile();
+    return new ChunkSpillFile(file);
+  }
+
+  /**
+   * Store the raw chunk bytes
+   *
+   * @param inputStream     stream of the chunk as received
+   * @param contentEncoding Content-Encoding of the stream, null if none
+   * @return number of bytes stored
+   * @throws IOException if failed to write the file
+   */
+  long write(InputStream inputStream, String contentEncoding)
+  throws IOException
+  {
+    this.contentEncoding = contentEncoding;
+
+    long total = 0;
+    byte[] buf = new byte[COPY_BUFFER_SIZE];
+    try (OutputStream out = new FileOutputStream(file))
+    {
+      int len;
+      while ((len = inputStream.read(buf)) != -1)
+      {
+        out.write(buf, 0, len);
+        total += len;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Mark the file completely written
+   *
+   * @return true if the load was already requested and the caller has to
+   * start it
+   */
+  synchronized boolean markWritten()
+  {
+    written = true;
+    return loadRequested;
+  }
+
+  /**
+   * Request the chunk to be parsed from the file
+   *
+   * @return true if the file is already written and the caller has to start
+   * the load
+   */
+  synchronized boolean requestLoad()
+  {
+    loadRequested = true;
+    return written;
+  }
+
+  InputStream openInputStream() throws IOException
+  {
+    return new BufferedInputStream(new FileInputStream(file), COPY_BUFFER_SIZE);
+  }
+
+  String getContentEncoding()
+  {
+    return contentEncoding;
+  }
+
+  String getPath()
+  {
+    return file.getPath();
+  }
+
+  void delete()
+  {
+    if (file.exists() && !file.delete())
+    {
+      logger.debug("failed to delete spill file: {}", file.getPath());
+    }
+  }
+}
@@ -89,7 +89,8 @@ public enum ErrorCode
   INVALID_APP_NAME(200056, SqlState.INVALID_PARAMETER_VALUE),
   EXECUTE_BATCH_INTEGER_OVERFLOW(200058, SqlState.NUMERIC_VALUE_OUT_OF_RANGE),
   INVALID_CONNECT_STRING(200059, SqlState.CONNECTION_EXCEPTION),
-  INVALID_OKTA_USERNAME(200060, SqlState.CONNECTION_EXCEPTION);
+  INVALID_OKTA_USERNAME(200060, SqlState.CONNECTION_EXCEPTION),
+  CLIENT_SIDE_SORTING_MEMORY_LIMIT(200061, SqlState.FEATURE_NOT_SUPPORTED);
 
   public final static String errorMessageResource =
       "net.snowflake.client.jdbc.jdbc_error_messages";
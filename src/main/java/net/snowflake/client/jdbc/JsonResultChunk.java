@@ -4,14 +4,21 @@
 
 package net.snowflake.client.jdbc;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import com.fasterxml.jackson.databind.JsonNode;
+import net.snowflake.client.core.StringDictionary;
+import net.snowflake.client.core.arrow.ArrowResultUtil;
 import net.snowflake.client.log.SFLogger;
 import net.snowflake.client.log.SFLoggerFactory;
 import net.snowflake.common.core.SqlState;
 
 import java.lang.ref.SoftReference;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -20,13 +27,33 @@ public class JsonResultChunk extends SnowflakeResultChunk
 {
   private static final int NULL_VALUE = Integer.MIN_VALUE;
 
+  // maximum number of digits of a double computed exactly from its digits
+  private static final int MAX_EXACT_DOUBLE_DIGITS = 15;
+
+  // maximum number of digits always fitting in a long
+  private static final int MAX_LONG_DIGITS = 18;
+
+  // powers of ten exactly representable as double
+  private static final double[] DOUBLE_POWERS_OF_10 = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
   private static final SFLogger logger =
       SFLoggerFactory.getLogger(JsonResultChunk.class);
 
   private ResultChunkData data;
 
+  // canonical Strings of each column, null unless enabled
+  private StringDictionary[] dictionaries;
+
+  private final StringDictionary.ByteSource dataSource =
+      offset -> (byte) data.charAt(offset);
+
   private int currentRow;
 
+  // rows of the query response, counted as they are added
+  private final boolean growing;
+
   public JsonResultChunk(String url, int rowCount, int colCount,
                          int uncompressedSize, boolean useJsonParserV2)
   {
@@ -41,6 +68,75 @@ public class JsonResultChunk extends SnowflakeResultChunk
       data = new BlockResultChunkData(computeCharactersNeeded(),
                                       rowCount * colCount);
     }
+    growing = false;
+    initDictionaries();
+  }
+
+  private JsonResultChunk(int colCount)
+  {
+    super("", 0, colCount, 0);
+    data = new BlockResultChunkData();
+    growing = true;
+    initDictionaries();
+  }
+
+  /**
+   * Create a chunk for rows parsed from the query response, filled with
+   * {@link #addRow(Object[])}. The number of rows is not known up front:
+   * the storage grows with the rows added, instead of taking whole blocks,
+   * as the rows of a response are usually few.
+   *
+   * @param colCount number of columns
+   * @return the chunk, without rows
+   */
+  public static JsonResultChunk createResponseChunk(int colCount)
+  {
+    return new JsonResultChunk(colCount);
+  }
+
+  private void initDictionaries()
+  {
+    if (StringDictionary.isEnabled())
+    {
+      dictionaries = new StringDictionary[colCount];
+      for (int i = 0; i < colCount; i++)
+      {
+        dictionaries[i] = new StringDictionary();
+      }
+    }
+  }
+
+  /**
+   * @return the rows as the JSON array of arrays of the query response
+   */
+  public String toJsonRowset()
+  {
+    JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+    StringBuilder builder = new StringBuilder(uncompressedSize + 2);
+    builder.append('[');
+    for (int rowIdx = 0; rowIdx < rowCount; rowIdx++)
+    {
+      builder.append(rowIdx == 0 ? "[" : ",[");
+      for (int colIdx = 0; colIdx < colCount; colIdx++)
+      {
+        if (colIdx > 0)
+        {
+          builder.append(',');
+        }
+        String cell = data.get(colCount * rowIdx + colIdx);
+        if (cell == null)
+        {
+          builder.append("null");
+        }
+        else
+        {
+          builder.append('"').append(encoder.quoteAsString(cell)).append('"');
+        }
+      }
+      builder.append(']');
+    }
+    builder.append(']');
+    return builder.toString();
   }
 
   public static Object extractCell(JsonNode resultData, int rowIdx, int colIdx)
@@ -79,7 +175,419 @@ public class JsonResultChunk extends SnowflakeResultChunk
    */
   public final Object getCell(int rowIdx, int colIdx)
   {
-    return data.get(colCount * rowIdx + colIdx);
+    final int index = colCount * rowIdx + colIdx;
+    if (dictionaries != null && dictionaries[colIdx].isActive())
+    {
+      final int length = data.getLength(index);
+      if (length == NULL_VALUE)
+      {
+        return null;
+      }
+      String value =
+          dictionaries[colIdx].get(dataSource, data.getOffset(index), length);
+      if (value != null)
+      {
+        return value;
+      }
+    }
+    return data.get(index);
+  }
+
+  /**
+   * Check whether a cell is null without creating a String for it
+   *
+   * @param rowIdx zero based row
+   * @param colIdx zero based column
+   * @return true if the cell is null
+   */
+  public final boolean isNull(int rowIdx, int colIdx)
+  {
+    return data.getLength(colCount * rowIdx + colIdx) == NULL_VALUE;
+  }
+
+  /**
+   * Parse an integer cell in place, with the same rules as Long.parseLong
+   *
+   * @param rowIdx zero based row
+   * @param colIdx zero based column
+   * @return value of the cell
+   * @throws NumberFormatException if the cell is not an integer fitting in
+   *                               a long
+   */
+  public final long getLong(int rowIdx, int colIdx)
+  {
+    final int index = colCount * rowIdx + colIdx;
+    final int length = data.getLength(index);
+    if (length <= 0)
+    {
+      throw new NumberFormatException("Not a number");
+    }
+
+    int pos = data.getOffset(index);
+    final int end = pos + length;
+
+    final int first = data.charAt(pos);
+    final boolean negative = first == '-';
+    if (negative || first == '+')
+    {
+      if (++pos == end)
+      {
+        throw new NumberFormatException("Not a number");
+      }
+    }
+
+    // accumulate negatively to reach Long.MIN_VALUE
+    final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    final long multmin = limit / 10;
+    long result = 0;
+    while (pos < end)
+    {
+      final int digit = data.charAt(pos++) - '0';
+      if (digit < 0 || digit > 9 || result < multmin)
+      {
+        throw new NumberFormatException("Not a long");
+      }
+      result *= 10;
+      if (result < limit + digit)
+      {
+        throw new NumberFormatException("Not a long");
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * Parse a decimal cell in place as its unscaled value at the scale of the
+   * column
+   *
+   * @param rowIdx zero based row
+   * @param colIdx zero based column
+   * @param scale  scale of the column
+   * @return unscaled value of the cell
+   * @throws NumberFormatException if the cell is not a plain decimal, has
+   *                               more fraction digits than the scale or
+   *                               its unscaled value doesn't fit in a long
+   */
+  public final long getUnscaledLong(int rowIdx, int colIdx, int scale)
+  {
+    final int index = colCount * rowIdx + colIdx;
+    final int length = data.getLength(index);
+    if (length <= 0)
+    {
+      throw new NumberFormatException("Not a number");
+    }
+
+    int pos = data.getOffset(index);
+    final int end = pos + length;
+
+    final int first = data.charAt(pos);
+    final boolean negative = first == '-';
+    if (negative || first == '+')
+    {
+      pos++;
+    }
+
+    // accumulate negatively to reach Long.MIN_VALUE
+    final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    final long multmin = limit / 10;
+    long result = 0;
+    int digits = 0;
+    int fractionDigits = -1;
+    while (pos < end)
+    {
+      final int c = data.charAt(pos++);
+      if (c == '.' && fractionDigits < 0)
+      {
+        fractionDigits = 0;
+        continue;
+      }
+      final int digit = c - '0';
+      if (digit < 0 || digit > 9 || result < multmin)
+      {
+        throw new NumberFormatException("Not a long");
+      }
+      result *= 10;
+      if (result < limit + digit)
+      {
+        throw new NumberFormatException("Not a long");
+      }
+      result -= digit;
+      digits++;
+      if (fractionDigits >= 0)
+      {
+        fractionDigits++;
+      }
+    }
+
+    if (digits == 0 || fractionDigits > scale)
+    {
+      throw new NumberFormatException("Not a number of scale " + scale);
+    }
+
+    // pad the fraction to the scale
+    for (int i = Math.max(fractionDigits, 0); i < scale; i++)
+    {
+      if (result < multmin)
+      {
+        throw new NumberFormatException("Not a long");
+      }
+      result *= 10;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * Parse a decimal cell in place when the value can be computed exactly
+   * from its digits
+   *
+   * @param rowIdx zero based row
+   * @param colIdx zero based column
+   * @return value of the cell, NaN if the cell has to be parsed as a
+   * String, e.g. it has an exponent or too many digits
+   */
+  public final double getDouble(int rowIdx, int colIdx)
+  {
+    final int index = colCount * rowIdx + colIdx;
+    final int length = data.getLength(index);
+    if (length <= 0)
+    {
+      return Double.NaN;
+    }
+
+    int pos = data.getOffset(index);
+    final int end = pos + length;
+
+    final int first = data.charAt(pos);
+    final boolean negative = first == '-';
+    if (negative || first == '+')
+    {
+      pos++;
+    }
+
+    long mantissa = 0;
+    int digits = 0;
+    int significantDigits = 0;
+    int scale = -1;
+    for (; pos < end; pos++)
+    {
+      final int c = data.charAt(pos);
+      if (c == '.' && scale < 0)
+      {
+        scale = 0;
+        continue;
+      }
+      final int digit = c - '0';
+      if (digit < 0 || digit > 9)
+      {
+        return Double.NaN;
+      }
+      digits++;
+      if (mantissa != 0 || digit != 0)
+      {
+        // leading zeros don't count
+        significantDigits++;
+      }
+      mantissa = mantissa * 10 + digit;
+      if (scale >= 0)
+      {
+        scale++;
+      }
+    }
+
+    if (digits == 0 ||
+        significantDigits > MAX_EXACT_DOUBLE_DIGITS ||
+        scale >= DOUBLE_POWERS_OF_10.length)
+    {
+      return Double.NaN;
+    }
+
+    // both operands are exact, so the quotient is correctly rounded
+    final double value = scale > 0 ?
+                         mantissa / DOUBLE_POWERS_OF_10[scale] : mantissa;
+    return negative ? -value : value;
+  }
+
+  /**
+   * Parse a decimal cell in place when its unscaled value fits in a long
+   *
+   * @param rowIdx zero based row
+   * @param colIdx zero based column
+   * @return value of the cell, null if the cell has to be parsed as a String
+   */
+  public final BigDecimal getBigDecimal(int rowIdx, int colIdx)
+  {
+    final int index = colCount * rowIdx + colIdx;
+    final int length = data.getLength(index);
+    if (length <= 0)
+    {
+      return null;
+    }
+
+    int pos = data.getOffset(index);
+    final int end = pos + length;
+
+    final int first = data.charAt(pos);
+    final boolean negative = first == '-';
+    if (negative || first == '+')
+    {
+      pos++;
+    }
+
+    long unscaled = 0;
+    int digits = 0;
+    int scale = -1;
+    for (; pos < end; pos++)
+    {
+      final int c = data.charAt(pos);
+      if (c == '.' && scale < 0)
+      {
+        scale = 0;
+        continue;
+      }
+      final int digit = c - '0';
+      if (digit < 0 || digit > 9 || ++digits > MAX_LONG_DIGITS)
+      {
+        return null;
+      }
+      unscaled = unscaled * 10 + digit;
+      if (scale >= 0)
+      {
+        scale++;
+      }
+    }
+
+    if (digits == 0)
+    {
+      return null;
+    }
+    return BigDecimal.valueOf(negative ? -unscaled : unscaled,
+                              Math.max(scale, 0));
+  }
+
+  /**
+   * Parse a boolean cell in place, with the same rules as
+   * ResultUtil.getBoolean
+   *
+   * @param rowIdx zero based row
+   * @param colIdx zero based column
+   * @return true if the cell is "1" or "true" in any case
+   */
+  public final boolean getBoolean(int rowIdx, int colIdx)
+  {
+    final int index = colCount * rowIdx + colIdx;
+    final int length = data.getLength(index);
+    final int pos = data.getOffset(index);
+    if (length == 1)
+    {
+      return data.charAt(pos) == '1';
+    }
+    if (length == 4)
+    {
+      return (data.charAt(pos) | 0x20) == 't' &&
+             (data.charAt(pos + 1) | 0x20) == 'r' &&
+             (data.charAt(pos + 2) | 0x20) == 'u' &&
+             (data.charAt(pos + 3) | 0x20) == 'e';
+    }
+    return false;
+  }
+
+  /**
+   * Parse a cell holding seconds since epoch with an optional fraction of
+   * up to nine digits, as TIMESTAMP_NTZ and TIMESTAMP_LTZ values are sent
+   *
+   * @param rowIdx zero based row
+   * @param colIdx zero based column
+   * @return timestamp at the instant, null if the cell has to be parsed as a
+   * String
+   */
+  public final Timestamp getEpochTimestamp(int rowIdx, int colIdx)
+  {
+    Instant epoch = getEpochInstant(rowIdx, colIdx);
+    if (epoch == null ||
+        ArrowResultUtil.isTimestampOverflow(epoch.getEpochSecond()))
+    {
+      return null;
+    }
+    return ArrowResultUtil.createTimestamp(epoch.getEpochSecond(),
+                                           epoch.getNano());
+  }
+
+  /**
+   * Parse a cell holding seconds since epoch with an optional fraction of
+   * up to nine digits, for the java.time getters
+   *
+   * @param rowIdx zero based row
+   * @param colIdx zero based column
+   * @return the instant, null if the cell has to be parsed as a String
+   */
+  public final Instant getEpochInstant(int rowIdx, int colIdx)
+  {
+    final int index = colCount * rowIdx + colIdx;
+    final int length = data.getLength(index);
+    if (length <= 0)
+    {
+      return null;
+    }
+
+    int pos = data.getOffset(index);
+    final int end = pos + length;
+
+    final boolean negative = data.charAt(pos) == '-';
+    if (negative)
+    {
+      pos++;
+    }
+
+    long seconds = 0;
+    int secondDigits = 0;
+    for (; pos < end && data.charAt(pos) != '.'; pos++)
+    {
+      final int digit = data.charAt(pos) - '0';
+      if (digit < 0 || digit > 9 || ++secondDigits > MAX_LONG_DIGITS)
+      {
+        return null;
+      }
+      seconds = seconds * 10 + digit;
+    }
+
+    int nanos = 0;
+    int fractionDigits = 0;
+    if (pos < end)
+    {
+      // skip the dot
+      pos++;
+      for (; pos < end; pos++)
+      {
+        final int digit = data.charAt(pos) - '0';
+        if (digit < 0 || digit > 9 ||
+            ++fractionDigits > ArrowResultUtil.MAX_SCALE_POWERS_OF_10)
+        {
+          return null;
+        }
+        nanos = nanos * 10 + digit;
+      }
+      nanos *= ArrowResultUtil.powerOfTen(
+          ArrowResultUtil.MAX_SCALE_POWERS_OF_10 - fractionDigits);
+    }
+
+    if (secondDigits == 0)
+    {
+      return null;
+    }
+
+    if (negative)
+    {
+      // -1.25 is one and a quarter seconds before the epoch: -2 + 0.75
+      seconds = -seconds;
+      if (nanos > 0)
+      {
+        seconds--;
+        nanos = 1000000000 - nanos;
+      }
+    }
+
+    return ArrowResultUtil.createInstant(seconds, nanos);
   }
 
   public final void addRow(Object[] row) throws SnowflakeSQLException
@@ -121,6 +629,18 @@ public class JsonResultChunk extends SnowflakeResultChunk
         }
       }
     }
+
+    if (growing)
+    {
+      // the size includes the brackets and commas of the row, see
+      // computeCharactersNeeded
+      uncompressedSize += 2 + colCount;
+      for (int i = currentRow * colCount; i < (currentRow + 1) * colCount; i++)
+      {
+        uncompressedSize += Math.max(0, data.getLength(i));
+      }
+      rowCount++;
+    }
     currentRow++;
   }
 
@@ -168,6 +688,25 @@ public class JsonResultChunk extends SnowflakeResultChunk
     {
       data.freeData();
     }
+    dictionaries = null;
+  }
+
+  @Override
+  final void resetData()
+  {
+    freeData();
+    if (data instanceof BlockResultChunkDataV2)
+    {
+      data = new BlockResultChunkDataV2(computeCharactersNeeded(),
+                                        rowCount, colCount);
+    }
+    else
+    {
+      data = new BlockResultChunkData(computeCharactersNeeded(),
+                                      rowCount * colCount);
+    }
+    currentRow = 0;
+    initDictionaries();
   }
 
   public int computeCharactersNeeded()
@@ -234,6 +773,31 @@ public class JsonResultChunk extends SnowflakeResultChunk
      */
     String get(int index);
 
+    /**
+     * Offset of an element in the data blocks
+     *
+     * @param index determines the element
+     * @return offset to pass to charAt()
+     */
+    int getOffset(int index);
+
+    /**
+     * Length of an element in the data blocks
+     *
+     * @param index determines the element
+     * @return length, NULL_VALUE if the element is null
+     */
+    int getLength(int index);
+
+    /**
+     * Read one character of the data blocks without creating a String.
+     * Bytes of multi byte UTF-8 sequences are returned as is.
+     *
+     * @param offset position in the data blocks
+     * @return character at the position
+     */
+    int charAt(int offset);
+
     /**
      * Compute the necessary memory to store this chunk
      *
@@ -307,8 +871,9 @@ public class JsonResultChunk extends SnowflakeResultChunk
   }
 
   /**
-   * This implementation copies the strings to char arrays and stores the
-   * offsets and lengths.
+   * This implementation encodes the strings in UTF-8 into byte arrays and
+   * stores the offsets and lengths. Strings are decoded only when accessed,
+   * so mostly ASCII results take half the memory of char arrays.
    * Multiple smaller arrays are necessary because java is not good at
    * handling big arrays. They can cause OOM even if there is enough heap space
    * left in theory.
@@ -319,12 +884,27 @@ public class JsonResultChunk extends SnowflakeResultChunk
     {
       this.blockCount = getBlock(totalLength - 1) + 1;
       this.metaBlockCount = getMetaBlock(count - 1) + 1;
+      this.growing = false;
+    }
+
+    /**
+     * Create data growing with the strings added
+     */
+    BlockResultChunkData()
+    {
+      this.blockCount = 0;
+      this.metaBlockCount = 0;
+      this.growing = true;
     }
 
     @Override
     public void add(String string)
     {
-      if (data.size() < blockCount || offsets.size() < metaBlockCount)
+      if (growing)
+      {
+        growMetaBlocks();
+      }
+      else if (data.size() < blockCount || offsets.size() < metaBlockCount)
       {
         allocateArrays();
       }
@@ -337,7 +917,16 @@ public class JsonResultChunk extends SnowflakeResultChunk
       else
       {
         final int offset = currentDatOffset;
-        final int length = string.length();
+        final boolean ascii = isAscii(string);
+        final byte[] bytes =
+            ascii ? null : string.getBytes(StandardCharsets.UTF_8);
+        if (growing)
+        {
+          growDataBlocks(offset + (ascii ? string.length() : bytes.length));
+        }
+        final int length = ascii ?
+                           addAscii(string, offset) :
+                           addBytes(bytes, offset);
 
         // store offset and length
         offsets.get(getMetaBlock(nextIndex))
@@ -345,31 +934,67 @@ public class JsonResultChunk extends SnowflakeResultChunk
         lengths.get(getMetaBlock(nextIndex))
             [getMetaBlockIndex(nextIndex)] = length;
 
-        // copy string to the char array
-        int copied = 0;
-        char[] source = string.toCharArray();
-        if (spaceLeftOnBlock(offset) < length)
+        currentDatOffset += length;
+      }
+      nextIndex++;
+    }
+
+    private static boolean isAscii(String string)
+    {
+      for (int i = 0; i < string.length(); i++)
+      {
+        if (string.charAt(i) >= 0x80)
         {
-          while (copied < length)
-          {
-            final int copySize
-                = Math.min(length - copied, spaceLeftOnBlock(offset + copied));
-            System.arraycopy(source, copied,
-                             data.get(getBlock(offset + copied)),
-                             getBlockOffset(offset + copied),
-                             copySize);
-            copied += copySize;
-          }
+          return false;
         }
-        else
+      }
+      return true;
+    }
+
+    /**
+     * Copy an ASCII string to the byte arrays, one byte per character
+     *
+     * @return number of bytes copied
+     */
+    private int addAscii(String string, int offset)
+    {
+      final int length = string.length();
+      int copied = 0;
+      while (copied < length)
+      {
+        final byte[] block = data.get(getBlock(offset + copied));
+        int blockOffset = getBlockOffset(offset + copied);
+        final int copyEnd
+            = copied + Math.min(length - copied,
+                                spaceLeftOnBlock(offset + copied));
+        for (; copied < copyEnd; copied++)
         {
-          System.arraycopy(source, 0,
-                           data.get(getBlock(offset)),
-                           getBlockOffset(offset), string.length());
+          block[blockOffset++] = (byte) string.charAt(copied);
         }
-        currentDatOffset += string.length();
       }
-      nextIndex++;
+      return length;
+    }
+
+    /**
+     * Copy encoded bytes to the byte arrays
+     *
+     * @return number of bytes copied
+     */
+    private int addBytes(byte[] source, int offset)
+    {
+      final int length = source.length;
+      int copied = 0;
+      while (copied < length)
+      {
+        final int copySize
+            = Math.min(length - copied, spaceLeftOnBlock(offset + copied));
+        System.arraycopy(source, copied,
+                         data.get(getBlock(offset + copied)),
+                         getBlockOffset(offset + copied),
+                         copySize);
+        copied += copySize;
+      }
+      return length;
     }
 
     @Override
@@ -456,11 +1081,11 @@ public class JsonResultChunk extends SnowflakeResultChunk
         final int offset = offsets.get(getMetaBlock(index))
             [getMetaBlockIndex(index)];
 
-        // Create string from the char arrays
+        // Decode the string from the byte arrays
         if (spaceLeftOnBlock(offset) < length)
         {
           int copied = 0;
-          char[] cell = new char[length];
+          byte[] cell = new byte[length];
           while (copied < length)
           {
             final int copySize
@@ -472,21 +1097,52 @@ public class JsonResultChunk extends SnowflakeResultChunk
 
             copied += copySize;
           }
-          return new String(cell);
+          return new String(cell, StandardCharsets.UTF_8);
         }
         else
         {
           return new String(data.get(getBlock(offset)),
                             getBlockOffset(offset),
-                            length);
+                            length, StandardCharsets.UTF_8);
         }
       }
     }
 
+    @Override
+    public int getOffset(int index)
+    {
+      return offsets.get(getMetaBlock(index))[getMetaBlockIndex(index)];
+    }
+
+    @Override
+    public int getLength(int index)
+    {
+      return lengths.get(getMetaBlock(index))[getMetaBlockIndex(index)];
+    }
+
+    @Override
+    public int charAt(int offset)
+    {
+      return data.get(getBlock(offset))[getBlockOffset(offset)] & 0xff;
+    }
+
     @Override
     public long computeNeededChunkMemory()
     {
-      long dataRequirement = blockCount * blockLength * 2L;
+      if (growing)
+      {
+        long memory = 0;
+        for (byte[] block : data)
+        {
+          memory += block.length;
+        }
+        for (int[] block : offsets)
+        {
+          memory += block.length * (4L + 4L);
+        }
+        return memory;
+      }
+      long dataRequirement = blockCount * blockLength * 1L;
       long metadataRequirement = metaBlockCount * metaBlockLength * (4L + 4L);
 
       return dataRequirement + metadataRequirement;
@@ -530,7 +1186,7 @@ public class JsonResultChunk extends SnowflakeResultChunk
       logger.debug("allocating {} B for ResultChunk", computeNeededChunkMemory());
       while (data.size() < blockCount)
       {
-        data.add(new char[1 << blockLengthBits]);
+        data.add(new byte[1 << blockLengthBits]);
       }
       while (offsets.size() < metaBlockCount)
       {
@@ -540,11 +1196,73 @@ public class JsonResultChunk extends SnowflakeResultChunk
       logger.debug("allocated {} B for ResultChunk", computeNeededChunkMemory());
     }
 
+    /**
+     * Grow the data blocks to hold the given number of bytes. The last block
+     * doubles until it is full, then the next block is started.
+     *
+     * @param end number of bytes to hold
+     */
+    private void growDataBlocks(int end)
+    {
+      while (dataCapacity < end)
+      {
+        final int last = data.size() - 1;
+        if (last < 0 || data.get(last).length == blockLength)
+        {
+          data.add(new byte[Math.min(blockLength,
+                                     Math.max(initialGrowingLength,
+                                              end - dataCapacity))]);
+        }
+        else
+        {
+          final byte[] block = data.get(last);
+          data.set(last, Arrays.copyOf(
+              block, Math.min(blockLength,
+                              Math.max(block.length * 2,
+                                       end - last * blockLength))));
+        }
+        dataCapacity = (data.size() - 1) * blockLength +
+                       data.get(data.size() - 1).length;
+      }
+      blockCount = data.size();
+    }
+
+    /**
+     * Grow the offset and length blocks to hold the next element, the same
+     * way as the data blocks
+     */
+    private void growMetaBlocks()
+    {
+      final int metaBlock = getMetaBlock(nextIndex);
+      if (metaBlock == offsets.size())
+      {
+        offsets.add(new int[initialGrowingLength]);
+        lengths.add(new int[initialGrowingLength]);
+      }
+      else if (getMetaBlockIndex(nextIndex) == offsets.get(metaBlock).length)
+      {
+        final int length = Math.min(metaBlockLength,
+                                    offsets.get(metaBlock).length * 2);
+        offsets.set(metaBlock, Arrays.copyOf(offsets.get(metaBlock), length));
+        lengths.set(metaBlock, Arrays.copyOf(lengths.get(metaBlock), length));
+      }
+      metaBlockCount = offsets.size();
+    }
+
+    // blocks sized to the strings added, not to be reused by other chunks
+    private final boolean growing;
+
+    // first length of the blocks of growing data
+    private static final int initialGrowingLength = 256;
+
+    // bytes the data blocks of growing data can hold
+    private int dataCapacity = 0;
+
     // blocks for storing the string data
     int blockCount;
     private static final int blockLengthBits = 24;
     private static int blockLength = 1 << blockLengthBits;
-    private final ArrayList<char[]> data = new ArrayList<>();
+    private final ArrayList<byte[]> data = new ArrayList<>();
     private int currentDatOffset = 0;
 
     // blocks for storing offsets and lengths
@@ -717,6 +1435,28 @@ public class JsonResultChunk extends SnowflakeResultChunk
       }
     }
 
+    @Override
+    public int getOffset(int index)
+    {
+      return offsets.get(getMetaBlock(index))[getMetaBlockIndex(index)];
+    }
+
+    @Override
+    public int getLength(int index)
+    {
+      if (isNulls.get(getMetaBlock(index)).get(getMetaBlockIndex(index)))
+      {
+        return NULL_VALUE;
+      }
+      return getLength(index, getOffset(index));
+    }
+
+    @Override
+    public int charAt(int offset)
+    {
+      return data.get(getBlock(offset))[getBlockOffset(offset)] & 0xff;
+    }
+
     @Override
     public long computeNeededChunkMemory()
     {
@@ -806,7 +1546,11 @@ public class JsonResultChunk extends SnowflakeResultChunk
      */
     void add(JsonResultChunk chunk)
     {
-      cache.add(new SoftReference<>(chunk.data));
+      if (!(chunk.data instanceof BlockResultChunkData &&
+            ((BlockResultChunkData) chunk.data).growing))
+      {
+        cache.add(new SoftReference<>(chunk.data));
+      }
       chunk.data = null;
     }
 
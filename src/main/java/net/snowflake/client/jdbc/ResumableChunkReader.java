@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads a result chunk payload, resuming from the last received byte when
+ * the connection drops in the middle of the transfer.
+ * <p>
+ * The payload is read as stored in the cloud storage, i.e. still
+ * compressed, so the parts received by several requests can be stitched
+ * together before decompression. A resumed request asks for the remaining
+ * bytes with an HTTP Range header; if the server ignores it and sends the
+ * whole payload again, the bytes received so far are dropped.
+ */
+class ResumableChunkReader
+{
+  private static final SFLogger logger =
+      SFLoggerFactory.getLogger(ResumableChunkReader.class);
+
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Source of the payload bytes starting at a given offset
+   */
+  interface RangeSource
+  {
+    /**
+     * Open the payload
+     *
+     * @param offset first byte wanted, 0 for the whole payload
+     * @return the part of the payload sent by the server
+     * @throws Exception if the request fails
+     */
+    ChunkPart open(long offset) throws Exception;
+  }
+
+  /**
+   * Part of the payload returned for a request
+   */
+  static class ChunkPart
+  {
+    final InputStream stream;
+
+    // offset of the first byte of the stream in the payload
+    final long startOffset;
+
+    // size of the whole payload, negative if unknown
+    final long totalLength;
+
+    // Content-Encoding of the payload, null if none
+    final String contentEncoding;
+
+    ChunkPart(InputStream stream, long startOffset, long totalLength)
+    {
+      this(stream, startOffset, totalLength, null);
+    }
+
+    ChunkPart(InputStream stream, long startOffset, long totalLength,
+              String contentEncoding)
+    {
+      this.stream = stream;
+      this.startOffset = startOffset;
+      this.totalLength = totalLength;
+      this.contentEncoding = contentEncoding;
+    }
+  }
+
+  // maximum number of times a download is resumed
+  private final int maxResumes;
+
+  private byte[] buffer = new byte[0];
+
+  // number of payload bytes received
+  private int received = 0;
+
+  // size of the whole payload, negative if unknown
+  private long totalLength = -1;
+
+  private int resumes = 0;
+
+  ResumableChunkReader(int maxResumes)
+  {
+    this.maxResumes = maxResumes;
+  }
+
+  /**
+   * Read the whole payload
+   *
+   * @param source source of the payload
+   * @return the payload
+   * @throws Exception if the request fails or the transfer breaks more than
+   *                   maxResumes times
+   */
+  byte[] read(RangeSource source) throws Exception
+  {
+    while (true)
+    {
+      ChunkPart part = source.open(received);
+
+      if (part.startOffset != received)
+      {
+        if (part.startOffset != 0)
+        {
+          part.stream.close();
+          throw new IOException("Unexpected chunk payload range starting at " +
+                                part.startOffset + ", expected " + received);
+        }
+
+        // range not honored, start over
+        logger.debug("server sent the whole payload instead of bytes from {}, " +
+                     "restart from the beginning", received);
+        received = 0;
+      }
+      if (part.totalLength >= 0)
+      {
+        totalLength = part.totalLength;
+        ensureCapacity(totalLength);
+      }
+
+      int receivedBefore = received;
+      try (InputStream is = part.stream)
+      {
+        readPart(is);
+        if (totalLength < 0 || received >= totalLength)
+        {
+          return received == buffer.length ?
+                 buffer : Arrays.copyOf(buffer, received);
+        }
+        throw new IOException("Premature end of chunk payload, expected " +
+                              totalLength + " bytes, got " + received);
+      }
+      catch (IOException ex)
+      {
+        if (resumes >= maxResumes || received == receivedBefore)
+        {
+          // no progress or too many attempts
+          throw ex;
+        }
+        resumes++;
+        logger.debug("chunk transfer broken after {} bytes, resume #{}: {}",
+                     received, resumes, ex.getLocalizedMessage());
+      }
+    }
+  }
+
+  /**
+   * @return number of times the download was resumed
+   */
+  int getResumes()
+  {
+    return resumes;
+  }
+
+  private void readPart(InputStream is) throws IOException
+  {
+    if (buffer.length == received)
+    {
+      ensureCapacity(Math.max(READ_BUFFER_SIZE, received * 2L));
+    }
+
+    int len;
+    while ((len = is.read(buffer, received, buffer.length - received)) != -1)
+    {
+      received += len;
+      if (received == buffer.length)
+      {
+        if (totalLength >= 0 && received >= totalLength)
+        {
+          // everything received, don't wait for the end of stream
+          break;
+        }
+        ensureCapacity(received * 2L);
+      }
+    }
+  }
+
+  private void ensureCapacity(long capacity)
+  {
+    if (capacity > Integer.MAX_VALUE - 8)
+    {
+      capacity = Integer.MAX_VALUE - 8;
+    }
+    if (capacity > buffer.length)
+    {
+      buffer = Arrays.copyOf(buffer, (int) capacity);
+    }
+  }
+
+  /**
+   * Parse the first byte offset and the total size from a Content-Range
+   * header value such as "bytes 100-199/200"
+   *
+   * @param contentRange header value
+   * @return offset and total size, total size is -1 if unknown
+   */
+  static long[] parseContentRange(String contentRange)
+  {
+    String value = contentRange.trim();
+    if (value.startsWith("bytes"))
+    {
+      value = value.substring("bytes".length()).trim();
+    }
+    int dash = value.indexOf('-');
+    int slash = value.indexOf('/');
+    long start = Long.parseLong(value.substring(0, dash).trim());
+    String total = value.substring(slash + 1).trim();
+    return new long[]{start, "*".equals(total) ? -1 : Long.parseLong(total)};
+  }
+}
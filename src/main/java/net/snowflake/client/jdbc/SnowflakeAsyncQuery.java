@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import net.snowflake.client.core.SFAsyncQuery;
+import net.snowflake.client.core.SFBaseResultSet;
+import net.snowflake.client.core.SFException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A query submitted with
+ * {@link SnowflakeStatement#executeAsyncQuery(String)} or
+ * {@link SnowflakePreparedStatement#executeAsyncQuery()}.
+ * <p>
+ * The query ID is known as soon as the query is submitted. The result set
+ * future is completed by the driver threads polling the pending queries,
+ * no application thread needs to wait for the query. It completes
+ * exceptionally with the SQLException raised by the query, and canceling
+ * it cancels the query.
+ */
+public class SnowflakeAsyncQuery
+{
+  private final String queryID;
+
+  private final SnowflakeStatementV1 statement;
+
+  private final CompletableFuture<ResultSet> resultSet =
+      new CompletableFuture<>();
+
+  SnowflakeAsyncQuery(SFAsyncQuery sfAsyncQuery,
+                      SnowflakeStatementV1 statement)
+  {
+    this.queryID = sfAsyncQuery.getQueryId();
+    this.statement = statement;
+
+    sfAsyncQuery.getResult().whenComplete(this::complete);
+    resultSet.whenComplete((rs, ex) ->
+                           {
+                             if (resultSet.isCancelled())
+                             {
+                               sfAsyncQuery.getResult().cancel(true);
+                             }
+                           });
+  }
+
+  private void complete(SFBaseResultSet sfResultSet, Throwable ex)
+  {
+    if (ex != null)
+    {
+      resultSet.completeExceptionally(toSQLException(ex));
+      return;
+    }
+    try
+    {
+      ResultSet rs = statement.createAsyncResultSet(sfResultSet);
+      if (!resultSet.complete(rs))
+      {
+        // canceled meanwhile
+        rs.close();
+      }
+    }
+    catch (SQLException sqlEx)
+    {
+      resultSet.completeExceptionally(sqlEx);
+    }
+  }
+
+  private static Throwable toSQLException(Throwable ex)
+  {
+    if (ex instanceof CompletionException && ex.getCause() != null)
+    {
+      ex = ex.getCause();
+    }
+    if (ex instanceof SFException)
+    {
+      SFException sfEx = (SFException) ex;
+      return new SnowflakeSQLException(sfEx.getCause(), sfEx.getSqlState(),
+                                       sfEx.getVendorCode(),
+                                       sfEx.getParams());
+    }
+    return ex;
+  }
+
+  /**
+   * @return the Snowflake query ID of the query
+   */
+  public String getQueryID()
+  {
+    return queryID;
+  }
+
+  /**
+   * @return future result set of the query
+   */
+  public CompletableFuture<ResultSet> getResultSet()
+  {
+    return resultSet;
+  }
+}
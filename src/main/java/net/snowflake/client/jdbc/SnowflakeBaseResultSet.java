@@ -4,6 +4,7 @@
 
 package net.snowflake.client.jdbc;
 
+import net.snowflake.client.core.arrow.ArrowResultUtil;
 import net.snowflake.client.log.SFLogger;
 import net.snowflake.client.log.SFLoggerFactory;
 
@@ -28,6 +29,10 @@ import java.sql.SQLXML;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
@@ -51,9 +56,19 @@ abstract class SnowflakeBaseResultSet implements ResultSet
   throws SQLException
   {
     this.statement = statement;
-    this.resultSetType = statement.getResultSetType();
-    this.resultSetConcurrency = statement.getResultSetConcurrency();
-    this.resultSetHoldability = statement.getResultSetHoldability();
+    if (statement == null)
+    {
+      // result of a partition, read without statement
+      this.resultSetType = ResultSet.TYPE_FORWARD_ONLY;
+      this.resultSetConcurrency = ResultSet.CONCUR_READ_ONLY;
+      this.resultSetHoldability = ResultSet.CLOSE_CURSORS_AT_COMMIT;
+    }
+    else
+    {
+      this.resultSetType = statement.getResultSetType();
+      this.resultSetConcurrency = statement.getResultSetConcurrency();
+      this.resultSetHoldability = statement.getResultSetHoldability();
+    }
   }
 
   @Override
@@ -1616,6 +1631,16 @@ abstract class SnowflakeBaseResultSet implements ResultSet
     throw new SQLFeatureNotSupportedException();
   }
 
+  /**
+   * Get the value of a column as one of the java.time types Instant,
+   * LocalDateTime, OffsetDateTime or LocalDate.
+   * <p>
+   * TIMESTAMP_LTZ values are in the session time zone, TIMESTAMP_TZ values
+   * at their own offset and TIMESTAMP_NTZ values in the client time zone,
+   * or UTC if the client time zone is not honored for them. Values of other
+   * types are in the client time zone. The instant of a value is always
+   * the instant of its Timestamp.
+   */
   //@Override
   public <T> T getObject(int columnIndex,
                          Class<T> type) throws SQLException
@@ -1623,6 +1648,23 @@ abstract class SnowflakeBaseResultSet implements ResultSet
     logger.debug(
         "public <T> T getObject(int columnIndex,Class<T> type)");
 
+    if (type == Instant.class)
+    {
+      return type.cast(getInstant(columnIndex));
+    }
+    else if (type == LocalDateTime.class)
+    {
+      return type.cast(getLocalDateTime(columnIndex));
+    }
+    else if (type == OffsetDateTime.class)
+    {
+      return type.cast(getOffsetDateTime(columnIndex));
+    }
+    else if (type == LocalDate.class)
+    {
+      return type.cast(getLocalDate(columnIndex));
+    }
+
     throw new SQLFeatureNotSupportedException();
   }
 
@@ -1633,7 +1675,45 @@ abstract class SnowflakeBaseResultSet implements ResultSet
     logger.debug(
         "public <T> T getObject(String columnLabel,Class<T> type)");
 
-    throw new SQLFeatureNotSupportedException();
+    return getObject(findColumn(columnLabel), type);
+  }
+
+  /**
+   * Result sets reading their values from the epoch override the java.time
+   * getters to skip the Timestamp conversion.
+   */
+  protected Instant getInstant(int columnIndex) throws SQLException
+  {
+    Timestamp ts = getTimestamp(columnIndex);
+    return ts == null ? null : ts.toInstant();
+  }
+
+  protected LocalDateTime getLocalDateTime(int columnIndex) throws SQLException
+  {
+    OffsetDateTime dateTime = getOffsetDateTime(columnIndex);
+    return dateTime == null ? null : dateTime.toLocalDateTime();
+  }
+
+  protected OffsetDateTime getOffsetDateTime(int columnIndex)
+  throws SQLException
+  {
+    Instant instant = getInstant(columnIndex);
+    if (instant == null)
+    {
+      return null;
+    }
+    // no session time zone here, the values are read as Timestamps
+    return ArrowResultUtil.toOffsetDateTime(
+        instant,
+        ArrowResultUtil.getZoneId(
+            resultSetMetaData.getInternalColumnType(columnIndex), null,
+            true));
+  }
+
+  protected LocalDate getLocalDate(int columnIndex) throws SQLException
+  {
+    Date date = getDate(columnIndex);
+    return date == null ? null : date.toLocalDate();
   }
 
   @SuppressWarnings("unchecked")
@@ -11,6 +11,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.MappingJsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import net.snowflake.client.core.ChunkDownloader;
+import net.snowflake.client.core.DataConversionContext;
 import net.snowflake.client.core.DownloaderMetrics;
 import net.snowflake.client.core.HttpUtil;
 import net.snowflake.client.core.ObjectMapperFactory;
@@ -46,12 +47,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -85,6 +85,13 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
       SFLoggerFactory.getLogger(SnowflakeChunkDownloader.class);
   private static final int STREAM_BUFFER_SIZE = 1 * 1024 * 1024;
 
+  // maximum number of times a broken chunk transfer is resumed
+  private static final int MAX_CHUNK_DOWNLOAD_RESUMES = 10;
+
+  // the memory limit admits Arrow chunks by their estimated size, the
+  // allocator of the result set is bounded by this multiple of it
+  private static final int ARROW_ALLOCATION_LIMIT_FACTOR = 2;
+
   private JsonResultChunk.ResultChunkDataCache chunkDataCache
       = new JsonResultChunk.ResultChunkDataCache();
   private List<SnowflakeResultChunk> chunks = null;
@@ -98,17 +105,44 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
   // number of prefetch slots
   private final int prefetchSlots;
 
+  // resizes the prefetch window from download and consumption rates
+  private final AdaptivePrefetchController prefetchController;
+
+  // time the last chunk was handed to the consumer, -1 if none yet
+  private long lastChunkReturnedTime = -1;
+
   // TRUE if JsonParserV2 should be used FALSE otherwise.
   private boolean useJsonParserV2;
 
-  // thread pool
-  private ThreadPoolExecutor executor;
+  // driver wide scheduler running the download tasks
+  private final ChunkDownloadScheduler scheduler;
+
+  // where the chunk payloads are fetched from
+  private final ChunkSource chunkSource;
+
+  // download tasks submitted to the scheduler, also added by download
+  // threads handing off spilled chunks
+  private final List<Future<Void>> downloadFutures =
+      Collections.synchronizedList(new ArrayList<>());
+
+  // how many prefetch windows the chunks spilled to disk may run ahead
+  private static final int SPILL_AHEAD_FACTOR = 4;
+
+  // local disk copies of the chunks downloaded beyond the memory limit,
+  // null if the spill tier is disabled
+  private ChunkSpillFile[] spillFiles;
+
+  // index of next chunk to be spilled to disk
+  private int nextChunkToSpill = 0;
+
+  // false once spill files fail to be created
+  private boolean spillEnabled = false;
 
   // number of millis main thread waiting for chunks from downloader
   private long numberMillisWaitingForChunks = 0;
 
   // is the downloader terminated
-  private boolean terminated = false;
+  private volatile boolean terminated = false;
 
   // number of millis spent on downloading result chunks
   private final AtomicLong totalMillisDownloadingChunks = new AtomicLong(0);
@@ -119,14 +153,46 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
   // The query result master key
   private final String qrmk;
 
+  // query ID of the result, the key of the chunks in the result cache
+  private final String queryId;
+
+  // local cache of the chunks, null if not enabled
+  private final ChunkResultCache resultCache;
+
   private Map<String, String> chunkHeadersMap = null;
 
   private final int networkTimeoutInMilli;
 
   private long memoryLimit;
 
-  // the current memory usage across JVM
-  private static Long currentMemoryUsage = 0L;
+  // arbiter of the memory usage across JVM
+  private final ChunkMemoryArbiter memoryArbiter;
+
+  // memory account of this downloader in the arbiter, registered on the
+  // first reservation so downloaders without chunks to prefetch are never
+  // counted in the fair share of the others
+  private ChunkMemoryArbiter.QueryAccount memoryAccount;
+
+  // set once the memory account is closed, no account is registered after
+  private boolean memoryAccountClosed = false;
+
+  private final Object memoryAccountLock = new Object();
+
+  // memory reserved for each chunk, zero once released
+  private AtomicLongArray reservedChunkMemory;
+
+  // off-heap memory of the Arrow chunks, null for JSON results
+  private final ArrowResultAllocator arrowAllocator;
+
+  // inflaters recycled between the Arrow chunks, null for JSON results
+  private final ChunkPayloadStream.InflaterPool inflaterPool;
+
+  // conversion context to sort the Arrow chunks once parsed, null if the
+  // result is not sorted on the client
+  private volatile DataConversionContext sortContext;
+
+  // true to keep the chunks handed out, so the sorted result can merge them
+  private boolean retainConsumedChunks = false;
 
   /**
    * query result format
@@ -135,63 +201,32 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
 
   static long getCurrentMemoryUsage()
   {
-    synchronized (currentMemoryUsage)
-    {
-      return currentMemoryUsage.longValue();
-    }
+    return ChunkMemoryArbiter.getInstance().getReservedBytes();
   }
 
-  // The parameters used to wait for available memory:
-  // starting waiting time will be BASE_WAITING_MS * WAITING_SECS_MULTIPLIER = 100 ms
-  private long BASE_WAITING_MS = 50;
-  private long WAITING_SECS_MULTIPLIER = 2;
-  // the maximum waiting time
-  private long MAX_WAITING_MS = 30 * 1000;
-  // the default jitter ratio 10%
-  private long WAITING_JITTER_RATIO = 10;
   /**
-   * Timeout that main thread wait for downloading
+   * Source of the chunk payloads
    */
-  private final long downloadedConditionTimeoutInSeconds = 3600;
+  interface ChunkSource
+  {
+    /**
+     * Open the payload of a chunk
+     *
+     * @param resultChunk the chunk
+     * @param offset      first byte wanted, 0 for the whole payload
+     * @return the part of the payload sent by the source
+     * @throws Exception if the request fails
+     */
+    ResumableChunkReader.ChunkPart open(SnowflakeResultChunk resultChunk,
+                                        long offset) throws Exception;
+  }
 
+  // the maximum time to wait for a memory release before checking again
+  private long MAX_WAITING_MS = 30 * 1000;
   /**
-   * Create a pool of downloader threads.
-   *
-   * @param threadNamePrefix name of threads in pool
-   * @param parallel         number of thread in pool
-   * @return new thread pool
+   * Timeout that main thread wait for downloading
    */
-  private static ThreadPoolExecutor createChunkDownloaderExecutorService(
-      final String threadNamePrefix, final int parallel)
-  {
-    ThreadFactory threadFactory = new ThreadFactory()
-    {
-      private int threadCount = 1;
-
-      public Thread newThread(final Runnable r)
-      {
-        final Thread thread = new Thread(r);
-        thread.setName(threadNamePrefix + threadCount++);
-
-        thread.setUncaughtExceptionHandler(
-            new Thread.UncaughtExceptionHandler()
-            {
-              public void uncaughtException(Thread t, Throwable e)
-              {
-                logger.error(
-                    "uncaughtException in thread: " + t + " {}",
-                    e);
-              }
-            });
-
-        thread.setDaemon(true);
-
-        return thread;
-      }
-    };
-    return (ThreadPoolExecutor) Executors.newFixedThreadPool(parallel,
-                                                             threadFactory);
-  }
+  private final long downloadedConditionTimeoutInSeconds = 3600;
 
   /**
    * Constructor to initialize downloader
@@ -204,6 +239,8 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
    * @param networkTimeoutInMilli network timeout
    * @param useJsonParserV2       should JsonParserV2 be used instead of object
    * @param memoryLimit           memory limit for chunk buffer
+   * @param queryResultFormat     format of the result chunks
+   * @param queryId               query ID of the result
    */
   public SnowflakeChunkDownloader(int colCount,
                                   JsonNode chunksData,
@@ -213,15 +250,76 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
                                   int networkTimeoutInMilli,
                                   boolean useJsonParserV2,
                                   long memoryLimit,
-                                  QueryResultFormat queryResultFormat)
+                                  QueryResultFormat queryResultFormat,
+                                  String queryId)
+  throws SnowflakeSQLException
+  {
+    this(colCount, chunksData, prefetchThreads, qrmk, chunkHeaders,
+         networkTimeoutInMilli, useJsonParserV2, memoryLimit,
+         queryResultFormat, queryId, null,
+         ChunkDownloadScheduler.getInstance(),
+         ChunkMemoryArbiter.getInstance(),
+         queryId == null || queryId.isEmpty() ? null :
+         ChunkResultCache.getInstance());
+  }
+
+  /**
+   * Constructor to initialize downloader with its collaborators
+   *
+   * @param colCount              number of columns to expect
+   * @param chunksData            JSON object contains all the chunk information
+   * @param prefetchThreads       number of prefetch threads
+   * @param qrmk                  Query Result Master Key
+   * @param chunkHeaders          JSON object contains information about chunk headers
+   * @param networkTimeoutInMilli network timeout
+   * @param useJsonParserV2       should JsonParserV2 be used instead of object
+   * @param memoryLimit           memory limit for chunk buffer
+   * @param queryResultFormat     format of the result chunks
+   * @param queryId               query ID of the result
+   * @param chunkSource           source of the chunk payloads, null for the
+   *                              cloud storage
+   * @param scheduler             scheduler running the download and parse tasks
+   * @param memoryArbiter         arbiter of the chunk memory
+   * @param resultCache           local cache of the chunks, null if disabled
+   */
+  SnowflakeChunkDownloader(int colCount,
+                           JsonNode chunksData,
+                           int prefetchThreads,
+                           String qrmk,
+                           JsonNode chunkHeaders,
+                           int networkTimeoutInMilli,
+                           boolean useJsonParserV2,
+                           long memoryLimit,
+                           QueryResultFormat queryResultFormat,
+                           String queryId,
+                           ChunkSource chunkSource,
+                           ChunkDownloadScheduler scheduler,
+                           ChunkMemoryArbiter memoryArbiter,
+                           ChunkResultCache resultCache)
   throws SnowflakeSQLException
   {
     this.qrmk = qrmk;
+    this.queryId = queryId;
+    this.resultCache = resultCache;
+    this.chunkSource =
+        chunkSource != null ? chunkSource : this::openCloudStorageChunk;
+    this.scheduler = scheduler;
+    this.memoryArbiter = memoryArbiter;
     this.networkTimeoutInMilli = networkTimeoutInMilli;
     this.prefetchSlots = prefetchThreads * 2;
+    this.prefetchController =
+        new AdaptivePrefetchController(prefetchSlots, prefetchSlots * 2);
     this.useJsonParserV2 = useJsonParserV2;
     this.memoryLimit = memoryLimit;
     this.queryResultFormat = queryResultFormat;
+    this.arrowAllocator =
+        queryResultFormat == QueryResultFormat.ARROW ?
+        ArrowResultChunk.createResultAllocator(
+            queryId, memoryLimit * ARROW_ALLOCATION_LIMIT_FACTOR) :
+        null;
+    this.inflaterPool =
+        queryResultFormat == QueryResultFormat.ARROW ?
+        new ChunkPayloadStream.InflaterPool() : null;
     logger.debug("qrmk = {}", qrmk);
 
     if (chunkHeaders != null && !chunkHeaders.isMissingNode())
@@ -254,6 +352,12 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
     int numChunks = chunksData.size();
     // create the chunks array
     chunks = new ArrayList<>(numChunks);
+    reservedChunkMemory = new AtomicLongArray(numChunks);
+    if (ChunkSpillFile.isEnabled())
+    {
+      spillFiles = new ChunkSpillFile[numChunks];
+      spillEnabled = true;
+    }
 
     // initialize chunks with url and row count
     for (int idx = 0; idx < numChunks; idx++)
@@ -267,7 +371,8 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
       switch (this.queryResultFormat)
       {
         case ARROW:
-          chunk = new ArrowResultChunk(url, rowCount, colCount, uncompressedSize);
+          chunk = new ArrowResultChunk(url, rowCount, colCount,
+                                       uncompressedSize, arrowAllocator);
           break;
 
         case JSON:
@@ -289,17 +394,10 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
 
       chunks.add(chunk);
     }
-    // prefetch threads and slots from parameter settings
-    int effectiveThreads = Math.min(prefetchThreads, numChunks);
-
     logger.debug(
-        "#chunks: {} #threads:{} #slots:{} -> pool:{}",
-        numChunks, prefetchThreads, prefetchSlots, effectiveThreads);
-
-    // create thread pool
-    executor =
-        createChunkDownloaderExecutorService("result-chunk-downloader-",
-                                             effectiveThreads);
+        "#chunks: {} #threads:{} #slots:{} -> shared pool:{} parsers:{}",
+        numChunks, prefetchThreads, prefetchSlots,
+        scheduler.getMaximumPoolSize(), scheduler.getMaximumParsePoolSize());
 
     try
     {
@@ -322,123 +420,302 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
    */
   private void startNextDownloaders() throws SnowflakeSQLException
   {
-    long waitingTime = BASE_WAITING_MS;
-
-    // submit the chunks to be downloaded up to the prefetch slot capacity
+    // submit the chunks to be downloaded up to the adaptive prefetch window
     // and limited by memory
-    while (nextChunkToDownload - nextChunkToConsume < prefetchSlots &&
+    final int prefetchWindow = prefetchController.getWindow();
+    boolean memoryExhausted = false;
+    while (nextChunkToDownload - nextChunkToConsume < prefetchWindow &&
            nextChunkToDownload < chunks.size())
     {
       // check if memory limit allows more prefetching
       final SnowflakeResultChunk nextChunk = chunks.get(nextChunkToDownload);
       final long neededChunkMemory = nextChunk.computeNeededChunkMemory();
 
-      // each time only one thread can enter this block
-      synchronized (currentMemoryUsage)
+      // make sure memoryLimit > neededChunkMemory; otherwise, the thread hangs
+      if (neededChunkMemory > memoryLimit)
       {
-        // make sure memoryLimit > neededChunkMemory; otherwise, the thread hangs
-        if (neededChunkMemory > memoryLimit)
-        {
-          logger.debug("{}: reset memoryLimit from {} MB to current chunk size {} MB",
-                       (ArgSupplier) () -> Thread.currentThread().getName(),
-                       (ArgSupplier) () -> memoryLimit / 1024 / 1024,
-                       (ArgSupplier) () -> neededChunkMemory / 1024 / 1024);
+        logger.debug("{}: reset memoryLimit from {} MB to current chunk size {} MB",
+                     (ArgSupplier) () -> Thread.currentThread().getName(),
+                     (ArgSupplier) () -> memoryLimit / 1024 / 1024,
+                     (ArgSupplier) () -> neededChunkMemory / 1024 / 1024);
 
-          memoryLimit = neededChunkMemory;
+        memoryLimit = neededChunkMemory;
+        if (arrowAllocator != null)
+        {
+          arrowAllocator.setLimit(memoryLimit * ARROW_ALLOCATION_LIMIT_FACTOR);
         }
+      }
 
+      if (!getMemoryAccount().tryReserve(neededChunkMemory, memoryLimit))
+      {
         // no memory allocate when memory is not enough for prefetch
-        if (currentMemoryUsage + neededChunkMemory > memoryLimit &&
-            nextChunkToDownload - nextChunkToConsume > 0)
+        if (nextChunkToDownload - nextChunkToConsume > 0)
         {
+          memoryExhausted = true;
           break;
         }
 
-        // only allocate memory when the future usage is less than the limit
-        if (currentMemoryUsage + neededChunkMemory <= memoryLimit)
+        // the retained chunks are only released at the end of the result
+        if (retainConsumedChunks &&
+            getMemoryAccount().getReserved() + neededChunkMemory > memoryLimit)
         {
-          if (queryResultFormat == QueryResultFormat.JSON)
-          {
-            ((JsonResultChunk) nextChunk).tryReuse(chunkDataCache);
-          }
+          throw new SnowflakeSQLException(
+              ErrorCode.CLIENT_SIDE_SORTING_MEMORY_LIMIT.getSqlState(),
+              ErrorCode.CLIENT_SIDE_SORTING_MEMORY_LIMIT.getMessageCode(),
+              memoryLimit / 1024 / 1024);
+        }
 
-          currentMemoryUsage += neededChunkMemory;
+        // nothing in flight for this query, wait for others to release memory
+        waitForChunkMemory(neededChunkMemory);
+      }
 
-          logger.debug("{}: currentMemoryUsage in MB: {}, nextChunkToDownload: {}, " +
-                       "nextChunkToConsume: {}, newReservedMemory in B: {} ",
-                       (ArgSupplier) () -> Thread.currentThread().getName(),
-                       (ArgSupplier) () -> currentMemoryUsage / 1024 / 1024,
-                       nextChunkToDownload,
-                       nextChunkToConsume,
-                       neededChunkMemory);
-
-          logger.debug("submit chunk #{} for downloading, url={}",
-                       this.nextChunkToDownload, nextChunk.getScrubbedUrl());
-
-          executor.submit(getDownloadChunkCallable(this,
-                                                   nextChunk,
-                                                   qrmk, nextChunkToDownload,
-                                                   chunkHeadersMap,
-                                                   networkTimeoutInMilli));
-
-          // increment next chunk to download
-          nextChunkToDownload++;
-          // make sure reset waiting time
-          waitingTime = BASE_WAITING_MS;
-          // go to next chunk
-          continue;
-        }
+      if (queryResultFormat == QueryResultFormat.JSON)
+      {
+        ((JsonResultChunk) nextChunk).tryReuse(chunkDataCache);
+      }
+
+      reservedChunkMemory.set(nextChunkToDownload, neededChunkMemory);
+
+      logger.debug("{}: currentMemoryUsage in MB: {}, nextChunkToDownload: {}, " +
+                   "nextChunkToConsume: {}, newReservedMemory in B: {} ",
+                   (ArgSupplier) () -> Thread.currentThread().getName(),
+                   (ArgSupplier) () -> memoryArbiter.getReservedBytes() / 1024 / 1024,
+                   nextChunkToDownload,
+                   nextChunkToConsume,
+                   neededChunkMemory);
+
+      final ChunkSpillFile spillFile =
+          spillFiles == null ? null : spillFiles[nextChunkToDownload];
+      if (spillFile == null)
+      {
+        logger.debug("submit chunk #{} for downloading, url={}",
+                     this.nextChunkToDownload, nextChunk.getScrubbedUrl());
+
+        submitDownload(nextChunkToDownload, null);
+      }
+      else if (spillFile.requestLoad())
+      {
+        logger.debug("submit chunk #{} for loading from {}",
+                     this.nextChunkToDownload, spillFile.getPath());
+
+        submitDownload(nextChunkToDownload, spillFile);
       }
+      // otherwise the spilling thread loads the chunk once the file is written
+
+      // increment next chunk to download
+      nextChunkToDownload++;
+    }
+
+    // keep the network busy while the consumer frees memory
+    if (memoryExhausted && spillEnabled)
+    {
+      startNextSpills(prefetchWindow * SPILL_AHEAD_FACTOR);
+    }
+
+    // clear the cache, we can't download more at the moment
+    // so we won't need them in the near future
+    chunkDataCache.clear();
+  }
+
+  /**
+   * Submit a task to download and parse a chunk, either from the cloud
+   * storage or from its spill file. Memory for the chunk must be reserved.
+   *
+   * @param chunkIndex index of the chunk
+   * @param spillFile  local copy of the chunk, null to download it
+   */
+  private void submitDownload(int chunkIndex, ChunkSpillFile spillFile)
+  {
+    if (spillFile != null)
+    {
+      // the bytes are already local, go straight to the parse stage
+      submitParse(chunkIndex, null, spillFile, spillFile.getContentEncoding(),
+                  false);
+      return;
+    }
+
+    synchronized (downloadFutures)
+    {
+      if (terminated)
+      {
+        return;
+      }
+
+      // the closer to the consumer, the sooner the chunk is downloaded
+      downloadFutures.add(
+          scheduler.submit(getDownloadChunkCallable(this,
+                                                    chunks.get(chunkIndex),
+                                                    chunkIndex),
+                           chunkIndex - nextChunkToConsume));
+    }
+  }
+
+  /**
+   * Download the chunks after the memory limited prefetch window to local
+   * disk without parsing them
+   *
+   * @param spillWindow number of chunks that may be downloaded ahead of the
+   *                    consumer, in memory or on disk
+   */
+  private void startNextSpills(int spillWindow)
+  {
+    nextChunkToSpill = Math.max(nextChunkToSpill, nextChunkToDownload);
 
-      // waiting when nextChunkToDownload is equal to nextChunkToConsume but reach memory limit
+    while (nextChunkToSpill - nextChunkToConsume < spillWindow &&
+           nextChunkToSpill < chunks.size())
+    {
+      final ChunkSpillFile spillFile;
       try
       {
-        waitingTime *= WAITING_SECS_MULTIPLIER;
-        waitingTime = waitingTime > MAX_WAITING_MS ? MAX_WAITING_MS : waitingTime;
-        long jitter = ThreadLocalRandom.current().nextLong(0, waitingTime / WAITING_JITTER_RATIO);
-        waitingTime += jitter;
+        spillFile = ChunkSpillFile.create(nextChunkToSpill);
+      }
+      catch (IOException ex)
+      {
+        logger.debug("disable spilling result chunks to disk: {}",
+                     ex.getLocalizedMessage());
+        spillEnabled = false;
+        return;
+      }
+
+      logger.debug("submit chunk #{} for spilling to {}, url={}",
+                   nextChunkToSpill, spillFile.getPath(),
+                   chunks.get(nextChunkToSpill).getScrubbedUrl());
+
+      spillFiles[nextChunkToSpill] = spillFile;
+      downloadFutures.add(
+          scheduler.submit(getSpillChunkCallable(this,
+                                                 chunks.get(nextChunkToSpill),
+                                                 nextChunkToSpill,
+                                                 spillFile),
+                           nextChunkToSpill - nextChunkToConsume));
+      nextChunkToSpill++;
+    }
+  }
+
+  /**
+   * Delete the spill files left over
+   */
+  private void deleteSpillFiles()
+  {
+    ChunkSpillFile[] files = spillFiles;
+    if (files != null)
+    {
+      for (ChunkSpillFile spillFile : files)
+      {
+        if (spillFile != null)
+        {
+          spillFile.delete();
+        }
+      }
+    }
+  }
+
+  /**
+   * Block until the memory arbiter grants the memory for the next chunk.
+   * The waiting thread is woken up whenever any downloader releases memory.
+   *
+   * @param neededChunkMemory memory needed by the next chunk
+   * @throws SnowflakeSQLException if the waiting thread is interrupted or
+   *                               the downloader is terminated
+   */
+  private void waitForChunkMemory(long neededChunkMemory)
+  throws SnowflakeSQLException
+  {
+    try
+    {
+      while (!getMemoryAccount().awaitReservation(neededChunkMemory,
+                                                 memoryLimit,
+                                                 MAX_WAITING_MS))
+      {
+        if (getMemoryAccount().isClosed())
+        {
+          throw new SnowflakeSQLException(
+              SqlState.INTERNAL_ERROR,
+              ErrorCode.INTERNAL_ERROR.getMessageCode(),
+              "SnowflakeChunkDownloader has been terminated.");
+        }
         if (logger.isDebugEnabled())
         {
-          logger.debug("{} waiting for {}s: currentMemoryUsage in MB: {}, neededChunkMemory in MB: {}, " +
+          logger.debug("{} still waiting: currentMemoryUsage in MB: {}, " +
+                       "neededChunkMemory in MB: {}, waiting downloaders: {}, " +
                        "nextChunkToDownload: {}, nextChunkToConsume: {} ",
                        Thread.currentThread().getName(),
-                       waitingTime / 1000.0,
-                       currentMemoryUsage / 1024 / 1024,
+                       memoryArbiter.getReservedBytes() / 1024 / 1024,
                        neededChunkMemory / 1024 / 1024,
+                       memoryArbiter.getWaitingCount(),
                        nextChunkToDownload,
                        nextChunkToConsume);
         }
-        Thread.sleep(waitingTime);
-      }
-      catch (InterruptedException ie)
-      {
-        throw new SnowflakeSQLException(
-            SqlState.INTERNAL_ERROR,
-            ErrorCode.INTERNAL_ERROR.getMessageCode(),
-            "Waiting SnowflakeChunkDownloader has been interrupted.");
       }
     }
-
-    // clear the cache, we can't download more at the moment
-    // so we won't need them in the near future
-    chunkDataCache.clear();
+    catch (InterruptedException ie)
+    {
+      throw new SnowflakeSQLException(
+          SqlState.INTERNAL_ERROR,
+          ErrorCode.INTERNAL_ERROR.getMessageCode(),
+          "Waiting SnowflakeChunkDownloader has been interrupted.");
+    }
   }
 
-  private void releaseCurrentMemoryUsage(int chunkId, long releaseSize)
+  private void releaseCurrentMemoryUsage(int chunkId)
   {
+    long releaseSize = reservedChunkMemory.getAndSet(chunkId, 0);
     if (releaseSize > 0)
     {
-      synchronized (currentMemoryUsage)
+      // has to be before reusing the memory
+      getMemoryAccount().release(releaseSize);
+      logger.debug("{}: currentMemoryUsage in MB: {}, released in MB: {}, chunk: {}",
+                   (ArgSupplier) () -> Thread.currentThread().getName(),
+                   (ArgSupplier) () -> memoryArbiter.getReservedBytes() / 1024 / 1024,
+                   releaseSize,
+                   chunkId);
+    }
+  }
+
+  /**
+   * Replace the estimated memory reserved for a chunk by the memory its
+   * parsed data actually holds, so the prefetching that follows is limited
+   * by the real usage. The account is adjusted under the same lock as it is
+   * closed, so the new size is never published after the downloader
+   * released all its memory.
+   *
+   * @param chunkId    index of the chunk
+   * @param actualSize bytes held by the chunk
+   */
+  void updateChunkMemoryUsage(int chunkId, long actualSize)
+  {
+    long reservedSize;
+    synchronized (memoryAccountLock)
+    {
+      if (memoryAccountClosed)
       {
-        // has to be before reusing the memory
-        currentMemoryUsage -= releaseSize;
-        logger.debug("{}: currentMemoryUsage in MB: {}, released in MB: {}, chunk: {}",
-                     (ArgSupplier) () -> Thread.currentThread().getName(),
-                     (ArgSupplier) () -> currentMemoryUsage / 1024 / 1024,
-                     releaseSize,
-                     chunkId);
+        // terminated, all the memory is already released
+        return;
+      }
+
+      do
+      {
+        reservedSize = reservedChunkMemory.get(chunkId);
+        if (reservedSize == 0)
+        {
+          // already released by the consumer
+          return;
+        }
+      }
+      while (!reservedChunkMemory.compareAndSet(chunkId, reservedSize,
+                                                actualSize));
+
+      if (actualSize > reservedSize)
+      {
+        getMemoryAccount().forceReserve(actualSize - reservedSize);
+      }
+      else
+      {
+        getMemoryAccount().release(reservedSize - actualSize);
       }
     }
+    logger.debug("chunk #{}: estimated memory {} B, actual memory {} B",
+                 chunkId, reservedSize, actualSize);
   }
 
   /**
@@ -446,17 +723,60 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
    */
   private void releaseAllChunkMemoryUsage()
   {
-    if (chunks == null || chunks.size() == 0)
+    if (chunks != null)
     {
-      return;
+      for (int i = 0; i < chunks.size(); i++)
+      {
+        releaseCurrentMemoryUsage(i);
+      }
     }
 
-    for (int i = 0; i < chunks.size(); i++)
+    synchronized (memoryAccountLock)
     {
-      releaseCurrentMemoryUsage(i, chunks.get(i).computeNeededChunkMemory());
+      if (memoryAccount != null)
+      {
+        memoryAccount.close();
+      }
+      memoryAccountClosed = true;
     }
   }
 
+  /**
+   * Get the memory account of this downloader, registering it with the
+   * arbiter on the first reservation. Once the downloader released its
+   * memory on close, the shared closed account is returned so late
+   * reservations neither register the downloader nor hold memory.
+   *
+   * @return memory account of this downloader
+   */
+  private ChunkMemoryArbiter.QueryAccount getMemoryAccount()
+  {
+    synchronized (memoryAccountLock)
+    {
+      if (memoryAccount == null)
+      {
+        memoryAccount = memoryAccountClosed ?
+                        memoryArbiter.getClosedAccount() :
+                        memoryArbiter.register();
+      }
+      return memoryAccount;
+    }
+  }
+
+  /**
+   * Keep the chunks handed out to the consumer instead of freeing each one
+   * when the next is requested, and sort the rows of the Arrow chunks as soon
+   * as they are parsed. The whole result must then fit in the memory limit.
+   *
+   * @param context conversion context of the result set
+   */
+  @Override
+  public void enableSorting(DataConversionContext context)
+  {
+    this.retainConsumedChunks = true;
+    this.sortContext = context;
+  }
+
   /**
    * The method does the following:
    * <p>
@@ -472,8 +792,13 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
   public SnowflakeResultChunk getNextChunkToConsume() throws InterruptedException,
                                                              SnowflakeSQLException
   {
+    // time the consumer spent on the previous chunk, -1 for the first one
+    final long dwellTime = lastChunkReturnedTime < 0 ?
+                           -1 : System.currentTimeMillis() - lastChunkReturnedTime;
+    final long millisWaitedBefore = numberMillisWaitingForChunks;
+
     // free previous chunk data and submit a new chunk for downloading
-    if (this.nextChunkToConsume > 0)
+    if (this.nextChunkToConsume > 0 && !retainConsumedChunks)
     {
       int prevChunk = this.nextChunkToConsume - 1;
 
@@ -481,8 +806,6 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
       logger.debug("free chunk data for chunk #{}",
                    prevChunk);
 
-      long chunkMemUsage = chunks.get(prevChunk).computeNeededChunkMemory();
-
       // reuse chunkcache if json result
       if (this.queryResultFormat == QueryResultFormat.JSON)
       {
@@ -502,7 +825,7 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
       // Free any memory the previous chunk might hang on
       this.chunks.get(prevChunk).freeData();
 
-      releaseCurrentMemoryUsage(prevChunk, chunkMemUsage);
+      releaseCurrentMemoryUsage(prevChunk);
 
     }
 
@@ -537,9 +860,9 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
       if (nextChunkToConsume == this.chunks.size())
       {
         // make sure to release the last chunk
-        releaseCurrentMemoryUsage(
-            nextChunkToConsume - 1, chunks.get(nextChunkToConsume - 1).computeNeededChunkMemory());
+        releaseCurrentMemoryUsage(nextChunkToConsume - 1);
       }
+      chunkReturned(dwellTime, 0);
       return currentChunk;
     }
     else
@@ -597,6 +920,9 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
 
         nextChunkToConsume++;
 
+        chunkReturned(dwellTime,
+                      numberMillisWaitingForChunks - millisWaitedBefore);
+
         // next chunk to consume is ready for consumption
         return currentChunk;
       }
@@ -610,8 +936,7 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
         if (nextChunkToConsume == this.chunks.size())
         {
           // make sure to release the last chunk
-          releaseCurrentMemoryUsage(
-              nextChunkToConsume - 1, chunks.get(nextChunkToConsume - 1).computeNeededChunkMemory());
+          releaseCurrentMemoryUsage(nextChunkToConsume - 1);
         }
         if (terminateDownloader)
         {
@@ -622,6 +947,24 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
     }
   }
 
+  /**
+   * Feed the consumer timings to the prefetch controller
+   *
+   * @param dwellTime  millis the consumer spent on the previous chunk
+   * @param waitedTime millis the consumer waited for the returned chunk
+   */
+  private void chunkReturned(long dwellTime, long waitedTime)
+  {
+    lastChunkReturnedTime = System.currentTimeMillis();
+    prefetchController.recordConsume(dwellTime, waitedTime);
+
+    logger.debug("prefetch window: {}, avg fetch time: {} ms, " +
+                 "avg consume time: {} ms",
+                 prefetchController.getWindow(),
+                 prefetchController.getAverageFetchMillis(),
+                 prefetchController.getAverageDwellMillis());
+  }
+
   /**
    * log out of memory error and provide the suggestion to avoid this error
    */
@@ -642,7 +985,7 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
                  numberMillisWaitingForChunks,
                  Runtime.getRuntime().totalMemory(), Runtime.getRuntime().maxMemory(),
                  totalMillisDownloadingChunks.get(),
-                 totalMillisParsingChunks.get(), chunks.size(), currentMemoryUsage, memoryLimit,
+                 totalMillisParsingChunks.get(), chunks.size(), memoryArbiter.getReservedBytes(), memoryLimit,
                  nextChunkToDownload, nextChunkToConsume);
   }
 
@@ -665,15 +1008,29 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
                    Runtime.getRuntime().totalMemory(), totalMillisDownloadingChunks.get(),
                    totalMillisParsingChunks.get(), chunks.size());
 
-      if (executor != null)
+      // cancel the downloads of this result set still queued or running
+      synchronized (downloadFutures)
       {
-        executor.shutdownNow();
-        executor = null;
+        terminated = true;
+        for (Future<Void> future : downloadFutures)
+        {
+          if (!future.isDone())
+          {
+            scheduler.cancel(future);
+          }
+        }
+        downloadFutures.clear();
+      }
+      deleteSpillFiles();
+      if (arrowAllocator != null)
+      {
+        freeUnconsumedChunks();
+        arrowAllocator.release();
+        inflaterPool.close();
       }
       chunks = null;
       chunkDataCache.clear();
 
-      terminated = true;
       return new DownloaderMetrics(numberMillisWaitingForChunks,
                                    totalMillisDownloadingChunks.get(),
                                    totalMillisParsingChunks.get());
@@ -681,6 +1038,31 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
     return null;
   }
 
+  /**
+   * Free the data of the chunks parsed but not handed out to the consumer.
+   * The chunks still being parsed are freed by their parser, which sees the
+   * downloader terminated.
+   */
+  private void freeUnconsumedChunks()
+  {
+    for (int i = nextChunkToConsume; i < chunks.size(); i++)
+    {
+      SnowflakeResultChunk chunk = chunks.get(i);
+      try
+      {
+        chunk.getLock().lock();
+        if (chunk.getDownloadState() == DownloadState.SUCCESS)
+        {
+          chunk.freeData();
+        }
+      }
+      finally
+      {
+        chunk.getLock().unlock();
+      }
+    }
+  }
+
   /**
    * add download time
    *
@@ -702,24 +1084,326 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
   }
 
   /**
-   * Create a download callable that will be run in download thread
+   * Download a result chunk from the cloud storage
    *
-   * @param downloader            object to download the chunk
-   * @param resultChunk           object contains information about the chunk will
-   *                              be downloaded
+   * @param resultChunk           the chunk to download
    * @param qrmk                  Query Result Master Key
-   * @param chunkIndex            the index of the chunk which will be downloaded in array
-   *                              chunks. This is mainly for logging purpose
    * @param chunkHeadersMap       contains headers needed to be added when downloading from s3
    * @param networkTimeoutInMilli network timeout
+   * @param rangeStart            first byte to fetch, 0 for the whole chunk
+   * @return successful http response
+   * @throws SnowflakeSQLException if no response or the response code means failure
+   */
+  private static HttpResponse getResultChunk(
+      final SnowflakeResultChunk resultChunk,
+      final String qrmk,
+      final Map<String, String> chunkHeadersMap,
+      final int networkTimeoutInMilli,
+      final long rangeStart)
+  throws URISyntaxException, IOException, SnowflakeSQLException
+  {
+    final String chunkUrl = resultChunk.getUrl();
+    URIBuilder uriBuilder = new URIBuilder(chunkUrl);
+
+    HttpGet httpRequest = new HttpGet(uriBuilder.build());
+
+    if (chunkHeadersMap != null && chunkHeadersMap.size() != 0)
+    {
+      for (Map.Entry<String, String> entry : chunkHeadersMap.entrySet())
+      {
+        logger.debug("Adding header key={}, value={}",
+                     entry.getKey(), entry.getValue());
+        httpRequest.addHeader(entry.getKey(), entry.getValue());
+      }
+    }
+    // Add SSE-C headers
+    else if (qrmk != null)
+    {
+      httpRequest.addHeader(SSE_C_ALGORITHM, SSE_C_AES);
+      httpRequest.addHeader(SSE_C_KEY, qrmk);
+      logger.debug("Adding SSE-C headers");
+    }
+
+    // resume a broken transfer from the last received byte
+    if (rangeStart > 0)
+    {
+      httpRequest.addHeader("Range", "bytes=" + rangeStart + "-");
+      logger.debug("Resuming from byte {}", rangeStart);
+    }
+
+    logger.debug("Fetching result: {}", resultChunk.getScrubbedUrl());
+
+    //TODO move this s3 request to HttpUtil class. In theory, upper layer
+    //TODO does not need to know about http client
+    CloseableHttpClient httpClient = HttpUtil.getHttpClient();
+
+    // fetch the result chunk
+    HttpResponse response =
+        RestRequest.execute(httpClient,
+                            httpRequest,
+                            networkTimeoutInMilli / 1000, // retry timeout
+                            0, // no socketime injection
+                            null, // no canceling
+                            false, // no cookie
+                            false, // no retry
+                            false // no request_guid
+        );
+
+    logger.debug("Call returned for URL: {}",
+                 (ArgSupplier) () -> SecretDetector.maskSASToken(chunkUrl));
+
+    // trace the response if requested
+    logger.debug("Response: {}", response);
+
+    /*
+     * return error if we don't get a response or the response code
+     * means failure.
+     */
+    if (response == null
+        || (response.getStatusLine().getStatusCode() != 200 &&
+            !(rangeStart > 0 &&
+              response.getStatusLine().getStatusCode() == 206)))
+    {
+      logger.error("Error fetching chunk from: {}",
+                   resultChunk.getScrubbedUrl());
+
+      SnowflakeUtil.logResponseDetails(response, logger);
+
+      throw new SnowflakeSQLException(SqlState.IO_ERROR,
+                                      ErrorCode.NETWORK_ERROR
+                                          .getMessageCode(),
+                                      "Error encountered when downloading a result chunk: HTTP "
+                                      + "status="
+                                      + ((response != null)
+                                         ? response.getStatusLine().getStatusCode()
+                                         : "null response"));
+    }
+    return response;
+  }
+
+  /**
+   * Open the payload of a chunk in the cloud storage
+   *
+   * @param resultChunk the chunk
+   * @param offset      first byte wanted, 0 for the whole payload
+   * @return the part of the payload sent by the cloud storage
+   * @throws Exception if the request fails
+   */
+  private ResumableChunkReader.ChunkPart openCloudStorageChunk(
+      SnowflakeResultChunk resultChunk, long offset) throws Exception
+  {
+    return getChunkPart(getResultChunk(resultChunk, qrmk, chunkHeadersMap,
+                                       networkTimeoutInMilli, offset));
+  }
+
+  /**
+   * Describe the part of the chunk payload carried by a response
+   *
+   * @param response successful http response of a chunk download
+   * @return the part of the payload
+   * @throws IOException if failed to get the response content
+   */
+  private static ResumableChunkReader.ChunkPart getChunkPart(
+      HttpResponse response) throws IOException
+  {
+    final HttpEntity entity = response.getEntity();
+    InputStream is = new HttpUtil.HttpInputStream(entity.getContent());
+
+    String contentEncoding = getContentEncoding(response);
+
+    Header contentRange = response.getFirstHeader("Content-Range");
+    if (response.getStatusLine().getStatusCode() == 206 &&
+        contentRange != null)
+    {
+      long[] range =
+          ResumableChunkReader.parseContentRange(contentRange.getValue());
+      return new ResumableChunkReader.ChunkPart(is, range[0], range[1],
+                                                contentEncoding);
+    }
+    return new ResumableChunkReader.ChunkPart(is, 0, entity.getContentLength(),
+                                              contentEncoding);
+  }
+
+  /**
+   * @param response http response of a chunk download
+   * @return the Content-Encoding of the response, null if none
+   */
+  private static String getContentEncoding(HttpResponse response)
+  {
+    Header encoding = response.getFirstHeader("Content-Encoding");
+    return encoding == null ? null : encoding.getValue();
+  }
+
+  /**
+   * Mark the chunk failed and wake up the consumer
+   *
+   * @param resultChunk the chunk
+   * @param chunkIndex  index of the chunk, for logging
+   * @param ex          the failure
+   */
+  private static void setChunkDownloadError(SnowflakeResultChunk resultChunk,
+                                            int chunkIndex,
+                                            Throwable ex)
+  {
+    try
+    {
+      logger.debug("get lock to set chunk download error");
+      resultChunk.getLock().lock();
+
+      resultChunk.setDownloadState(DownloadState.FAILURE);
+      StringWriter errors = new StringWriter();
+      ex.printStackTrace(new PrintWriter(errors));
+      resultChunk.setDownloadError(errors.toString());
+
+      logger.debug(
+          "wake up consumer if it is waiting for a chunk to be ready");
+
+      resultChunk.getDownloadCondition().signal();
+    }
+    finally
+    {
+      logger.debug("Failed to download chunk {}, free lock",
+                   chunkIndex);
+      resultChunk.getLock().unlock();
+    }
+
+    logger.error(
+        "Exception encountered ({}:{}) fetching chunk from: {}",
+        ex.getClass().getName(),
+        ex.getLocalizedMessage(),
+        resultChunk.getScrubbedUrl());
+
+    logger.error("Exception: ", ex);
+  }
+
+  /**
+   * Create a callable that downloads a chunk to a spill file without parsing
+   * it. Once the file is written, the chunk is loaded if memory has been
+   * reserved for it in the meantime.
+   *
+   * @param downloader  object to download the chunk
+   * @param resultChunk the chunk to be spilled
+   * @param chunkIndex  the index of the chunk in array chunks
+   * @param spillFile   the file to write the chunk to
+   * @return A callable responsible for spilling the chunk
+   */
+  private static Callable<Void> getSpillChunkCallable(
+      final SnowflakeChunkDownloader downloader,
+      final SnowflakeResultChunk resultChunk,
+      final int chunkIndex,
+      final ChunkSpillFile spillFile)
+  {
+    return new Callable<Void>()
+    {
+      public Void call() throws Exception
+      {
+        try
+        {
+          try
+          {
+            resultChunk.getLock().lock();
+            resultChunk.setDownloadState(DownloadState.IN_PROGRESS);
+          }
+          finally
+          {
+            resultChunk.getLock().unlock();
+          }
+
+          logger.debug("Spilling chunk {}, url={}",
+                       chunkIndex, resultChunk.getScrubbedUrl());
+
+          long startTime = System.currentTimeMillis();
+
+          ResumableChunkReader.ChunkPart part =
+              downloader.chunkSource.open(resultChunk, 0);
+
+          long spilledBytes;
+          try (InputStream is = part.stream)
+          {
+            spilledBytes = spillFile.write(is, part.contentEncoding);
+          }
+
+          resultChunk.setDownloadTime(System.currentTimeMillis() - startTime);
+          downloader.addDownloadTime(resultChunk.getDownloadTime());
+
+          logger.debug("Spilled chunk {}, {} bytes to {}, download time={}ms",
+                       chunkIndex, spilledBytes, spillFile.getPath(),
+                       resultChunk.getDownloadTime());
+
+          if (spillFile.markWritten())
+          {
+            downloader.submitDownload(chunkIndex, spillFile);
+          }
+          else if (downloader.terminated)
+          {
+            // written again after terminate() deleted the spill files
+            spillFile.delete();
+          }
+        }
+        catch (Throwable ex)
+        {
+          spillFile.delete();
+          setChunkDownloadError(resultChunk, chunkIndex, ex);
+        }
+
+        return null;
+      }
+    };
+  }
+
+  /**
+   * Hand a fetched chunk over to the parse stage
+   *
+   * @param chunkIndex      index of the chunk
+   * @param chunkBytes      the chunk payload, null if read from spillFile
+   * @param spillFile       local copy of the chunk, null if chunkBytes is given
+   * @param contentEncoding Content-Encoding of the payload, null if none
+   * @param cached          true if chunkBytes is read from the result cache
+   */
+  private void submitParse(int chunkIndex,
+                           byte[] chunkBytes,
+                           ChunkSpillFile spillFile,
+                           String contentEncoding,
+                           boolean cached)
+  {
+    synchronized (downloadFutures)
+    {
+      if (terminated)
+      {
+        if (spillFile != null)
+        {
+          spillFile.delete();
+        }
+        return;
+      }
+
+      downloadFutures.add(
+          scheduler.submitParse(getParseChunkCallable(this,
+                                                      chunks.get(chunkIndex),
+                                                      chunkIndex,
+                                                      chunkBytes,
+                                                      spillFile,
+                                                      contentEncoding,
+                                                      cached),
+                                chunkIndex - nextChunkToConsume));
+    }
+  }
+
+  /**
+   * Create a download callable that will be run in download thread. It only
+   * pulls the chunk bytes and hands them over to the parse stage.
+   *
+   * @param downloader  object to download the chunk
+   * @param resultChunk object contains information about the chunk will
+   *                    be downloaded
+   * @param chunkIndex  the index of the chunk which will be downloaded in array
+   *                    chunks. This is mainly for logging purpose
    * @return A callable responsible for downloading chunk
    */
   private static Callable<Void> getDownloadChunkCallable(
       final SnowflakeChunkDownloader downloader,
       final SnowflakeResultChunk resultChunk,
-      final String qrmk, final int chunkIndex,
-      final Map<String, String> chunkHeadersMap,
-      final int networkTimeoutInMilli)
+      final int chunkIndex)
   {
     return new Callable<Void>()
     {
@@ -738,49 +1422,124 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
             resultChunk.getLock().unlock();
           }
 
+          // serve a result read before from the local cache
+          if (downloader.resultCache != null)
+          {
+            ChunkResultCache.CachedChunk cached =
+                downloader.resultCache.get(downloader.queryId, chunkIndex);
+            if (cached != null)
+            {
+              logger.debug("Chunk {} of query {} found in the result cache",
+                           chunkIndex, downloader.queryId);
+
+              downloader.submitParse(chunkIndex, cached.bytes, null,
+                                     cached.contentEncoding, true);
+              return null;
+            }
+          }
+
           logger.debug("Downloading chunk {}, url={}",
                        chunkIndex, resultChunk.getScrubbedUrl());
 
           long startTime = System.currentTimeMillis();
 
-          HttpResponse response = getResultChunk(resultChunk.getUrl());
+          // read the chunk data, resuming with range requests if the
+          // connection drops
+          final AtomicReference<ResumableChunkReader.ChunkPart> lastPart =
+              new AtomicReference<>();
+          ResumableChunkReader reader =
+              new ResumableChunkReader(MAX_CHUNK_DOWNLOAD_RESUMES);
+          byte[] chunkBytes = reader.read(
+              offset ->
+              {
+                lastPart.set(downloader.chunkSource.open(resultChunk, offset));
+                return lastPart.get();
+              });
 
-          /*
-           * return error if we don't get a response or the response code
-           * means failure.
-           */
-          if (response == null
-              || response.getStatusLine().getStatusCode() != 200)
-          {
-            logger.error("Error fetching chunk from: {}",
-                         resultChunk.getScrubbedUrl());
+          // remember the download time
+          resultChunk.setDownloadTime(System.currentTimeMillis() - startTime);
+          downloader.addDownloadTime(resultChunk.getDownloadTime());
 
-            SnowflakeUtil.logResponseDetails(response, logger);
+          logger.debug("Downloaded chunk {}, {} bytes, download time={}ms, " +
+                       "resumed {} times",
+                       chunkIndex, chunkBytes.length,
+                       resultChunk.getDownloadTime(), reader.getResumes());
 
-            throw new SnowflakeSQLException(SqlState.IO_ERROR,
-                                            ErrorCode.NETWORK_ERROR
-                                                .getMessageCode(),
-                                            "Error encountered when downloading a result chunk: HTTP "
-                                            + "status="
-                                            + ((response != null)
-                                               ? response.getStatusLine().getStatusCode()
-                                               : "null response"));
+          downloader.submitParse(chunkIndex, chunkBytes, null,
+                                 lastPart.get().contentEncoding, false);
+        }
+        catch (Throwable ex)
+        {
+          setChunkDownloadError(resultChunk, chunkIndex, ex);
+        }
+
+        return null;
+      }
+    };
+  }
+
+  /**
+   * Create a parse callable that will be run in parser thread. It
+   * decompresses and parses the chunk payload into the chunk.
+   *
+   * @param downloader      object to download the chunk
+   * @param resultChunk     the chunk to be filled
+   * @param chunkIndex      the index of the chunk in array chunks
+   * @param chunkBytes      the chunk payload, null if read from spillFile
+   * @param spillFile       local copy of the chunk, null if chunkBytes is given
+   * @param contentEncoding Content-Encoding of the payload, null if none
+   * @param cached          true if chunkBytes is read from the result cache,
+   *                        false if it is downloaded and can be cached once
+   *                        parsed
+   * @return A callable responsible for parsing chunk
+   */
+  private static Callable<Void> getParseChunkCallable(
+      final SnowflakeChunkDownloader downloader,
+      final SnowflakeResultChunk resultChunk,
+      final int chunkIndex,
+      final byte[] chunkBytes,
+      final ChunkSpillFile spillFile,
+      final String contentEncoding,
+      final boolean cached)
+  {
+    return new Callable<Void>()
+    {
+      public Void call() throws Exception
+      {
+        try
+        {
+          long startTime = System.currentTimeMillis();
+
+          InputStream is;
+          if (spillFile == null && downloader.inflaterPool != null &&
+              (contentEncoding == null ||
+               contentEncoding.equalsIgnoreCase("gzip")))
+          {
+            // Arrow reads the vectors straight from the payload
+            is = new ChunkPayloadStream(chunkBytes, contentEncoding != null,
+                                        downloader.inflaterPool);
+          }
+          else if (spillFile == null)
+          {
+            is = new ByteArrayInputStream(chunkBytes);
+          }
+          else
+          {
+            logger.debug("Loading chunk {} from {}",
+                         chunkIndex, spillFile.getPath());
+
+            is = spillFile.openInputStream();
           }
 
           InputStream inputStream;
-          final HttpEntity entity = response.getEntity();
           try
           {
-            // read the chunk data
-            InputStream is =
-                new HttpUtil.HttpInputStream(entity.getContent());
-
             // Determine the format of the response, if it is not
             // either plain text or gzip, raise an error.
-            Header encoding = response.getFirstHeader("Content-Encoding");
-            if (encoding != null)
+            if (contentEncoding != null &&
+                !(is instanceof ChunkPayloadStream))
             {
-              if (encoding.getValue().equalsIgnoreCase("gzip"))
+              if (contentEncoding.equalsIgnoreCase("gzip"))
               {
                 /* specify buffer size for GZIPInputStream */
                 is = new GZIPInputStream(is, STREAM_BUFFER_SIZE);
@@ -792,7 +1551,7 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
                         SqlState.INTERNAL_ERROR,
                         ErrorCode.INTERNAL_ERROR.getMessageCode(),
                         "Exception: unexpected compression got " +
-                        encoding.getValue());
+                        contentEncoding);
               }
             }
 
@@ -821,24 +1580,12 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
           catch (Exception ex)
           {
             logger.error(
-                "Failed to uncompress data: {}",
-                response);
+                "Failed to uncompress data of chunk: {}",
+                resultChunk.getScrubbedUrl());
 
             throw ex;
           }
 
-          // remember the download time
-          resultChunk.setDownloadTime(System.currentTimeMillis() - startTime);
-          downloader.addDownloadTime(resultChunk.getDownloadTime());
-
-          startTime = System.currentTimeMillis();
-
-          // trace the response if requested
-          if (downloader.queryResultFormat == QueryResultFormat.JSON)
-          {
-            logger.debug("Json response: {}", response);
-          }
-
           // parse the result json
           try
           {
@@ -846,6 +1593,9 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
             {
               ArrowResultChunk.readArrowStream(inputStream,
                                                (ArrowResultChunk) resultChunk);
+              downloader.updateChunkMemoryUsage(
+                  chunkIndex,
+                  ((ArrowResultChunk) resultChunk).getAllocatedMemory());
             }
             else
             {
@@ -868,7 +1618,8 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
                                                 .getMessageCode(),
                                             "Exception: " +
                                             ex.getLocalizedMessage() +
-                                            "\nBad result json: " + response.toString());
+                                            "\nBad result json of chunk: " +
+                                            resultChunk.getScrubbedUrl());
           }
           finally
           {
@@ -876,9 +1627,19 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
             inputStream.close();
           }
 
+          DataConversionContext sortContext = downloader.sortContext;
+          if (sortContext != null)
+          {
+            // sort while the consumer is busy with the previous chunks
+            ((ArrowResultChunk) resultChunk)
+                .sortRecordBatchesConcurrently(sortContext);
+          }
+
           // add parsing time
           resultChunk.setParseTime(System.currentTimeMillis() - startTime);
           downloader.addParsingTime(resultChunk.getParseTime());
+          downloader.prefetchController.recordFetch(
+              resultChunk.getDownloadTime(), resultChunk.getParseTime());
 
           logger.debug(
               "Finished preparing chunk data for {}, " +
@@ -897,6 +1658,11 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
                 "wake up consumer if it is waiting for a chunk to be "
                 + "ready");
 
+            if (downloader.terminated)
+            {
+              // nobody will consume the chunk
+              resultChunk.freeData();
+            }
             resultChunk.setDownloadState(DownloadState.SUCCESS);
             resultChunk.getDownloadCondition().signal();
           }
@@ -907,38 +1673,40 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
 
             resultChunk.getLock().unlock();
           }
+
+          // only cache a payload known to parse
+          if (downloader.resultCache != null && chunkBytes != null && !cached)
+          {
+            downloader.resultCache.put(downloader.queryId, chunkIndex,
+                                       chunkBytes, contentEncoding);
+          }
         }
         catch (Throwable ex)
         {
-          try
+          if (cached)
           {
-            logger.debug("get lock to set chunk download error");
-            resultChunk.getLock().lock();
-
-            resultChunk.setDownloadState(DownloadState.FAILURE);
-            StringWriter errors = new StringWriter();
-            ex.printStackTrace(new PrintWriter(errors));
-            resultChunk.setDownloadError(errors.toString());
-
-            logger.debug(
-                "wake up consumer if it is waiting for a chunk to be ready");
-
-            resultChunk.getDownloadCondition().signal();
+            // the cached copy is bad, drop it and download the chunk again
+            logger.debug("Failed to parse chunk {} of query {} from the " +
+                         "result cache: {}", chunkIndex, downloader.queryId,
+                         ex.getLocalizedMessage());
+            downloader.resultCache.invalidate(downloader.queryId, chunkIndex);
+            resultChunk.resetData();
+            downloader.submitDownload(chunkIndex, null);
+            return null;
           }
-          finally
+          if (resultChunk instanceof ArrowResultChunk)
           {
-            logger.debug("Failed to download chunk {}, free lock",
-                         chunkIndex);
-            resultChunk.getLock().unlock();
+            // release the vectors loaded before the failure
+            resultChunk.freeData();
+          }
+          setChunkDownloadError(resultChunk, chunkIndex, ex);
+        }
+        finally
+        {
+          if (spillFile != null)
+          {
+            spillFile.delete();
           }
-
-          logger.error(
-              "Exception encountered ({}:{}) fetching chunk from: {}",
-              ex.getClass().getName(),
-              ex.getLocalizedMessage(),
-              resultChunk.getScrubbedUrl());
-
-          logger.error("Exception: ", ex);
         }
 
         return null;
@@ -1015,52 +1783,6 @@ public class SnowflakeChunkDownloader implements ChunkDownloader
           ((JsonResultChunk) resultChunk).ensureRowsComplete();
         }
       }
-
-      private HttpResponse getResultChunk(String chunkUrl) throws URISyntaxException, IOException, SnowflakeSQLException
-      {
-        URIBuilder uriBuilder = new URIBuilder(chunkUrl);
-
-        HttpGet httpRequest = new HttpGet(uriBuilder.build());
-
-        if (chunkHeadersMap != null && chunkHeadersMap.size() != 0)
-        {
-          for (Map.Entry<String, String> entry : chunkHeadersMap.entrySet())
-          {
-            logger.debug("Adding header key={}, value={}",
-                         entry.getKey(), entry.getValue());
-            httpRequest.addHeader(entry.getKey(), entry.getValue());
-          }
-        }
-        // Add SSE-C headers
-        else if (qrmk != null)
-        {
-          httpRequest.addHeader(SSE_C_ALGORITHM, SSE_C_AES);
-          httpRequest.addHeader(SSE_C_KEY, qrmk);
-          logger.debug("Adding SSE-C headers");
-        }
-
-        logger.debug("Fetching result: {}", resultChunk.getScrubbedUrl());
-
-        //TODO move this s3 request to HttpUtil class. In theory, upper layer
-        //TODO does not need to know about http client
-        CloseableHttpClient httpClient = HttpUtil.getHttpClient();
-
-        // fetch the result chunk
-        HttpResponse response =
-            RestRequest.execute(httpClient,
-                                httpRequest,
-                                networkTimeoutInMilli / 1000, // retry timeout
-                                0, // no socketime injection
-                                null, // no canceling
-                                false, // no cookie
-                                false, // no retry
-                                false // no request_guid
-            );
-
-        logger.debug("Call returned for URL: {}",
-                     (ArgSupplier) () -> SecretDetector.maskSASToken(chunkUrl));
-        return response;
-      }
     };
   }
 }
@@ -4,11 +4,15 @@
 
 package net.snowflake.client.jdbc;
 
+import java.io.Serializable;
+
 /**
  * @author jhuang
  */
-public class SnowflakeColumnMetadata
+public class SnowflakeColumnMetadata implements Serializable
 {
+  private static final long serialVersionUID = 1L;
+
   private String name;
   private String typeName;
   private int type;
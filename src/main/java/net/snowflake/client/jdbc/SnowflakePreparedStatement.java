@@ -8,4 +8,14 @@ public interface SnowflakePreparedStatement
    * @return the Snowflake query ID of the latest executed query
    */
   String getQueryID() throws SQLException;
+
+  /**
+   * Submit the prepared query with its bindings and return without waiting
+   * for it to complete. The result set is delivered through the future of
+   * the returned query.
+   *
+   * @return the submitted query
+   * @throws SQLException if the query can't be submitted
+   */
+  SnowflakeAsyncQuery executeAsyncQuery() throws SQLException;
 }
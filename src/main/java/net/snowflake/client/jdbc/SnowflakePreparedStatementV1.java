@@ -165,6 +165,15 @@ class SnowflakePreparedStatementV1 extends SnowflakeStatementV1
     return executeQueryInternal(sql, parameterBindings);
   }
 
+  @Override
+  public SnowflakeAsyncQuery executeAsyncQuery() throws SQLException
+  {
+    logger.debug("executeAsyncQuery()");
+
+    raiseSQLExceptionIfStatementIsClosed();
+    return executeAsyncQueryInternal(sql, parameterBindings);
+  }
+
   @Override
   public int executeUpdate() throws SQLException
   {
@@ -894,6 +903,15 @@ class SnowflakePreparedStatementV1 extends SnowflakeStatementV1
         ErrorCode.UNSUPPORTED_STATEMENT_TYPE_IN_EXECUTION_API, StmtUtil.truncateSQL(sql));
   }
 
+  @Override
+  public SnowflakeAsyncQuery executeAsyncQuery(String sql) throws SQLException
+  {
+    logger.debug("executeAsyncQuery(String sql)");
+
+    throw new SnowflakeSQLException(
+        ErrorCode.UNSUPPORTED_STATEMENT_TYPE_IN_EXECUTION_API, StmtUtil.truncateSQL(sql));
+  }
+
   @Override
   public int executeUpdate(String sql) throws SQLException
   {
@@ -37,8 +37,8 @@ public abstract class SnowflakeResultChunk
   // uncompressed size in bytes of this chunk
   int uncompressedSize;
 
-  // row count
-  final int rowCount;
+  // row count, grows with the rows of a chunk parsed from the query response
+  int rowCount;
 
   // download time for the chunk
   private long downloadTime;
@@ -69,6 +69,12 @@ public abstract class SnowflakeResultChunk
    */
   abstract void freeData();
 
+  /**
+   * Drop the data parsed so far, so the chunk can be parsed again from
+   * another copy
+   */
+  abstract void resetData();
+
   public SnowflakeResultChunk(String url, int rowCount, int colCount,
                               int uncompressedSize)
   {
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import net.snowflake.client.core.QueryResultFormat;
+import net.snowflake.client.core.SFResultSetFactory;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One independently readable part of a query result: either the rows
+ * returned with the query response or one of the result chunks stored in
+ * the cloud.
+ * <p>
+ * Partitions are serializable, so the chunks of a large result can be read
+ * in parallel by several threads or sent to other processes. Each partition
+ * carries what is needed to download and convert its rows, without any
+ * connection: the presigned chunk URL, the result master key, the headers to
+ * send, the column metadata and the session parameters driving the
+ * conversions. The presigned URLs expire, so partitions should be read soon
+ * after the query.
+ */
+public class SnowflakeResultPartition implements Serializable
+{
+  private static final long serialVersionUID = 1L;
+
+  private final String queryId;
+
+  private final QueryResultFormat queryResultFormat;
+
+  // 0 for the rows of the query response, then one per chunk
+  private final int index;
+
+  private final int rowCount;
+
+  // chunk location, null for the rows of the query response
+  private final String url;
+
+  private final int uncompressedSize;
+
+  private final String qrmk;
+
+  private final Map<String, String> chunkHeaders;
+
+  private final int networkTimeoutInMilli;
+
+  // rows of the query response: base64 Arrow stream or JSON array
+  private String rowset;
+
+  // JSON rows of the query response, until the partition is serialized
+  private transient JsonNode jsonRowset;
+
+  // shared by the partitions of a result, see ResultUtil
+  private final List<SnowflakeColumnMetadata> columnMetadata;
+
+  private final Map<String, Object> parameters;
+
+  private final long resultVersion;
+
+  /**
+   * Describe a partition of a result. Used by the driver, applications get
+   * the partitions from {@link SnowflakeResultSet#getResultPartitions()}.
+   * The headers, metadata and parameters are not copied, they must be
+   * serializable and are not modified afterwards.
+   *
+   * @param queryId               query ID of the result
+   * @param queryResultFormat     format of the result
+   * @param index                 0 for the rows of the query response, then
+   *                              the index of the chunk plus one
+   * @param rowCount              number of rows of the partition
+   * @param url                   chunk URL, null for the rows of the response
+   * @param uncompressedSize      uncompressed size of the chunk
+   * @param qrmk                  query result master key of the chunks
+   * @param chunkHeaders          headers to send when downloading the chunks
+   * @param networkTimeoutInMilli network timeout of the chunk download
+   * @param rowset                base64 encoded Arrow rows of the response
+   * @param jsonRowset            JSON rows of the response
+   * @param columnMetadata        metadata of the columns
+   * @param parameters            session parameters returned with the result
+   * @param resultVersion         version of the result
+   */
+  public SnowflakeResultPartition(String queryId,
+                                  QueryResultFormat queryResultFormat,
+                                  int index,
+                                  int rowCount,
+                                  String url,
+                                  int uncompressedSize,
+                                  String qrmk,
+                                  Map<String, String> chunkHeaders,
+                                  int networkTimeoutInMilli,
+                                  String rowset,
+                                  JsonNode jsonRowset,
+                                  List<SnowflakeColumnMetadata> columnMetadata,
+                                  Map<String, Object> parameters,
+                                  long resultVersion)
+  {
+    this.queryId = queryId;
+    this.queryResultFormat = queryResultFormat;
+    this.index = index;
+    this.rowCount = rowCount;
+    this.url = url;
+    this.uncompressedSize = uncompressedSize;
+    this.qrmk = qrmk;
+    this.chunkHeaders = chunkHeaders;
+    this.networkTimeoutInMilli = networkTimeoutInMilli;
+    this.rowset = rowset;
+    this.jsonRowset = jsonRowset;
+    this.columnMetadata = columnMetadata;
+    this.parameters = parameters;
+    this.resultVersion = resultVersion;
+  }
+
+  /**
+   * Open a result set over the rows of this partition. The chunk is
+   * downloaded when the result set is opened; rows are read as from the
+   * result set of the query.
+   *
+   * @return a new forward only result set, not attached to any statement
+   * @throws SQLException if the partition can't be downloaded
+   */
+  public ResultSet open() throws SQLException
+  {
+    return new SnowflakeResultSetV1(SFResultSetFactory.getResultSet(this),
+                                    null);
+  }
+
+  public String getQueryId()
+  {
+    return queryId;
+  }
+
+  public QueryResultFormat getQueryResultFormat()
+  {
+    return queryResultFormat;
+  }
+
+  public int getIndex()
+  {
+    return index;
+  }
+
+  public int getRowCount()
+  {
+    return rowCount;
+  }
+
+  /**
+   * @return true if the rows are downloaded from a chunk URL, false if they
+   * came with the query response
+   */
+  public boolean isRemote()
+  {
+    return url != null;
+  }
+
+  public String getUrl()
+  {
+    return url;
+  }
+
+  public int getUncompressedSize()
+  {
+    return uncompressedSize;
+  }
+
+  public String getQrmk()
+  {
+    return qrmk;
+  }
+
+  public Map<String, String> getChunkHeaders()
+  {
+    return chunkHeaders == null ?
+           Collections.emptyMap() : Collections.unmodifiableMap(chunkHeaders);
+  }
+
+  public int getNetworkTimeoutInMilli()
+  {
+    return networkTimeoutInMilli;
+  }
+
+  /**
+   * @return base64 encoded Arrow rows or JSON array of the rows that came
+   * with the query response, null for a remote partition
+   */
+  public String getRowset()
+  {
+    if (rowset == null && jsonRowset != null)
+    {
+      Object pojo = jsonRowset.isPojo() ?
+                    ((POJONode) jsonRowset).getPojo() : null;
+      if (pojo instanceof JsonResultChunk)
+      {
+        // rows parsed into a chunk while the response was read
+        rowset = ((JsonResultChunk) pojo).toJsonRowset();
+      }
+      else if (jsonRowset.isBinary())
+      {
+        // Arrow rows decoded while the response was read
+        rowset = jsonRowset.asText();
+      }
+      else
+      {
+        rowset = jsonRowset.toString();
+      }
+    }
+    return rowset;
+  }
+
+  /**
+   * @return JSON rows of the response if not serialized yet, null otherwise
+   */
+  public JsonNode getJsonRowset()
+  {
+    return jsonRowset;
+  }
+
+  public List<SnowflakeColumnMetadata> getColumnMetadata()
+  {
+    return Collections.unmodifiableList(columnMetadata);
+  }
+
+  public Map<String, Object> getParameters()
+  {
+    return Collections.unmodifiableMap(parameters);
+  }
+
+  public long getResultVersion()
+  {
+    return resultVersion;
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException
+  {
+    // the JSON rows are only converted to text when the partition is sent
+    getRowset();
+    out.defaultWriteObject();
+  }
+}
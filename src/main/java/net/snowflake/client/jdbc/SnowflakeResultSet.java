@@ -6,6 +6,8 @@ package net.snowflake.client.jdbc;
 
 import java.sql.SQLException;
 import java.sql.ResultSet;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * This interface defines Snowflake specific APIs for ResultSet
@@ -16,4 +18,65 @@ public interface SnowflakeResultSet
    * @return the Snowflake query ID of the query which generated this result set
    */
   String getQueryID() throws SQLException;
+
+  /**
+   * Get the next Arrow record batch of the result, to read it by columns
+   * instead of rows. Only available for results in Arrow format and before
+   * the first call to next().
+   *
+   * @return the record batch, null after the last one
+   * @throws SQLException if the result is not in Arrow format, rows were
+   *                      already read or the result set is closed
+   */
+  ArrowBatch nextArrowBatch() throws SQLException;
+
+  /**
+   * Get the value of a NUMBER column as its unscaled value, to be read with
+   * the scale of the column, getMetaData().getScale(columnIndex), without
+   * the cost of a BigDecimal. wasNull() tells whether the value was NULL.
+   *
+   * @param columnIndex column index, starting from 1
+   * @return the unscaled value, 0 for NULL
+   * @throws SQLException if the column is not a NUMBER or the unscaled value
+   *                      doesn't fit in a long
+   */
+  long getUnscaledLong(int columnIndex) throws SQLException;
+
+  /**
+   * Split the result into partitions that can be read independently, in
+   * other threads or processes: the rows returned with the query response,
+   * then one partition per result chunk. Reading all the partitions gives
+   * the rows of the result, in the order of the partitions.
+   * <p>
+   * This result set keeps prefetching its own chunks, so close it if it is
+   * not read.
+   *
+   * @return the serializable partitions, empty if the result has none
+   * @throws SQLException if the result set is closed or sorted on the client,
+   *                      as its partitions would return the rows unsorted
+   */
+  List<SnowflakeResultPartition> getResultPartitions() throws SQLException;
+
+  /**
+   * Stream the rows of the result, read from its partitions independently
+   * of the cursor of this result set. A parallel stream splits at partition
+   * boundaries, so each chunk is downloaded and mapped by the thread
+   * processing it.
+   * <p>
+   * This result set is closed, releasing the chunks it prefetched, and the
+   * rows are only read by the stream.
+   * <p>
+   * SQLExceptions raised while reading are thrown as
+   * {@link SnowflakeResultStreamException}. Close the stream if it is not
+   * consumed to the end.
+   *
+   * @param mapper  maps the current row to an object
+   * @param ordered true for the rows in the order of the result, false to
+   *                let parallel streams process them in any order
+   * @param <T>     type the rows are mapped to
+   * @return stream of the mapped rows
+   * @throws SQLException if the result set is closed or sorted on the client
+   */
+  <T> Stream<T> stream(SnowflakeRowMapper<T> mapper, boolean ordered)
+  throws SQLException;
 }
@@ -4,6 +4,7 @@
 
 package net.snowflake.client.jdbc;
 
+import net.snowflake.client.core.SFArrowResultSet;
 import net.snowflake.client.core.SFBaseResultSet;
 import net.snowflake.client.core.SFException;
 
@@ -26,9 +27,17 @@ import java.sql.SQLXML;
 import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Snowflake ResultSet implementation
@@ -99,7 +108,8 @@ class SnowflakeResultSetV1 extends SnowflakeBaseResultSet implements SnowflakeRe
   {
     // no SQLException is raised.
     sfBaseResultSet.close();
-    if (removeClosedResultSetFromStatement && statement.isWrapperFor(SnowflakeStatementV1.class))
+    if (removeClosedResultSetFromStatement && statement != null &&
+        statement.isWrapperFor(SnowflakeStatementV1.class))
     {
       statement.unwrap(SnowflakeStatementV1.class).removeClosedResultSet(this);
     }
@@ -110,6 +120,42 @@ class SnowflakeResultSetV1 extends SnowflakeBaseResultSet implements SnowflakeRe
     return sfBaseResultSet.getQueryId();
   }
 
+  public List<SnowflakeResultPartition> getResultPartitions()
+  throws SQLException
+  {
+    raiseSQLExceptionIfResultSetIsClosed();
+    return Collections.unmodifiableList(
+        sfBaseResultSet.getResultPartitions());
+  }
+
+  public <T> Stream<T> stream(SnowflakeRowMapper<T> mapper, boolean ordered)
+  throws SQLException
+  {
+    List<SnowflakeResultPartition> partitions = getResultPartitions();
+
+    // the partitions download the chunks again, stop prefetching them here
+    // so they are neither downloaded nor accounted twice
+    close();
+
+    SnowflakeResultSpliterator<T> spliterator =
+        new SnowflakeResultSpliterator<>(partitions, mapper, ordered);
+    return StreamSupport.stream(spliterator, false)
+        .onClose(spliterator::close);
+  }
+
+  public ArrowBatch nextArrowBatch() throws SQLException
+  {
+    raiseSQLExceptionIfResultSetIsClosed();
+    if (sfBaseResultSet instanceof SFArrowResultSet)
+    {
+      return ((SFArrowResultSet) sfBaseResultSet).nextArrowBatch();
+    }
+    throw new SnowflakeSQLException(
+        ErrorCode.FEATURE_UNSUPPORTED.getSqlState(),
+        ErrorCode.FEATURE_UNSUPPORTED.getMessageCode(),
+        "record batches of a result not in Arrow format");
+  }
+
 
   public boolean wasNull() throws SQLException
   {
@@ -276,6 +322,81 @@ class SnowflakeResultSetV1 extends SnowflakeBaseResultSet implements SnowflakeRe
     }
   }
 
+  public long getUnscaledLong(int columnIndex) throws SQLException
+  {
+    raiseSQLExceptionIfResultSetIsClosed();
+    try
+    {
+      return sfBaseResultSet.getUnscaledLong(columnIndex);
+    }
+    catch (SFException ex)
+    {
+      throw new SnowflakeSQLException(ex.getCause(),
+                                      ex.getSqlState(), ex.getVendorCode(), ex.getParams());
+    }
+  }
+
+  @Override
+  protected Instant getInstant(int columnIndex) throws SQLException
+  {
+    raiseSQLExceptionIfResultSetIsClosed();
+    try
+    {
+      return sfBaseResultSet.getInstant(columnIndex);
+    }
+    catch (SFException ex)
+    {
+      throw new SnowflakeSQLException(ex.getCause(),
+                                      ex.getSqlState(), ex.getVendorCode(), ex.getParams());
+    }
+  }
+
+  @Override
+  protected LocalDateTime getLocalDateTime(int columnIndex) throws SQLException
+  {
+    raiseSQLExceptionIfResultSetIsClosed();
+    try
+    {
+      return sfBaseResultSet.getLocalDateTime(columnIndex);
+    }
+    catch (SFException ex)
+    {
+      throw new SnowflakeSQLException(ex.getCause(),
+                                      ex.getSqlState(), ex.getVendorCode(), ex.getParams());
+    }
+  }
+
+  @Override
+  protected OffsetDateTime getOffsetDateTime(int columnIndex)
+  throws SQLException
+  {
+    raiseSQLExceptionIfResultSetIsClosed();
+    try
+    {
+      return sfBaseResultSet.getOffsetDateTime(columnIndex);
+    }
+    catch (SFException ex)
+    {
+      throw new SnowflakeSQLException(ex.getCause(),
+                                      ex.getSqlState(), ex.getVendorCode(), ex.getParams());
+    }
+  }
+
+  @Override
+  protected LocalDate getLocalDate(int columnIndex) throws SQLException
+  {
+    raiseSQLExceptionIfResultSetIsClosed();
+    try
+    {
+      return sfBaseResultSet.getLocalDate(columnIndex);
+    }
+    catch (SFException ex)
+    {
+      throw new SnowflakeSQLException(ex.getCause(),
+                                      ex.getSqlState(), ex.getVendorCode(), ex.getParams());
+    }
+  }
+
   public ResultSetMetaData getMetaData() throws SQLException
   {
     raiseSQLExceptionIfResultSetIsClosed();
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import net.snowflake.client.log.SFLogger;
+import net.snowflake.client.log.SFLoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the rows of the partitions of a result. It splits at
+ * partition boundaries, so the chunks of a parallel stream are downloaded
+ * and read independently, each by the thread processing its partition.
+ *
+ * @param <T> type the rows are mapped to
+ */
+class SnowflakeResultSpliterator<T> implements Spliterator<T>
+{
+  private static final SFLogger logger =
+      SFLoggerFactory.getLogger(SnowflakeResultSpliterator.class);
+
+  private final List<SnowflakeResultPartition> partitions;
+
+  private final SnowflakeRowMapper<T> mapper;
+
+  private final boolean ordered;
+
+  // result sets opened by this spliterator and the ones split from it, to
+  // close them when the stream is closed before the end
+  private final Set<ResultSet> openResultSets;
+
+  // next partition to open
+  private int from;
+
+  // end of the partitions of this spliterator, exclusive
+  private final int to;
+
+  // result set of the partition being read
+  private ResultSet resultSet;
+
+  /**
+   * @param partitions partitions of the result
+   * @param mapper     maps a row to an object
+   * @param ordered    true to report the order of the partitions as
+   *                   encounter order
+   */
+  SnowflakeResultSpliterator(List<SnowflakeResultPartition> partitions,
+                             SnowflakeRowMapper<T> mapper,
+                             boolean ordered)
+  {
+    this(partitions, mapper, ordered, ConcurrentHashMap.newKeySet(), 0,
+         partitions.size());
+  }
+
+  private SnowflakeResultSpliterator(List<SnowflakeResultPartition> partitions,
+                                     SnowflakeRowMapper<T> mapper,
+                                     boolean ordered,
+                                     Set<ResultSet> openResultSets,
+                                     int from,
+                                     int to)
+  {
+    this.partitions = partitions;
+    this.mapper = mapper;
+    this.ordered = ordered;
+    this.openResultSets = openResultSets;
+    this.from = from;
+    this.to = to;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action)
+  {
+    try
+    {
+      while (true)
+      {
+        if (resultSet == null)
+        {
+          if (from >= to)
+          {
+            return false;
+          }
+          resultSet = partitions.get(from++).open();
+          openResultSets.add(resultSet);
+        }
+
+        if (resultSet.next())
+        {
+          action.accept(mapper.mapRow(resultSet));
+          return true;
+        }
+
+        closeResultSet();
+      }
+    }
+    catch (SQLException ex)
+    {
+      closeResultSet();
+      throw new SnowflakeResultStreamException(ex);
+    }
+  }
+
+  @Override
+  public Spliterator<T> trySplit()
+  {
+    // only the partitions not opened yet can be handed over
+    int remaining = to - from;
+    if (remaining < 2)
+    {
+      return null;
+    }
+
+    int mid = from + remaining / 2;
+    SnowflakeResultSpliterator<T> prefix =
+        new SnowflakeResultSpliterator<>(partitions, mapper, ordered,
+                                         openResultSets, from, mid);
+    if (resultSet != null)
+    {
+      // keep the encounter order: the partition being read comes first
+      prefix.resultSet = resultSet;
+      resultSet = null;
+    }
+    from = mid;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize()
+  {
+    long size = 0;
+    for (int i = from; i < to; i++)
+    {
+      int rowCount = partitions.get(i).getRowCount();
+      if (rowCount < 0)
+      {
+        // rows of an Arrow response are only counted when read
+        return Long.MAX_VALUE;
+      }
+      size += rowCount;
+    }
+    return size;
+  }
+
+  @Override
+  public int characteristics()
+  {
+    return ordered ? ORDERED : 0;
+  }
+
+  /**
+   * Close the result sets still open, when the stream is closed
+   */
+  void close()
+  {
+    for (ResultSet openResultSet : openResultSets)
+    {
+      try
+      {
+        openResultSet.close();
+      }
+      catch (SQLException ex)
+      {
+        logger.debug("Failed to close the result set of a partition: {}",
+                     ex.getMessage());
+      }
+    }
+    openResultSets.clear();
+  }
+
+  private void closeResultSet()
+  {
+    if (resultSet == null)
+    {
+      return;
+    }
+
+    try
+    {
+      resultSet.close();
+    }
+    catch (SQLException ex)
+    {
+      logger.debug("Failed to close the result set of a partition: {}",
+                   ex.getMessage());
+    }
+    openResultSets.remove(resultSet);
+    resultSet = null;
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Unchecked exception raised by the streams of results when a partition
+ * can't be read or a row can't be mapped, as stream operations can't throw
+ * SQLException.
+ */
+public class SnowflakeResultStreamException extends RuntimeException
+{
+  private static final long serialVersionUID = 1L;
+
+  public SnowflakeResultStreamException(SQLException ex)
+  {
+    super(ex);
+  }
+
+  /**
+   * @return the original exception
+   */
+  public SQLException getSQLException()
+  {
+    return (SQLException) getCause();
+  }
+}
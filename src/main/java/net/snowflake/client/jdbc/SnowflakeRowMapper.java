@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Map the current row of a result set to an object, used by
+ * {@link SnowflakeResultSet#stream(SnowflakeRowMapper, boolean)}
+ *
+ * @param <T> type of the objects
+ */
+@FunctionalInterface
+public interface SnowflakeRowMapper<T>
+{
+  /**
+   * @param resultSet result set positioned on the row, only valid during
+   *                  the call
+   * @return object for the row
+   * @throws SQLException if a value can't be read
+   */
+  T mapRow(ResultSet resultSet) throws SQLException;
+}
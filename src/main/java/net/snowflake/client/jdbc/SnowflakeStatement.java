@@ -22,4 +22,14 @@ public interface SnowflakeStatement
    * @return the Snowflake query IDs of the latest executed batch queries
    */
   List<String> getBatchQueryIDs() throws SQLException;
+
+  /**
+   * Submit a query and return without waiting for it to complete. The
+   * result set is delivered through the future of the returned query.
+   *
+   * @param sql sql statement
+   * @return the submitted query
+   * @throws SQLException if the query can't be submitted
+   */
+  SnowflakeAsyncQuery executeAsyncQuery(String sql) throws SQLException;
 }
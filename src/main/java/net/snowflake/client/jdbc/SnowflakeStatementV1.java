@@ -6,6 +6,7 @@ package net.snowflake.client.jdbc;
 
 import net.snowflake.client.core.ParameterBindingDTO;
 import net.snowflake.client.core.ResultUtil;
+import net.snowflake.client.core.SFAsyncQuery;
 import net.snowflake.client.core.SFBaseResultSet;
 import net.snowflake.client.core.SFException;
 import net.snowflake.client.core.SFStatement;
@@ -261,6 +262,65 @@ class SnowflakeStatementV1 implements Statement, SnowflakeStatement
     return getResultSet();
   }
 
+  /**
+   * Execute SQL query without waiting for it to complete
+   *
+   * @param sql sql statement
+   * @return the submitted query
+   * @throws SQLException if the query can't be submitted
+   */
+  @Override
+  public SnowflakeAsyncQuery executeAsyncQuery(String sql) throws SQLException
+  {
+    raiseSQLExceptionIfStatementIsClosed();
+    return executeAsyncQueryInternal(sql, null);
+  }
+
+  /**
+   * Internal method for submitting a query with bindings accepted.
+   *
+   * @param sql               sql statement
+   * @param parameterBindings parameters bindings
+   * @return the submitted query
+   * @throws SQLException if @link{SFStatement.executeAsync(String, Map)}
+   *                      throws exception
+   */
+  SnowflakeAsyncQuery executeAsyncQueryInternal(
+      String sql,
+      Map<String, ParameterBindingDTO> parameterBindings)
+  throws SQLException
+  {
+    SFAsyncQuery sfAsyncQuery;
+    try
+    {
+      sfAsyncQuery = sfStatement.executeAsync(sql, parameterBindings);
+    }
+    catch (SFException ex)
+    {
+      throw new SnowflakeSQLException(ex.getCause(),
+                                      ex.getSqlState(), ex.getVendorCode(), ex.getParams());
+    }
+    queryID = sfAsyncQuery.getQueryId();
+    return new SnowflakeAsyncQuery(sfAsyncQuery, this);
+  }
+
+  /**
+   * Create the result set of a query completed asynchronously. It is closed
+   * with the statement.
+   *
+   * @param sfResultSet result set of the query
+   * @return result set
+   * @throws SQLException if the result set can't be created
+   */
+  ResultSet createAsyncResultSet(SFBaseResultSet sfResultSet)
+  throws SQLException
+  {
+    sfResultSet.setSession(this.connection.getSfSession());
+    ResultSet asyncResultSet = new SnowflakeResultSetV1(sfResultSet, this);
+    openResultSets.add(asyncResultSet);
+    return asyncResultSet;
+  }
+
   /**
    * Execute sql
    *
@@ -24,6 +24,7 @@ import java.util.Random;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.snowflake.client.log.SFLogger;
 import org.apache.commons.io.IOUtils;
@@ -487,6 +488,75 @@ public class SnowflakeUtil
                                                              threadFactory);
   }
 
+  /**
+   * Returns a factory of the daemon threads of the driver wide pools. The
+   * uncaught exceptions of the threads are logged.
+   *
+   * @param threadNamePrefix prefix of the thread name
+   * @return new thread factory
+   */
+  static public ThreadFactory createDaemonThreadFactory(
+      final String threadNamePrefix)
+  {
+    return new ThreadFactory()
+    {
+      private final AtomicInteger threadCount = new AtomicInteger(1);
+
+      public Thread newThread(final Runnable r)
+      {
+        final Thread thread = new Thread(r);
+        thread.setName(threadNamePrefix + threadCount.getAndIncrement());
+        thread.setUncaughtExceptionHandler(
+            (t, e) -> logger.error("uncaughtException in thread: " + t + " {}",
+                                   e));
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
+  }
+
+  /**
+   * Get a positive number set by JVM property. Values below 1 are raised to
+   * 1, invalid values are logged and ignored.
+   *
+   * @param name         name of the property
+   * @param defaultValue value if the property is not set or invalid
+   * @return the value of the property
+   */
+  static public long getPositiveLongProperty(String name, long defaultValue)
+  {
+    long value = Math.max(1, defaultValue);
+    String property = System.getProperty(name);
+    if (property != null)
+    {
+      try
+      {
+        value = Math.max(1, Long.parseLong(property.trim()));
+      }
+      catch (NumberFormatException ex)
+      {
+        logger.debug("invalid {}: {}, using default {}",
+                     name, property, value);
+      }
+    }
+    logger.debug("{}: {}", name, value);
+    return value;
+  }
+
+  /**
+   * Get a positive int set by JVM property, see
+   * {@link #getPositiveLongProperty(String, long)}
+   *
+   * @param name         name of the property
+   * @param defaultValue value if the property is not set or invalid
+   * @return the value of the property, at most Integer.MAX_VALUE
+   */
+  static public int getPositiveIntProperty(String name, int defaultValue)
+  {
+    return (int) Math.min(Integer.MAX_VALUE,
+                          getPositiveLongProperty(name, defaultValue));
+  }
+
   static public Throwable getRootCause(Exception ex)
   {
     Throwable cause = ex;
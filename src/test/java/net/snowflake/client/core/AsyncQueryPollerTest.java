@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.SnowflakeColumnMetadata;
+import net.snowflake.client.jdbc.SnowflakeFixedView;
+import net.snowflake.client.jdbc.SnowflakeSQLException;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncQueryPollerTest
+{
+  private static final long WAIT_SECS = 10;
+
+  /**
+   * Statement of an open session whose result sets are empty fixed views,
+   * remembering the results they are created from
+   */
+  static class TestStatement extends SFStatement
+  {
+    final Queue<JsonNode> results = new ConcurrentLinkedQueue<>();
+
+    TestStatement()
+    {
+      super(new SFSession()
+      {
+        @Override
+        public boolean isClosed()
+        {
+          return false;
+        }
+      });
+    }
+
+    @Override
+    SFBaseResultSet createAsyncResultSet(JsonNode result) throws SQLException
+    {
+      results.add(result);
+      return new SFFixedViewResultSet(new SnowflakeFixedView()
+      {
+        @Override
+        public List<SnowflakeColumnMetadata> describeColumns()
+        {
+          return Collections.emptyList();
+        }
+
+        @Override
+        public List<Object> getNextRow()
+        {
+          return null;
+        }
+
+        @Override
+        public int getTotalRows()
+        {
+          return 0;
+        }
+      }, null);
+    }
+  }
+
+  /**
+   * Server returning the statuses of a query in turn, the last one repeated,
+   * then its result
+   */
+  private static class FakeQueryClient implements AsyncQueryPoller.QueryClient
+  {
+    private final Queue<QueryStatus> statuses = new ConcurrentLinkedQueue<>();
+
+    private volatile QueryStatus lastStatus;
+
+    private volatile boolean statusUnavailable = false;
+
+    private final AtomicInteger statusChecks = new AtomicInteger();
+
+    // number of get-result calls returning no result yet
+    private final AtomicInteger resultsNotReady = new AtomicInteger();
+
+    private volatile JsonNode result;
+
+    private volatile SnowflakeSQLException resultError;
+
+    private final AtomicInteger cancelCount = new AtomicInteger();
+
+    private final CountDownLatch canceled = new CountDownLatch(1);
+
+    private volatile StmtUtil.StmtInput canceledInput;
+
+    FakeQueryClient(QueryStatus... statuses)
+    {
+      Collections.addAll(this.statuses, statuses);
+      this.lastStatus = statuses[statuses.length - 1];
+    }
+
+    @Override
+    public QueryStatus getQueryStatus(String queryId,
+                                      StmtUtil.StmtInput stmtInput)
+    throws SFException
+    {
+      statusChecks.incrementAndGet();
+      if (statusUnavailable)
+      {
+        throw new SFException(ErrorCode.INTERNAL_ERROR, "no status");
+      }
+      QueryStatus status = statuses.poll();
+      return status != null ? status : lastStatus;
+    }
+
+    @Override
+    public JsonNode getQueryResultIfDone(String getResultPath,
+                                         StmtUtil.StmtInput stmtInput)
+    throws SnowflakeSQLException
+    {
+      if (resultError != null)
+      {
+        throw resultError;
+      }
+      if (resultsNotReady.getAndDecrement() > 0)
+      {
+        return null;
+      }
+      return result;
+    }
+
+    @Override
+    public void cancel(StmtUtil.StmtInput stmtInput)
+    {
+      canceledInput = stmtInput;
+      cancelCount.incrementAndGet();
+      canceled.countDown();
+    }
+  }
+
+  private static JsonNode result(String queryId)
+  {
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+    result.putObject("data").put("queryId", queryId);
+    return result;
+  }
+
+  private static Throwable failure(CompletableFuture<SFBaseResultSet> future)
+  throws Exception
+  {
+    try
+    {
+      future.get(WAIT_SECS, TimeUnit.SECONDS);
+      fail("the query is expected to fail");
+      return null;
+    }
+    catch (ExecutionException ex)
+    {
+      return ex.getCause();
+    }
+  }
+
+  @Test
+  public void testPollUntilDone() throws Exception
+  {
+    FakeQueryClient client = new FakeQueryClient(
+        QueryStatus.QUEUED, QueryStatus.RUNNING, QueryStatus.SUCCESS);
+    JsonNode result = result("q1");
+    client.result = result;
+    AsyncQueryPoller poller = new AsyncQueryPoller(2, client);
+    TestStatement statement = new TestStatement();
+
+    CompletableFuture<SFBaseResultSet> future =
+        poller.poll(statement, "q1", "r1", "select 1", "/result/q1", 0);
+    assertEquals(1, poller.getPendingQueryCount());
+
+    SFBaseResultSet resultSet = future.get(WAIT_SECS, TimeUnit.SECONDS);
+    assertTrue(resultSet instanceof SFFixedViewResultSet);
+    assertSame(result, statement.results.poll());
+    assertTrue(statement.results.isEmpty());
+    assertEquals(0, client.cancelCount.get());
+  }
+
+  @Test
+  public void testFallBackToGetResult() throws Exception
+  {
+    FakeQueryClient client = new FakeQueryClient(QueryStatus.RUNNING);
+    client.statusUnavailable = true;
+    client.resultsNotReady.set(2);
+    JsonNode result = result("q1");
+    client.result = result;
+    AsyncQueryPoller poller = new AsyncQueryPoller(2, client);
+    TestStatement statement = new TestStatement();
+
+    poller.poll(statement, "q1", "r1", "select 1", "/result/q1", 0)
+        .get(WAIT_SECS, TimeUnit.SECONDS);
+    assertSame(result, statement.results.poll());
+    assertTrue(client.resultsNotReady.get() < 0);
+  }
+
+  @Test
+  public void testFallBackAfterNoData() throws Exception
+  {
+    // the query never shows up in the monitoring service
+    FakeQueryClient client = new FakeQueryClient(QueryStatus.NO_DATA);
+    client.resultsNotReady.set(2);
+    JsonNode result = result("q1");
+    client.result = result;
+    AsyncQueryPoller poller = new AsyncQueryPoller(2, client);
+    TestStatement statement = new TestStatement();
+
+    poller.poll(statement, "q1", "r1", "select 1", "/result/q1", 0)
+        .get(WAIT_SECS, TimeUnit.SECONDS);
+    assertSame(result, statement.results.poll());
+    assertEquals(AsyncQueryPoller.MAX_NO_DATA_CHECKS,
+                 client.statusChecks.get());
+    assertTrue(client.resultsNotReady.get() < 0);
+  }
+
+  @Test
+  public void testFallBackOnUnknownStatus() throws Exception
+  {
+    FakeQueryClient client = new FakeQueryClient((QueryStatus) null);
+    client.resultsNotReady.set(2);
+    JsonNode result = result("q1");
+    client.result = result;
+    AsyncQueryPoller poller = new AsyncQueryPoller(2, client);
+    TestStatement statement = new TestStatement();
+
+    poller.poll(statement, "q1", "r1", "select 1", "/result/q1", 0)
+        .get(WAIT_SECS, TimeUnit.SECONDS);
+    assertSame(result, statement.results.poll());
+    // the status is not asked again once known to be unusable
+    assertEquals(1, client.statusChecks.get());
+  }
+
+  @Test
+  public void testResultError() throws Exception
+  {
+    FakeQueryClient client =
+        new FakeQueryClient(QueryStatus.FAILED_WITH_ERROR);
+    client.resultError = new SnowflakeSQLException(
+        "q1", "failed", "22000", ErrorCode.INTERNAL_ERROR.getMessageCode());
+    AsyncQueryPoller poller = new AsyncQueryPoller(2, client);
+
+    assertSame(client.resultError,
+               failure(poller.poll(new TestStatement(), "q1", "r1",
+                                   "select 1", "/result/q1", 0)));
+  }
+
+  @Test
+  public void testCancelFuture() throws Exception
+  {
+    FakeQueryClient client = new FakeQueryClient(QueryStatus.RUNNING);
+    AsyncQueryPoller poller = new AsyncQueryPoller(2, client);
+
+    CompletableFuture<SFBaseResultSet> future =
+        poller.poll(new TestStatement(), "q1", "r1", "select 1",
+                    "/result/q1", 0);
+    assertTrue(future.cancel(true));
+
+    // the query is aborted on the server with the request that submitted it
+    assertTrue(client.canceled.await(WAIT_SECS, TimeUnit.SECONDS));
+    assertEquals("r1", client.canceledInput.requestId);
+    assertEquals("select 1", client.canceledInput.sql);
+    assertTrue(client.canceledInput.canceling.get());
+    assertEquals(0, poller.getPendingQueryCount());
+
+    // canceling again doesn't abort the query again
+    future.cancel(true);
+    Thread.sleep(AsyncQueryPoller.MIN_POLL_INTERVAL_MILLIS);
+    assertEquals(1, client.cancelCount.get());
+  }
+
+  @Test
+  public void testTimeout() throws Exception
+  {
+    FakeQueryClient client = new FakeQueryClient(QueryStatus.RUNNING);
+    AsyncQueryPoller poller = new AsyncQueryPoller(2, client);
+
+    Throwable ex = failure(poller.poll(new TestStatement(), "q1", "r1",
+                                       "select 1", "/result/q1", 1));
+    assertTrue(ex instanceof SFException);
+    assertEquals(ErrorCode.QUERY_CANCELED.getMessageCode().intValue(),
+                 ((SFException) ex).getVendorCode());
+    assertEquals(1, client.cancelCount.get());
+    assertEquals("r1", client.canceledInput.requestId);
+  }
+
+  @Test
+  public void testPollIntervalGrowsWithAge()
+  {
+    long min = TimeUnit.MILLISECONDS.toNanos(
+        AsyncQueryPoller.MIN_POLL_INTERVAL_MILLIS);
+    long max = TimeUnit.MILLISECONDS.toNanos(
+        AsyncQueryPoller.MAX_POLL_INTERVAL_MILLIS);
+
+    assertEquals(min, AsyncQueryPoller.pollIntervalNanos(0));
+    assertEquals(min, AsyncQueryPoller.pollIntervalNanos(
+        TimeUnit.MILLISECONDS.toNanos(500)));
+    assertEquals(TimeUnit.SECONDS.toNanos(2),
+                 AsyncQueryPoller.pollIntervalNanos(
+                     TimeUnit.SECONDS.toNanos(20)));
+    assertEquals(max, AsyncQueryPoller.pollIntervalNanos(
+        TimeUnit.HOURS.toNanos(1)));
+
+    long previous = 0;
+    for (long age = 0; age < TimeUnit.MINUTES.toNanos(2);
+         age += TimeUnit.SECONDS.toNanos(1))
+    {
+      long interval = AsyncQueryPoller.pollIntervalNanos(age);
+      assertTrue(interval >= previous);
+      previous = interval;
+    }
+  }
+
+  @Test
+  public void testQueryStatus()
+  {
+    assertEquals(QueryStatus.RUNNING, QueryStatus.lookupByName("RUNNING"));
+    assertTrue(QueryStatus.lookupByName("queued").isStillRunning());
+    assertTrue(QueryStatus.NO_DATA.isStillRunning());
+    assertFalse(QueryStatus.lookupByName("SUCCESS").isStillRunning());
+    assertFalse(QueryStatus.FAILED_WITH_ERROR.isStillRunning());
+    assertNull(QueryStatus.lookupByName("NOT_A_STATUS"));
+  }
+}
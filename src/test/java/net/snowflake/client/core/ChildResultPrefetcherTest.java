@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.SnowflakeSQLException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChildResultPrefetcherTest
+{
+  private static List<SFChildResult> childResults(int count)
+  {
+    List<SFChildResult> childResults = new ArrayList<>();
+    for (int i = 0; i < count; i++)
+    {
+      childResults.add(new SFChildResult("q" + i, SFStatementType.SELECT));
+    }
+    return childResults;
+  }
+
+  /**
+   * @return a result of the query whose rows take the given memory
+   */
+  private static JsonNode result(String queryId, int memory)
+  {
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+    ObjectNode data = result.putObject("data");
+    data.put("queryId", queryId);
+    data.put("rowsetBase64", new byte[memory]);
+    return result;
+  }
+
+  private static String queryId(JsonNode result)
+  {
+    return result.path("data").path("queryId").asText();
+  }
+
+  @Test
+  public void testResultsInOrder()
+  throws SFException, SnowflakeSQLException
+  {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try
+    {
+      ChildResultPrefetcher prefetcher = new ChildResultPrefetcher(
+          childResults(20), queryId -> result(queryId, 10), executor, 4,
+          1024);
+
+      for (int i = 0; i < 20; i++)
+      {
+        assertTrue(prefetcher.hasNext());
+        assertEquals("q" + i, queryId(prefetcher.next()));
+      }
+      assertFalse(prefetcher.hasNext());
+    }
+    finally
+    {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testLookAheadIsBounded()
+  throws SFException, SnowflakeSQLException
+  {
+    List<Runnable> queued = new ArrayList<>();
+    AtomicInteger fetchCount = new AtomicInteger();
+    ChildResultPrefetcher prefetcher = new ChildResultPrefetcher(
+        childResults(5),
+        queryId ->
+        {
+          fetchCount.incrementAndGet();
+          return result(queryId, 60);
+        },
+        queued::add, 2, 100);
+
+    // at most 2 fetches in flight
+    assertEquals(2, queued.size());
+    queued.get(0).run();
+    assertEquals(3, queued.size());
+    queued.get(1).run();
+    queued.get(2).run();
+    assertEquals(3, fetchCount.get());
+
+    // 180 bytes then 120 bytes not consumed yet, above the limit
+    assertEquals("q0", queryId(prefetcher.next()));
+    assertEquals(3, queued.size());
+
+    // 60 bytes, below the limit
+    assertEquals("q1", queryId(prefetcher.next()));
+    assertEquals(5, queued.size());
+    assertEquals("q2", queryId(prefetcher.next()));
+
+    // the queued fetches haven't run, the consumer runs them
+    assertEquals("q3", queryId(prefetcher.next()));
+    assertEquals("q4", queryId(prefetcher.next()));
+    assertEquals(5, fetchCount.get());
+
+    // the fetches already run by the consumer are not run again
+    queued.get(3).run();
+    queued.get(4).run();
+    assertEquals(5, fetchCount.get());
+    assertFalse(prefetcher.hasNext());
+  }
+
+  @Test
+  public void testFetchError()
+  throws SFException, SnowflakeSQLException
+  {
+    ChildResultPrefetcher prefetcher = new ChildResultPrefetcher(
+        childResults(3),
+        queryId ->
+        {
+          if ("q1".equals(queryId))
+          {
+            throw new SnowflakeSQLException(
+                "q1", "failed", "22000", ErrorCode.INTERNAL_ERROR
+                    .getMessageCode());
+          }
+          return result(queryId, 10);
+        },
+        Runnable::run, 4, 1024);
+
+    assertEquals("q0", queryId(prefetcher.next()));
+    try
+    {
+      prefetcher.next();
+      fail("the error of the fetch is expected");
+    }
+    catch (SnowflakeSQLException ex)
+    {
+      assertEquals("q1", ex.getQueryId());
+    }
+    assertEquals("q2", queryId(prefetcher.next()));
+
+    prefetcher.close();
+    assertFalse(prefetcher.hasNext());
+  }
+}
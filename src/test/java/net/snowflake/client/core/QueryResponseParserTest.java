@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import net.snowflake.client.jdbc.JsonResultChunk;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryResponseParserTest
+{
+  private static JsonNode parse(String response) throws IOException
+  {
+    return QueryResponseParser.parse(new ByteArrayInputStream(
+        response.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void testParseJsonRowset() throws IOException
+  {
+    JsonNode response = parse(
+        "{\"data\":{\"queryId\":\"q1\",\"rowtype\":[{\"name\":\"A\"}]," +
+        "\"rowset\":[[\"1\",null,\"h\\u00e9\"],[\"2\",\"x\",\"\"]]}," +
+        "\"code\":null,\"success\":true}");
+
+    assertTrue(response.path("success").asBoolean());
+    assertEquals("q1", response.path("data").path("queryId").asText());
+    assertEquals(1, response.path("data").path("rowtype").size());
+
+    JsonNode rowset = response.path("data").path("rowset");
+    assertTrue(rowset.isPojo());
+    JsonResultChunk chunk =
+        (JsonResultChunk) ((POJONode) rowset).getPojo();
+    assertEquals(2, chunk.getRowCount());
+    assertEquals(3, chunk.getColCount());
+    assertEquals("1", chunk.getCell(0, 0));
+    assertNull(chunk.getCell(0, 1));
+    assertEquals("h\u00e9", chunk.getCell(0, 2));
+    assertEquals("x", chunk.getCell(1, 1));
+    assertEquals("", chunk.getCell(1, 2));
+    assertEquals("[[\"1\",null,\"h\u00e9\"],[\"2\",\"x\",\"\"]]",
+                 chunk.toJsonRowset());
+  }
+
+  @Test
+  public void testParseGrowingRowset() throws IOException
+  {
+    StringBuilder response = new StringBuilder("{\"data\":{\"rowset\":[");
+    for (int i = 0; i < 1000; i++)
+    {
+      response.append(i == 0 ? "[\"" : ",[\"").append(i)
+          .append("\",\"row ").append(i).append("\"]");
+    }
+    response.append("]}}");
+
+    JsonNode rowset = parse(response.toString()).path("data").path("rowset");
+    JsonResultChunk chunk =
+        (JsonResultChunk) ((POJONode) rowset).getPojo();
+    assertEquals(1000, chunk.getRowCount());
+    for (int i = 0; i < 1000; i++)
+    {
+      assertEquals(String.valueOf(i), chunk.getCell(i, 0));
+      assertEquals("row " + i, chunk.getCell(i, 1));
+    }
+
+    // sized to the rows instead of whole blocks
+    assertTrue(chunk.computeNeededChunkMemory() < 64 * 1024);
+  }
+
+  @Test
+  public void testParseEmptyRowset() throws IOException
+  {
+    JsonNode rowset = parse("{\"data\":{\"rowset\":[]}}")
+        .path("data").path("rowset");
+    assertTrue(rowset.isArray());
+    assertEquals(0, rowset.size());
+  }
+
+  @Test
+  public void testParseArrowRowset() throws IOException
+  {
+    JsonNode rowset = parse("{\"data\":{\"rowsetBase64\":\"AQID\"}}")
+        .path("data").path("rowsetBase64");
+    assertTrue(rowset.isBinary());
+    assertArrayEquals(new byte[]{1, 2, 3}, rowset.binaryValue());
+    assertEquals("AQID", rowset.asText());
+  }
+
+  @Test(expected = JsonProcessingException.class)
+  public void testRaggedRowset() throws IOException
+  {
+    parse("{\"data\":{\"rowset\":[[\"1\",\"2\"],[\"3\"]]}}");
+  }
+
+  @Test
+  public void testUtf8Length()
+  {
+    String[] texts = {"", "abc", "h\u00e9", "\u20ac1", "\ud83d\ude00x"};
+    for (String text : texts)
+    {
+      assertEquals(text.getBytes(StandardCharsets.UTF_8).length,
+                   QueryResponseParser.utf8Length(text));
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QueryTimeoutTimerTest
+{
+  @Test
+  public void testTimeoutExpires() throws InterruptedException
+  {
+    QueryTimeoutTimer timer = new QueryTimeoutTimer();
+    CountDownLatch latch = new CountDownLatch(2);
+
+    long start = System.nanoTime();
+    timer.schedule(latch::countDown, 300, TimeUnit.MILLISECONDS);
+    timer.schedule(latch::countDown, 0, TimeUnit.MILLISECONDS);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+    assertTrue(System.nanoTime() - start >=
+               TimeUnit.MILLISECONDS.toNanos(300));
+    assertEquals(0, timer.getPendingTimeoutCount());
+    assertEquals(2, timer.getExpiredTimeoutCount());
+    assertEquals(0, timer.getCanceledTimeoutCount());
+  }
+
+  @Test
+  public void testCanceledTimeoutDoesNotRun() throws InterruptedException
+  {
+    QueryTimeoutTimer timer = new QueryTimeoutTimer();
+    AtomicInteger runs = new AtomicInteger();
+
+    QueryTimeoutTimer.Timeout timeout =
+        timer.schedule(runs::incrementAndGet, 200, TimeUnit.MILLISECONDS);
+    // beyond one round of the wheel
+    QueryTimeoutTimer.Timeout later = timer.schedule(
+        runs::incrementAndGet,
+        QueryTimeoutTimer.TICK_MILLIS * QueryTimeoutTimer.WHEEL_SIZE * 2,
+        TimeUnit.MILLISECONDS);
+    assertEquals(2, timer.getPendingTimeoutCount());
+
+    assertTrue(timeout.cancel());
+    assertFalse(timeout.cancel());
+    assertEquals(1, timer.getPendingTimeoutCount());
+
+    Thread.sleep(500);
+    assertEquals(0, runs.get());
+
+    assertTrue(later.cancel());
+    assertEquals(0, timer.getPendingTimeoutCount());
+    assertEquals(2, timer.getCanceledTimeoutCount());
+    assertEquals(0, timer.getExpiredTimeoutCount());
+  }
+}
@@ -3,6 +3,7 @@
  */
 package net.snowflake.client.core;
 
+import net.snowflake.client.jdbc.ArrowBatch;
 import net.snowflake.client.jdbc.ArrowResultChunk;
 import net.snowflake.client.jdbc.ErrorCode;
 import net.snowflake.client.jdbc.SnowflakeResultChunk;
@@ -31,6 +32,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
@@ -42,6 +44,7 @@ import static net.snowflake.client.core.ResultUtil.ResultOutput;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 
 public class SFArrowResultSetIT
 {
@@ -260,6 +263,253 @@ public class SFArrowResultSetIT
     assertThat(index, is(5500));
   }
 
+  /**
+   * Testing client side sorting of the first chunk and offline chunks
+   */
+  @Test
+  public void testSortedFirstResponseAndOfflineData() throws Throwable
+  {
+    final int colCount = 2;
+    final int chunkCount = 10;
+    final int rowsPerChunk = 500;
+
+    List<Field> fieldList = new ArrayList<>();
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "FIXED");
+    customFieldMeta.put("scale", "0");
+    FieldType type = new FieldType(false, Types.MinorType.INT.getType(),
+                                   null, customFieldMeta);
+
+    for (int i = 0; i < colCount; i++)
+    {
+      fieldList.add(new Field("col_" + i, type, null));
+    }
+    Schema schema = new Schema(fieldList);
+
+    // few distinct values in the first column, so the second one matters
+    List<int[]> rows = new ArrayList<>();
+    List<File> fileLists = new ArrayList<>();
+    byte[] firstChunkBytes = null;
+    for (int i = 0; i <= chunkCount; i++)
+    {
+      Object[][] data = generateData(schema, rowsPerChunk);
+      for (int j = 0; j < rowsPerChunk; j++)
+      {
+        data[0][j] = (Integer) data[0][j] % 20;
+        rows.add(new int[]{(Integer) data[0][j], (Integer) data[1][j]});
+      }
+      File file = createArrowFile("testSortedOfflineData_" + i, schema, data,
+                                  10);
+      if (i == 0)
+      {
+        firstChunkBytes = Files.readAllBytes(file.toPath());
+      }
+      else
+      {
+        fileLists.add(file);
+      }
+    }
+
+    ResultOutput resultOutput = new ResultOutput();
+    resultOutput.rowsetBase64 =
+        Base64.getEncoder().encodeToString(firstChunkBytes);
+    resultOutput.chunkCount = chunkCount;
+    resultOutput.chunkDownloader = new MockChunkDownloader(fileLists);
+
+    SFArrowResultSet resultSet = new SFArrowResultSet(
+        resultOutput, new NoopTelemetryClient(), true);
+
+    // client side sorting compares the string values
+    rows.sort((r1, r2) ->
+              {
+                int res = Integer.toString(r1[0])
+                    .compareTo(Integer.toString(r2[0]));
+                return res != 0 ? res : Integer.toString(r1[1])
+                    .compareTo(Integer.toString(r2[1]));
+              });
+
+    int index = 0;
+    while (resultSet.next())
+    {
+      assertThat(resultSet.getInt(1), is(rows.get(index)[0]));
+      assertThat(resultSet.getInt(2), is(rows.get(index)[1]));
+      index++;
+    }
+
+    assertThat(index, is((chunkCount + 1) * rowsPerChunk));
+    assertThat(resultSet.isAfterLast(), is(true));
+  }
+
+  /**
+   * Build a result of INT columns with the first chunk in the response and the
+   * others from the chunk downloader
+   */
+  private ResultOutput createResultOutput(String fileName, Schema schema,
+                                          List<Object[][]> dataLists,
+                                          int chunkCount, int rowsPerChunk)
+  throws IOException
+  {
+    List<File> fileLists = new ArrayList<>();
+    byte[] firstChunkBytes = null;
+    for (int i = 0; i <= chunkCount; i++)
+    {
+      Object[][] data = generateData(schema, rowsPerChunk);
+      File file = createArrowFile(fileName + "_" + i, schema, data, 10);
+      dataLists.add(data);
+      if (i == 0)
+      {
+        firstChunkBytes = Files.readAllBytes(file.toPath());
+      }
+      else
+      {
+        fileLists.add(file);
+      }
+    }
+
+    ResultOutput resultOutput = new ResultOutput();
+    resultOutput.rowsetBase64 =
+        Base64.getEncoder().encodeToString(firstChunkBytes);
+    resultOutput.chunkCount = chunkCount;
+    resultOutput.chunkDownloader = new MockChunkDownloader(fileLists);
+    return resultOutput;
+  }
+
+  private static Schema createIntSchema(int colCount)
+  {
+    List<Field> fieldList = new ArrayList<>();
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "FIXED");
+    customFieldMeta.put("scale", "0");
+    FieldType type = new FieldType(false, Types.MinorType.INT.getType(),
+                                   null, customFieldMeta);
+
+    for (int i = 0; i < colCount; i++)
+    {
+      fieldList.add(new Field("col_" + i, type, null));
+    }
+    return new Schema(fieldList);
+  }
+
+  /**
+   * Testing reading the first chunk and offline chunks by record batches
+   */
+  @Test
+  public void testNextArrowBatch() throws Throwable
+  {
+    final int colCount = 2;
+    final int chunkCount = 3;
+    final int rowsPerChunk = 45;
+
+    List<Object[][]> dataLists = new ArrayList<>();
+    ResultOutput resultOutput = createResultOutput(
+        "testNextArrowBatch", createIntSchema(colCount), dataLists,
+        chunkCount, rowsPerChunk);
+    SFArrowResultSet resultSet = new SFArrowResultSet(
+        resultOutput, new NoopTelemetryClient(), false);
+
+    // values of a batch are read before the next one frees its chunk
+    int index = 0;
+    int batchCount = 0;
+    ArrowBatch batch;
+    while ((batch = resultSet.nextArrowBatch()) != null)
+    {
+      assertThat(batch.getColumnCount(), is(colCount));
+      for (int i = 0; i < colCount; i++)
+      {
+        long[] values = batch.getLongs(i);
+        assertThat(values.length, is(batch.getRowCount()));
+        for (int j = 0; j < values.length; j++)
+        {
+          int rowIndex = index + j;
+          Integer expectedVal = (Integer) dataLists.get(
+              rowIndex / rowsPerChunk)[i][rowIndex % rowsPerChunk];
+          assertThat(values[j], is((long) expectedVal));
+          assertThat(batch.isNull(i, j), is(false));
+        }
+      }
+      index += batch.getRowCount();
+      batchCount++;
+    }
+
+    // 10 rows per record batch
+    assertThat(index, is((chunkCount + 1) * rowsPerChunk));
+    assertThat(batchCount, is((chunkCount + 1) * 5));
+    assertThat(resultSet.nextArrowBatch(), is((ArrowBatch) null));
+  }
+
+  /**
+   * Testing that rows and record batches are not read from the same result
+   */
+  @Test
+  public void testNextArrowBatchAfterNext() throws Throwable
+  {
+    ResultOutput resultOutput = createResultOutput(
+        "testNextArrowBatchAfterNext", createIntSchema(1),
+        new ArrayList<>(), 1, 20);
+    SFArrowResultSet resultSet = new SFArrowResultSet(
+        resultOutput, new NoopTelemetryClient(), false);
+
+    assertThat(resultSet.next(), is(true));
+    try
+    {
+      resultSet.nextArrowBatch();
+      fail("record batches are not expected after rows");
+    }
+    catch (SnowflakeSQLException ex)
+    {
+      assertThat(ex.getErrorCode(),
+                 is(ErrorCode.FEATURE_UNSUPPORTED.getMessageCode()));
+    }
+  }
+
+  /**
+   * Testing that record batches of a sorted result are not read unsorted
+   */
+  @Test
+  public void testNextArrowBatchOfSortedResult() throws Throwable
+  {
+    ResultOutput resultOutput = createResultOutput(
+        "testNextArrowBatchOfSortedResult", createIntSchema(1),
+        new ArrayList<>(), 1, 20);
+    SFArrowResultSet resultSet = new SFArrowResultSet(
+        resultOutput, new NoopTelemetryClient(), true);
+
+    try
+    {
+      resultSet.nextArrowBatch();
+      fail("record batches are not expected of a sorted result");
+    }
+    catch (SnowflakeSQLException ex)
+    {
+      assertThat(ex.getErrorCode(),
+                 is(ErrorCode.FEATURE_UNSUPPORTED.getMessageCode()));
+    }
+  }
+
+  /**
+   * Testing that a sorted result is not split into unsorted partitions
+   */
+  @Test
+  public void testResultPartitionsOfSortedResult() throws Throwable
+  {
+    ResultOutput resultOutput = createResultOutput(
+        "testResultPartitionsOfSortedResult", createIntSchema(1),
+        new ArrayList<>(), 1, 20);
+    SFArrowResultSet resultSet = new SFArrowResultSet(
+        resultOutput, new NoopTelemetryClient(), true);
+
+    try
+    {
+      resultSet.getResultPartitions();
+      fail("partitions are not expected of a sorted result");
+    }
+    catch (SnowflakeSQLException ex)
+    {
+      assertThat(ex.getErrorCode(),
+                 is(ErrorCode.FEATURE_UNSUPPORTED.getMessageCode()));
+    }
+  }
+
   /**
    * Class to mock chunk downloader. It is just reading data from tmp directory
    * one by one
@@ -304,6 +554,12 @@ public class SFArrowResultSetIT
       }
     }
 
+    @Override
+    public void enableSorting(DataConversionContext context)
+    {
+      // chunks are read on demand and never freed
+    }
+
     @Override
     public DownloaderMetrics terminate()
     {
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import net.snowflake.client.jdbc.ErrorCode;
+import net.snowflake.client.jdbc.SnowflakeSQLException;
+import net.snowflake.common.api.QueryInProgressResponse;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SFStatementTest
+{
+  /**
+   * Poller remembering the query handed over instead of polling it
+   */
+  private static class RecordingPoller extends AsyncQueryPoller
+  {
+    private final CompletableFuture<SFBaseResultSet> future =
+        new CompletableFuture<>();
+
+    private String queryId;
+
+    private String requestId;
+
+    private String sql;
+
+    private String getResultPath;
+
+    private int timeoutSeconds;
+
+    RecordingPoller()
+    {
+      super(1, null);
+    }
+
+    @Override
+    CompletableFuture<SFBaseResultSet> poll(SFStatement statement,
+                                            String queryId,
+                                            String requestId,
+                                            String sql,
+                                            String getResultPath,
+                                            int timeoutSeconds)
+    {
+      this.queryId = queryId;
+      this.requestId = requestId;
+      this.sql = sql;
+      this.getResultPath = getResultPath;
+      this.timeoutSeconds = timeoutSeconds;
+      return future;
+    }
+  }
+
+  private static ObjectNode response(String queryId, String code)
+  {
+    ObjectNode response = JsonNodeFactory.instance.objectNode();
+    response.put("success", true);
+    response.put("code", code);
+    response.putObject("data").put("queryId", queryId);
+    return response;
+  }
+
+  @Test
+  public void testAsyncQueryDoneWithSubmission() throws Exception
+  {
+    AsyncQueryPollerTest.TestStatement statement =
+        new AsyncQueryPollerTest.TestStatement();
+    RecordingPoller poller = new RecordingPoller();
+    JsonNode response = response("q1", null);
+
+    SFAsyncQuery query = statement.pollAsync(response, "r1", "select 1",
+                                             poller);
+    assertEquals("q1", query.getQueryId());
+    assertTrue(query.getResult().isDone());
+    assertTrue(query.getResult().get(0, TimeUnit.SECONDS)
+                   instanceof SFFixedViewResultSet);
+    assertSame(response, statement.results.poll());
+
+    // not polled
+    assertNull(poller.queryId);
+  }
+
+  @Test
+  public void testAsyncQueryInProgress() throws Exception
+  {
+    AsyncQueryPollerTest.TestStatement statement =
+        new AsyncQueryPollerTest.TestStatement();
+    statement.addProperty("query_timeout", 30);
+    RecordingPoller poller = new RecordingPoller();
+    ObjectNode response = response(
+        "q1", QueryInProgressResponse.QUERY_IN_PROGRESS_ASYNC_CODE);
+    ((ObjectNode) response.get("data"))
+        .put("getResultUrl", "/queries/q1/result?async=true");
+
+    SFAsyncQuery query = statement.pollAsync(response, "r1", "select 1",
+                                             poller);
+    assertEquals("q1", query.getQueryId());
+    assertSame(poller.future, query.getResult());
+    assertFalse(query.getResult().isDone());
+    assertTrue(statement.results.isEmpty());
+
+    assertEquals("q1", poller.queryId);
+    assertEquals("r1", poller.requestId);
+    assertEquals("select 1", poller.sql);
+    assertEquals("/queries/q1/result?async=true", poller.getResultPath);
+    assertEquals(30, poller.timeoutSeconds);
+  }
+
+  @Test
+  public void testAsyncQueryDefaultResultPath() throws Exception
+  {
+    RecordingPoller poller = new RecordingPoller();
+
+    new AsyncQueryPollerTest.TestStatement().pollAsync(
+        response("q1", QueryInProgressResponse.QUERY_IN_PROGRESS_CODE),
+        "r1", "select 1", poller);
+    assertEquals(String.format(StmtUtil.SF_PATH_QUERY_RESULT, "q1"),
+                 poller.getResultPath);
+  }
+
+  @Test
+  public void testAsyncQueryWithoutQueryId() throws Exception
+  {
+    ObjectNode response = JsonNodeFactory.instance.objectNode();
+    response.put("success", true);
+    response.putObject("data");
+    try
+    {
+      new AsyncQueryPollerTest.TestStatement().pollAsync(
+          response, "r1", "select 1", new RecordingPoller());
+      fail("a response without query ID is expected to be rejected");
+    }
+    catch (SFException ex)
+    {
+      assertEquals(ErrorCode.INTERNAL_ERROR.getMessageCode().intValue(),
+                   ex.getVendorCode());
+    }
+  }
+
+  @Test
+  public void testExecuteAsyncRejectsClientSideCommands()
+  throws SFException, SQLException
+  {
+    SFStatement statement = new AsyncQueryPollerTest.TestStatement();
+    String[] commands = {
+        "put file:///tmp/data.csv @~",
+        "  GET @~/data.csv file:///tmp/",
+        "set-sf-property sort=true"
+    };
+    for (String command : commands)
+    {
+      try
+      {
+        statement.executeAsync(command, null);
+        fail("executeAsync is expected to reject " + command);
+      }
+      catch (SnowflakeSQLException ex)
+      {
+        assertEquals(ErrorCode.UNSUPPORTED_STATEMENT_TYPE_IN_EXECUTION_API
+                         .getMessageCode().intValue(),
+                     ex.getErrorCode());
+      }
+    }
+  }
+
+  @Test(expected = SQLException.class)
+  public void testExecuteAsyncOnClosedSession()
+  throws SFException, SQLException
+  {
+    new SFStatement(new SFSession()).executeAsync("select 1", null);
+  }
+}
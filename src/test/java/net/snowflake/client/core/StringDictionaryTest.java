@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StringDictionaryTest
+{
+  /**
+   * Cells stored one after another, as in a chunk
+   */
+  private static class Cells
+  {
+    private final byte[] data;
+
+    private final int[] offsets;
+
+    Cells(String... values)
+    {
+      offsets = new int[values.length + 1];
+      StringBuilder builder = new StringBuilder();
+      for (int i = 0; i < values.length; i++)
+      {
+        builder.append(values[i]);
+        offsets[i + 1] =
+            builder.toString().getBytes(StandardCharsets.UTF_8).length;
+      }
+      data = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    String get(StringDictionary dictionary, int index)
+    {
+      return dictionary.get(offset -> data[offset], offsets[index],
+                            offsets[index + 1] - offsets[index]);
+    }
+  }
+
+  @Test
+  public void testSameInstanceForSameBytes()
+  {
+    Cells cells = new Cells("ACTIVE", "CLOSED", "ACTIVE", "", "\u00e9t\u00e9",
+                            "", "\u00e9t\u00e9", "ACTIVE");
+    StringDictionary dictionary = new StringDictionary();
+
+    String active = cells.get(dictionary, 0);
+    assertEquals("ACTIVE", active);
+    assertEquals("CLOSED", cells.get(dictionary, 1));
+    assertSame(active, cells.get(dictionary, 2));
+    assertSame(active, cells.get(dictionary, 7));
+    assertEquals("", cells.get(dictionary, 3));
+    assertSame(cells.get(dictionary, 3), cells.get(dictionary, 5));
+    assertEquals("\u00e9t\u00e9", cells.get(dictionary, 4));
+    assertSame(cells.get(dictionary, 4), cells.get(dictionary, 6));
+    assertTrue(dictionary.isActive());
+  }
+
+  @Test
+  public void testLongValuesNotKept()
+  {
+    StringBuilder value = new StringBuilder();
+    for (int i = 0; i <= StringDictionary.MAX_VALUE_LENGTH; i++)
+    {
+      value.append('x');
+    }
+    Cells cells = new Cells(value.toString());
+    StringDictionary dictionary = new StringDictionary();
+
+    assertNull(cells.get(dictionary, 0));
+    assertTrue(dictionary.isActive());
+  }
+
+  @Test
+  public void testHighCardinality()
+  {
+    String[] values = new String[StringDictionary.MAX_ENTRIES + 1];
+    for (int i = 0; i < values.length; i++)
+    {
+      values[i] = "value" + i;
+    }
+    Cells cells = new Cells(values);
+    StringDictionary dictionary = new StringDictionary();
+
+    for (int i = 0; i < StringDictionary.MAX_ENTRIES; i++)
+    {
+      assertEquals(values[i], cells.get(dictionary, i));
+    }
+    assertTrue(dictionary.isActive());
+
+    // one more distinct value drops the dictionary
+    assertNull(cells.get(dictionary, StringDictionary.MAX_ENTRIES));
+    assertFalse(dictionary.isActive());
+    assertNull(cells.get(dictionary, 0));
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core.arrow;
+
+import net.snowflake.client.core.SFException;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ArrowResultChunkIndexSorterTest extends BaseConverterTest
+{
+  /**
+   * allocator for arrow
+   */
+  private BufferAllocator allocator = new RootAllocator(Integer.MAX_VALUE);
+
+  private Random random = new Random();
+
+  private IntVector createIntVector(Integer[] values)
+  {
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "FIXED");
+    customFieldMeta.put("precision", "10");
+    customFieldMeta.put("scale", "0");
+    FieldType fieldType = new FieldType(true, Types.MinorType.INT.getType(),
+                                        null, customFieldMeta);
+
+    IntVector vector = new IntVector("col_int", fieldType, allocator);
+    for (int i = 0; i < values.length; i++)
+    {
+      if (values[i] == null)
+      {
+        vector.setNull(i);
+      }
+      else
+      {
+        vector.setSafe(i, values[i]);
+      }
+    }
+    vector.setValueCount(values.length);
+    return vector;
+  }
+
+  private VarCharVector createTextVector(String[] values)
+  {
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "TEXT");
+    FieldType fieldType = new FieldType(true,
+                                        Types.MinorType.VARCHAR.getType(),
+                                        null, customFieldMeta);
+
+    VarCharVector vector = new VarCharVector("col_text", fieldType, allocator);
+    for (int i = 0; i < values.length; i++)
+    {
+      vector.setSafe(i, values[i].getBytes(StandardCharsets.UTF_8));
+    }
+    vector.setValueCount(values.length);
+    return vector;
+  }
+
+  /**
+   * Sort the row indices the way the JSON results are sorted, with a stable
+   * sort of the strings of the values, nulls last
+   */
+  private static int[] expectedOrder(Integer[] ints, String[] texts)
+  {
+    Comparator<Integer> byString = Comparator.nullsLast(
+        Comparator.comparing(String::valueOf));
+    List<Integer> indices = new ArrayList<>();
+    for (int i = 0; i < ints.length; i++)
+    {
+      indices.add(i);
+    }
+    indices.sort((i1, i2) ->
+                 {
+                   int res = byString.compare(ints[i1], ints[i2]);
+                   return res != 0 ? res : texts[i1].compareTo(texts[i2]);
+                 });
+    return indices.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  @Test
+  public void testSortIntegersAndText() throws SFException
+  {
+    final int rowCount = 1000;
+    Integer[] ints = new Integer[rowCount];
+    String[] texts = new String[rowCount];
+    for (int i = 0; i < rowCount; i++)
+    {
+      // many duplicates, so the second column and the stability matter
+      ints[i] = random.nextInt(10) == 0 ? null : random.nextInt(200) - 100;
+      texts[i] = String.valueOf((char) ('a' + random.nextInt(3)));
+    }
+
+    IntVector intVector = createIntVector(ints);
+    VarCharVector textVector = createTextVector(texts);
+    List<ValueVector> vectors = Arrays.asList(intVector, textVector);
+    List<ArrowVectorConverter> converters = Arrays.asList(
+        new IntToFixedConverter(intVector, 0, this),
+        new VarCharConverter(textVector, 1, this));
+
+    int[] sorted = new ArrowResultChunkIndexSorter(vectors, converters).sort();
+    assertThat(Arrays.equals(sorted, expectedOrder(ints, texts)), is(true));
+
+    intVector.clear();
+    textVector.clear();
+  }
+
+  @Test
+  public void testSortIsStable() throws SFException
+  {
+    // more rows than sorted by insertion, with equal rows in reverse order
+    // of their neighbours
+    final int rowCount = 100;
+    Integer[] ints = new Integer[rowCount];
+    String[] texts = new String[rowCount];
+    for (int i = 0; i < rowCount; i++)
+    {
+      ints[i] = (rowCount - i) % 3;
+      texts[i] = "x";
+    }
+
+    IntVector intVector = createIntVector(ints);
+    VarCharVector textVector = createTextVector(texts);
+    List<ValueVector> vectors = Arrays.asList(intVector, textVector);
+    List<ArrowVectorConverter> converters = Arrays.asList(
+        new IntToFixedConverter(intVector, 0, this),
+        new VarCharConverter(textVector, 1, this));
+
+    int[] sorted = new ArrowResultChunkIndexSorter(vectors, converters).sort();
+    for (int i = 1; i < rowCount; i++)
+    {
+      int previous = sorted[i - 1];
+      int current = sorted[i];
+      if (ints[previous].equals(ints[current]))
+      {
+        // equal rows keep the order they were received in
+        assertThat(previous < current, is(true));
+      }
+      else
+      {
+        assertThat(ints[previous] < ints[current], is(true));
+      }
+    }
+
+    intVector.clear();
+    textVector.clear();
+  }
+
+  @Test
+  public void testSortSingleRow() throws SFException
+  {
+    IntVector intVector = createIntVector(new Integer[]{null});
+    List<ValueVector> vectors = Arrays.asList(intVector);
+    List<ArrowVectorConverter> converters =
+        Arrays.asList(new IntToFixedConverter(intVector, 0, this));
+
+    assertThat(Arrays.equals(
+        new ArrowResultChunkIndexSorter(vectors, converters).sort(),
+        new int[]{0}), is(true));
+    intVector.clear();
+  }
+}
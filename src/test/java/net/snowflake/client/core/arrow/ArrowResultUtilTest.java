@@ -7,18 +7,25 @@ package net.snowflake.client.core.arrow;
 import net.snowflake.client.core.ResultUtil;
 import net.snowflake.client.core.SFException;
 import net.snowflake.client.core.SFSession;
+import net.snowflake.client.jdbc.SnowflakeUtil;
 import org.junit.After;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Random;
 import java.util.TimeZone;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 @RunWith(Parameterized.class)
 public class ArrowResultUtilTest
@@ -110,4 +117,72 @@ public class ArrowResultUtilTest
       assertEquals(nanos[i], ts.getNanos());
     }
   }
+
+  @Test
+  public void testToJavaInstant()
+  {
+    // ex: -1.123456789, -0.123456789, 0.123456789, 123.123456789, -123.123456789
+    long[] cases = {-1123456789, -123456789, 123456789, 123123456789l, -123123456789l};
+    long[] seconds = {-2, -1, 0, 123, -124};
+    int[] nanos = {876543211, 876543211, 123456789, 123456789, 876543211};
+    int scale = 9;
+    for (int i = 0; i < cases.length; i++)
+    {
+      Instant instant = ArrowResultUtil.toJavaInstant(cases[i], scale);
+      assertEquals(seconds[i], instant.getEpochSecond());
+      assertEquals(nanos[i], instant.getNano());
+      assertEquals(ArrowResultUtil.toJavaTimestamp(cases[i], scale).toInstant(),
+                   instant);
+    }
+
+    // out of the range of java.time
+    assertNull(ArrowResultUtil.toJavaInstant(Long.MAX_VALUE, 0));
+  }
+
+  @Test
+  public void testGetZoneId()
+  {
+    ZoneId session = ZoneId.of("Asia/Tokyo");
+    assertEquals(session, ArrowResultUtil.getZoneId(
+        SnowflakeUtil.EXTRA_TYPES_TIMESTAMP_LTZ, session, true));
+    assertEquals(session, ArrowResultUtil.getZoneId(
+        SnowflakeUtil.EXTRA_TYPES_TIMESTAMP_TZ, session, false));
+    assertEquals(ZoneId.systemDefault(), ArrowResultUtil.getZoneId(
+        SnowflakeUtil.EXTRA_TYPES_TIMESTAMP_LTZ, null, true));
+
+    // TIMESTAMP_NTZ
+    assertEquals(ZoneId.systemDefault(),
+                 ArrowResultUtil.getZoneId(Types.TIMESTAMP, session, true));
+    assertEquals(ZoneOffset.UTC,
+                 ArrowResultUtil.getZoneId(Types.TIMESTAMP, session, false));
+
+    assertEquals(ZoneId.systemDefault(),
+                 ArrowResultUtil.getZoneId(Types.DATE, session, false));
+  }
+
+  @Test
+  public void testToZoneOffset()
+  {
+    assertEquals(ZoneOffset.ofHours(-8), ArrowResultUtil.toZoneOffset(960, 1));
+    assertEquals(ZoneOffset.UTC, ArrowResultUtil.toZoneOffset(1440, 1));
+    assertEquals(ZoneOffset.ofHoursMinutes(5, 30),
+                 ArrowResultUtil.toZoneOffset(1770, 1));
+    // result version 0 has no time zone
+    assertEquals(ZoneOffset.UTC, ArrowResultUtil.toZoneOffset(960, 0));
+  }
+
+  @Test
+  public void testUnscaledToDouble()
+  {
+    long[] unscaled = {0, 15, -125, 123456789012345L, Long.MAX_VALUE,
+                       Long.MIN_VALUE, 9007199254740993L};
+    int[] scales = {0, 1, 3, 6, 2, 38, 5};
+    for (int i = 0; i < unscaled.length; i++)
+    {
+      // the same double as through a BigDecimal
+      assertEquals(BigDecimal.valueOf(unscaled[i], scales[i]).doubleValue(),
+                   ArrowResultUtil.unscaledToDouble(unscaled[i], scales[i]),
+                   0);
+    }
+  }
 }
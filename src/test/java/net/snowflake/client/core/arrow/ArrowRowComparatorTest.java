@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.core.arrow;
+
+import net.snowflake.client.core.SFException;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ArrowRowComparatorTest extends BaseConverterTest
+{
+  /**
+   * allocator for arrow
+   */
+  private BufferAllocator allocator = new RootAllocator(Integer.MAX_VALUE);
+
+  // BMP characters, U+E000 to U+FFFF and supplementary characters, whose
+  // UTF-8 and UTF-16 orders differ
+  private static final String[] STRINGS = {
+      "", "a", "ab", "b", "\u00e9", "\u4e2d", "\ue000", "\ufffd",
+      "\uffff", "\ud83d\ude00", "\ud83d\ude00a", "\ud800\udc00",
+      "\udbff\udfff", "a\ud83d\ude00", "a\uffff", "ab"
+  };
+
+  private static final long[] LONGS = {
+      0, 1, -1, 9, 10, -9, -10, 11, 12, 99, 100, 123, 1230, 124, -123,
+      -1230, Long.MAX_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE,
+      Long.MIN_VALUE + 1, Integer.MAX_VALUE, Integer.MIN_VALUE,
+      1000000000000000000L, 999999999999999999L, -922337203685477580L
+  };
+
+  private static Map<String, String> fixedMeta()
+  {
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "FIXED");
+    customFieldMeta.put("precision", "19");
+    customFieldMeta.put("scale", "0");
+    return customFieldMeta;
+  }
+
+  private VarCharVector createTextVector(String... values)
+  {
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "TEXT");
+    FieldType fieldType = new FieldType(true,
+                                        Types.MinorType.VARCHAR.getType(),
+                                        null, customFieldMeta);
+
+    VarCharVector vector = new VarCharVector("col_one", fieldType, allocator);
+    for (int i = 0; i < values.length; i++)
+    {
+      if (values[i] == null)
+      {
+        vector.setNull(i);
+      }
+      else
+      {
+        vector.setSafe(i, values[i].getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    vector.setValueCount(values.length);
+    return vector;
+  }
+
+  private BigIntVector createBigIntVector(Long... values)
+  {
+    FieldType fieldType = new FieldType(true,
+                                        Types.MinorType.BIGINT.getType(),
+                                        null, fixedMeta());
+
+    BigIntVector vector = new BigIntVector("col_one", fieldType, allocator);
+    for (int i = 0; i < values.length; i++)
+    {
+      if (values[i] == null)
+      {
+        vector.setNull(i);
+      }
+      else
+      {
+        vector.setSafe(i, values[i]);
+      }
+    }
+    vector.setValueCount(values.length);
+    return vector;
+  }
+
+  /**
+   * Compare two rows of the same single column record batch
+   */
+  private static int compare(ArrowRowComparator comparator,
+                             List<ValueVector> vectors,
+                             List<ArrowVectorConverter> converters,
+                             int index1, int index2) throws SFException
+  {
+    return Integer.signum(comparator.compare(vectors, converters, index1,
+                                             vectors, converters, index2));
+  }
+
+  @Test
+  public void testCompareUtf8Bytes()
+  {
+    // supplementary characters before U+E000 to U+FFFF, as in UTF-16
+    assertThat(ArrowRowComparator.compareUtf8Bytes(0xF0, 0xEE) < 0, is(true));
+    assertThat(ArrowRowComparator.compareUtf8Bytes(0xF4, 0xEF) < 0, is(true));
+    assertThat(ArrowRowComparator.compareUtf8Bytes(0xEF, 0xF0) > 0, is(true));
+    assertThat(ArrowRowComparator.compareUtf8Bytes(0xEE, 0xF4) > 0, is(true));
+
+    // the other bytes in code point order
+    assertThat(ArrowRowComparator.compareUtf8Bytes(0xED, 0xF0) < 0, is(true));
+    assertThat(ArrowRowComparator.compareUtf8Bytes(0x61, 0xEE) < 0, is(true));
+    assertThat(ArrowRowComparator.compareUtf8Bytes(0xEE, 0xEF) < 0, is(true));
+    assertThat(ArrowRowComparator.compareUtf8Bytes(0xF1, 0xF0) > 0, is(true));
+  }
+
+  @Test
+  public void testCompareTextInStringOrder() throws SFException
+  {
+    VarCharVector vector = createTextVector(STRINGS);
+    List<ValueVector> vectors = Collections.singletonList(vector);
+    List<ArrowVectorConverter> converters =
+        Collections.singletonList(new VarCharConverter(vector, 0, this));
+    ArrowRowComparator comparator = new ArrowRowComparator(vectors);
+    assertThat(comparator.isThreadSafe(), is(true));
+
+    for (int i = 0; i < STRINGS.length; i++)
+    {
+      for (int j = 0; j < STRINGS.length; j++)
+      {
+        assertThat(STRINGS[i] + " vs " + STRINGS[j],
+                   compare(comparator, vectors, converters, i, j),
+                   is(Integer.signum(STRINGS[i].compareTo(STRINGS[j]))));
+      }
+    }
+    vector.clear();
+  }
+
+  @Test
+  public void testCompareAsDecimalStrings()
+  {
+    for (long v1 : LONGS)
+    {
+      for (long v2 : LONGS)
+      {
+        assertThat(v1 + " vs " + v2,
+                   Integer.signum(
+                       ArrowRowComparator.compareAsDecimalStrings(v1, v2)),
+                   is(Integer.signum(
+                       Long.toString(v1).compareTo(Long.toString(v2)))));
+      }
+    }
+  }
+
+  @Test
+  public void testCompareIntegersWithNullsLast() throws SFException
+  {
+    BigIntVector vector = createBigIntVector(9L, 10L, null, -1L, null);
+    List<ValueVector> vectors = Collections.singletonList(vector);
+    List<ArrowVectorConverter> converters =
+        Collections.singletonList(new BigIntToFixedConverter(vector, 0, this));
+    ArrowRowComparator comparator = new ArrowRowComparator(vectors);
+
+    // "10" sorts before "9"
+    assertThat(compare(comparator, vectors, converters, 1, 0), is(-1));
+    assertThat(compare(comparator, vectors, converters, 3, 1), is(-1));
+    assertThat(compare(comparator, vectors, converters, 0, 0), is(0));
+
+    // null is bigger than all values
+    assertThat(compare(comparator, vectors, converters, 2, 0), is(1));
+    assertThat(compare(comparator, vectors, converters, 3, 4), is(-1));
+    assertThat(compare(comparator, vectors, converters, 2, 4), is(0));
+    vector.clear();
+  }
+
+  @Test
+  public void testCompareRowsOfDifferentBatches() throws SFException
+  {
+    VarCharVector text1 = createTextVector("a", "b");
+    BigIntVector int1 = createBigIntVector(2L, 1L);
+    VarCharVector text2 = createTextVector("a", "a");
+    BigIntVector int2 = createBigIntVector(10L, 3L);
+    List<ValueVector> vectors1 = Arrays.asList(text1, int1);
+    List<ValueVector> vectors2 = Arrays.asList(text2, int2);
+    List<ArrowVectorConverter> converters1 = Arrays.asList(
+        new VarCharConverter(text1, 0, this),
+        new BigIntToFixedConverter(int1, 1, this));
+    List<ArrowVectorConverter> converters2 = Arrays.asList(
+        new VarCharConverter(text2, 0, this),
+        new BigIntToFixedConverter(int2, 1, this));
+    ArrowRowComparator comparator = new ArrowRowComparator(vectors1);
+
+    // same first column, "2" sorts after "10" and before "3"
+    assertThat(comparator.compare(vectors1, converters1, 0,
+                                  vectors2, converters2, 0) > 0, is(true));
+    assertThat(comparator.compare(vectors1, converters1, 0,
+                                  vectors2, converters2, 1) < 0, is(true));
+    // the first column decides
+    assertThat(comparator.compare(vectors1, converters1, 1,
+                                  vectors2, converters2, 0) > 0, is(true));
+
+    for (ValueVector vector : Arrays.asList(text1, int1, text2, int2))
+    {
+      vector.clear();
+    }
+  }
+}
@@ -19,6 +19,7 @@ import org.junit.runners.Parameterized;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -138,6 +139,7 @@ public class BigIntToTimestampNTZConverterTest extends BaseConverterTest
       {
         assertThat(ts, is(nullValue()));
         assertThat(date, is(nullValue()));
+        assertThat(converter.toLocalDateTime(j), is(nullValue()));
       }
       else
       {
@@ -176,6 +178,11 @@ public class BigIntToTimestampNTZConverterTest extends BaseConverterTest
         assertThat(oldDate, is(date));
         assertThat(timestampStr, is(tsStr));
         assertThat(oldTime, is(time));
+
+        // the wall clock time is stored as if in UTC
+        assertThat(converter.toLocalDateTime(j),
+                   is(LocalDateTime.of(2019, 1, 2, 1, 17, 17)));
+        assertThat(converter.toInstant(j), is(oldTs.toInstant()));
         i++;
         if (i < testScales.length)
         {
@@ -23,6 +23,8 @@ import org.junit.runners.Parameterized;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -212,6 +214,7 @@ public class ThreeFieldStructToTimestampTZConverterTest extends BaseConverterTes
       {
         assertThat(ts, is(nullValue()));
         assertThat(date, is(nullValue()));
+        assertThat(converter.toOffsetDateTime(j), is(nullValue()));
       }
       else
       {
@@ -245,6 +248,16 @@ public class ThreeFieldStructToTimestampTZConverterTest extends BaseConverterTes
         assertThat(oldTs, is(ts));
         assertThat(oldTime, is(time));
         assertThat(timestampStr, is(tsStr));
+
+        // java.time values at the offset of the value
+        OffsetDateTime dateTime = converter.toOffsetDateTime(j);
+        assertThat(dateTime.toInstant(),
+                   is(Instant.ofEpochSecond(testSecondsInt64[i], testNanos[i])));
+        assertThat(dateTime.getOffset().getTotalSeconds(),
+                   is((testTimeZoneIndices[i] - 1440) * 60));
+        assertThat(converter.toInstant(j), is(dateTime.toInstant()));
+        assertThat(converter.toLocalDateTime(j),
+                   is(dateTime.toLocalDateTime()));
         i++;
         if (i < testNanos.length)
         {
@@ -12,6 +12,7 @@ import org.apache.arrow.vector.types.pojo.FieldType;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Test;
 
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -20,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -92,4 +94,144 @@ public class VarCharConverterTest extends BaseConverterTest
     }
     vector.clear();
   }
+
+  @Test
+  public void testConvertToNumbers()
+  {
+    String[] values = {"0", "-0", "+42", "-9223372036854775808",
+                       "9223372036854775807", "9223372036854775808", "32768",
+                       "-2147483649", "1.5", "-0.125", ".5", "7.", "-.25",
+                       "123456789.0123456789", "1e10", " 12", "-", ".", "",
+                       "1.2.3", "abc", "0.1000000000000000055511151231257827"};
+
+    FieldType fieldType = new FieldType(true,
+                                        Types.MinorType.VARCHAR.getType(),
+                                        null, null);
+    VarCharVector vector = new VarCharVector("col_one", fieldType, allocator);
+    for (int i = 0; i < values.length; i++)
+    {
+      vector.setSafe(i, values[i].getBytes(StandardCharsets.UTF_8));
+    }
+    vector.setNull(values.length);
+    vector.setValueCount(values.length + 1);
+
+    VarCharConverter converter = new VarCharConverter(vector, 0, this);
+    for (int i = 0; i < values.length; i++)
+    {
+      // the same values and errors as parsing the String
+      String value = values[i];
+      int index = i;
+      assertSameResult(value, () -> Short.parseShort(value),
+                       () -> converter.toShort(index));
+      assertSameResult(value, () -> Integer.parseInt(value),
+                       () -> converter.toInt(index));
+      assertSameResult(value, () -> Long.parseLong(value),
+                       () -> converter.toLong(index));
+      assertSameResult(value, () -> Double.parseDouble(value),
+                       () -> converter.toDouble(index));
+      assertSameResult(value, () -> new BigDecimal(value),
+                       () -> converter.toBigDecimal(index));
+    }
+
+    assertThat(converter.toLong(values.length), is(0L));
+    assertThat(converter.toDouble(values.length), is(0.0));
+    assertThat(converter.toBigDecimal(values.length), is(nullValue()));
+    vector.clear();
+  }
+
+  @Test
+  public void testDecodeCache()
+  {
+    FieldType fieldType = new FieldType(true,
+                                        Types.MinorType.VARCHAR.getType(),
+                                        null, null);
+    VarCharVector vector = new VarCharVector("col_one", fieldType, allocator);
+    vector.setSafe(0, "first".getBytes(StandardCharsets.UTF_8));
+    vector.setSafe(1, "second".getBytes(StandardCharsets.UTF_8));
+    vector.setValueCount(2);
+
+    VarCharConverter converter = new VarCharConverter(vector, 0, this);
+    String first = converter.toString(0);
+    assertThat(converter.toString(0) == first, is(true));
+    assertThat(converter.toObject(0) == first, is(true));
+    assertThat(converter.toString(1), is("second"));
+    assertThat(converter.toString(0) == first, is(false));
+    assertThat(converter.toString(0), is("first"));
+
+    // a new record batch
+    VarCharVector next = new VarCharVector("col_one", fieldType, allocator);
+    next.setSafe(0, "third".getBytes(StandardCharsets.UTF_8));
+    next.setValueCount(1);
+    converter.setVector(next);
+    assertThat(converter.toString(0), is("third"));
+
+    vector.clear();
+    next.clear();
+  }
+
+  @Test
+  public void testDisableDecodeCache()
+  {
+    FieldType fieldType = new FieldType(true,
+                                        Types.MinorType.VARCHAR.getType(),
+                                        null, null);
+    VarCharVector vector = new VarCharVector("col_one", fieldType, allocator);
+    vector.setSafe(0, "first".getBytes(StandardCharsets.UTF_8));
+    vector.setValueCount(1);
+
+    System.setProperty(VarCharConverter.DISABLE_VARCHAR_DECODE_CACHE_JVM,
+                       "true");
+    try
+    {
+      VarCharConverter converter = new VarCharConverter(vector, 0, this);
+      String first = converter.toString(0);
+      assertThat(converter.toString(0) == first, is(false));
+      assertThat(converter.toString(0), is("first"));
+    }
+    finally
+    {
+      System.clearProperty(VarCharConverter.DISABLE_VARCHAR_DECODE_CACHE_JVM);
+    }
+
+    // only true turns it off
+    System.setProperty(VarCharConverter.DISABLE_VARCHAR_DECODE_CACHE_JVM,
+                       "false");
+    try
+    {
+      VarCharConverter converter = new VarCharConverter(vector, 0, this);
+      String first = converter.toString(0);
+      assertThat(converter.toString(0) == first, is(true));
+    }
+    finally
+    {
+      System.clearProperty(VarCharConverter.DISABLE_VARCHAR_DECODE_CACHE_JVM);
+    }
+    vector.clear();
+  }
+
+  private static void assertSameResult(String value,
+                                       Callable<Object> expected,
+                                       Callable<Object> actual)
+  {
+    Object expectedResult;
+    try
+    {
+      expectedResult = expected.call();
+    }
+    catch (Exception ex)
+    {
+      expectedResult = ex.getClass();
+    }
+
+    Object actualResult;
+    try
+    {
+      actualResult = actual.call();
+    }
+    catch (Exception ex)
+    {
+      actualResult = ex.getClass();
+    }
+    assertThat(value, actualResult, is(expectedResult));
+  }
 }
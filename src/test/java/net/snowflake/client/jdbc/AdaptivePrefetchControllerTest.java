@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All right reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Adaptive prefetch controller unit test
+ */
+public class AdaptivePrefetchControllerTest
+{
+  @Test
+  public void testGrowWhenConsumerStalls()
+  {
+    AdaptivePrefetchController controller = new AdaptivePrefetchController(4, 8);
+    assertEquals(4, controller.getWindow());
+
+    controller.recordConsume(-1, 100);
+    controller.recordConsume(10, 50);
+    assertEquals(6, controller.getWindow());
+
+    for (int i = 0; i < 10; i++)
+    {
+      controller.recordConsume(10, 50);
+    }
+    assertEquals(8, controller.getWindow());
+  }
+
+  @Test
+  public void testShrinkForSlowConsumer()
+  {
+    AdaptivePrefetchController controller = new AdaptivePrefetchController(8, 16);
+
+    // fetching takes 100 ms, consuming a chunk takes 1 second
+    for (int i = 0; i < 20; i++)
+    {
+      controller.recordFetch(80, 20);
+      controller.recordConsume(1000, 0);
+    }
+    assertEquals(2, controller.getWindow());
+  }
+
+  @Test
+  public void testTargetFollowsRates()
+  {
+    AdaptivePrefetchController controller = new AdaptivePrefetchController(2, 16);
+
+    // fetching takes 400 ms, consuming a chunk takes 100 ms
+    controller.recordFetch(300, 100);
+    controller.recordConsume(100, 0);
+    assertEquals(5, controller.getWindow());
+    assertEquals(400, controller.getAverageFetchMillis());
+    assertEquals(100, controller.getAverageDwellMillis());
+  }
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import net.snowflake.client.core.SFFixedViewResultSet;
+import net.snowflake.client.core.arrow.ArrowResultUtil;
+import net.snowflake.client.core.arrow.ArrowVectorConverter;
+import net.snowflake.client.core.arrow.BaseConverterTest;
+import net.snowflake.client.core.arrow.BigIntToFixedConverter;
+import net.snowflake.client.core.arrow.BigIntToScaledFixedConverter;
+import net.snowflake.client.core.arrow.BigIntToTimestampLTZConverter;
+import net.snowflake.client.core.arrow.DoubleToRealConverter;
+import net.snowflake.client.core.arrow.IntToFixedConverter;
+import net.snowflake.client.core.arrow.IntToScaledFixedConverter;
+import net.snowflake.client.core.arrow.SmallIntToFixedConverter;
+import net.snowflake.client.core.arrow.TinyIntToFixedConverter;
+import net.snowflake.client.core.arrow.TwoFieldStructToTimestampLTZConverter;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.ValueVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.complex.StructVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ArrowBatchTest
+{
+  private static final int ROW_COUNT = 100;
+
+  /**
+   * allocator for arrow
+   */
+  private BufferAllocator allocator = new RootAllocator(Integer.MAX_VALUE);
+
+  private final BaseConverterTest context = new BaseConverterTest();
+
+  private final List<ValueVector> vectors = new ArrayList<>();
+
+  @After
+  public void tearDown()
+  {
+    for (ValueVector vector : vectors)
+    {
+      vector.close();
+    }
+    allocator.close();
+  }
+
+  private static FieldType fieldType(Types.MinorType type,
+                                     String logicalType,
+                                     int scale)
+  {
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", logicalType);
+    customFieldMeta.put("precision", "38");
+    customFieldMeta.put("scale", String.valueOf(scale));
+    return new FieldType(true, type.getType(), null, customFieldMeta);
+  }
+
+  /**
+   * @return true if the row holds a null, every seventh row
+   */
+  private static boolean isNullRow(int row)
+  {
+    return row % 7 == 3;
+  }
+
+  /**
+   * Fill a fixed width vector with signed values, nulls every seventh row
+   */
+  private <T extends ValueVector> T fill(T vector, ValueSetter<T> setter)
+  {
+    vectors.add(vector);
+    for (int i = 0; i < ROW_COUNT; i++)
+    {
+      if (isNullRow(i))
+      {
+        setter.setNull(vector, i);
+      }
+      else
+      {
+        // negative values too
+        setter.set(vector, i, (i - ROW_COUNT / 2) * 3);
+      }
+    }
+    vector.setValueCount(ROW_COUNT);
+    return vector;
+  }
+
+  private interface ValueSetter<T>
+  {
+    void set(T vector, int index, int value);
+
+    void setNull(T vector, int index);
+  }
+
+  private TinyIntVector createTinyIntVector(int scale)
+  {
+    return fill(new TinyIntVector("col_tinyint", fieldType(
+        Types.MinorType.TINYINT, "FIXED", scale), allocator),
+                new ValueSetter<TinyIntVector>()
+                {
+                  @Override
+                  public void set(TinyIntVector vector, int index, int value)
+                  {
+                    vector.setSafe(index, value / 2);
+                  }
+
+                  @Override
+                  public void setNull(TinyIntVector vector, int index)
+                  {
+                    vector.setNull(index);
+                  }
+                });
+  }
+
+  private SmallIntVector createSmallIntVector(int scale)
+  {
+    return fill(new SmallIntVector("col_smallint", fieldType(
+        Types.MinorType.SMALLINT, "FIXED", scale), allocator),
+                new ValueSetter<SmallIntVector>()
+                {
+                  @Override
+                  public void set(SmallIntVector vector, int index, int value)
+                  {
+                    vector.setSafe(index, value * 100);
+                  }
+
+                  @Override
+                  public void setNull(SmallIntVector vector, int index)
+                  {
+                    vector.setNull(index);
+                  }
+                });
+  }
+
+  private IntVector createIntVector(int scale)
+  {
+    return fill(new IntVector("col_int", fieldType(
+        Types.MinorType.INT, "FIXED", scale), allocator),
+                new ValueSetter<IntVector>()
+                {
+                  @Override
+                  public void set(IntVector vector, int index, int value)
+                  {
+                    vector.setSafe(index, value * 100000);
+                  }
+
+                  @Override
+                  public void setNull(IntVector vector, int index)
+                  {
+                    vector.setNull(index);
+                  }
+                });
+  }
+
+  private BigIntVector createBigIntVector(String logicalType, int scale)
+  {
+    return fill(new BigIntVector("col_bigint", fieldType(
+        Types.MinorType.BIGINT, logicalType, scale), allocator),
+                new ValueSetter<BigIntVector>()
+                {
+                  @Override
+                  public void set(BigIntVector vector, int index, int value)
+                  {
+                    vector.setSafe(index, value * 12345678901L);
+                  }
+
+                  @Override
+                  public void setNull(BigIntVector vector, int index)
+                  {
+                    vector.setNull(index);
+                  }
+                });
+  }
+
+  private Float8Vector createFloat8Vector()
+  {
+    return fill(new Float8Vector("col_real", fieldType(
+        Types.MinorType.FLOAT8, "REAL", 0), allocator),
+                new ValueSetter<Float8Vector>()
+                {
+                  @Override
+                  public void set(Float8Vector vector, int index, int value)
+                  {
+                    vector.setSafe(index, value / 7.0);
+                  }
+
+                  @Override
+                  public void setNull(Float8Vector vector, int index)
+                  {
+                    vector.setNull(index);
+                  }
+                });
+  }
+
+  /**
+   * @return TIMESTAMP_LTZ column of seconds since epoch and nanoseconds
+   */
+  private StructVector createTimestampStructVector()
+  {
+    FieldType epochType = new FieldType(true,
+                                        Types.MinorType.BIGINT.getType(),
+                                        null, null);
+    FieldType fractionType = new FieldType(true,
+                                           Types.MinorType.INT.getType(),
+                                           null, null);
+    Field field = new Field(
+        "col_timestamp",
+        fieldType(Types.MinorType.STRUCT, "TIMESTAMP_LTZ", 9),
+        Arrays.asList(
+            new Field(ArrowResultUtil.FIELD_NAME_EPOCH, epochType, null),
+            new Field(ArrowResultUtil.FIELD_NAME_FRACTION, fractionType,
+                      null)));
+    StructVector vector = (StructVector) field.createVector(allocator);
+    vectors.add(vector);
+
+    BigIntVector epochs = vector.getChild(ArrowResultUtil.FIELD_NAME_EPOCH,
+                                          BigIntVector.class);
+    IntVector fractions = vector.getChild(
+        ArrowResultUtil.FIELD_NAME_FRACTION, IntVector.class);
+    for (int i = 0; i < ROW_COUNT; i++)
+    {
+      if (isNullRow(i))
+      {
+        epochs.setNull(i);
+        fractions.setNull(i);
+      }
+      else
+      {
+        // before and after epoch
+        epochs.setSafe(i, (i - ROW_COUNT / 2) * 86400L * 365);
+        fractions.setSafe(i, i * 9876543);
+      }
+      vector.setIndexDefined(i);
+    }
+    epochs.setValueCount(ROW_COUNT);
+    fractions.setValueCount(ROW_COUNT);
+    vector.setValueCount(ROW_COUNT);
+    return vector;
+  }
+
+  private ArrowBatch createBatch(ValueVector... columns)
+  {
+    return new ArrowBatch(Arrays.asList(columns), context);
+  }
+
+  /**
+   * Check the longs of a column against the row getter of its converter
+   */
+  private static void assertLongs(ArrowBatch batch, int columnIndex,
+                                  ArrowVectorConverter converter)
+  throws Exception
+  {
+    long[] values = batch.getLongs(columnIndex);
+    assertThat(values.length, is(ROW_COUNT));
+    for (int i = 0; i < ROW_COUNT; i++)
+    {
+      assertThat(batch.isNull(columnIndex, i), is(isNullRow(i)));
+      assertThat(converter.isNull(i), is(isNullRow(i)));
+      assertThat(values[i], is(isNullRow(i) ? 0 :
+                               converter.toUnscaledLong(i)));
+    }
+  }
+
+  /**
+   * Check the doubles of a column against the row getter of its converter
+   */
+  private static void assertDoubles(ArrowBatch batch, int columnIndex,
+                                    ArrowVectorConverter converter)
+  throws Exception
+  {
+    double[] values = batch.getDoubles(columnIndex);
+    assertThat(values.length, is(ROW_COUNT));
+    for (int i = 0; i < ROW_COUNT; i++)
+    {
+      assertThat(batch.isNull(columnIndex, i), is(isNullRow(i)));
+      assertThat(values[i], is(isNullRow(i) ? 0 : converter.toDouble(i)));
+    }
+  }
+
+  /**
+   * Check the nanoseconds of a column against the instants of its converter
+   */
+  private static void assertEpochNanos(ArrowBatch batch, int columnIndex,
+                                       ArrowVectorConverter converter)
+  throws Exception
+  {
+    long[] values = batch.getEpochNanos(columnIndex);
+    assertThat(values.length, is(ROW_COUNT));
+    for (int i = 0; i < ROW_COUNT; i++)
+    {
+      assertThat(batch.isNull(columnIndex, i), is(isNullRow(i)));
+      Instant instant = converter.toInstant(i);
+      if (isNullRow(i))
+      {
+        assertThat(instant == null, is(true));
+        assertThat(values[i], is(0L));
+      }
+      else
+      {
+        assertThat(values[i], is(instant.getEpochSecond() * 1000000000L +
+                                 instant.getNano()));
+      }
+    }
+  }
+
+  @Test
+  public void testShape()
+  {
+    ArrowBatch batch = createBatch(createIntVector(0), createFloat8Vector());
+    assertThat(batch.getRowCount(), is(ROW_COUNT));
+    assertThat(batch.getColumnCount(), is(2));
+    assertThat(batch.getVectors().size(), is(2));
+    assertThat(batch.getVectorSchemaRoot().getRowCount(), is(ROW_COUNT));
+    assertThat(batch.getVectorSchemaRoot().getFieldVectors().size(), is(2));
+    assertThat(createBatch().getRowCount(), is(0));
+  }
+
+  @Test
+  public void testGetLongs() throws Exception
+  {
+    TinyIntVector tinyInts = createTinyIntVector(0);
+    SmallIntVector smallInts = createSmallIntVector(0);
+    IntVector ints = createIntVector(0);
+    BigIntVector bigInts = createBigIntVector("FIXED", 0);
+    IntVector scaledInts = createIntVector(3);
+    ArrowBatch batch =
+        createBatch(tinyInts, smallInts, ints, bigInts, scaledInts);
+
+    assertLongs(batch, 0, new TinyIntToFixedConverter(tinyInts, 0, context));
+    assertLongs(batch, 1,
+                new SmallIntToFixedConverter(smallInts, 1, context));
+    assertLongs(batch, 2, new IntToFixedConverter(ints, 2, context));
+    assertLongs(batch, 3, new BigIntToFixedConverter(bigInts, 3, context));
+    // unscaled values
+    assertLongs(batch, 4,
+                new IntToScaledFixedConverter(scaledInts, 4, context, 3));
+
+    // unscaled row values are the values
+    ArrowVectorConverter converter =
+        new IntToFixedConverter(ints, 2, context);
+    long[] values = batch.getLongs(2);
+    for (int i = 0; i < ROW_COUNT; i++)
+    {
+      if (!isNullRow(i))
+      {
+        assertThat(values[i], is(converter.toLong(i)));
+      }
+    }
+  }
+
+  @Test
+  public void testGetDoubles() throws Exception
+  {
+    IntVector ints = createIntVector(0);
+    IntVector scaledInts = createIntVector(4);
+    BigIntVector scaledBigInts = createBigIntVector("FIXED", 9);
+    Float8Vector doubles = createFloat8Vector();
+    ArrowBatch batch = createBatch(ints, scaledInts, scaledBigInts, doubles);
+
+    assertDoubles(batch, 0, new IntToFixedConverter(ints, 0, context));
+    assertDoubles(batch, 1,
+                  new IntToScaledFixedConverter(scaledInts, 1, context, 4));
+    assertDoubles(batch, 2, new BigIntToScaledFixedConverter(
+        scaledBigInts, 2, context, 9));
+    assertDoubles(batch, 3, new DoubleToRealConverter(doubles, 3, context));
+  }
+
+  @Test
+  public void testGetEpochNanos() throws Exception
+  {
+    context.setScale(3);
+    BigIntVector scaledTimestamps = createBigIntVector("TIMESTAMP_LTZ", 3);
+    StructVector timestamps = createTimestampStructVector();
+    ArrowBatch batch = createBatch(scaledTimestamps, timestamps);
+
+    assertEpochNanos(batch, 0, new BigIntToTimestampLTZConverter(
+        scaledTimestamps, 0, context));
+    assertEpochNanos(batch, 1, new TwoFieldStructToTimestampLTZConverter(
+        timestamps, 1, context));
+  }
+
+  @Test
+  public void testUnsupportedConversions() throws Exception
+  {
+    VarCharVector texts = new VarCharVector(
+        "col_text", fieldType(Types.MinorType.VARCHAR, "TEXT", 0), allocator);
+    vectors.add(texts);
+    texts.setSafe(0, "a".getBytes(StandardCharsets.UTF_8));
+    texts.setValueCount(1);
+    ArrowBatch batch = createBatch(texts);
+
+    try
+    {
+      batch.getLongs(0);
+      fail("TEXT is not expected to convert to longs");
+    }
+    catch (SQLException ex)
+    {
+      assertThat(ex.getMessage().contains("Cannot convert column 1"),
+                 is(true));
+    }
+    try
+    {
+      batch.getDoubles(0);
+      fail("TEXT is not expected to convert to doubles");
+    }
+    catch (SQLException ex)
+    {
+      // expected
+    }
+
+    batch = createBatch(createIntVector(0));
+    try
+    {
+      batch.getEpochNanos(0);
+      fail("FIXED is not expected to convert to timestamps");
+    }
+    catch (SQLException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testNextArrowBatchOfJsonResult() throws Exception
+  {
+    SnowflakeResultSetV1 resultSet = new SnowflakeResultSetV1(
+        new SFFixedViewResultSet(new SnowflakeFixedView()
+        {
+          @Override
+          public List<SnowflakeColumnMetadata> describeColumns()
+          {
+            return Collections.emptyList();
+          }
+
+          @Override
+          public List<Object> getNextRow()
+          {
+            return null;
+          }
+
+          @Override
+          public int getTotalRows()
+          {
+            return 0;
+          }
+        }, null), null);
+
+    try
+    {
+      resultSet.nextArrowBatch();
+      fail("record batches are not expected of a result not in Arrow");
+    }
+    catch (SnowflakeSQLException ex)
+    {
+      assertThat(ex.getErrorCode(),
+                 is(ErrorCode.FEATURE_UNSUPPORTED.getMessageCode()));
+    }
+  }
+}
@@ -3,10 +3,32 @@
  */
 package net.snowflake.client.jdbc;
 
+import net.snowflake.client.core.SFException;
+import net.snowflake.client.core.arrow.ArrowVectorConverter;
+import net.snowflake.client.core.arrow.BaseConverterTest;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.FieldType;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 
 public class ArrowResultChunkTest
 {
@@ -20,4 +42,277 @@ public class ArrowResultChunkTest
     assertThat(iterator.isAfterLast(), is(true));
     assertThat(iterator.isLast(), is(false));
   }
+
+  @Test
+  public void testChunkMemoryReleased() throws Exception
+  {
+    ArrowResultAllocator resultAllocator =
+        ArrowResultChunk.createResultAllocator("query", 1024 * 1024);
+    ArrowResultChunk chunk =
+        new ArrowResultChunk("", 1000, 1, 4000, resultAllocator);
+
+    ArrowResultChunk.readArrowStream(
+        new ByteArrayInputStream(writeIntBatch(1000)), chunk);
+
+    assertThat(chunk.getAllocatedMemory() >= 4000, is(true));
+    assertThat(resultAllocator.getAllocatedMemory(),
+               is(chunk.getAllocatedMemory()));
+
+    chunk.freeData();
+    assertThat(chunk.getAllocatedMemory(), is(0L));
+    assertThat(resultAllocator.getAllocatedMemory(), is(0L));
+    resultAllocator.release();
+  }
+
+  @Test
+  public void testSortedIteratorMergesBatches() throws Exception
+  {
+    BaseConverterTest context = new BaseConverterTest();
+    // an empty batch, and batches spread over two chunks
+    ArrowResultChunk chunk1 =
+        createChunk(new int[]{5, 1, 5}, new int[0], new int[]{20, 3});
+    ArrowResultChunk chunk2 = createChunk(new int[]{5, 3});
+
+    ArrowResultChunk.ArrowChunkIterator iterator =
+        ArrowResultChunk.getSortedIterator(Arrays.asList(chunk1, chunk2),
+                                           context);
+    assertThat(iterator.isLast(), is(false));
+    assertThat(iterator.isAfterLast(), is(false));
+
+    List<Long> values = new ArrayList<>();
+    List<ArrowVectorConverter> converters = new ArrayList<>();
+    List<Integer> rows = new ArrayList<>();
+    List<Boolean> lasts = new ArrayList<>();
+    while (iterator.next())
+    {
+      ArrowVectorConverter converter = iterator.getCurrentConverter(0);
+      values.add(converter.toLong(iterator.getCurrentRowInRecordBatch()));
+      converters.add(converter);
+      rows.add(iterator.getCurrentRowInRecordBatch());
+      lasts.add(iterator.isLast());
+    }
+
+    // in the order of the strings of the values
+    assertThat(values, is(Arrays.asList(1L, 20L, 3L, 3L, 5L, 5L, 5L)));
+    assertThat(lasts, is(Arrays.asList(false, false, false, false, false,
+                                       false, true)));
+    assertThat(iterator.isAfterLast(), is(true));
+    assertThat(iterator.next(), is(false));
+
+    // ties go to the batch received first, then to the row received first
+    ArrowVectorConverter batch1 = converters.get(0);
+    ArrowVectorConverter batch3 = converters.get(1);
+    ArrowVectorConverter batch4 = converters.get(3);
+    assertThat(batch1, not(sameInstance(batch3)));
+    assertThat(batch3, not(sameInstance(batch4)));
+    assertThat(batch1, not(sameInstance(batch4)));
+    assertThat(converters.get(2), sameInstance(batch3));
+    assertThat(rows.subList(2, 4), is(Arrays.asList(1, 1)));
+    assertThat(converters.subList(4, 7),
+               is(Arrays.asList(batch1, batch1, batch4)));
+    assertThat(rows.subList(4, 7), is(Arrays.asList(0, 2, 0)));
+
+    chunk1.freeData();
+    chunk2.freeData();
+  }
+
+  @Test
+  public void testSortedIteratorSingleRow() throws Exception
+  {
+    ArrowResultChunk chunk = createChunk(new int[0], new int[]{7});
+    ArrowResultChunk.ArrowChunkIterator iterator =
+        ArrowResultChunk.getSortedIterator(Collections.singletonList(chunk),
+                                           new BaseConverterTest());
+
+    assertThat(iterator.next(), is(true));
+    assertThat(iterator.isLast(), is(true));
+    assertThat(iterator.getCurrentConverter(0)
+                   .toLong(iterator.getCurrentRowInRecordBatch()), is(7L));
+    assertThat(iterator.next(), is(false));
+    assertThat(iterator.isAfterLast(), is(true));
+    chunk.freeData();
+  }
+
+  @Test
+  public void testSortedIteratorWithoutRows() throws Exception
+  {
+    ArrowResultChunk chunk = createChunk(new int[0]);
+    ArrowResultChunk.ArrowChunkIterator iterator =
+        ArrowResultChunk.getSortedIterator(Collections.singletonList(chunk),
+                                           new BaseConverterTest());
+
+    assertThat(iterator.next(), is(false));
+    assertThat(iterator.isLast(), is(false));
+    assertThat(iterator.isAfterLast(), is(true));
+    try
+    {
+      iterator.getCurrentConverter(0);
+      fail("no current row is expected");
+    }
+    catch (SFException ex)
+    {
+      // expected
+    }
+    chunk.freeData();
+  }
+
+  @Test
+  public void testIteratorReusesConverters() throws Exception
+  {
+    BaseConverterTest context = new BaseConverterTest();
+    ArrowResultChunk chunk1 =
+        createChunk(new int[]{1, 2}, new int[]{3}, new int[]{4, 5});
+    ArrowResultChunk chunk2 = createChunk(new int[]{6, 7});
+
+    // one converter reads the vectors of every record batch
+    ArrowResultChunk.ArrowChunkIterator iterator1 = chunk1.getIterator(context);
+    assertThat(iterator1.next(), is(true));
+    ArrowVectorConverter converter = iterator1.getCurrentConverter(0);
+    List<Long> values = new ArrayList<>();
+    do
+    {
+      assertThat(iterator1.getCurrentConverter(0), sameInstance(converter));
+      values.add(converter.toLong(iterator1.getCurrentRowInRecordBatch()));
+    }
+    while (iterator1.next());
+
+    // and the record batches of the next chunk with the same schema
+    ArrowResultChunk.ArrowChunkIterator iterator2 =
+        chunk2.getIterator(context, iterator1);
+    while (iterator2.next())
+    {
+      assertThat(iterator2.getCurrentConverter(0), sameInstance(converter));
+      values.add(converter.toLong(iterator2.getCurrentRowInRecordBatch()));
+    }
+
+    assertThat(values, is(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L)));
+    chunk1.freeData();
+    chunk2.freeData();
+  }
+
+  @Test
+  public void testIteratorRebuildsConvertersOnSchemaChange() throws Exception
+  {
+    BaseConverterTest context = new BaseConverterTest();
+    ArrowResultChunk chunk1 = createChunk(new int[]{1, 2});
+    // NUMBER(10,2) instead of NUMBER(10,0)
+    ArrowResultChunk chunk2 = createScaledChunk(2, new int[]{150, -250});
+
+    ArrowResultChunk.ArrowChunkIterator iterator1 = chunk1.getIterator(context);
+    assertThat(iterator1.next(), is(true));
+    ArrowVectorConverter converter1 = iterator1.getCurrentConverter(0);
+    assertThat(converter1.toLong(iterator1.getCurrentRowInRecordBatch()),
+               is(1L));
+    assertThat(iterator1.next(), is(true));
+    assertThat(iterator1.next(), is(false));
+
+    ArrowResultChunk.ArrowChunkIterator iterator2 =
+        chunk2.getIterator(context, iterator1);
+    List<Double> values = new ArrayList<>();
+    while (iterator2.next())
+    {
+      ArrowVectorConverter converter2 = iterator2.getCurrentConverter(0);
+      assertThat(converter2, not(sameInstance(converter1)));
+      assertThat(converter2.getClass().equals(converter1.getClass()),
+                 is(false));
+      values.add(converter2.toDouble(iterator2.getCurrentRowInRecordBatch()));
+    }
+
+    assertThat(values, is(Arrays.asList(1.5, -2.5)));
+    chunk1.freeData();
+    chunk2.freeData();
+  }
+
+  /**
+   * @param batches values of the record batches of a NUMBER(10,0) column
+   * @return a chunk loaded with the record batches
+   */
+  private static ArrowResultChunk createChunk(int[]... batches)
+  throws Exception
+  {
+    return createScaledChunk(0, batches);
+  }
+
+  /**
+   * @param scale   scale of the NUMBER(10,scale) column
+   * @param batches unscaled values of the record batches
+   * @return a chunk loaded with the record batches
+   */
+  private static ArrowResultChunk createScaledChunk(int scale,
+                                                    int[]... batches)
+  throws Exception
+  {
+    int rowCount = 0;
+    for (int[] batch : batches)
+    {
+      rowCount += batch.length;
+    }
+    ArrowResultChunk chunk = new ArrowResultChunk("", rowCount, 1, 0);
+    ArrowResultChunk.readArrowStream(
+        new ByteArrayInputStream(writeFixedBatches(scale, batches)), chunk);
+    return chunk;
+  }
+
+  private static byte[] writeFixedBatches(int scale, int[]... batches)
+  throws Exception
+  {
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "FIXED");
+    customFieldMeta.put("precision", "10");
+    customFieldMeta.put("scale", String.valueOf(scale));
+    FieldType fieldType = new FieldType(true, Types.MinorType.INT.getType(),
+                                        null, customFieldMeta);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (BufferAllocator allocator = new RootAllocator(Integer.MAX_VALUE);
+         IntVector vector = new IntVector("col", fieldType, allocator))
+    {
+      VectorSchemaRoot root = new VectorSchemaRoot(
+          Collections.singletonList(vector.getField()),
+          Collections.singletonList(vector), 0);
+      try (ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out))
+      {
+        writer.start();
+        for (int[] batch : batches)
+        {
+          vector.allocateNew(batch.length);
+          for (int i = 0; i < batch.length; i++)
+          {
+            vector.set(i, batch[i]);
+          }
+          vector.setValueCount(batch.length);
+          root.setRowCount(batch.length);
+          writer.writeBatch();
+        }
+        writer.end();
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] writeIntBatch(int rowCount) throws Exception
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (BufferAllocator allocator = new RootAllocator(Integer.MAX_VALUE);
+         IntVector vector = new IntVector("col", allocator))
+    {
+      vector.allocateNew(rowCount);
+      for (int i = 0; i < rowCount; i++)
+      {
+        vector.set(i, i);
+      }
+      vector.setValueCount(rowCount);
+
+      VectorSchemaRoot root = new VectorSchemaRoot(
+          Collections.singletonList(vector.getField()),
+          Collections.singletonList(vector), rowCount);
+      try (ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out))
+      {
+        writer.start();
+        writer.writeBatch();
+        writer.end();
+      }
+    }
+    return out.toByteArray();
+  }
 }
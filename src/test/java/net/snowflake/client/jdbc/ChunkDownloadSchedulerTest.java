@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Chunk download scheduler unit test
+ */
+public class ChunkDownloadSchedulerTest
+{
+  private static final long WAIT_SECS = 10;
+
+  /**
+   * Task blocking its worker until released
+   */
+  private static class BlockingTask
+  {
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    private volatile boolean interrupted = false;
+
+    Void run() throws Exception
+    {
+      started.countDown();
+      try
+      {
+        released.await();
+      }
+      catch (InterruptedException ex)
+      {
+        interrupted = true;
+        throw ex;
+      }
+      return null;
+    }
+
+    void awaitStarted() throws InterruptedException
+    {
+      assertTrue(started.await(WAIT_SECS, TimeUnit.SECONDS));
+    }
+  }
+
+  private static void awaitAll(List<Future<Void>> futures) throws Exception
+  {
+    for (Future<Void> future : futures)
+    {
+      future.get(WAIT_SECS, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  public void testRunInPriorityOrder() throws Exception
+  {
+    ChunkDownloadScheduler scheduler = new ChunkDownloadScheduler(1, 1);
+    BlockingTask blocker = new BlockingTask();
+    scheduler.submit(blocker::run, 0);
+    blocker.awaitStarted();
+
+    // submitted out of order while the only worker is busy
+    final List<String> executed =
+        Collections.synchronizedList(new ArrayList<>());
+    List<Future<Void>> futures = new ArrayList<>();
+    String[] names = {"a", "b", "c", "d", "e", "f"};
+    int[] priorities = {3, 1, 2, 1, 0, 3};
+    for (int i = 0; i < names.length; i++)
+    {
+      final String name = names[i];
+      futures.add(scheduler.submit(() ->
+                                   {
+                                     executed.add(name);
+                                     return null;
+                                   }, priorities[i]));
+    }
+    assertEquals(names.length, scheduler.getQueuedCount());
+
+    blocker.released.countDown();
+    awaitAll(futures);
+
+    // closest to the consumer first, ties in submission order
+    assertEquals(Arrays.asList("e", "b", "d", "c", "a", "f"), executed);
+    assertEquals(0, scheduler.getQueuedCount());
+  }
+
+  @Test
+  public void testCancel() throws Exception
+  {
+    ChunkDownloadScheduler scheduler = new ChunkDownloadScheduler(1, 1);
+    BlockingTask blocker = new BlockingTask();
+    Future<Void> running = scheduler.submit(blocker::run, 0);
+    blocker.awaitStarted();
+
+    final List<String> executed =
+        Collections.synchronizedList(new ArrayList<>());
+    Future<Void> first = scheduler.submit(() ->
+                                          {
+                                            executed.add("first");
+                                            return null;
+                                          }, 1);
+    Future<Void> canceled = scheduler.submit(() ->
+                                             {
+                                               executed.add("canceled");
+                                               return null;
+                                             }, 1);
+    Future<Void> last = scheduler.submit(() ->
+                                         {
+                                           executed.add("last");
+                                           return null;
+                                         }, 2);
+
+    // a queued task is removed from the queue
+    scheduler.cancel(canceled);
+    assertTrue(canceled.isCancelled());
+    assertEquals(2, scheduler.getQueuedCount());
+
+    // a running task is interrupted, the worker moves on
+    scheduler.cancel(running);
+    awaitAll(Arrays.asList(first, last));
+    assertTrue(blocker.interrupted);
+    assertEquals(Arrays.asList("first", "last"), executed);
+    try
+    {
+      canceled.get();
+      fail("the canceled task is not expected to complete");
+    }
+    catch (CancellationException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testParseStage() throws Exception
+  {
+    ChunkDownloadScheduler scheduler = new ChunkDownloadScheduler(1, 1);
+    assertEquals(1, scheduler.getMaximumPoolSize());
+    assertEquals(1, scheduler.getMaximumParsePoolSize());
+
+    // the download worker is busy, parsing goes on
+    BlockingTask downloadBlocker = new BlockingTask();
+    scheduler.submit(downloadBlocker::run, 0);
+    downloadBlocker.awaitStarted();
+
+    BlockingTask parseBlocker = new BlockingTask();
+    scheduler.submitParse(parseBlocker::run, 0);
+    parseBlocker.awaitStarted();
+
+    // parse tasks are queued apart from the download tasks, in the same
+    // order
+    final List<String> executed =
+        Collections.synchronizedList(new ArrayList<>());
+    List<Future<Void>> futures = new ArrayList<>();
+    String[] names = {"a", "b", "c", "d"};
+    int[] priorities = {2, 0, 2, 1};
+    for (int i = 0; i < names.length; i++)
+    {
+      final String name = names[i];
+      futures.add(scheduler.submitParse(() ->
+                                        {
+                                          executed.add(name);
+                                          return null;
+                                        }, priorities[i]));
+    }
+    assertEquals(names.length, scheduler.getQueuedParseCount());
+    assertEquals(0, scheduler.getQueuedCount());
+
+    parseBlocker.released.countDown();
+    awaitAll(futures);
+    assertEquals(Arrays.asList("b", "d", "a", "c"), executed);
+    assertEquals(1, scheduler.getActiveCount());
+
+    downloadBlocker.released.countDown();
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All right reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Chunk memory arbiter unit test
+ */
+public class ChunkMemoryArbiterTest
+{
+  @Test
+  public void testReserveAndRelease()
+  {
+    ChunkMemoryArbiter arbiter = new ChunkMemoryArbiter();
+    ChunkMemoryArbiter.QueryAccount account = arbiter.register();
+
+    assertTrue(account.tryReserve(60, 100));
+    assertFalse(account.tryReserve(60, 100));
+    assertEquals(60, arbiter.getReservedBytes());
+
+    account.release(60);
+    assertEquals(0, arbiter.getReservedBytes());
+    assertTrue(account.tryReserve(100, 100));
+
+    account.close();
+    assertEquals(0, arbiter.getReservedBytes());
+    assertEquals(0, arbiter.getActiveQueries());
+  }
+
+  @Test
+  public void testForceReserveAboveLimit()
+  {
+    ChunkMemoryArbiter arbiter = new ChunkMemoryArbiter();
+    ChunkMemoryArbiter.QueryAccount account = arbiter.register();
+
+    assertTrue(account.tryReserve(80, 100));
+    // the chunk turned out larger than estimated
+    account.forceReserve(40);
+    assertEquals(120, arbiter.getReservedBytes());
+    assertFalse(account.tryReserve(1, 100));
+
+    account.release(40);
+    assertTrue(account.tryReserve(20, 100));
+
+    account.close();
+    assertEquals(0, arbiter.getReservedBytes());
+  }
+
+  @Test
+  public void testClosedAccountHoldsNoMemory() throws InterruptedException
+  {
+    ChunkMemoryArbiter arbiter = new ChunkMemoryArbiter();
+    ChunkMemoryArbiter.QueryAccount other = arbiter.register();
+    ChunkMemoryArbiter.QueryAccount account = arbiter.register();
+
+    assertTrue(other.tryReserve(30, 100));
+    assertTrue(account.tryReserve(50, 100));
+    account.close();
+    assertTrue(account.isClosed());
+    assertEquals(30, arbiter.getReservedBytes());
+    assertEquals(1, arbiter.getActiveQueries());
+
+    // late calls of a download thread of the closed query
+    assertFalse(account.tryReserve(10, 100));
+    assertFalse(account.awaitReservation(10, 100, 60 * 1000));
+    account.forceReserve(40);
+    account.release(50);
+    assertEquals(0, account.getReserved());
+    assertEquals(30, arbiter.getReservedBytes());
+
+    account.close();
+    assertEquals(1, arbiter.getActiveQueries());
+
+    other.close();
+    assertEquals(0, arbiter.getReservedBytes());
+  }
+
+  @Test
+  public void testSharedClosedAccount()
+  {
+    ChunkMemoryArbiter arbiter = new ChunkMemoryArbiter();
+    ChunkMemoryArbiter.QueryAccount account = arbiter.getClosedAccount();
+
+    assertTrue(account.isClosed());
+    assertFalse(account.tryReserve(10, 100));
+    account.forceReserve(10);
+    account.close();
+    assertEquals(0, arbiter.getReservedBytes());
+    assertEquals(0, arbiter.getActiveQueries());
+  }
+
+  @Test
+  public void testWaiterWokenUpOnRelease() throws Throwable
+  {
+    final ChunkMemoryArbiter arbiter = new ChunkMemoryArbiter();
+    final ChunkMemoryArbiter.QueryAccount holder = arbiter.register();
+    final ChunkMemoryArbiter.QueryAccount waiter = arbiter.register();
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicBoolean reserved = new AtomicBoolean(false);
+
+    assertTrue(holder.tryReserve(100, 100));
+
+    Thread thread = new Thread(() ->
+                               {
+                                 started.countDown();
+                                 try
+                                 {
+                                   reserved.set(waiter.awaitReservation(50, 100, 60 * 1000));
+                                 }
+                                 catch (InterruptedException ex)
+                                 {
+                                   // reserved stays false
+                                 }
+                               });
+    thread.start();
+    started.await();
+
+    while (arbiter.getWaitingCount() == 0)
+    {
+      Thread.sleep(10);
+    }
+    assertEquals(50, arbiter.getWaitingBytes());
+
+    holder.release(100);
+    thread.join(10 * 1000);
+
+    assertTrue(reserved.get());
+    assertEquals(50, arbiter.getReservedBytes());
+    assertEquals(0, arbiter.getWaitingBytes());
+  }
+
+  @Test
+  public void testAwaitTimesOut() throws InterruptedException
+  {
+    ChunkMemoryArbiter arbiter = new ChunkMemoryArbiter();
+    ChunkMemoryArbiter.QueryAccount holder = arbiter.register();
+    ChunkMemoryArbiter.QueryAccount waiter = arbiter.register();
+
+    assertTrue(holder.tryReserve(100, 100));
+    assertFalse(waiter.awaitReservation(10, 100, 50));
+    assertEquals(0, arbiter.getWaitingCount());
+  }
+
+  @Test
+  public void testFairShareWhileOthersWait() throws Throwable
+  {
+    final ChunkMemoryArbiter arbiter = new ChunkMemoryArbiter();
+    final ChunkMemoryArbiter.QueryAccount greedy = arbiter.register();
+    final ChunkMemoryArbiter.QueryAccount waiter = arbiter.register();
+
+    // fair share is 50 bytes of 100 with two queries
+    assertTrue(greedy.tryReserve(60, 100));
+
+    Thread thread = new Thread(() ->
+                               {
+                                 try
+                                 {
+                                   waiter.awaitReservation(50, 100, 60 * 1000);
+                                 }
+                                 catch (InterruptedException ex)
+                                 {
+                                   // ignore
+                                 }
+                               });
+    thread.start();
+    while (arbiter.getWaitingCount() == 0)
+    {
+      Thread.sleep(10);
+    }
+
+    // enough memory is free but the greedy query is above its share
+    assertFalse(greedy.tryReserve(10, 100));
+
+    greedy.release(60);
+    thread.join(10 * 1000);
+    assertEquals(50, waiter.getReserved());
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+package net.snowflake.client.jdbc;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Chunk payload stream unit test
+ */
+public class ChunkPayloadStreamTest
+{
+  private final ChunkPayloadStream.InflaterPool pool =
+      new ChunkPayloadStream.InflaterPool();
+
+  @Test
+  public void testInflateIntoDirectBuffer() throws IOException
+  {
+    byte[] data = randomData(1000000);
+    ByteBuffer dst = ByteBuffer.allocateDirect(data.length);
+    try (ChunkPayloadStream stream =
+             new ChunkPayloadStream(gzip(data), true, pool))
+    {
+      while (dst.hasRemaining())
+      {
+        stream.read(dst);
+      }
+      assertEquals(-1, stream.read(ByteBuffer.allocateDirect(10)));
+    }
+
+    byte[] result = new byte[data.length];
+    dst.flip();
+    dst.get(result);
+    assertArrayEquals(data, result);
+  }
+
+  @Test
+  public void testInflateMultipleMembers() throws IOException
+  {
+    byte[] first = randomData(5000);
+    byte[] second = randomData(7000);
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    payload.write(gzip(first));
+    payload.write(gzip(second));
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    expected.write(first);
+    expected.write(second);
+
+    try (ChunkPayloadStream stream =
+             new ChunkPayloadStream(payload.toByteArray(), true, pool))
+    {
+      assertArrayEquals(expected.toByteArray(), readAll(stream));
+    }
+  }
+
+  @Test
+  public void testUncompressedPayload() throws IOException
+  {
+    byte[] data = randomData(3000);
+    try (ChunkPayloadStream stream = new ChunkPayloadStream(data, false, pool))
+    {
+      ByteBuffer dst = ByteBuffer.allocateDirect(data.length + 10);
+      assertEquals(data.length, stream.read(dst));
+      assertEquals(-1, stream.read(dst));
+    }
+  }
+
+  @Test
+  public void testCorruptTrailer() throws IOException
+  {
+    byte[] payload = gzip(randomData(3000));
+    payload[payload.length - 6]++;
+    try (ChunkPayloadStream stream =
+             new ChunkPayloadStream(payload, true, pool))
+    {
+      readAll(stream);
+      fail("corrupt payload must not be read");
+    }
+    catch (ZipException ex)
+    {
+      // expected
+    }
+  }
+
+  private static byte[] readAll(ChunkPayloadStream stream) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1000];
+    int len;
+    while ((len = stream.read(buffer, 0, buffer.length)) != -1)
+    {
+      out.write(buffer, 0, len);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] randomData(int size)
+  {
+    // compressible but not trivial
+    Random random = new Random(size);
+    byte[] data = new byte[size];
+    for (int i = 0; i < size; i++)
+    {
+      data[i] = (byte) ('a' + random.nextInt(8));
+    }
+    return data;
+  }
+
+  private static byte[] gzip(byte[] data) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out))
+    {
+      gzip.write(data);
+    }
+    return out.toByteArray();
+  }
+}
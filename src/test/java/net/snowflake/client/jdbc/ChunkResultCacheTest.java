@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class ChunkResultCacheTest
+{
+  private static final String QUERY_ID =
+      "01a2b3c4-0000-1111-0000-000000000001";
+
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException
+  {
+    directory = Files.createTempDirectory("sf-result-cache").toFile();
+  }
+
+  @After
+  public void tearDown()
+  {
+    File[] files = directory.listFiles();
+    if (files != null)
+    {
+      for (File file : files)
+      {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void testPutAndGet()
+  {
+    ChunkResultCache cache = new ChunkResultCache(directory, 1024 * 1024);
+    byte[] bytes = new byte[]{1, 2, 3, 4};
+
+    assertNull(cache.get(QUERY_ID, 0));
+    cache.put(QUERY_ID, 0, bytes, "gzip");
+    cache.put(QUERY_ID, 1, bytes, null);
+
+    ChunkResultCache.CachedChunk cached = cache.get(QUERY_ID, 0);
+    assertNotNull(cached);
+    assertArrayEquals(bytes, cached.bytes);
+    assertEquals("gzip", cached.contentEncoding);
+    assertNull(cache.get(QUERY_ID, 1).contentEncoding);
+    assertNull(cache.get(QUERY_ID, 2));
+    assertEquals(2, cache.getCount());
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsed()
+  {
+    byte[] bytes = new byte[1000];
+    // room for two chunks and their headers
+    ChunkResultCache cache = new ChunkResultCache(directory, 2100);
+
+    cache.put(QUERY_ID, 0, bytes, null);
+    cache.put(QUERY_ID, 1, bytes, null);
+    // touch chunk 0 so chunk 1 is the eldest
+    assertNotNull(cache.get(QUERY_ID, 0));
+    cache.put(QUERY_ID, 2, bytes, null);
+
+    assertEquals(2, cache.getCount());
+    assertNotNull(cache.get(QUERY_ID, 0));
+    assertNull(cache.get(QUERY_ID, 1));
+    assertNotNull(cache.get(QUERY_ID, 2));
+    assertEquals(2, directory.listFiles().length);
+  }
+
+  @Test
+  public void testReloadFromDisk()
+  {
+    byte[] bytes = new byte[]{5, 6, 7};
+    new ChunkResultCache(directory, 1024 * 1024)
+        .put(QUERY_ID, 3, bytes, "gzip");
+
+    ChunkResultCache cache = new ChunkResultCache(directory, 1024 * 1024);
+    assertEquals(1, cache.getCount());
+    assertArrayEquals(bytes, cache.get(QUERY_ID, 3).bytes);
+    assertEquals(directory.listFiles()[0].length(), cache.getSize());
+  }
+
+  @Test
+  public void testInvalidate()
+  {
+    ChunkResultCache cache = new ChunkResultCache(directory, 1024 * 1024);
+    cache.put(QUERY_ID, 0, new byte[]{1, 2, 3}, null);
+    cache.put(QUERY_ID, 1, new byte[]{4, 5, 6}, null);
+
+    cache.invalidate(QUERY_ID, 0);
+    assertNull(cache.get(QUERY_ID, 0));
+    assertNotNull(cache.get(QUERY_ID, 1));
+    assertEquals(1, cache.getCount());
+    assertEquals(directory.listFiles()[0].length(), cache.getSize());
+
+    // not cached
+    cache.invalidate(QUERY_ID, 2);
+    assertEquals(1, cache.getCount());
+  }
+
+  @Test
+  public void testDeleteStaleTmpFiles() throws IOException
+  {
+    new ChunkResultCache(directory, 1024 * 1024)
+        .put(QUERY_ID, 0, new byte[]{1, 2, 3}, null);
+    // left over by a JVM that died while writing a chunk
+    File tmpFile = new File(directory, "stale_1.chunk123.tmp");
+    assertTrue(tmpFile.createNewFile());
+
+    ChunkResultCache cache = new ChunkResultCache(directory, 1024 * 1024);
+    assertFalse(tmpFile.exists());
+    assertEquals(1, cache.getCount());
+    assertEquals(1, directory.listFiles().length);
+  }
+
+  @Test
+  public void testCachedChunkOwnerOnly() throws IOException
+  {
+    assumeTrue(FileSystems.getDefault().supportedFileAttributeViews()
+                   .contains("posix"));
+
+    new ChunkResultCache(directory, 1024 * 1024)
+        .put(QUERY_ID, 0, new byte[]{1, 2, 3}, null);
+
+    File[] files = directory.listFiles();
+    assertEquals(1, files.length);
+    assertEquals(PosixFilePermissions.fromString("rw-------"),
+                 Files.getPosixFilePermissions(files[0].toPath()));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkSpillFileTest
+{
+  private File directory;
+
+  @Before
+  public void setUp() throws IOException
+  {
+    directory = Files.createTempDirectory("sf-result-spill").toFile();
+    System.setProperty(ChunkSpillFile.RESULT_SPILL_DIRECTORY_JVM,
+                       directory.getPath());
+  }
+
+  @After
+  public void tearDown()
+  {
+    System.clearProperty(ChunkSpillFile.RESULT_SPILL_DIRECTORY_JVM);
+    File[] files = directory.listFiles();
+    if (files != null)
+    {
+      for (File file : files)
+      {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException
+  {
+    assertTrue(ChunkSpillFile.isEnabled());
+
+    ChunkSpillFile spillFile = ChunkSpillFile.create(3);
+    File file = new File(spillFile.getPath());
+    assertEquals(directory, file.getParentFile());
+    assertTrue(file.getName().startsWith("sf-result-chunk-3-"));
+
+    byte[] bytes = new byte[200 * 1024];
+    for (int i = 0; i < bytes.length; i++)
+    {
+      bytes[i] = (byte) i;
+    }
+    assertEquals(bytes.length,
+                 spillFile.write(new ByteArrayInputStream(bytes), "gzip"));
+    assertEquals("gzip", spillFile.getContentEncoding());
+
+    ByteArrayOutputStream read = new ByteArrayOutputStream();
+    try (InputStream is = spillFile.openInputStream())
+    {
+      byte[] buf = new byte[4096];
+      int len;
+      while ((len = is.read(buf)) != -1)
+      {
+        read.write(buf, 0, len);
+      }
+    }
+    assertArrayEquals(bytes, read.toByteArray());
+
+    spillFile.delete();
+    assertFalse(file.exists());
+    // deleting twice is harmless
+    spillFile.delete();
+  }
+
+  @Test
+  public void testPlainContent() throws IOException
+  {
+    ChunkSpillFile spillFile = ChunkSpillFile.create(0);
+    spillFile.write(new ByteArrayInputStream(new byte[0]), null);
+    assertNull(spillFile.getContentEncoding());
+    spillFile.delete();
+  }
+
+  @Test
+  public void testLoadRequestedBeforeWritten() throws IOException
+  {
+    ChunkSpillFile spillFile = ChunkSpillFile.create(0);
+
+    // the consumer reserved memory while the file is being written
+    assertFalse(spillFile.requestLoad());
+    // the spilling thread starts the load
+    assertTrue(spillFile.markWritten());
+    spillFile.delete();
+  }
+
+  @Test
+  public void testWrittenBeforeLoadRequested() throws IOException
+  {
+    ChunkSpillFile spillFile = ChunkSpillFile.create(0);
+
+    // nobody waits for the chunk yet
+    assertFalse(spillFile.markWritten());
+    // the consumer starts the load once memory is reserved
+    assertTrue(spillFile.requestLoad());
+    spillFile.delete();
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the typed getters reading JSON result chunk cells in place
+ */
+public class JsonResultChunkTest
+{
+  private static final String[] CELLS = {
+      "0", "-9223372036854775808", "9223372036854775807", "+42",
+      "1.5", "-0.125", "123456789.012345", ".5",
+      "1.2345e+10", "inf", "12345678901234567890", "-",
+      "true", "TRUE", "1", "false",
+      "1564000000.123456789", "-1.25", "0", "abc"};
+
+  private static final int COLUMN_COUNT = 4;
+
+  private static JsonResultChunk createChunk(boolean useJsonParserV2)
+  throws SnowflakeSQLException
+  {
+    int rowCount = CELLS.length / COLUMN_COUNT + 1;
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < CELLS.length; i++)
+    {
+      json.append(i % COLUMN_COUNT == 0 ? "[" : ",")
+          .append('"').append(CELLS[i]).append('"')
+          .append(i % COLUMN_COUNT == COLUMN_COUNT - 1 ? "]," : "");
+    }
+    json.append("[null,null,null,null]");
+    byte[] data = json.toString().getBytes(StandardCharsets.UTF_8);
+
+    JsonResultChunk chunk = new JsonResultChunk("", rowCount, COLUMN_COUNT,
+                                                data.length, useJsonParserV2);
+    if (useJsonParserV2)
+    {
+      ResultJsonParserV2 jp = new ResultJsonParserV2();
+      jp.startParsing(chunk);
+      jp.continueParsing(ByteBuffer.wrap(data));
+      jp.endParsing();
+    }
+    else
+    {
+      for (int row = 0; row < rowCount - 1; row++)
+      {
+        Object[] cells = new Object[COLUMN_COUNT];
+        System.arraycopy(CELLS, row * COLUMN_COUNT, cells, 0, COLUMN_COUNT);
+        chunk.addRow(cells);
+      }
+      chunk.addRow(new Object[COLUMN_COUNT]);
+    }
+    return chunk;
+  }
+
+  @Test
+  public void testTypedGetters() throws SnowflakeSQLException
+  {
+    testTypedGetters(createChunk(false));
+    testTypedGetters(createChunk(true));
+  }
+
+  private static void testTypedGetters(JsonResultChunk chunk)
+  {
+    for (int i = 0; i < CELLS.length; i++)
+    {
+      int row = i / COLUMN_COUNT;
+      int col = i % COLUMN_COUNT;
+      String cell = CELLS[i];
+      assertFalse(chunk.isNull(row, col));
+
+      // the same results as parsing the String
+      try
+      {
+        assertEquals(cell, Long.parseLong(cell), chunk.getLong(row, col));
+      }
+      catch (NumberFormatException ex)
+      {
+        try
+        {
+          chunk.getLong(row, col);
+          fail("expected NumberFormatException for " + cell);
+        }
+        catch (NumberFormatException expected)
+        {
+          // expected
+        }
+      }
+
+      double value = chunk.getDouble(row, col);
+      if (!Double.isNaN(value))
+      {
+        assertEquals(cell, Double.doubleToLongBits(Double.parseDouble(cell)),
+                     Double.doubleToLongBits(value));
+      }
+
+      BigDecimal decimal = chunk.getBigDecimal(row, col);
+      if (decimal != null)
+      {
+        assertEquals(cell, new BigDecimal(cell), decimal);
+      }
+
+      assertEquals(cell, cell.equalsIgnoreCase("true") || cell.equals("1"),
+                   chunk.getBoolean(row, col));
+
+      testUnscaledLong(chunk, row, col, 0);
+      testUnscaledLong(chunk, row, col, 3);
+    }
+
+    // values too long or with an exponent are left to the String parsers
+    assertTrue(Double.isNaN(chunk.getDouble(2, 0)));
+    assertTrue(Double.isNaN(chunk.getDouble(2, 1)));
+    assertNull(chunk.getBigDecimal(2, 2));
+    assertEquals(123456789.012345, chunk.getDouble(1, 2), 0);
+
+    Timestamp ts = chunk.getEpochTimestamp(4, 0);
+    assertEquals(1564000000123L, ts.getTime());
+    assertEquals(123456789, ts.getNanos());
+    ts = chunk.getEpochTimestamp(4, 1);
+    assertEquals(-1250L, ts.getTime());
+    assertEquals(750000000, ts.getNanos());
+    assertEquals(0L, chunk.getEpochTimestamp(4, 2).getTime());
+    assertNull(chunk.getEpochTimestamp(4, 3));
+
+    for (int col = 0; col < COLUMN_COUNT; col++)
+    {
+      assertTrue(chunk.isNull(5, col));
+    }
+  }
+
+  /**
+   * Same unscaled value as the BigDecimal of the cell, values with an
+   * exponent being left to the BigDecimal path
+   */
+  private static void testUnscaledLong(JsonResultChunk chunk, int row, int col,
+                                       int scale)
+  {
+    String cell = CELLS[row * COLUMN_COUNT + col];
+    Long expected;
+    try
+    {
+      expected = new BigDecimal(cell).setScale(scale).unscaledValue()
+          .longValueExact();
+    }
+    catch (ArithmeticException | NumberFormatException ex)
+    {
+      expected = null;
+    }
+
+    try
+    {
+      long value = chunk.getUnscaledLong(row, col, scale);
+      assertEquals(cell, expected, Long.valueOf(value));
+    }
+    catch (NumberFormatException ex)
+    {
+      assertTrue(cell, expected == null || cell.contains("e"));
+    }
+  }
+
+  @Test
+  public void testUtf8Storage() throws SnowflakeSQLException
+  {
+    String[] cells = {"abc", "h\u00e9llo", "\u2605\u263a", "\ud841\udf0e",
+                      "", null};
+    JsonResultChunk chunk =
+        new JsonResultChunk("", cells.length, 1, 1000, false);
+    for (String cell : cells)
+    {
+      chunk.addRow(new Object[]{cell});
+    }
+    chunk.ensureRowsComplete();
+
+    for (int row = 0; row < cells.length; row++)
+    {
+      assertEquals(cells[row], chunk.getCell(row, 0));
+    }
+    assertTrue(chunk.isNull(cells.length - 1, 0));
+
+    // one byte per ASCII character: one data block and one block of
+    // offsets and lengths
+    assertEquals((1L << 24) + (1L << 15) * 8, chunk.computeNeededChunkMemory());
+  }
+}
@@ -20,6 +20,10 @@ import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.Calendar;
 import java.util.Properties;
 import java.util.TimeZone;
@@ -29,6 +33,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -457,6 +462,69 @@ public class ResultSetMultiTimeZoneIT extends BaseJDBCTest
   }
 
 
+  /**
+   * The java.time values of a timestamp are at the instant of its Timestamp,
+   * whether the client time zone is honored for TIMESTAMP_NTZ or not
+   */
+  @Test
+  @ConditionalIgnoreRule.ConditionalIgnore(condition = RunningOnTravisCI.class)
+  public void testGetObjectJavaTime() throws SQLException
+  {
+    Connection con = getConnection();
+    Statement statement = con.createStatement();
+
+    statement.execute("create or replace table testJavaTime(" +
+                      "ntz timestamp_ntz, ltz timestamp_ltz, " +
+                      "tz timestamp_tz, d date)");
+    statement.execute(
+        "insert into testJavaTime values " +
+        "('2019-06-22 17:00:00.123456789', '2019-06-22 17:00:00.123456789'," +
+        " '2019-06-22 17:00:00.123456789 +0530', '2019-06-22'), " +
+        "('1969-12-31 23:59:59.999', '1969-12-31 23:59:59.999'," +
+        " '1969-12-31 23:59:59.999 -0800', '1969-12-31'), " +
+        "(null, null, null, null)");
+
+    for (boolean honorClientTZ : new boolean[]{true, false})
+    {
+      statement.execute("alter session set " +
+                        "CLIENT_HONOR_CLIENT_TZ_FOR_TIMESTAMP_NTZ=" +
+                        honorClientTZ);
+      ResultSet resultSet = statement.executeQuery(
+          "select * from testJavaTime order by ntz");
+      while (resultSet.next())
+      {
+        for (int i = 1; i <= 3; i++)
+        {
+          Timestamp ts = resultSet.getTimestamp(i);
+          Instant instant = resultSet.getObject(i, Instant.class);
+          OffsetDateTime offsetDateTime =
+              resultSet.getObject(i, OffsetDateTime.class);
+          LocalDateTime localDateTime =
+              resultSet.getObject(i, LocalDateTime.class);
+          if (ts == null)
+          {
+            assertNull(instant);
+            assertNull(offsetDateTime);
+            assertNull(localDateTime);
+            continue;
+          }
+          assertEquals(ts.toInstant(), instant);
+          assertEquals(instant, offsetDateTime.toInstant());
+          assertEquals(offsetDateTime.toLocalDateTime(), localDateTime);
+        }
+
+        Date date = resultSet.getDate(4);
+        assertEquals(date == null ? null : date.toLocalDate(),
+                     resultSet.getObject(4, LocalDate.class));
+      }
+      resultSet.close();
+    }
+
+    statement.execute("drop table if exists testJavaTime");
+    statement.close();
+    con.close();
+  }
+
   @Test
   @ConditionalIgnoreRule.ConditionalIgnore(condition = RunningOnTravisCI.class)
   public void testGetOldTimestamp() throws SQLException
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ResumableChunkReaderTest
+{
+  /**
+   * Stand-in for the cloud storage that resets the connection after a given
+   * number of bytes of every response
+   */
+  private static class FlakySource implements ResumableChunkReader.RangeSource
+  {
+    private final byte[] payload;
+
+    // bytes sent by each response before the reset, the last one is reused
+    private final int[] resetAfter;
+
+    private final boolean honorRange;
+
+    private final List<Long> requestedOffsets = new ArrayList<>();
+
+    FlakySource(byte[] payload, boolean honorRange, int... resetAfter)
+    {
+      this.payload = payload;
+      this.honorRange = honorRange;
+      this.resetAfter = resetAfter;
+    }
+
+    @Override
+    public ResumableChunkReader.ChunkPart open(long offset)
+    {
+      int request = requestedOffsets.size();
+      requestedOffsets.add(offset);
+
+      final int start = honorRange ? (int) offset : 0;
+      final int limit =
+          resetAfter[Math.min(request, resetAfter.length - 1)];
+
+      return new ResumableChunkReader.ChunkPart(
+          new ResettingStream(payload, start, limit), start, payload.length);
+    }
+  }
+
+  /**
+   * Stream of the payload from an offset that fails like a broken socket
+   * after a number of bytes
+   */
+  private static class ResettingStream extends InputStream
+  {
+    private final byte[] payload;
+
+    private int pos;
+
+    private int remainingBeforeReset;
+
+    ResettingStream(byte[] payload, int offset, int resetAfter)
+    {
+      this.payload = payload;
+      this.pos = offset;
+      this.remainingBeforeReset = resetAfter;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+      if (pos == payload.length)
+      {
+        return -1;
+      }
+      if (remainingBeforeReset == 0)
+      {
+        throw new IOException("Connection reset");
+      }
+      int n = Math.min(len,
+                       Math.min(payload.length - pos, remainingBeforeReset));
+      System.arraycopy(payload, pos, b, off, n);
+      pos += n;
+      remainingBeforeReset -= n;
+      return n;
+    }
+  }
+
+  private static byte[] payload(int size)
+  {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++)
+    {
+      bytes[i] = (byte) (i * 31);
+    }
+    return bytes;
+  }
+
+  @Test
+  public void testResumeStitchesParts() throws Exception
+  {
+    byte[] payload = payload(200_000);
+    FlakySource source = new FlakySource(payload, true, 70_000);
+
+    ResumableChunkReader reader = new ResumableChunkReader(10);
+    assertArrayEquals(payload, reader.read(source));
+    assertEquals(2, reader.getResumes());
+    assertEquals(3, source.requestedOffsets.size());
+    assertEquals(0L, (long) source.requestedOffsets.get(0));
+    assertEquals(70_000L, (long) source.requestedOffsets.get(1));
+    assertEquals(140_000L, (long) source.requestedOffsets.get(2));
+  }
+
+  @Test
+  public void testRangeNotHonoredRestarts() throws Exception
+  {
+    byte[] payload = payload(100_000);
+    FlakySource source =
+        new FlakySource(payload, false, 30_000, Integer.MAX_VALUE);
+
+    ResumableChunkReader reader = new ResumableChunkReader(10);
+    assertArrayEquals(payload, reader.read(source));
+    assertEquals(1, reader.getResumes());
+  }
+
+  @Test
+  public void testGiveUpAfterMaxResumes() throws Exception
+  {
+    FlakySource source = new FlakySource(payload(100_000), true, 10_000);
+
+    ResumableChunkReader reader = new ResumableChunkReader(3);
+    try
+    {
+      reader.read(source);
+      fail("expected the transfer to fail");
+    }
+    catch (IOException ex)
+    {
+      assertEquals(3, reader.getResumes());
+      assertEquals(4, source.requestedOffsets.size());
+    }
+  }
+
+  @Test
+  public void testGiveUpWithoutProgress() throws Exception
+  {
+    FlakySource source = new FlakySource(payload(100_000), true, 1000, 0);
+
+    ResumableChunkReader reader = new ResumableChunkReader(10);
+    try
+    {
+      reader.read(source);
+      fail("expected the transfer to fail");
+    }
+    catch (IOException ex)
+    {
+      assertEquals(1, reader.getResumes());
+    }
+  }
+
+  @Test
+  public void testParseContentRange()
+  {
+    assertArrayEquals(new long[]{100, 200},
+                      ResumableChunkReader.parseContentRange("bytes 100-199/200"));
+    assertArrayEquals(new long[]{0, -1},
+                      ResumableChunkReader.parseContentRange("bytes 0-99/*"));
+  }
+}
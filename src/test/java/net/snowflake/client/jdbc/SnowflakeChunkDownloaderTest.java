@@ -0,0 +1,737 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import net.snowflake.client.core.ObjectMapperFactory;
+import net.snowflake.client.core.QueryResultFormat;
+import net.snowflake.client.core.arrow.BaseConverterTest;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of the chunk downloader reading chunks from an in-memory source
+ */
+public class SnowflakeChunkDownloaderTest
+{
+  private static final int JSON_COLUMN_COUNT = 2;
+
+  private static final int ROWS_PER_CHUNK = 100;
+
+  private static final String QUERY_ID =
+      "01a2b3c4-0000-1111-0000-000000000002";
+
+  private static final ChunkDownloadScheduler scheduler =
+      new ChunkDownloadScheduler(4, 2);
+
+  private final ChunkMemoryArbiter arbiter = new ChunkMemoryArbiter();
+
+  private File spillDirectory;
+
+  private File cacheDirectory;
+
+  /**
+   * In-memory stand-in for the cloud storage
+   */
+  private static class MemorySource
+      implements SnowflakeChunkDownloader.ChunkSource
+  {
+    // payloads as stored, by chunk URL
+    private final Map<String, byte[]> payloads = new HashMap<>();
+
+    private final String contentEncoding;
+
+    // URLs of the chunks opened, in order
+    private final List<String> opened =
+        Collections.synchronizedList(new ArrayList<>());
+
+    // URL of the chunk failing to download, null if none
+    private volatile String failingUrl;
+
+    MemorySource(String contentEncoding)
+    {
+      this.contentEncoding = contentEncoding;
+    }
+
+    @Override
+    public ResumableChunkReader.ChunkPart open(
+        SnowflakeResultChunk resultChunk, long offset) throws Exception
+    {
+      opened.add(resultChunk.getUrl());
+      if (resultChunk.getUrl().equals(failingUrl))
+      {
+        throw new IOException("Connection reset");
+      }
+      byte[] payload = payloads.get(resultChunk.getUrl());
+      return new ResumableChunkReader.ChunkPart(
+          new ByteArrayInputStream(payload), 0, payload.length,
+          contentEncoding);
+    }
+  }
+
+  @Before
+  public void setUp() throws IOException
+  {
+    spillDirectory = Files.createTempDirectory("sf-result-spill").toFile();
+    cacheDirectory = Files.createTempDirectory("sf-result-cache").toFile();
+  }
+
+  @After
+  public void tearDown()
+  {
+    System.clearProperty(ChunkSpillFile.RESULT_SPILL_DIRECTORY_JVM);
+    deleteDirectory(spillDirectory);
+    deleteDirectory(cacheDirectory);
+  }
+
+  private static void deleteDirectory(File directory)
+  {
+    File[] files = directory.listFiles();
+    if (files != null)
+    {
+      for (File file : files)
+      {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  private static String chunkUrl(int chunkIndex)
+  {
+    return "https://storage/chunk" + chunkIndex;
+  }
+
+  /**
+   * @param first first row number
+   * @param count number of rows
+   * @return JSON rows of the chunk, as read by JsonParserV2
+   */
+  private static byte[] jsonRows(int first, int count)
+  {
+    StringBuilder json = new StringBuilder();
+    for (int row = first; row < first + count; row++)
+    {
+      json.append(row == first ? "" : ",")
+          .append("[\"").append(row).append("\",\"row").append(row)
+          .append("\"]");
+    }
+    return json.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @param first first row number
+   * @param count number of rows
+   * @return Arrow stream of a record batch with one NUMBER(10,0) column
+   */
+  private static byte[] arrowRows(int first, int count) throws IOException
+  {
+    Map<String, String> customFieldMeta = new HashMap<>();
+    customFieldMeta.put("logicalType", "FIXED");
+    customFieldMeta.put("precision", "10");
+    customFieldMeta.put("scale", "0");
+    FieldType fieldType = new FieldType(true, Types.MinorType.INT.getType(),
+                                        null, customFieldMeta);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (BufferAllocator allocator = new RootAllocator(Integer.MAX_VALUE);
+         IntVector vector = new IntVector("col", fieldType, allocator))
+    {
+      vector.allocateNew(count);
+      for (int i = 0; i < count; i++)
+      {
+        vector.set(i, first + i);
+      }
+      vector.setValueCount(count);
+
+      VectorSchemaRoot root = new VectorSchemaRoot(
+          Collections.singletonList(vector.getField()),
+          Collections.singletonList(vector), count);
+      try (ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out))
+      {
+        writer.start();
+        writer.writeBatch();
+        writer.end();
+      }
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(out))
+    {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Create a source serving chunks of ROWS_PER_CHUNK rows
+   *
+   * @param format     format of the chunks
+   * @param gzip       true to serve the chunks gzip encoded
+   * @param chunkCount number of chunks
+   * @return the source
+   */
+  private static MemorySource createSource(QueryResultFormat format,
+                                           boolean gzip,
+                                           int chunkCount) throws IOException
+  {
+    MemorySource source = new MemorySource(gzip ? "gzip" : null);
+    for (int i = 0; i < chunkCount; i++)
+    {
+      byte[] payload = format == QueryResultFormat.ARROW ?
+                       arrowRows(i * ROWS_PER_CHUNK, ROWS_PER_CHUNK) :
+                       jsonRows(i * ROWS_PER_CHUNK, ROWS_PER_CHUNK);
+      source.payloads.put(chunkUrl(i), gzip ? gzip(payload) : payload);
+    }
+    return source;
+  }
+
+  /**
+   * @param format  format of the chunk
+   * @param payload chunk payload
+   * @return the first half of the payload, cut inside a JSON value so the
+   * parser can't stop at the end of a row
+   */
+  private static byte[] truncate(QueryResultFormat format, byte[] payload)
+  {
+    int length = payload.length / 2;
+    if (format != QueryResultFormat.ARROW)
+    {
+      while (payload[length - 1] != '"')
+      {
+        length++;
+      }
+    }
+    return Arrays.copyOf(payload, length);
+  }
+
+  /**
+   * @param chunkCount       number of chunks
+   * @param uncompressedSize uncompressed size of every chunk
+   * @return chunk descriptions as sent in the query response
+   */
+  private static JsonNode chunksData(int chunkCount, int uncompressedSize)
+  {
+    ArrayNode chunks = ObjectMapperFactory.getObjectMapper().createArrayNode();
+    for (int i = 0; i < chunkCount; i++)
+    {
+      chunks.addObject()
+          .put("url", chunkUrl(i))
+          .put("rowCount", ROWS_PER_CHUNK)
+          .put("uncompressedSize", uncompressedSize);
+    }
+    return chunks;
+  }
+
+  private SnowflakeChunkDownloader createDownloader(
+      QueryResultFormat format,
+      int chunkCount,
+      long memoryLimit,
+      SnowflakeChunkDownloader.ChunkSource source)
+  throws SnowflakeSQLException
+  {
+    return createDownloader(format, chunkCount, memoryLimit, source, null);
+  }
+
+  private SnowflakeChunkDownloader createDownloader(
+      QueryResultFormat format,
+      int chunkCount,
+      long memoryLimit,
+      SnowflakeChunkDownloader.ChunkSource source,
+      ChunkResultCache resultCache)
+  throws SnowflakeSQLException
+  {
+    return createDownloader(format, chunkCount, memoryLimit, source,
+                            scheduler, resultCache);
+  }
+
+  private SnowflakeChunkDownloader createDownloader(
+      QueryResultFormat format,
+      int chunkCount,
+      long memoryLimit,
+      SnowflakeChunkDownloader.ChunkSource source,
+      ChunkDownloadScheduler scheduler,
+      ChunkResultCache resultCache)
+  throws SnowflakeSQLException
+  {
+    int columnCount = format == QueryResultFormat.ARROW ?
+                      1 : JSON_COLUMN_COUNT;
+    // room for the largest chunk, the Arrow vectors are padded
+    int uncompressedSize = format == QueryResultFormat.ARROW ?
+                           64 * 1024 :
+                           jsonRows((chunkCount - 1) * ROWS_PER_CHUNK,
+                                    ROWS_PER_CHUNK).length;
+    return new SnowflakeChunkDownloader(columnCount,
+                                        chunksData(chunkCount, uncompressedSize),
+                                        1, null, null, 60 * 1000, true,
+                                        memoryLimit, format,
+                                        resultCache == null ? null : QUERY_ID,
+                                        source, scheduler, arbiter,
+                                        resultCache);
+  }
+
+  /**
+   * Check the rows of a chunk
+   *
+   * @param chunk      the chunk
+   * @param chunkIndex index of the chunk
+   */
+  private static void assertChunkRows(SnowflakeResultChunk chunk,
+                                      int chunkIndex) throws Exception
+  {
+    int expected = chunkIndex * ROWS_PER_CHUNK;
+    if (chunk instanceof ArrowResultChunk)
+    {
+      ArrowResultChunk.ArrowChunkIterator iterator =
+          ((ArrowResultChunk) chunk).getIterator(new BaseConverterTest());
+      while (iterator.next())
+      {
+        assertEquals(expected++,
+                     iterator.getCurrentConverter(0)
+                         .toLong(iterator.getCurrentRowInRecordBatch()));
+      }
+    }
+    else
+    {
+      for (int row = 0; row < chunk.getRowCount(); row++)
+      {
+        assertEquals(expected++,
+                     ((JsonResultChunk) chunk).getLong(row, 0));
+      }
+    }
+    assertEquals((chunkIndex + 1) * ROWS_PER_CHUNK, expected);
+  }
+
+  private int countSpillFiles()
+  {
+    File[] files = spillDirectory.listFiles();
+    return files == null ? 0 : files.length;
+  }
+
+  /**
+   * Wait until the spill files are deleted, they are deleted by the parse
+   * threads once the chunks are loaded
+   */
+  private void awaitNoSpillFiles() throws InterruptedException
+  {
+    long deadline = System.currentTimeMillis() + 10 * 1000;
+    while (countSpillFiles() > 0 && System.currentTimeMillis() < deadline)
+    {
+      Thread.sleep(10);
+    }
+    assertEquals(0, countSpillFiles());
+  }
+
+  private static void awaitOpened(MemorySource source, int count)
+  throws InterruptedException
+  {
+    long deadline = System.currentTimeMillis() + 10 * 1000;
+    while (source.opened.size() < count &&
+           System.currentTimeMillis() < deadline)
+    {
+      Thread.sleep(10);
+    }
+    assertEquals(count, source.opened.size());
+  }
+
+  @Test
+  public void testSpillAndLoadJsonChunks() throws Exception
+  {
+    testSpillAndLoad(QueryResultFormat.JSON, false);
+    testSpillAndLoad(QueryResultFormat.JSON, true);
+  }
+
+  @Test
+  public void testSpillAndLoadArrowChunks() throws Exception
+  {
+    testSpillAndLoad(QueryResultFormat.ARROW, false);
+    testSpillAndLoad(QueryResultFormat.ARROW, true);
+  }
+
+  private void testSpillAndLoad(QueryResultFormat format, boolean gzip)
+  throws Exception
+  {
+    System.setProperty(ChunkSpillFile.RESULT_SPILL_DIRECTORY_JVM,
+                       spillDirectory.getPath());
+    final int chunkCount = 6;
+    MemorySource source = createSource(format, gzip, chunkCount);
+
+    // the memory limit is raised to the size of a single chunk
+    SnowflakeChunkDownloader downloader =
+        createDownloader(format, chunkCount, 1, source);
+
+    // the chunks beyond the memory limit are spilled
+    assertEquals(chunkCount - 1, countSpillFiles());
+
+    for (int i = 0; i < chunkCount; i++)
+    {
+      assertChunkRows(downloader.getNextChunkToConsume(), i);
+    }
+    assertNull(downloader.getNextChunkToConsume());
+
+    // every chunk is downloaded once, the spilled ones are loaded from disk
+    assertEquals(chunkCount, source.opened.size());
+    awaitNoSpillFiles();
+
+    downloader.terminate();
+    assertEquals(0, arbiter.getReservedBytes());
+  }
+
+  @Test
+  public void testSpillFourWindowsAhead() throws Exception
+  {
+    System.setProperty(ChunkSpillFile.RESULT_SPILL_DIRECTORY_JVM,
+                       spillDirectory.getPath());
+    final int chunkCount = 20;
+    MemorySource source =
+        createSource(QueryResultFormat.JSON, false, chunkCount);
+
+    SnowflakeChunkDownloader downloader =
+        createDownloader(QueryResultFormat.JSON, chunkCount, 1, source);
+
+    // prefetch window of two chunks, one fits in memory and the next seven
+    // are spilled
+    assertEquals(7, countSpillFiles());
+    awaitOpened(source, 8);
+    Thread.sleep(100);
+    assertEquals(8, source.opened.size());
+    for (int i = 8; i < chunkCount; i++)
+    {
+      assertTrue(!source.opened.contains(chunkUrl(i)));
+    }
+
+    for (int i = 0; i < chunkCount; i++)
+    {
+      assertChunkRows(downloader.getNextChunkToConsume(), i);
+    }
+    assertEquals(chunkCount, source.opened.size());
+
+    downloader.terminate();
+    awaitNoSpillFiles();
+  }
+
+  @Test
+  public void testSpillFilesDeletedOnTerminate() throws Exception
+  {
+    System.setProperty(ChunkSpillFile.RESULT_SPILL_DIRECTORY_JVM,
+                       spillDirectory.getPath());
+    final int chunkCount = 20;
+    MemorySource source =
+        createSource(QueryResultFormat.JSON, true, chunkCount);
+
+    SnowflakeChunkDownloader downloader =
+        createDownloader(QueryResultFormat.JSON, chunkCount, 1, source);
+    assertChunkRows(downloader.getNextChunkToConsume(), 0);
+    assertTrue(countSpillFiles() > 0);
+
+    downloader.terminate();
+    awaitNoSpillFiles();
+    assertEquals(0, arbiter.getReservedBytes());
+  }
+
+  @Test
+  public void testDownloadErrorWhileSpilling() throws Exception
+  {
+    System.setProperty(ChunkSpillFile.RESULT_SPILL_DIRECTORY_JVM,
+                       spillDirectory.getPath());
+    final int chunkCount = 6;
+    MemorySource source =
+        createSource(QueryResultFormat.JSON, false, chunkCount);
+    source.failingUrl = chunkUrl(3);
+
+    SnowflakeChunkDownloader downloader =
+        createDownloader(QueryResultFormat.JSON, chunkCount, 1, source);
+
+    for (int i = 0; i < 3; i++)
+    {
+      assertChunkRows(downloader.getNextChunkToConsume(), i);
+    }
+    try
+    {
+      downloader.getNextChunkToConsume();
+      fail("the chunk failing to download is expected to raise an error");
+    }
+    catch (SnowflakeSQLException ex)
+    {
+      assertTrue(ex.getMessage().contains("Connection reset"));
+    }
+
+    // the downloader is terminated on error
+    awaitNoSpillFiles();
+    assertEquals(0, arbiter.getReservedBytes());
+  }
+
+  @Test
+  public void testParseErrorJsonChunk() throws Exception
+  {
+    testParseError(QueryResultFormat.JSON, "Chunk is truncated");
+  }
+
+  @Test
+  public void testParseErrorArrowChunk() throws Exception
+  {
+    testParseError(QueryResultFormat.ARROW, "Bad result json of chunk");
+  }
+
+  private void testParseError(QueryResultFormat format, String message)
+  throws Exception
+  {
+    final int chunkCount = 3;
+    MemorySource source = createSource(format, false, chunkCount);
+    byte[] payload = source.payloads.get(chunkUrl(1));
+    source.payloads.put(chunkUrl(1), truncate(format, payload));
+
+    SnowflakeChunkDownloader downloader =
+        createDownloader(format, chunkCount, 1024 * 1024, source);
+    assertChunkRows(downloader.getNextChunkToConsume(), 0);
+    try
+    {
+      downloader.getNextChunkToConsume();
+      fail("the chunk failing to parse is expected to raise an error");
+    }
+    catch (SnowflakeSQLException ex)
+    {
+      // the parse error is the error of the chunk
+      assertTrue(ex.getMessage(), ex.getMessage().contains(message));
+    }
+
+    // the downloader is terminated on error
+    assertEquals(0, arbiter.getReservedBytes());
+  }
+
+  @Test
+  public void testDownloadNotBlockedByParse() throws Exception
+  {
+    ChunkDownloadScheduler pipeline = new ChunkDownloadScheduler(2, 1);
+    final CountDownLatch parseReleased = new CountDownLatch(1);
+    final CountDownLatch parseBlocked = new CountDownLatch(1);
+    pipeline.submitParse(() ->
+                          {
+                            parseBlocked.countDown();
+                            parseReleased.await();
+                            return null;
+                          }, 0);
+    assertTrue(parseBlocked.await(10, TimeUnit.SECONDS));
+
+    final int chunkCount = 4;
+    MemorySource source =
+        createSource(QueryResultFormat.JSON, true, chunkCount);
+    SnowflakeChunkDownloader downloader = createDownloader(
+        QueryResultFormat.JSON, chunkCount, 1024 * 1024, source, pipeline,
+        null);
+
+    // the chunks of the prefetch window are downloaded and wait for the
+    // parser, without holding the download workers
+    awaitOpened(source, 2);
+    long deadline = System.currentTimeMillis() + 10 * 1000;
+    while (pipeline.getQueuedParseCount() < 2 &&
+           System.currentTimeMillis() < deadline)
+    {
+      Thread.sleep(10);
+    }
+    assertEquals(2, pipeline.getQueuedParseCount());
+
+    parseReleased.countDown();
+    for (int i = 0; i < chunkCount; i++)
+    {
+      assertChunkRows(downloader.getNextChunkToConsume(), i);
+    }
+    assertNull(downloader.getNextChunkToConsume());
+    downloader.terminate();
+  }
+
+  /**
+   * Wait until the result cache holds the given number of chunks, they are
+   * cached by the parse threads once the chunks are parsed
+   */
+  private static void awaitCached(ChunkResultCache cache, int count)
+  throws InterruptedException
+  {
+    long deadline = System.currentTimeMillis() + 10 * 1000;
+    while (cache.getCount() < count && System.currentTimeMillis() < deadline)
+    {
+      Thread.sleep(10);
+    }
+    assertEquals(count, cache.getCount());
+  }
+
+  @Test
+  public void testReadFromResultCache() throws Exception
+  {
+    final int chunkCount = 3;
+    ChunkResultCache cache =
+        new ChunkResultCache(cacheDirectory, 1024 * 1024);
+    MemorySource source =
+        createSource(QueryResultFormat.JSON, true, chunkCount);
+
+    SnowflakeChunkDownloader downloader = createDownloader(
+        QueryResultFormat.JSON, chunkCount, 1024 * 1024, source, cache);
+    for (int i = 0; i < chunkCount; i++)
+    {
+      assertChunkRows(downloader.getNextChunkToConsume(), i);
+    }
+    downloader.terminate();
+    awaitCached(cache, chunkCount);
+    assertEquals(chunkCount, source.opened.size());
+
+    // the result is read again from the cache, without downloading it
+    MemorySource unused =
+        createSource(QueryResultFormat.JSON, true, chunkCount);
+    downloader = createDownloader(
+        QueryResultFormat.JSON, chunkCount, 1024 * 1024, unused, cache);
+    for (int i = 0; i < chunkCount; i++)
+    {
+      assertChunkRows(downloader.getNextChunkToConsume(), i);
+    }
+    downloader.terminate();
+    assertTrue(unused.opened.isEmpty());
+  }
+
+  @Test
+  public void testBadCachedJsonChunk() throws Exception
+  {
+    testBadCachedChunk(QueryResultFormat.JSON);
+  }
+
+  @Test
+  public void testBadCachedArrowChunk() throws Exception
+  {
+    testBadCachedChunk(QueryResultFormat.ARROW);
+  }
+
+  private void testBadCachedChunk(QueryResultFormat format) throws Exception
+  {
+    final int chunkCount = 3;
+    ChunkResultCache cache =
+        new ChunkResultCache(cacheDirectory, 1024 * 1024);
+    MemorySource source = createSource(format, false, chunkCount);
+
+    // a truncated copy of chunk 1 fails once partly parsed
+    byte[] payload = source.payloads.get(chunkUrl(1));
+    cache.put(QUERY_ID, 1, truncate(format, payload), null);
+
+    SnowflakeChunkDownloader downloader = createDownloader(
+        format, chunkCount, 1024 * 1024, source, cache);
+    for (int i = 0; i < chunkCount; i++)
+    {
+      assertChunkRows(downloader.getNextChunkToConsume(), i);
+    }
+    downloader.terminate();
+
+    // the bad copy is replaced by the downloaded chunk
+    assertTrue(source.opened.contains(chunkUrl(1)));
+    awaitCached(cache, chunkCount);
+    assertArrayEquals(payload, cache.get(QUERY_ID, 1).bytes);
+  }
+
+  @Test
+  public void testChunkFailingToParseNotCached() throws Exception
+  {
+    final int chunkCount = 3;
+    ChunkResultCache cache =
+        new ChunkResultCache(cacheDirectory, 1024 * 1024);
+    MemorySource source =
+        createSource(QueryResultFormat.JSON, false, chunkCount);
+    byte[] payload = source.payloads.get(chunkUrl(1));
+    source.payloads.put(chunkUrl(1),
+                        truncate(QueryResultFormat.JSON, payload));
+
+    SnowflakeChunkDownloader downloader = createDownloader(
+        QueryResultFormat.JSON, chunkCount, 1024 * 1024, source, cache);
+    assertChunkRows(downloader.getNextChunkToConsume(), 0);
+    try
+    {
+      downloader.getNextChunkToConsume();
+      fail("the chunk failing to parse is expected to raise an error");
+    }
+    catch (SnowflakeSQLException ex)
+    {
+      // expected
+    }
+
+    assertNull(cache.get(QUERY_ID, 1));
+  }
+
+  @Test
+  public void testTerminateWhileUpdatingChunkMemory() throws Throwable
+  {
+    // the download never completes, memory stays reserved for the chunk
+    final CountDownLatch neverReleased = new CountDownLatch(1);
+    SnowflakeChunkDownloader.ChunkSource blockingSource =
+        (resultChunk, offset) ->
+        {
+          neverReleased.await();
+          throw new IllegalStateException("not expected to be released");
+        };
+
+    for (int i = 0; i < 200; i++)
+    {
+      final SnowflakeChunkDownloader downloader =
+          createDownloader(QueryResultFormat.JSON, 1, 1024 * 1024,
+                           blockingSource);
+      long estimated = arbiter.getReservedBytes();
+      assertTrue(estimated > 0);
+
+      // the parsed chunk turns out larger or smaller than estimated
+      final long actual = i % 2 == 0 ? estimated * 2 : estimated / 2;
+      final CountDownLatch start = new CountDownLatch(1);
+      Thread parser = new Thread(() ->
+                                 {
+                                   try
+                                   {
+                                     start.await();
+                                   }
+                                   catch (InterruptedException ex)
+                                   {
+                                     return;
+                                   }
+                                   downloader.updateChunkMemoryUsage(0, actual);
+                                 });
+      parser.start();
+      start.countDown();
+      downloader.terminate();
+      parser.join(10 * 1000);
+
+      assertEquals(0, arbiter.getReservedBytes());
+      assertEquals(0, arbiter.getActiveQueries());
+    }
+  }
+}
@@ -37,9 +37,12 @@ import java.util.TimeZone;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -2647,6 +2650,170 @@ public class SnowflakeDriverIT extends BaseJDBCTest
     }
   }
 
+  /**
+   * Tests the result of a query submitted asynchronously
+   */
+  @Test
+  public void testExecuteAsyncQuery() throws Throwable
+  {
+    Connection connection = null;
+    Statement statement = null;
+    ResultSet resultSet = null;
+
+    try
+    {
+      connection = getConnection();
+      statement = connection.createStatement();
+
+      // completed with the submission
+      SnowflakeAsyncQuery query = statement.unwrap(SnowflakeStatement.class)
+          .executeAsyncQuery("SELECT 1");
+      assertNotNull(query.getQueryID());
+      resultSet = query.getResultSet().get(60, TimeUnit.SECONDS);
+      assertTrue(resultSet.next());
+      assertEquals(1, resultSet.getInt(1));
+      assertFalse(resultSet.next());
+      resultSet.close();
+
+      // polled until done
+      query = statement.unwrap(SnowflakeStatement.class).executeAsyncQuery(
+          "SELECT count(*) FROM TABLE(generator(timeLimit => 10))");
+      assertNotNull(query.getQueryID());
+      assertFalse(query.getResultSet().isDone());
+      resultSet = query.getResultSet().get(120, TimeUnit.SECONDS);
+      assertTrue(resultSet.next());
+      assertTrue(resultSet.getLong(1) > 0);
+      assertEquals(query.getQueryID(),
+                   resultSet.unwrap(SnowflakeResultSet.class).getQueryID());
+      resultSet.close();
+
+      // the error of the query
+      query = statement.unwrap(SnowflakeStatement.class)
+          .executeAsyncQuery("SELECT * FROM table_that_does_not_exist");
+      try
+      {
+        query.getResultSet().get(60, TimeUnit.SECONDS);
+        fail("the query is expected to fail");
+      }
+      catch (ExecutionException ex)
+      {
+        assertTrue(ex.getCause() instanceof SnowflakeSQLException);
+      }
+
+      // PUT/GET run on the client
+      try
+      {
+        statement.unwrap(SnowflakeStatement.class)
+            .executeAsyncQuery("GET @~/test.csv file:///tmp/");
+        fail("GET is expected to be rejected");
+      }
+      catch (SnowflakeSQLException ex)
+      {
+        assertEquals(
+            ErrorCode.UNSUPPORTED_STATEMENT_TYPE_IN_EXECUTION_API
+                .getMessageCode().intValue(), ex.getErrorCode());
+      }
+    }
+    finally
+    {
+      closeSQLObjects(resultSet, statement, connection);
+    }
+  }
+
+  /**
+   * Canceling the result set future of a query submitted asynchronously
+   * aborts the query
+   */
+  @Test
+  public void testCancelAsyncQuery() throws Throwable
+  {
+    Connection connection = null;
+    Statement statement = null;
+    ResultSet resultSet = null;
+
+    try
+    {
+      connection = getConnection();
+      statement = connection.createStatement();
+
+      SnowflakeAsyncQuery query = statement.unwrap(SnowflakeStatement.class)
+          .executeAsyncQuery(
+              "SELECT count(*) FROM TABLE(generator(timeLimit => 120))");
+      Thread.sleep(2000);
+      assertTrue(query.getResultSet().cancel(true));
+      try
+      {
+        query.getResultSet().get();
+        fail("should be canceled");
+      }
+      catch (CancellationException ex)
+      {
+        // expected
+      }
+
+      // wait for the query to be aborted on the server
+      String status = null;
+      for (int i = 0; i < 30; i++)
+      {
+        resultSet = statement.executeQuery(
+            "SELECT execution_status FROM " +
+            "TABLE(information_schema.query_history_by_session()) " +
+            "WHERE query_id = '" + query.getQueryID() + "'");
+        status = resultSet.next() ? resultSet.getString(1) : null;
+        resultSet.close();
+        if (status != null && !status.contains("RUNNING"))
+        {
+          break;
+        }
+        Thread.sleep(1000);
+      }
+      assertNotNull(status);
+      assertFalse("query still running: " + status,
+                  status.contains("RUNNING"));
+      assertFalse(status.contains("SUCCESS"));
+    }
+    finally
+    {
+      closeSQLObjects(resultSet, statement, connection);
+    }
+  }
+
+  /**
+   * The query timeout applies to queries submitted asynchronously
+   */
+  @Test
+  public void testAsyncQueryTimeout() throws Throwable
+  {
+    Connection connection = null;
+    Statement statement = null;
+
+    try
+    {
+      connection = getConnection();
+      statement = connection.createStatement();
+      statement.setQueryTimeout(5);
+
+      SnowflakeAsyncQuery query = statement.unwrap(SnowflakeStatement.class)
+          .executeAsyncQuery(
+              "SELECT count(*) FROM TABLE(generator(timeLimit => 120))");
+      try
+      {
+        query.getResultSet().get(60, TimeUnit.SECONDS);
+        fail("should be canceled");
+      }
+      catch (ExecutionException ex)
+      {
+        assertTrue(ex.getCause() instanceof SQLException);
+        assertEquals("sqlstate mismatch", SqlState.QUERY_CANCELED,
+                     ((SQLException) ex.getCause()).getSQLState());
+      }
+    }
+    finally
+    {
+      closeSQLObjects(statement, connection);
+    }
+  }
+
   /**
    * SNOW-14774: timestamp_ntz value should use client time zone to adjust
    * the epoch time.
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import net.snowflake.client.core.ObjectMapperFactory;
+import net.snowflake.client.core.QueryResultFormat;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SnowflakeResultPartitionTest
+{
+  private static final String QUERY_ID =
+      "01a2b3c4-0000-1111-0000-000000000001";
+
+  private static SnowflakeResultPartition serializeAndRead(
+      SnowflakeResultPartition partition) throws Exception
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+    {
+      out.writeObject(partition);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray())))
+    {
+      return (SnowflakeResultPartition) in.readObject();
+    }
+  }
+
+  private static SnowflakeResultPartition newPartition(int index,
+                                                       String url,
+                                                       JsonNode jsonRowset)
+  {
+    SnowflakeColumnMetadata column =
+        new SnowflakeColumnMetadata("C1", Types.VARCHAR, true, 16, 0, 0,
+                                    "VARCHAR", false, SnowflakeType.TEXT,
+                                    "DB", "SCHEMA", "T1");
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("TIMEZONE", "UTC");
+    return new SnowflakeResultPartition(
+        QUERY_ID, QueryResultFormat.JSON, index,
+        jsonRowset == null ? 100 : jsonRowset.size(), url, 4096, "qrmk",
+        Collections.singletonMap("x-amz-server-side-encryption", "AES256"),
+        60000, null, jsonRowset, Collections.singletonList(column), parameters, 1);
+  }
+
+  @Test
+  public void testJsonRowsetSerializedAsText() throws Exception
+  {
+    JsonNode rows = ObjectMapperFactory.getObjectMapper()
+        .readTree("[[\"a\"],[\"b\"],[null]]");
+    SnowflakeResultPartition partition = newPartition(0, null, rows);
+
+    SnowflakeResultPartition copy = serializeAndRead(partition);
+
+    assertFalse(copy.isRemote());
+    assertNull(copy.getJsonRowset());
+    assertEquals(rows,
+                 ObjectMapperFactory.getObjectMapper()
+                     .readTree(copy.getRowset()));
+    assertEquals(3, copy.getRowCount());
+  }
+
+  @Test
+  public void testRemotePartitionRoundTrip() throws Exception
+  {
+    SnowflakeResultPartition copy = serializeAndRead(
+        newPartition(2, "https://stage/results/data_0_0_1", null));
+
+    assertTrue(copy.isRemote());
+    assertEquals(QUERY_ID, copy.getQueryId());
+    assertEquals(QueryResultFormat.JSON, copy.getQueryResultFormat());
+    assertEquals(2, copy.getIndex());
+    assertEquals(100, copy.getRowCount());
+    assertEquals("https://stage/results/data_0_0_1", copy.getUrl());
+    assertEquals(4096, copy.getUncompressedSize());
+    assertEquals("qrmk", copy.getQrmk());
+    assertEquals("AES256",
+                 copy.getChunkHeaders().get("x-amz-server-side-encryption"));
+    assertEquals(60000, copy.getNetworkTimeoutInMilli());
+    assertNull(copy.getRowset());
+    assertEquals("C1", copy.getColumnMetadata().get(0).getName());
+    assertEquals(SnowflakeType.TEXT, copy.getColumnMetadata().get(0).getBase());
+    assertEquals("UTC", copy.getParameters().get("TIMEZONE"));
+    assertEquals(1, copy.getResultVersion());
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2012-2019 Snowflake Computing Inc. All rights reserved.
+ */
+
+package net.snowflake.client.jdbc;
+
+import net.snowflake.client.core.QueryResultFormat;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SnowflakeResultSpliteratorTest
+{
+  private static List<SnowflakeResultPartition> newPartitions(int... rowCounts)
+  {
+    List<SnowflakeResultPartition> partitions = new ArrayList<>();
+    for (int i = 0; i < rowCounts.length; i++)
+    {
+      partitions.add(new SnowflakeResultPartition(
+          "queryId", QueryResultFormat.ARROW, i, rowCounts[i],
+          i == 0 ? null : "https://stage/results/data_0_0_" + i, 1024,
+          null, Collections.emptyMap(), 0, null, null,
+          Collections.emptyList(), Collections.emptyMap(), 1));
+    }
+    return partitions;
+  }
+
+  @Test
+  public void testSplitAtPartitionBoundaries()
+  {
+    SnowflakeResultSpliterator<Object> spliterator =
+        new SnowflakeResultSpliterator<>(newPartitions(10, 20, 30, 40, 50),
+                                         resultSet -> null, true);
+    assertEquals(150, spliterator.estimateSize());
+
+    Spliterator<Object> prefix = spliterator.trySplit();
+    assertEquals(30, prefix.estimateSize());
+    assertEquals(120, spliterator.estimateSize());
+
+    Spliterator<Object> single = prefix.trySplit();
+    assertEquals(10, single.estimateSize());
+    assertEquals(20, prefix.estimateSize());
+
+    // one partition left
+    assertNull(prefix.trySplit());
+    assertNull(single.trySplit());
+  }
+
+  @Test
+  public void testCharacteristics()
+  {
+    assertEquals(Spliterator.ORDERED,
+                 new SnowflakeResultSpliterator<>(newPartitions(1), rs -> null,
+                                                  true).characteristics());
+    assertEquals(0,
+                 new SnowflakeResultSpliterator<>(newPartitions(1), rs -> null,
+                                                  false).characteristics());
+  }
+
+  @Test
+  public void testUnknownRowCount()
+  {
+    // the rows of an Arrow response are only counted when read
+    SnowflakeResultSpliterator<Object> spliterator =
+        new SnowflakeResultSpliterator<>(newPartitions(-1, 20),
+                                         resultSet -> null, true);
+    assertEquals(Long.MAX_VALUE, spliterator.estimateSize());
+    spliterator.trySplit();
+    assertEquals(20, spliterator.estimateSize());
+  }
+}